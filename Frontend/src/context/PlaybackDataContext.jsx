@@ -8,6 +8,7 @@ import {
   getTestHistoriesFromData,
   getFailureHighlightsFromData
 } from '../utils/failureIntervals';
+import { createSnapshotResolver } from '../utils/diffUtils';
 
 /**
  * @typedef {Object} PlaybackDataContextValue
@@ -19,7 +20,7 @@ import {
  * @property {Map<string, import('../types').TestHistory>} testHistories - Map of test ID to history
  * @property {import('../types').FailureHighlights} failureHighlights - Categorized failure highlights
  * @property {Map<string, import('../types').Feedback>} feedbackMap - Map of test ID to feedback
- * @property {Map<number, import('../types').CodeSnapshot>} codeSnapshotsByRun - Map of run number to code snapshot
+ * @property {Map<number, import('../types').CodeSnapshot>} codeSnapshotsByRun - Map of run number to code snapshot (files always in full)
  * @property {import('../types').SubmissionContext | null} context - Submission context info
  * @property {boolean} loading - Whether data is loading
  * @property {Error | null} error - Error if data loading failed
@@ -127,11 +128,19 @@ export function PlaybackDataProvider({ children, submissionId, useMock = true, j
       });
     }
 
-    // Build code snapshots map (runNumber -> CodeSnapshot)
+    // Build code snapshots map (runNumber -> CodeSnapshot).
+    // Files are resolved on access, so keyframe + delta output is only
+    // rebuilt for the runs actually viewed.
     const codeSnapshotsByRun = new Map();
     if (frontendData.codeSnapshots) {
-      frontendData.codeSnapshots.forEach(snapshot => {
-        codeSnapshotsByRun.set(snapshot.runNumber, snapshot);
+      const resolveSnapshot = createSnapshotResolver(frontendData.codeSnapshots);
+      frontendData.codeSnapshots.forEach((snapshot, index) => {
+        codeSnapshotsByRun.set(snapshot.runNumber, {
+          runNumber: snapshot.runNumber,
+          get files() {
+            return resolveSnapshot(index).files;
+          }
+        });
       });
     }
 
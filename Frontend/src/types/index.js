@@ -155,17 +155,28 @@
  * @property {string[]} costlyDetours - Test IDs of tests that were costly detours
  */
 
+/**
+ * @typedef {Object} LineEdit
+ * @property {number} start - 0-based line index, after earlier edits are applied
+ * @property {number} deleteCount - Lines removed at start
+ * @property {string[]} lines - Lines inserted at start
+ */
+
 /**
  * @typedef {Object} FileContent
  * @property {string} name - e.g., "BinarySearchTree.java"
  * @property {string} language - e.g., "java"
- * @property {string} content - Full file content
+ * @property {string} [content] - Full file content (absent when edits is set)
+ * @property {LineEdit[]} [edits] - Delta snapshots only: changes since the previous snapshot
  */
 
 /**
  * @typedef {Object} CodeSnapshot
  * @property {number} runNumber
  * @property {FileContent[]} files
+ * @property {boolean} [keyframe] - Set in keyframe + delta output; false marks a delta
+ *   holding only changed files (see createSnapshotResolver in utils/diffUtils)
+ * @property {string[]} [removedFiles] - Delta snapshots only: files gone since the previous snapshot
  */
 
 /**
@@ -164,3 +164,108 @@ export function createSplitDiff(oldCode, newCode) {
   
   return { left, right };
 }
+
+/**
+ * Apply the line edits of a delta code snapshot to a file's previous lines.
+ * Edits are applied in order; each replaces deleteCount lines at start.
+ * @param {string[]} lines - Previous version's lines (not modified)
+ * @param {import('../types').LineEdit[]} edits
+ * @returns {string[]} The new version's lines
+ */
+export function applyLineEdits(lines, edits) {
+  const result = lines.slice();
+  for (const edit of edits) {
+    result.splice(edit.start, edit.deleteCount, ...edit.lines);
+  }
+  return result;
+}
+
+/**
+ * Create a resolver that rebuilds full code snapshots from pipeline output
+ * written as keyframes plus deltas (snapshots with keyframe === false hold
+ * only edits against the previous snapshot). Snapshots without a keyframe
+ * flag are already full and are returned as-is.
+ *
+ * Seeking replays at most the deltas since the nearest keyframe; stepping
+ * forward within a keyframe's range continues from the last resolved run.
+ *
+ * @param {import('../types').CodeSnapshot[]} codeSnapshots - In run order
+ * @returns {(index: number) => import('../types').CodeSnapshot} Full snapshot at an index
+ */
+export function createSnapshotResolver(codeSnapshots) {
+  const snapshots = codeSnapshots || [];
+
+  // Index of the keyframe each snapshot is rebuilt from
+  const keyframeOf = [];
+  let lastKeyframe = 0;
+  snapshots.forEach((snapshot, i) => {
+    if (snapshot.keyframe !== false) {
+      lastKeyframe = i;
+    }
+    keyframeOf.push(lastKeyframe);
+  });
+
+  // Recently resolved snapshots ({ index, files, snapshot }), newest last.
+  // Two entries cover playback, which resolves the current and previous run.
+  const recent = [];
+
+  const applyDelta = (files, snapshot) => {
+    const next = new Map(files);
+    for (const name of snapshot.removedFiles || []) {
+      next.delete(name);
+    }
+    for (const file of snapshot.files) {
+      const lines = file.edits
+        ? applyLineEdits(files.get(file.name).lines, file.edits)
+        : file.content.split('\n');
+      next.set(file.name, { name: file.name, language: file.language, lines });
+    }
+    return next;
+  };
+
+  return (index) => {
+    const snapshot = snapshots[index];
+    if (snapshot.keyframe === undefined) {
+      return snapshot;
+    }
+    const hit = recent.find(entry => entry.index === index);
+    if (hit) {
+      return hit.snapshot;
+    }
+
+    // Start from the closest earlier resolved run in the same keyframe range, else the keyframe
+    const start = recent
+      .filter(entry => entry.index < index && keyframeOf[entry.index] === keyframeOf[index])
+      .reduce((best, entry) => (!best || entry.index > best.index ? entry : best), null);
+
+    let files;
+    let from;
+    if (start) {
+      files = start.files;
+      from = start.index + 1;
+    } else {
+      const keyframe = snapshots[keyframeOf[index]];
+      files = new Map(keyframe.files.map(f => [f.name, {
+        name: f.name,
+        language: f.language,
+        lines: f.content.split('\n')
+      }]));
+      from = keyframeOf[index] + 1;
+    }
+    for (let i = from; i <= index; i++) {
+      files = applyDelta(files, snapshots[i]);
+    }
+
+    const resolved = {
+      runNumber: snapshot.runNumber,
+      files: [...files.values()]
+        .sort((a, b) => (a.name < b.name ? -1 : a.name > b.name ? 1 : 0))
+        .map(f => ({ name: f.name, language: f.language, content: f.lines.join('\n') }))
+    };
+    recent.push({ index, files, snapshot: resolved });
+    if (recent.length > 2) {
+      recent.shift();
+    }
+    return resolved;
+  };
+}
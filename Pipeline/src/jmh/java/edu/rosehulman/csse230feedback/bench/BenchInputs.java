@@ -0,0 +1,67 @@
+package edu.rosehulman.csse230feedback.bench;
+
+import edu.rosehulman.csse230feedback.data.RunTarExtractor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Shared setup for the benchmarks: a generated run.tar in a scratch directory, optionally extracted.
+ */
+final class BenchInputs {
+
+    static final int MAX_FILES = 1_000_000;
+    static final long MAX_BYTES = Long.MAX_VALUE;
+
+    final Path dir;
+    final Path runTar;
+
+    private BenchInputs(Path dir, Path runTar) {
+        this.dir = dir;
+        this.runTar = runTar;
+    }
+
+    static BenchInputs generate(SyntheticRunTarGenerator.Config config) throws IOException {
+        Path dir = Files.createTempDirectory("csse230-bench-");
+        Path runTar = dir.resolve("run.tar");
+        SyntheticRunTarGenerator.generate(config, runTar);
+        return new BenchInputs(dir, runTar);
+    }
+
+    /** Extracts the run.tar into {@code <dir>/extracted} and returns the extraction result. */
+    RunTarExtractor.ExtractResult extract() throws IOException {
+        List<String> warnings = new ArrayList<>();
+        RunTarExtractor.ExtractResult result = new RunTarExtractor(MAX_FILES, MAX_BYTES)
+                .extract(runTar, Files.createDirectories(dir.resolve("extracted")), warnings);
+        if (!warnings.isEmpty()) {
+            throw new IllegalStateException("Unexpected extraction warnings: " + warnings);
+        }
+        return result;
+    }
+
+    Path scratch(String name) throws IOException {
+        Path p = dir.resolve(name);
+        deleteRecursively(p);
+        return Files.createDirectories(p);
+    }
+
+    void close() throws IOException {
+        deleteRecursively(dir);
+    }
+
+    static void deleteRecursively(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(root)) {
+            for (Path p : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(p);
+            }
+        }
+    }
+}
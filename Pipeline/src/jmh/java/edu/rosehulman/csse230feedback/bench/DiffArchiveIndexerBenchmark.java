@@ -0,0 +1,63 @@
+package edu.rosehulman.csse230feedback.bench;
+
+import edu.rosehulman.csse230feedback.data.DiffArchiveIndexer;
+import edu.rosehulman.csse230feedback.model.DiffArchiveInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashing and indexing every diff archive of an extracted run.tar, serially and in parallel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DiffArchiveIndexerBenchmark {
+
+    @Param({"1000"})
+    public int runs;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private BenchInputs inputs;
+    private List<Path> archives;
+    private Path indexDir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        inputs = BenchInputs.generate(SyntheticRunTarGenerator.Config.defaults().withRuns(runs));
+        archives = inputs.extract().diffArchivePaths();
+        indexDir = inputs.scratch("index");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        inputs.close();
+    }
+
+    @Benchmark
+    public List<DiffArchiveInfo> indexAll() throws IOException {
+        List<String> warnings = new ArrayList<>();
+        return new DiffArchiveIndexer(parallelism).indexAll(archives, indexDir.resolve("diff_index.json"), warnings);
+    }
+}
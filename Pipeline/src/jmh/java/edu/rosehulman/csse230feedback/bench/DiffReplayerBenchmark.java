@@ -0,0 +1,98 @@
+package edu.rosehulman.csse230feedback.bench;
+
+import com.github.difflib.DiffUtils;
+import helpers.DiffReplayer;
+import helpers.FastDiffReplayer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replaying one baseline-relative patch: the DiffUtils-based DiffReplayer against the byte-scanning
+ * FastDiffReplayer, with and without its strict verification.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DiffReplayerBenchmark {
+
+    @Param({"200", "2000"})
+    public int lines;
+
+    @Param({"5", "50"})
+    public int edits;
+
+    private Path dir;
+    private Path baseline;
+    private Path patch;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Random random = new Random(230L);
+        List<String> original = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            original.add("        int value" + i + " = node.height(" + random.nextInt(100) + ");");
+        }
+        List<String> revised = new ArrayList<>(original);
+        for (int e = 0; e < edits; e++) {
+            int at = random.nextInt(revised.size());
+            switch (random.nextInt(3)) {
+                case 0 -> revised.add(at, "        // edit " + e);
+                case 1 -> revised.remove(at);
+                default -> revised.set(at, "        size += " + e + ";");
+            }
+        }
+
+        dir = Files.createTempDirectory("csse230-replay-");
+        baseline = dir.resolve("baseline");
+        patch = dir.resolve("patch");
+        Files.write(baseline, original, StandardCharsets.UTF_8);
+        Files.writeString(patch, SyntheticRunTarGenerator.buildDiffOutputString(
+                DiffUtils.diff(original, revised).getDeltas()), StandardCharsets.UTF_8);
+
+        if (!DiffReplayer.replay(baseline, patch).equals(FastDiffReplayer.replay(baseline, patch))) {
+            throw new IllegalStateException("Replayers disagree");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchInputs.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public List<String> diffReplayer() throws Exception {
+        return DiffReplayer.replay(baseline, patch);
+    }
+
+    @Benchmark
+    public List<String> fastReplayer() throws Exception {
+        return FastDiffReplayer.replay(baseline, patch, false);
+    }
+
+    @Benchmark
+    public List<String> fastReplayerStrict() throws Exception {
+        return FastDiffReplayer.replay(baseline, patch, true);
+    }
+}
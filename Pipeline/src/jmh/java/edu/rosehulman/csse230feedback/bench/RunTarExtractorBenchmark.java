@@ -0,0 +1,71 @@
+package edu.rosehulman.csse230feedback.bench;
+
+import edu.rosehulman.csse230feedback.data.RunTarExtractor;
+import edu.rosehulman.csse230feedback.data.StreamingRunTarIngestor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extracting a run.tar to disk, and the single-pass streaming ingest (hash, copy and index).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RunTarExtractorBenchmark {
+
+    @Param({"200", "1000"})
+    public int runs;
+
+    private BenchInputs inputs;
+    private Path target;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        inputs = BenchInputs.generate(SyntheticRunTarGenerator.Config.defaults().withRuns(runs));
+    }
+
+    @Setup(Level.Iteration)
+    public void cleanTarget() throws IOException {
+        target = inputs.scratch("target");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        inputs.close();
+    }
+
+    @Benchmark
+    public RunTarExtractor.ExtractResult extract() throws IOException {
+        List<String> warnings = new ArrayList<>();
+        return new RunTarExtractor(BenchInputs.MAX_FILES, BenchInputs.MAX_BYTES)
+                .extract(inputs.runTar, target.resolve("extracted"), warnings);
+    }
+
+    @Benchmark
+    public StreamingRunTarIngestor.StreamResult streamingIngest() throws IOException {
+        List<String> warnings = new ArrayList<>();
+        return new StreamingRunTarIngestor(BenchInputs.MAX_FILES, BenchInputs.MAX_BYTES)
+                .ingest(inputs.runTar, target.resolve("extracted"), target.resolve("archives"),
+                        target.resolve("diff_index.json"), warnings);
+    }
+}
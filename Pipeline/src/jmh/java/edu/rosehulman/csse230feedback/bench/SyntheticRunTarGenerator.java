@@ -0,0 +1,414 @@
+package edu.rosehulman.csse230feedback.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.difflib.DiffUtils;
+import com.github.difflib.algorithm.DiffException;
+import com.github.difflib.patch.AbstractDelta;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes synthetic run.tar files in the layout LoggingExtension produces, for benchmarks and
+ * load testing.
+ *
+ * Every run edits some of the simulated student files and records them the way the logger does:
+ * the first run of an archive stores each file as a baseline plus a "File created!" patch, later
+ * runs store a baseline-relative diff for every file that differs from its baseline, and once the
+ * patches in the current archive pass the rebaseline size the next run starts a new
+ * diffs_&lt;run&gt;_.tar.zip. Test results are written to testRunInfo.json as "STATUS" or
+ * "STATUS: cause" strings, matching the run.tar files in testInputs.
+ *
+ * Output depends only on the configuration (including the seed), so benchmark inputs are stable
+ * between runs.
+ */
+@Command(
+        name = "synthetic-run-tar",
+        mixinStandardHelpOptions = true,
+        description = "Generates a synthetic run.tar in the format written by LoggingExtension."
+)
+public class SyntheticRunTarGenerator implements Callable<Integer> {
+
+    /** Matches LoggingExtension.REBASELINE_SIZE. */
+    public static final long DEFAULT_REBASELINE_BYTES = 10L * 1024;
+
+    private static final String FILE_CREATED = "File created!";
+    private static final String DIFFS_ENTRY = "diffs";
+    private static final String TEST_RUN_INFO = "testRunInfo.json";
+    private static final String ERROR_LOGS = "error-logs.txt";
+    private static final long FIRST_RUN_MILLIS = Timestamp.valueOf("2026-01-19 05:00:00").getTime();
+
+    public record Config(
+            int runs,
+            int files,
+            int linesPerFile,
+            int editsPerRun,
+            double fileChangeProbability,
+            long rebaselineBytes,
+            int testClasses,
+            int testsPerClass,
+            double failureRate,
+            long seed
+    ) {
+        public Config {
+            if (runs < 1 || files < 1 || linesPerFile < 4 || testClasses < 0 || testsPerClass < 0) {
+                throw new IllegalArgumentException("runs and files must be positive, linesPerFile at least 4 and test counts non-negative");
+            }
+        }
+
+        public static Config defaults() {
+            return new Config(200, 8, 120, 3, 0.4, DEFAULT_REBASELINE_BYTES, 3, 12, 0.3, 230L);
+        }
+
+        public Config withRuns(int newRuns) {
+            return new Config(newRuns, files, linesPerFile, editsPerRun, fileChangeProbability,
+                    rebaselineBytes, testClasses, testsPerClass, failureRate, seed);
+        }
+
+        public Config withFiles(int newFiles) {
+            return new Config(runs, newFiles, linesPerFile, editsPerRun, fileChangeProbability,
+                    rebaselineBytes, testClasses, testsPerClass, failureRate, seed);
+        }
+    }
+
+    /** What was written, for callers that want to sanity-check the output. */
+    public record Summary(int runs, int archives, int patches, long bytes) {}
+
+    @Option(names = {"-o", "--out"}, required = true, description = "Output run.tar path.")
+    private Path out;
+
+    @Option(names = {"-n", "--runs"}, description = "Number of test runs (default: ${DEFAULT-VALUE}).")
+    private int runs = Config.defaults().runs();
+
+    @Option(names = {"--files"}, description = "Number of student source files (default: ${DEFAULT-VALUE}).")
+    private int files = Config.defaults().files();
+
+    @Option(names = {"--lines"}, description = "Initial lines per source file (default: ${DEFAULT-VALUE}).")
+    private int linesPerFile = Config.defaults().linesPerFile();
+
+    @Option(names = {"--edits"}, description = "Line edits applied to each changed file per run (default: ${DEFAULT-VALUE}).")
+    private int editsPerRun = Config.defaults().editsPerRun();
+
+    @Option(names = {"--change-probability"}, description = "Chance that a file is edited in a run (default: ${DEFAULT-VALUE}).")
+    private double fileChangeProbability = Config.defaults().fileChangeProbability();
+
+    @Option(names = {"--rebaseline-bytes"}, description = "Patch bytes per archive before rebaselining (default: ${DEFAULT-VALUE}).")
+    private long rebaselineBytes = Config.defaults().rebaselineBytes();
+
+    @Option(names = {"--test-classes"}, description = "Number of test classes (default: ${DEFAULT-VALUE}).")
+    private int testClasses = Config.defaults().testClasses();
+
+    @Option(names = {"--tests-per-class"}, description = "Test methods per class (default: ${DEFAULT-VALUE}).")
+    private int testsPerClass = Config.defaults().testsPerClass();
+
+    @Option(names = {"--failure-rate"}, description = "Chance that a test fails in the first run; decays over the session (default: ${DEFAULT-VALUE}).")
+    private double failureRate = Config.defaults().failureRate();
+
+    @Option(names = {"--seed"}, description = "Random seed (default: ${DEFAULT-VALUE}).")
+    private long seed = Config.defaults().seed();
+
+    public static void main(String[] args) {
+        System.exit(new CommandLine(new SyntheticRunTarGenerator()).execute(args));
+    }
+
+    @Override
+    public Integer call() throws Exception {
+        Config config = new Config(runs, files, linesPerFile, editsPerRun, fileChangeProbability,
+                rebaselineBytes, testClasses, testsPerClass, failureRate, seed);
+        Summary summary = generate(config, out);
+        System.out.println("Wrote " + out + ": " + summary.runs() + " runs, " + summary.archives()
+                + " diff archives, " + summary.patches() + " patches, " + summary.bytes() + " bytes");
+        return 0;
+    }
+
+    private record SourceFile(String packageName, String className, List<String> lines) {
+        String fileKey() {
+            return packageName + "." + className;
+        }
+    }
+
+    /**
+     * Simulates {@code config.runs()} runs and writes the resulting run.tar to {@code out}.
+     */
+    public static Summary generate(Config config, Path out) throws IOException {
+        Random random = new Random(config.seed());
+        List<SourceFile> sources = initialSources(config, random);
+
+        // Current archive contents, as LoggingExtension keeps them in its diffs folder.
+        Map<String, String> baselines = new TreeMap<>();
+        Map<String, String> patches = new TreeMap<>();
+        long patchBytes = 0L;
+        int prevBaselineRun = 0;
+        boolean rebaselining = false;
+        int patchCount = 0;
+
+        Map<String, byte[]> archives = new LinkedHashMap<>();
+        Map<Integer, String> runTimes = new LinkedHashMap<>();
+        long clock = FIRST_RUN_MILLIS;
+
+        for (int run = 1; run <= config.runs(); run++) {
+            if (run > 1) {
+                for (SourceFile f : sources) {
+                    if (random.nextDouble() < config.fileChangeProbability()) {
+                        edit(f, config.editsPerRun(), run, random);
+                    }
+                }
+            }
+
+            if (rebaselining) {
+                baselines.clear();
+                patches.clear();
+                patchBytes = 0L;
+            }
+
+            for (SourceFile f : sources) {
+                String patchName = "patches/" + f.fileKey() + "_" + run;
+                String baseline = baselines.get(f.fileKey());
+                String patch;
+                if (baseline == null) {
+                    baselines.put(f.fileKey(), joinLines(f.lines()));
+                    patch = FILE_CREATED;
+                } else {
+                    List<AbstractDelta<String>> deltas = diff(baseline, f.lines());
+                    if (deltas.isEmpty()) {
+                        continue;
+                    }
+                    patch = buildDiffOutputString(deltas);
+                }
+                patches.put(patchName, patch);
+                patchBytes += patch.getBytes(StandardCharsets.UTF_8).length;
+                patchCount++;
+            }
+
+            if (rebaselining) {
+                prevBaselineRun = run;
+                rebaselining = false;
+            }
+            if (patchBytes > config.rebaselineBytes()) {
+                rebaselining = true;
+            }
+
+            archives.put("diffs_" + prevBaselineRun + "_.tar.zip", zipDiffs(baselines, patches));
+
+            clock += 30_000L + (long) random.nextInt(15 * 60_000);
+            runTimes.put(run, new Timestamp(clock).toString());
+        }
+
+        byte[] testRunInfo = testRunInfo(config, runTimes, prevBaselineRun, rebaselining, random);
+
+        Map<String, byte[]> members = new LinkedHashMap<>(archives);
+        members.put(TEST_RUN_INFO, testRunInfo);
+        members.put(ERROR_LOGS, new byte[0]);
+
+        long bytes = writeRunTar(out, members);
+        return new Summary(config.runs(), archives.size(), patchCount, bytes);
+    }
+
+    private static List<SourceFile> initialSources(Config config, Random random) {
+        List<SourceFile> sources = new ArrayList<>();
+        for (int i = 0; i < config.files(); i++) {
+            String className = "Student" + i;
+            // File 0 lives in the default package, where the logger uses the file name as the package.
+            String packageName = i == 0 ? className + ".java" : "pkg" + (i % 3);
+            List<String> lines = new ArrayList<>();
+            if (i != 0) {
+                lines.add("package " + packageName + ";");
+                lines.add("");
+            }
+            lines.add("public class " + className + " {");
+            while (lines.size() < config.linesPerFile() - 1) {
+                lines.add(randomStatement(random, lines.size()));
+            }
+            lines.add("}");
+            sources.add(new SourceFile(packageName, className, lines));
+        }
+        return sources;
+    }
+
+    private static void edit(SourceFile f, int edits, int run, Random random) {
+        List<String> lines = f.lines();
+        for (int e = 0; e < edits; e++) {
+            // Keep the header and the closing brace in place.
+            int first = Math.min(3, lines.size() - 1);
+            int last = lines.size() - 1;
+            int at = first + random.nextInt(Math.max(1, last - first));
+            int op = random.nextInt(3);
+            if (op == 0 || last - first < 2) {
+                lines.add(at, randomStatement(random, run));
+            } else if (op == 1) {
+                lines.remove(at);
+            } else {
+                lines.set(at, randomStatement(random, run));
+            }
+        }
+    }
+
+    private static String randomStatement(Random random, int salt) {
+        return switch (random.nextInt(5)) {
+            case 0 -> "    private int field" + salt + " = " + random.nextInt(100) + ";";
+            case 1 -> "    // TODO handle case " + random.nextInt(1000);
+            case 2 -> "        if (node.left == null) return " + random.nextInt(10) + ";";
+            case 3 -> "        size += node.height(" + random.nextInt(50) + ");";
+            default -> "";
+        };
+    }
+
+    private static List<AbstractDelta<String>> diff(String baseline, List<String> revised) throws IOException {
+        try {
+            return DiffUtils.diff(baseline.lines().toList(), revised).getDeltas();
+        } catch (DiffException e) {
+            throw new IOException("DiffException: " + e.getMessage(), e);
+        }
+    }
+
+    private static String joinLines(List<String> lines) {
+        return String.join("\n", lines) + "\n";
+    }
+
+    /** Same text format as LoggingExtension.buildDiffOutputString. */
+    static String buildDiffOutputString(List<AbstractDelta<String>> deltas) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(deltas.size()).append(";\n");
+        for (AbstractDelta<String> delta : deltas) {
+            sb.append(delta.getType()).append("\n");
+            sb.append(delta.getSource().getPosition()).append(",")
+                    .append(delta.getTarget().getPosition()).append("\n");
+            List<String> sourceLines = delta.getSource().getLines();
+            sb.append(sourceLines.size()).append(",\n");
+            for (String line : sourceLines) {
+                sb.append(line).append("\n");
+            }
+            List<String> targetLines = delta.getTarget().getLines();
+            sb.append(targetLines.size()).append(",\n");
+            for (String line : targetLines) {
+                sb.append(line).append("\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    private static byte[] zipDiffs(Map<String, String> baselines, Map<String, String> patches) throws IOException {
+        ByteArrayOutputStream tarBytes = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tOut = new TarArchiveOutputStream(tarBytes)) {
+            tOut.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            for (Map.Entry<String, String> e : baselines.entrySet()) {
+                putTarEntry(tOut, "baselines/" + e.getKey(), e.getValue().getBytes(StandardCharsets.UTF_8));
+            }
+            for (Map.Entry<String, String> e : patches.entrySet()) {
+                putTarEntry(tOut, e.getKey(), e.getValue().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        ByteArrayOutputStream zipBytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(zipBytes)) {
+            zos.putNextEntry(new ZipEntry(DIFFS_ENTRY));
+            tarBytes.writeTo(zos);
+            zos.closeEntry();
+        }
+        return zipBytes.toByteArray();
+    }
+
+    private static void putTarEntry(TarArchiveOutputStream tOut, String name, byte[] content) throws IOException {
+        TarArchiveEntry entry = new TarArchiveEntry(name);
+        entry.setSize(content.length);
+        tOut.putArchiveEntry(entry);
+        tOut.write(content);
+        tOut.closeArchiveEntry();
+    }
+
+    private static byte[] testRunInfo(Config config, Map<Integer, String> runTimes, int prevBaselineRun,
+                                      boolean rebaselining, Random random) throws IOException {
+        ObjectMapper om = new ObjectMapper();
+        ObjectNode root = om.createObjectNode();
+        root.put("schema_version", 1.0);
+        root.put("prevRunNumber", config.runs());
+        ObjectNode times = root.putObject("runTimes");
+        runTimes.forEach((run, time) -> times.put(Integer.toString(run), time));
+        root.put("redactDiffs", false);
+        root.put("rebaselining", rebaselining);
+        root.put("prevBaselineRunNumber", prevBaselineRun);
+        root.put("skipLogging", false);
+        root.putObject("strikes").put("0", false);
+        root.put("randomSeed", random.nextInt());
+
+        for (int c = 0; c < config.testClasses(); c++) {
+            ObjectNode testClass = root.putObject("StudentTest" + c);
+            for (int t = 0; t < config.testsPerClass(); t++) {
+                ObjectNode test = testClass.putObject("test" + c + "_" + t + "()");
+                // Failures get rarer as the session goes on, like a student fixing bugs.
+                double bias = random.nextDouble();
+                for (int run = 1; run <= config.runs(); run++) {
+                    double progress = (double) (run - 1) / Math.max(1, config.runs() - 1);
+                    double failChance = config.failureRate() * (1.0 - progress) + 0.02 * bias;
+                    String status = random.nextDouble() < failChance
+                            ? "FAILED: org.opentest4j.AssertionFailedError: expected: <" + t
+                              + "> but was: <" + random.nextInt(10) + ">"
+                            : "SUCCESSFUL";
+                    test.put(Integer.toString(run), status);
+                }
+            }
+        }
+        return om.writerWithDefaultPrettyPrinter().writeValueAsBytes(root);
+    }
+
+    /**
+     * Writes the run.tar members in the order testSupport.FilenameComparator gives them: even-numbered
+     * diff archives, testRunInfo.json, odd-numbered diff archives, then error-logs.txt.
+     */
+    private static long writeRunTar(Path out, Map<String, byte[]> members) throws IOException {
+        List<String> names = new ArrayList<>(members.keySet());
+        names.sort(Comparator.comparingInt(SyntheticRunTarGenerator::memberScore)
+                .thenComparing(Comparator.naturalOrder()));
+
+        Path parent = out.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = parent.resolve(out.getFileName() + ".tmp");
+        try (OutputStream fout = Files.newOutputStream(tmp);
+             TarArchiveOutputStream tOut = new TarArchiveOutputStream(new BufferedOutputStream(fout))) {
+            tOut.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            for (String name : names) {
+                putTarEntry(tOut, name, members.get(name));
+            }
+        }
+        Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return Files.size(out);
+    }
+
+    private static final Pattern FIRST_NUMBER = Pattern.compile("\\d+");
+
+    private static int memberScore(String name) {
+        if (name.startsWith("diffs_")) {
+            Matcher m = FIRST_NUMBER.matcher(name);
+            return m.find() && Integer.parseInt(m.group()) % 2 == 0 ? -20 : -10;
+        }
+        if (name.equals(TEST_RUN_INFO)) {
+            return -15;
+        }
+        return name.equals(ERROR_LOGS) ? -5 : 0;
+    }
+}
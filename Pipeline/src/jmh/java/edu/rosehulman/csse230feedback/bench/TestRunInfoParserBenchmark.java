@@ -0,0 +1,61 @@
+package edu.rosehulman.csse230feedback.bench;
+
+import edu.rosehulman.csse230feedback.data.TestRunInfoParser;
+import edu.rosehulman.csse230feedback.model.RunRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing testRunInfo.json into run records, for short and long sessions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TestRunInfoParserBenchmark {
+
+    @Param({"200", "2000"})
+    public int runs;
+
+    private BenchInputs inputs;
+    private Path testRunInfo;
+    private final TestRunInfoParser parser = new TestRunInfoParser();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Test results dominate this file; keep the source side small so setup stays quick.
+        inputs = BenchInputs.generate(SyntheticRunTarGenerator.Config.defaults().withRuns(runs).withFiles(2));
+        inputs.extract();
+        testRunInfo = inputs.dir.resolve("extracted").resolve("testRunInfo.json");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        inputs.close();
+    }
+
+    @Benchmark
+    public List<RunRecord> parse() throws IOException {
+        List<String> warnings = new ArrayList<>();
+        return parser.parse(testRunInfo, warnings);
+    }
+}
@@ -0,0 +1,78 @@
+package edu.rosehulman.csse230feedback.cli;
+
+import edu.rosehulman.csse230feedback.domain.CompactOptions;
+import edu.rosehulman.csse230feedback.domain.CompactResult;
+import edu.rosehulman.csse230feedback.domain.CompactService;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+@Command(
+        name = "compact",
+        mixinStandardHelpOptions = true,
+        description = "Rewrites a student's diff archives into one chained pack with periodic keyframes."
+)
+public class CompactCommand implements Callable<Integer> {
+
+    @Option(names = {"-i", "--input"}, required = true, description = "Ingest output directory (contains archives/, patches_index.jsonl).")
+    private Path input;
+
+    @Option(names = {"--keyframe-interval"}, description = "Store a file in full every K versions and as a delta on the previous version in between (default: 16).")
+    private int keyframeInterval = 16;
+
+    @Option(names = {"--remove-archives"}, description = "After verifying the chained pack, delete the archives (and their packs) it fully replaces.")
+    private boolean removeArchives;
+
+    @Option(names = {"--starter"}, description = "Assignment starter file or directory (repeatable); entries are compressed with a preset dictionary built from them.")
+    private List<Path> starters = new ArrayList<>();
+
+    @Option(names = {"--dictionary-root"}, description = "Directory whose dictionaries/ holds the assignment's shared dictionary (default: parent of --input). With --remove-archives a copy is also kept in the student's archives/.")
+    private Path dictionaryRoot;
+
+    @Override
+    public Integer call() throws Exception {
+        if (!Files.isDirectory(input)) {
+            System.err.println("Input must be a directory: " + input);
+            return 2;
+        }
+        if (keyframeInterval < 1) {
+            System.err.println("--keyframe-interval must be >= 1");
+            return 2;
+        }
+
+        CompactService service = new CompactService();
+        CompactResult result = service.compact(
+                new CompactOptions(input, keyframeInterval, removeArchives, starters, dictionaryRoot));
+
+        System.out.println("Compact complete.");
+        System.out.println("  Files: " + result.files());
+        System.out.println("  Versions: " + result.versions() + " (" + result.keyframes() + " keyframes)");
+        if (result.dictionarySha256() != null) {
+            System.out.println("  Preset dictionary: " + result.dictionarySha256());
+        }
+        System.out.printf("  Archives: %,d bytes -> chained pack: %,d bytes (%.1f%% saved)%n",
+                result.archiveBytes(), result.packBytes(),
+                result.archiveBytes() == 0 ? 0.0 : 100.0 * (result.archiveBytes() - result.packBytes()) / result.archiveBytes());
+        if (result.worstCaseFileKey() != null) {
+            System.out.printf("  Worst-case read: %s at run %d, %d deltas over a keyframe, %,d bytes replayed, %.2f ms%n",
+                    result.worstCaseFileKey(), result.worstCaseRun(), result.worstCaseDeltas(),
+                    result.worstCaseRawBytes(), result.worstCaseReadMicros() / 1000.0);
+        }
+        if (removeArchives) {
+            System.out.println("  Archives removed: " + result.archivesRemoved());
+        }
+        if (!result.warnings().isEmpty()) {
+            System.out.println("  Warnings:");
+            for (String w : result.warnings()) {
+                System.out.println("    - " + w);
+            }
+        }
+
+        return 0;
+    }
+}
@@ -0,0 +1,91 @@
+package edu.rosehulman.csse230feedback.cli;
+
+import edu.rosehulman.csse230feedback.domain.BatchIngestOptions;
+import edu.rosehulman.csse230feedback.domain.BatchIngestResult;
+import edu.rosehulman.csse230feedback.domain.BatchIngestService;
+import edu.rosehulman.csse230feedback.model.BatchManifest;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+
+@Command(
+        name = "ingest-batch",
+        mixinStandardHelpOptions = true,
+        description = "Ingests every student repo (or <student>.tar) in a directory concurrently, one output directory per student."
+)
+public class IngestBatchCommand implements Callable<Integer> {
+
+    @Option(names = {"-i", "--input"}, required = true,
+            description = "Directory containing student repos (each with run.tar) and/or <student>.tar files.")
+    private Path input;
+
+    @Option(names = {"-o", "--out"}, required = true,
+            description = "Output directory; each student is written to <out>/<student>.")
+    private Path out;
+
+    @Option(names = {"--work"}, description = "Working directory root (default: <out>/<student>/work).")
+    private Path work;
+
+    @Option(names = {"-j", "--workers"}, description = "Number of students ingested concurrently (default: available processors).")
+    private int workers = Runtime.getRuntime().availableProcessors();
+
+    @Option(names = {"--keep-work"}, description = "Keep extracted working files (useful for debugging).")
+    private boolean keepWork;
+
+    @Option(names = {"--max-files"}, description = "Safety: max number of files extracted per run.tar (default: 5000).")
+    private int maxFiles = 5000;
+
+    @Option(names = {"--max-bytes"}, description = "Safety: max number of bytes extracted per run.tar (default: 50MB).")
+    private long maxBytes = 50L * 1024 * 1024;
+
+    @Option(names = {"--streaming"}, description = "Hash, copy and index diff archives in a single pass over each run.tar.")
+    private boolean streaming;
+
+    @Option(names = {"--incremental"}, description = "Only process runs and diff archives added since each student's previous ingest (not combined with --streaming).")
+    private boolean incremental;
+
+    @Option(names = {"--no-packs"},
+            description = "Do not write a random-access diffs_N_.pack beside each diff archive (packs speed up reconstruction but roughly double archive disk use).")
+    private boolean noPacks;
+
+    @Override
+    public Integer call() throws Exception {
+        if (!Files.isDirectory(input)) {
+            System.err.println("Input directory does not exist: " + input);
+            return 2;
+        }
+        if (workers < 1) {
+            System.err.println("--workers must be at least 1");
+            return 2;
+        }
+        Files.createDirectories(out);
+
+        BatchIngestOptions opts = new BatchIngestOptions(input, out, work, workers, keepWork,
+                maxFiles, maxBytes, streaming, incremental, !noPacks);
+        BatchIngestService service = new BatchIngestService();
+        BatchIngestResult result = service.ingestAll(opts);
+
+        System.out.println("Batch ingest complete.");
+        System.out.println("  Output: " + out.toAbsolutePath());
+        System.out.println("  Students: " + result.studentsFound());
+        System.out.println("  Succeeded: " + result.studentsSucceeded());
+        System.out.println("  Failed: " + result.studentsFailed());
+        System.out.println("  Workers: " + result.manifest().workers());
+        System.out.println("  Elapsed: " + result.totalDurationMs() + " ms");
+
+        if (result.studentsFailed() > 0) {
+            System.err.println("  Errors:");
+            for (BatchManifest.StudentEntry e : result.manifest().students()) {
+                if (!e.succeeded()) {
+                    System.err.println("    - " + e.studentId() + ": " + e.error());
+                }
+            }
+            return 1;
+        }
+
+        return 0;
+    }
+}
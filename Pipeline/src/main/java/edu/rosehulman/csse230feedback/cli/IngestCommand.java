@@ -17,7 +17,7 @@ import java.util.concurrent.Callable;
 )
 public class IngestCommand implements Callable<Integer> {
 
-    @Option(names = {"-i", "--input"}, required = true, description = "Path to the repo root (containing run.tar).")
+    @Option(names = {"-i", "--input"}, required = true, description = "Path to the repo root (containing run.tar), or to a run.tar file.")
     private Path input;
 
     @Option(names = {"-o", "--out"}, required = true, description = "Output directory for normalized artifacts.")
@@ -35,6 +35,16 @@ public class IngestCommand implements Callable<Integer> {
     @Option(names = {"--max-bytes"}, description = "Safety: max number of bytes extracted from run.tar (default: 50MB).")
     private long maxBytes = 50L * 1024 * 1024;
 
+    @Option(names = {"--streaming"}, description = "Hash, copy and index diff archives in a single pass over run.tar.")
+    private boolean streaming;
+
+    @Option(names = {"--incremental"}, description = "Only process runs and diff archives added since the previous ingest into --out (not combined with --streaming).")
+    private boolean incremental;
+
+    @Option(names = {"--no-packs"},
+            description = "Do not write a random-access diffs_N_.pack beside each diff archive (packs speed up reconstruction but roughly double archive disk use).")
+    private boolean noPacks;
+
     @Override
     public Integer call() throws Exception {
         if (!Files.exists(input)) {
@@ -47,7 +57,7 @@ public class IngestCommand implements Callable<Integer> {
         }
         Files.createDirectories(work);
 
-        IngestOptions opts = new IngestOptions(input, out, work, keepWork, maxFiles, maxBytes);
+        IngestOptions opts = new IngestOptions(input, out, work, keepWork, maxFiles, maxBytes, streaming, incremental, !noPacks);
         IngestService service = new IngestService();
         IngestResult result = service.ingest(opts);
 
@@ -55,6 +65,13 @@ public class IngestCommand implements Callable<Integer> {
         System.out.println("  Output: " + out.toAbsolutePath());
         System.out.println("  Runs: " + result.runsParsed());
         System.out.println("  Diff archives: " + result.diffArchivesFound());
+        if (result.packBytes() > 0) {
+            System.out.println("  Diff packs: " + result.packBytes() + " bytes");
+        }
+        if (incremental) {
+            System.out.println("  New runs: " + result.runsAdded());
+            System.out.println("  Diff archives re-indexed: " + result.diffArchivesIndexed());
+        }
         if (!result.warnings().isEmpty()) {
             System.out.println("  Warnings:");
             for (String w : result.warnings()) {
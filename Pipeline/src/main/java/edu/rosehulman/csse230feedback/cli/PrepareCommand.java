@@ -1,5 +1,6 @@
 package edu.rosehulman.csse230feedback.cli;
 
+import edu.rosehulman.csse230feedback.data.ReconstructedFileCache;
 import edu.rosehulman.csse230feedback.domain.PrepareOptions;
 import edu.rosehulman.csse230feedback.domain.PrepareResult;
 import edu.rosehulman.csse230feedback.domain.PrepareService;
@@ -41,6 +42,15 @@ public class PrepareCommand implements Callable<Integer> {
     @Option(names = {"--no-code"}, description = "Exclude code snapshots from output.")
     private boolean noCode = false;
 
+    @Option(names = {"--keyframe-interval"}, description = "Write full code snapshots every K runs and line deltas in between (default: 0 = always full).")
+    private int keyframeInterval = 0;
+
+    @Option(names = {"--version-cache"}, description = "Keep reconstructed file versions in this directory, shared with rerun --version-cache (default: memory only).")
+    private Path versionCache;
+
+    @Option(names = {"--version-cache-mb"}, description = "Size the --version-cache directory is trimmed back to, in MB (default: 256).")
+    private long versionCacheMb = ReconstructedFileCache.DEFAULT_MAX_DISK_BYTES / (1024 * 1024);
+
     @Override
     public Integer call() throws Exception {
         if (!Files.exists(input)) {
@@ -53,6 +63,16 @@ public class PrepareCommand implements Callable<Integer> {
             return 2;
         }
 
+        if (keyframeInterval < 0) {
+            System.err.println("--keyframe-interval must be >= 0");
+            return 2;
+        }
+
+        if (versionCacheMb < 1) {
+            System.err.println("--version-cache-mb must be >= 1");
+            return 2;
+        }
+
         PrepareOptions opts = new PrepareOptions(
             input,
             output,
@@ -60,7 +80,10 @@ public class PrepareCommand implements Callable<Integer> {
             categoryShiftWindow,
             studentId,
             assignmentName,
-            includeCode && !noCode
+            includeCode && !noCode,
+            keyframeInterval,
+            versionCache,
+            versionCacheMb * 1024 * 1024
         );
 
         PrepareService service = new PrepareService();
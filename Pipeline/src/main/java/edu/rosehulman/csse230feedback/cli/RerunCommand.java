@@ -1,5 +1,6 @@
 package edu.rosehulman.csse230feedback.cli;
 
+import edu.rosehulman.csse230feedback.data.ReconstructedFileCache;
 import edu.rosehulman.csse230feedback.domain.RerunOptions;
 import edu.rosehulman.csse230feedback.domain.RerunResult;
 import edu.rosehulman.csse230feedback.domain.WorkspaceRunnerService;
@@ -65,6 +66,42 @@ public class RerunCommand implements Callable<Integer> {
             description = "Test execution timeout in seconds (default: 300).")
     private int testTimeout = RerunOptions.DEFAULT_TEST_TIMEOUT;
 
+    @Option(names = {"--workers"},
+            description = "Process runs on this many independent workspaces in parallel (default: 1, one shared workspace).")
+    private int workers = RerunOptions.DEFAULT_WORKERS;
+
+    @Option(names = {"--fork-tests"},
+            description = "Run tests on a pool of forked worker JVMs (one per --workers) instead of in-process.")
+    private boolean forkTests;
+
+    @Option(names = {"--worker-heap"},
+            description = "Maximum heap per forked test worker in MB (default: 512).")
+    private int workerHeapMb = RerunOptions.DEFAULT_WORKER_HEAP_MB;
+
+    @Option(names = {"--worker-max-threads"},
+            description = "Stop a forked test worker's run, and replace the worker, once its tests have more than this many live threads (default: 64).")
+    private int workerMaxThreads = RerunOptions.DEFAULT_WORKER_MAX_THREADS;
+
+    @Option(names = {"--fork-javac"},
+            description = "Compile each run with a forked javac process instead of the in-process compiler (always used with --java-home).")
+    private boolean forkJavac;
+
+    @Option(names = {"--incremental-compile"},
+            description = "Keep each workspace's class files between runs and recompile only changed sources and their dependents.")
+    private boolean incrementalCompile;
+
+    @Option(names = {"--dedupe-snapshots"},
+            description = "Reuse the compile and test results of an earlier run whose source snapshot is identical instead of rerunning it.")
+    private boolean dedupeSnapshots;
+
+    @Option(names = {"--version-cache"},
+            description = "Keep reconstructed file versions in this directory, so prepare --version-cache can reuse them (default: memory only).")
+    private Path versionCache;
+
+    @Option(names = {"--version-cache-mb"},
+            description = "Size the --version-cache directory is trimmed back to, in MB (default: 256).")
+    private long versionCacheMb = ReconstructedFileCache.DEFAULT_MAX_DISK_BYTES / (1024 * 1024);
+
     @Override
     public Integer call() throws Exception {
         // Validate input
@@ -76,6 +113,18 @@ public class RerunCommand implements Callable<Integer> {
             System.err.println("Dependencies directory does not exist: " + deps);
             return 2;
         }
+        if (workers < 1) {
+            System.err.println("--workers must be >= 1");
+            return 2;
+        }
+        if (workerHeapMb < 16 || workerMaxThreads < 1) {
+            System.err.println("--worker-heap must be >= 16 and --worker-max-threads >= 1");
+            return 2;
+        }
+        if (versionCacheMb < 1) {
+            System.err.println("--version-cache-mb must be >= 1");
+            return 2;
+        }
 
         // Create output directories
         Files.createDirectories(out);
@@ -98,6 +147,15 @@ public class RerunCommand implements Callable<Integer> {
                 .keepWorkDir(keepWork)
                 .compileTimeout(compileTimeout)
                 .testTimeout(testTimeout)
+                .workers(workers)
+                .forkTests(forkTests)
+                .workerHeapMb(workerHeapMb)
+                .workerMaxThreads(workerMaxThreads)
+                .forkCompiler(forkJavac)
+                .incrementalCompile(incrementalCompile)
+                .dedupeSnapshots(dedupeSnapshots)
+                .versionCacheDir(versionCache)
+                .versionCacheMaxBytes(versionCacheMb * 1024 * 1024)
                 .build();
 
         // Run the service
@@ -113,6 +171,10 @@ public class RerunCommand implements Callable<Integer> {
         System.out.println("  Tests found: " + result.totalTestsFound());
         System.out.println("  Tests passed: " + result.totalTestsPassed());
         System.out.println("  Tests failed: " + result.totalTestsFailed());
+        if (result.sourcesCompiled() + result.sourcesReused() > 0) {
+            System.out.println("  Sources compiled: " + result.sourcesCompiled()
+                + " (" + result.sourcesReused() + " reused from earlier runs)");
+        }
 
         if (!result.warnings().isEmpty()) {
             System.out.println("  Warnings:");
@@ -0,0 +1,413 @@
+package edu.rosehulman.csse230feedback.data;
+
+import edu.rosehulman.csse230feedback.model.PatchPointer;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Binary form of patches_index.jsonl (patches_index.bin): the same pointers, read without JSON
+ * parsing. Lookups run against the memory-mapped file, so opening an index decodes nothing up
+ * front and each lookup decodes only the rows it returns.
+ *
+ * Layout (big-endian):
+ *   header:     magic "PIX1", version, string count, file key count, row count, blob length
+ *   dictionary: (string count + 1) offsets into a UTF-8 blob, then the blob. File keys come
+ *               first and in sorted order.
+ *   rows:       9 ints per pointer: fileKey, runNumber, archiveFilename, baselineEntry,
+ *               patchEntry, patchKind, deltaCount, linesAdded, linesRemoved (-1 for null),
+ *               sorted by (fileKey, runNumber, archive)
+ *
+ * Because file key ids follow the sorted file keys and rows are sorted by (file key id, run), a
+ * file key is found by binary search over the dictionary, its rows by binary search over the
+ * first column, and "latest at or before run N" by binary search over the run column within them.
+ * Each distinct string is decoded once, however many rows refer to it. Safe for concurrent
+ * readers: the mapping is only read through absolute gets.
+ */
+public final class BinaryPatchIndex implements PatchIndex {
+
+    public static final String FILENAME = "patches_index.bin";
+
+    private static final byte[] MAGIC = "PIX1".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = MAGIC.length + 5 * Integer.BYTES;
+    private static final int ROW_INTS = 9;
+    private static final int ROW_LENGTH = ROW_INTS * Integer.BYTES;
+    private static final int NULL_ID = -1;
+
+    // Same tie-break as the JSONL order: among equal (fileKey, run), the smaller archive comes first.
+    private static final Comparator<PatchPointer> ROW_ORDER = Comparator
+            .comparing(PatchPointer::fileKey)
+            .thenComparingInt(PatchPointer::runNumber)
+            .thenComparing(PatchPointer::archiveFilename)
+            .thenComparing(PatchPointer::patchEntry);
+
+    private final ByteBuffer buf;
+    private final int stringCount;
+    private final int fileKeyCount;
+    private final int rowCount;
+    private final int offsetsStart;
+    private final int blobStart;
+    private final int rowsStart;
+    private final String[] strings;
+    // Built on first use from a scan of the run column
+    private volatile int[] changedRuns;
+
+    private BinaryPatchIndex(ByteBuffer buf, Path file) throws IOException {
+        this.buf = buf;
+        if (buf.capacity() < HEADER_LENGTH) {
+            throw new IOException("Not a patch index (too short): " + file.getFileName());
+        }
+        byte[] magic = new byte[MAGIC.length];
+        buf.get(0, magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a patch index (bad magic): " + file.getFileName());
+        }
+        int version = buf.getInt(MAGIC.length);
+        if (version != VERSION) {
+            throw new IOException("Unsupported patch index version " + version + ": " + file.getFileName());
+        }
+        this.stringCount = buf.getInt(MAGIC.length + 4);
+        this.fileKeyCount = buf.getInt(MAGIC.length + 8);
+        this.rowCount = buf.getInt(MAGIC.length + 12);
+        int blobLength = buf.getInt(MAGIC.length + 16);
+
+        this.offsetsStart = HEADER_LENGTH;
+        this.blobStart = offsetsStart + (stringCount + 1) * Integer.BYTES;
+        this.rowsStart = blobStart + blobLength;
+        if ((long) rowsStart + (long) rowCount * ROW_LENGTH != buf.capacity()
+                || fileKeyCount < 0 || fileKeyCount > stringCount) {
+            throw new IOException("Corrupt patch index (size mismatch): " + file.getFileName());
+        }
+        this.strings = new String[stringCount];
+    }
+
+    /**
+     * Maps an existing patches_index.bin read-only.
+     */
+    public static BinaryPatchIndex open(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            return new BinaryPatchIndex(mapped, file);
+        }
+    }
+
+    /**
+     * Opens the patches_index.bin next to {@code patchesJsonl}, or returns null when there is none
+     * or it is older than the JSONL file (which is then the authoritative index).
+     */
+    public static BinaryPatchIndex openBeside(Path patchesJsonl) throws IOException {
+        Path bin = patchesJsonl.resolveSibling(FILENAME);
+        if (!Files.isRegularFile(bin)) {
+            return null;
+        }
+        if (Files.exists(patchesJsonl)
+                && Files.getLastModifiedTime(bin).compareTo(Files.getLastModifiedTime(patchesJsonl)) < 0) {
+            return null;
+        }
+        return open(bin);
+    }
+
+    /**
+     * Writes {@code pointers} as a binary index, replacing {@code out} atomically.
+     */
+    public static void write(Path out, List<PatchPointer> pointers) throws IOException {
+        List<PatchPointer> rows = new ArrayList<>(pointers);
+        rows.sort(ROW_ORDER);
+
+        // Dictionary: sorted file keys first, then every other string in first-seen order.
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> dictionary = new ArrayList<>();
+        for (String fileKey : new TreeSet<>(rows.stream().map(PatchPointer::fileKey).toList())) {
+            ids.put(fileKey, dictionary.size());
+            dictionary.add(fileKey);
+        }
+        int fileKeyCount = dictionary.size();
+        for (PatchPointer p : rows) {
+            for (String s : new String[] {p.archiveFilename(), p.baselineEntry(), p.patchEntry(), p.patchKind()}) {
+                if (s != null && !ids.containsKey(s)) {
+                    ids.put(s, dictionary.size());
+                    dictionary.add(s);
+                }
+            }
+        }
+
+        ByteArrayOutputStream blob = new ByteArrayOutputStream();
+        int[] offsets = new int[dictionary.size() + 1];
+        for (int i = 0; i < dictionary.size(); i++) {
+            offsets[i] = blob.size();
+            blob.writeBytes(dictionary.get(i).getBytes(StandardCharsets.UTF_8));
+        }
+        offsets[dictionary.size()] = blob.size();
+
+        Files.createDirectories(out.toAbsolutePath().getParent());
+        Path tmp = out.resolveSibling(out.getFileName() + ".tmp");
+        try (OutputStream fout = Files.newOutputStream(tmp);
+             DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(fout))) {
+            dos.write(MAGIC);
+            dos.writeInt(VERSION);
+            dos.writeInt(dictionary.size());
+            dos.writeInt(fileKeyCount);
+            dos.writeInt(rows.size());
+            dos.writeInt(blob.size());
+            for (int offset : offsets) {
+                dos.writeInt(offset);
+            }
+            blob.writeTo(dos);
+            for (PatchPointer p : rows) {
+                dos.writeInt(ids.get(p.fileKey()));
+                dos.writeInt(p.runNumber());
+                dos.writeInt(idOf(ids, p.archiveFilename()));
+                dos.writeInt(idOf(ids, p.baselineEntry()));
+                dos.writeInt(idOf(ids, p.patchEntry()));
+                dos.writeInt(idOf(ids, p.patchKind()));
+                dos.writeInt(countOf(p.deltaCount()));
+                dos.writeInt(countOf(p.linesAdded()));
+                dos.writeInt(countOf(p.linesRemoved()));
+            }
+        }
+        Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static int idOf(Map<String, Integer> ids, String s) {
+        return s == null ? NULL_ID : ids.get(s);
+    }
+
+    private static int countOf(Integer count) {
+        return count == null ? NULL_ID : count;
+    }
+
+    @Override
+    public int size() {
+        return rowCount;
+    }
+
+    @Override
+    public List<String> fileKeys() {
+        List<String> fileKeys = new ArrayList<>(fileKeyCount);
+        for (int id = 0; id < fileKeyCount; id++) {
+            fileKeys.add(string(id));
+        }
+        return fileKeys;
+    }
+
+    @Override
+    public PatchPointer latestAtOrBefore(String fileKey, int runNumber) {
+        int id = fileKeyId(fileKey);
+        if (id < 0) {
+            return null;
+        }
+        int from = firstRow(id);
+        int i = upperBoundRun(from, firstRow(id + 1), runNumber) - 1;
+        if (i < from) {
+            return null;
+        }
+        // Step back to the first row of that run so ties resolve to index order.
+        int run = run(i);
+        while (i > from && run(i - 1) == run) {
+            i--;
+        }
+        return get(i);
+    }
+
+    @Override
+    public int[] runsFor(String fileKey) {
+        int id = fileKeyId(fileKey);
+        if (id < 0) {
+            return new int[0];
+        }
+        int from = firstRow(id);
+        int to = firstRow(id + 1);
+        int[] runs = new int[to - from];
+        int n = 0;
+        for (int row = from; row < to; row++) {
+            int run = run(row);
+            if (n == 0 || runs[n - 1] != run) {
+                runs[n++] = run;
+            }
+        }
+        return Arrays.copyOf(runs, n);
+    }
+
+    @Override
+    public List<PatchPointer> pointersFor(String fileKey) {
+        int id = fileKeyId(fileKey);
+        if (id < 0) {
+            return List.of();
+        }
+        return rows(firstRow(id), firstRow(id + 1));
+    }
+
+    @Override
+    public List<PatchPointer> patchesAt(int runNumber) {
+        List<PatchPointer> patches = new ArrayList<>();
+        int from = 0;
+        for (int id = 0; id < fileKeyCount; id++) {
+            int to = firstRow(id + 1);
+            // Rows of this file with a run below runNumber come first
+            int row = upperBoundRun(from, to, runNumber - 1);
+            for (; row < to && run(row) == runNumber; row++) {
+                patches.add(get(row));
+            }
+            from = to;
+        }
+        return patches;
+    }
+
+    @Override
+    public int[] changedRuns() {
+        return changedRunArray().clone();
+    }
+
+    @Override
+    public List<Integer> changedRunList() {
+        return Arrays.stream(changedRunArray()).boxed().toList();
+    }
+
+    @Override
+    public boolean hasChangesAt(int runNumber) {
+        return Arrays.binarySearch(changedRunArray(), runNumber) >= 0;
+    }
+
+    @Override
+    public int changedRunAtOrBefore(int runNumber) {
+        int[] runs = changedRunArray();
+        int i = InMemoryPatchIndex.upperBound(runs, runNumber) - 1;
+        return i < 0 ? -1 : runs[i];
+    }
+
+    private int[] changedRunArray() {
+        int[] runs = changedRuns;
+        if (runs == null) {
+            runs = new int[rowCount];
+            for (int row = 0; row < rowCount; row++) {
+                runs[row] = run(row);
+            }
+            runs = Arrays.stream(runs).sorted().distinct().toArray();
+            changedRuns = runs;
+        }
+        return runs;
+    }
+
+    /** Dictionary id of {@code fileKey}, or -1 when the index has no such file. */
+    private int fileKeyId(String fileKey) {
+        int lo = 0;
+        int hi = fileKeyCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = string(mid).compareTo(fileKey);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /** First row whose file key id is at least {@code id}. */
+    private int firstRow(int id) {
+        int lo = 0;
+        int hi = rowCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (buf.getInt(rowsStart + mid * ROW_LENGTH) < id) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /** First row in [from, to) whose run is greater than {@code runNumber}; the rows are sorted by run. */
+    private int upperBoundRun(int from, int to, int runNumber) {
+        int lo = from;
+        int hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (run(mid) <= runNumber) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private int run(int row) {
+        return buf.getInt(rowsStart + row * ROW_LENGTH + 4);
+    }
+
+    private List<PatchPointer> rows(int from, int to) {
+        List<PatchPointer> pointers = new ArrayList<>(to - from);
+        for (int row = from; row < to; row++) {
+            pointers.add(get(row));
+        }
+        return pointers;
+    }
+
+    private PatchPointer get(int row) {
+        int base = rowsStart + row * ROW_LENGTH;
+        return new PatchPointer(
+                string(buf.getInt(base + 8)),
+                string(buf.getInt(base)),
+                buf.getInt(base + 4),
+                string(buf.getInt(base + 12)),
+                string(buf.getInt(base + 16)),
+                string(buf.getInt(base + 20)),
+                count(base, 6),
+                count(base, 7),
+                count(base, 8)
+        );
+    }
+
+    private Integer count(int rowBase, int column) {
+        int value = buf.getInt(rowBase + column * Integer.BYTES);
+        return value == NULL_ID ? null : value;
+    }
+
+    /**
+     * Decodes every pointer, sorted by (fileKey, runNumber); among equal ones the smaller archive
+     * comes first, as in patches_index.jsonl.
+     */
+    public List<PatchPointer> readAll() {
+        return rows(0, rowCount);
+    }
+
+    private String string(int id) {
+        if (id == NULL_ID) {
+            return null;
+        }
+        String s = strings[id];
+        if (s == null) {
+            int start = buf.getInt(offsetsStart + id * Integer.BYTES);
+            int end = buf.getInt(offsetsStart + (id + 1) * Integer.BYTES);
+            byte[] bytes = new byte[end - start];
+            buf.get(blobStart + start, bytes);
+            s = new String(bytes, StandardCharsets.UTF_8);
+            strings[id] = s;
+        }
+        return s;
+    }
+}
@@ -0,0 +1,312 @@
+package edu.rosehulman.csse230feedback.data;
+
+import edu.rosehulman.csse230feedback.model.PatchPointer;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads versions from a chained pack written by {@link ChainedPackWriter}, looked up by the
+ * {@link PatchPointer} they were reconstructed from.
+ *
+ * Opening reads only the footer and index. Reading a version decodes the nearest keyframe at or
+ * before it and replays the deltas after that keyframe; a {@link Cursor} walking a file's versions
+ * in order replays one delta per version instead. Instances are immutable and safe to share
+ * between threads; no file handle is held between reads.
+ *
+ * A pack written with a preset dictionary needs that dictionary to open; it is looked up by
+ * SHA-256 from the pack's directory upwards (see {@link PresetDictionary#find}).
+ */
+public final class ChainedPackReader {
+
+    /** The version that is most expensive to read: how many deltas, and how many raw bytes in total. */
+    public record ChainCost(String fileKey, int runNumber, int deltas, long rawBytes) {}
+
+    private record Location(int file, int version) {}
+
+    private record FileChain(String fileKey, int[] runs, byte[] flags, long[] offsets, int[] storedLengths,
+                             int[] rawLengths) {
+
+        boolean keyframe(int version) {
+            return (flags[version] & ChainedPackWriter.FLAG_KEYFRAME) != 0;
+        }
+
+        int keyframeAtOrBefore(int version) {
+            int k = version;
+            while (!keyframe(k)) {
+                k--;
+            }
+            return k;
+        }
+    }
+
+    private final Path pack;
+    private final int keyframeInterval;
+    private final PresetDictionary dictionary;
+    private final List<FileChain> files;
+    private final Map<String, Location> byPointer;
+
+    private ChainedPackReader(Path pack, int keyframeInterval, PresetDictionary dictionary,
+                              List<FileChain> files, Map<String, Location> byPointer) {
+        this.pack = pack;
+        this.keyframeInterval = keyframeInterval;
+        this.dictionary = dictionary;
+        this.files = files;
+        this.byPointer = byPointer;
+    }
+
+    public static ChainedPackReader open(Path pack) throws IOException {
+        try (FileChannel ch = FileChannel.open(pack, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < ChainedPackWriter.HEADER_LENGTH + ChainedPackWriter.FOOTER_LENGTH) {
+                throw new IOException("Not a chained pack (too short): " + pack.getFileName());
+            }
+
+            ByteBuffer footer = DiffPackReader.readFully(ch, size - ChainedPackWriter.FOOTER_LENGTH,
+                    ChainedPackWriter.FOOTER_LENGTH);
+            long indexOffset = footer.getLong();
+            byte[] magic = new byte[ChainedPackWriter.MAGIC.length];
+            footer.get(magic);
+            if (!Arrays.equals(magic, ChainedPackWriter.MAGIC)) {
+                throw new IOException("Not a chained pack (bad magic): " + pack.getFileName());
+            }
+
+            ByteBuffer header = DiffPackReader.readFully(ch, 0, ChainedPackWriter.HEADER_LENGTH);
+            DiffPackReader.checkMagic(header, ChainedPackWriter.MAGIC, pack);
+            int keyframeInterval = header.getInt();
+            int headerLength = ChainedPackWriter.HEADER_LENGTH;
+
+            int shaLength = Short.toUnsignedInt(DiffPackReader.readFully(ch, headerLength, 2).getShort());
+            ByteBuffer sha = DiffPackReader.readFully(ch, headerLength + 2, shaLength);
+            headerLength += 2 + shaLength;
+            PresetDictionary dictionary = null;
+            if (shaLength > 0) {
+                dictionary = PresetDictionary.find(pack.toAbsolutePath().getParent(),
+                        new String(sha.array(), StandardCharsets.UTF_8));
+            }
+
+            long indexLength = size - ChainedPackWriter.FOOTER_LENGTH - indexOffset;
+            if (indexOffset < headerLength || indexLength < 2 * Integer.BYTES
+                    || indexLength > Integer.MAX_VALUE) {
+                throw new IOException("Corrupt chained pack index: " + pack.getFileName());
+            }
+            ByteBuffer index = DiffPackReader.readFully(ch, indexOffset, (int) indexLength);
+            int rawIndexLength = index.getInt();
+            byte[] compressedIndex = new byte[index.getInt()];
+            if (compressedIndex.length != index.remaining()) {
+                throw new IOException("Corrupt chained pack index: " + pack.getFileName());
+            }
+            index.get(compressedIndex);
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+                    DiffPackReader.inflate(compressedIndex, rawIndexLength, pack, "index")));
+            int fileCount = in.readInt();
+            List<FileChain> files = new ArrayList<>(fileCount);
+            Map<String, Location> byPointer = new HashMap<>();
+            for (int f = 0; f < fileCount; f++) {
+                String fileKey = in.readUTF();
+                int n = in.readInt();
+                int[] runs = new int[n];
+                byte[] flags = new byte[n];
+                long[] offsets = new long[n];
+                int[] storedLengths = new int[n];
+                int[] rawLengths = new int[n];
+                for (int v = 0; v < n; v++) {
+                    String key = key(in.readUTF(), in.readUTF());
+                    runs[v] = in.readInt();
+                    flags[v] = in.readByte();
+                    offsets[v] = in.readLong();
+                    storedLengths[v] = in.readInt();
+                    rawLengths[v] = in.readInt();
+                    byPointer.put(key, new Location(f, v));
+                }
+                if (n > 0 && (flags[0] & ChainedPackWriter.FLAG_KEYFRAME) == 0) {
+                    throw new IOException("Corrupt chained pack: " + fileKey + " does not start with a keyframe");
+                }
+                files.add(new FileChain(fileKey, runs, flags, offsets, storedLengths, rawLengths));
+            }
+
+            return new ChainedPackReader(pack, keyframeInterval, dictionary, files, byPointer);
+        }
+    }
+
+    public Path path() {
+        return pack;
+    }
+
+    public int keyframeInterval() {
+        return keyframeInterval;
+    }
+
+    /** SHA-256 of the preset dictionary the entries were deflated with, or null if none. */
+    public String dictionarySha256() {
+        return dictionary != null ? dictionary.sha256() : null;
+    }
+
+    public int fileCount() {
+        return files.size();
+    }
+
+    public int versionCount() {
+        return byPointer.size();
+    }
+
+    public boolean contains(PatchPointer pointer) {
+        return byPointer.containsKey(key(pointer.archiveFilename(), pointer.patchEntry()));
+    }
+
+    /**
+     * Reads the version reconstructed from {@code pointer}, or returns null if the pack does not
+     * have it.
+     */
+    public String[] read(PatchPointer pointer) throws IOException {
+        return cursor().read(pointer);
+    }
+
+    /** A cursor for reading several versions; cheapest when they come in chain order. */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * The version whose read replays the most bytes (keyframe plus deltas), or null for an empty
+     * pack.
+     */
+    public ChainCost worstCase() {
+        ChainCost worst = null;
+        for (FileChain chain : files) {
+            long bytes = 0;
+            int deltas = 0;
+            for (int v = 0; v < chain.runs().length; v++) {
+                if (chain.keyframe(v)) {
+                    bytes = 0;
+                    deltas = 0;
+                } else {
+                    deltas++;
+                }
+                bytes += chain.rawLengths()[v];
+                if (worst == null || bytes > worst.rawBytes()) {
+                    worst = new ChainCost(chain.fileKey(), chain.runs()[v], deltas, bytes);
+                }
+            }
+        }
+        return worst;
+    }
+
+    /**
+     * Remembers the last version it decoded, so a read further along the same chain (and before
+     * the next keyframe) replays only the deltas in between. Not thread-safe.
+     */
+    public final class Cursor {
+        private Location last;
+        private String[] lastLines;
+
+        private Cursor() {}
+
+        /** Like {@link ChainedPackReader#read(PatchPointer)}. */
+        public String[] read(PatchPointer pointer) throws IOException {
+            Location target = byPointer.get(key(pointer.archiveFilename(), pointer.patchEntry()));
+            if (target == null) {
+                return null;
+            }
+            FileChain chain = files.get(target.file());
+            int keyframe = chain.keyframeAtOrBefore(target.version());
+
+            int from;
+            String[] lines;
+            if (last != null && last.file() == target.file()
+                    && last.version() >= keyframe && last.version() <= target.version()) {
+                from = last.version() + 1;
+                lines = lastLines;
+            } else {
+                from = keyframe;
+                lines = null;
+            }
+
+            try (FileChannel ch = FileChannel.open(pack, StandardOpenOption.READ)) {
+                for (int v = from; v <= target.version(); v++) {
+                    byte[] raw = readVersion(ch, chain, v);
+                    lines = chain.keyframe(v) ? decodeKeyframe(raw) : applyDelta(lines, raw);
+                }
+            }
+
+            last = target;
+            lastLines = lines;
+            return lines.clone();
+        }
+    }
+
+    private byte[] readVersion(FileChannel ch, FileChain chain, int v) throws IOException {
+        ByteBuffer bytes = DiffPackReader.readFully(ch, chain.offsets()[v], chain.storedLengths()[v]);
+        int flags = chain.flags()[v];
+        if ((flags & ChainedPackWriter.FLAG_STORED) != 0) {
+            return bytes.array();
+        }
+        boolean primed = (flags & ChainedPackWriter.FLAG_DICTIONARY) != 0;
+        if (primed && dictionary == null) {
+            throw new IOException("Entry needs a preset dictionary, but " + pack.getFileName() + " names none");
+        }
+        return DiffPackReader.inflate(bytes.array(), chain.rawLengths()[v],
+                primed ? dictionary.bytes() : null, pack,
+                chain.fileKey() + " @ run " + chain.runs()[v]);
+    }
+
+    private String[] decodeKeyframe(byte[] raw) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+        return readLines(in, in.readInt());
+    }
+
+    private String[] applyDelta(String[] previous, byte[] raw) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+        int ops = in.readInt();
+        List<String> out = new ArrayList<>(previous.length);
+        for (int i = 0; i < ops; i++) {
+            byte op = in.readByte();
+            if (op == ChainedPackWriter.OP_KEEP) {
+                int from = in.readInt();
+                int count = in.readInt();
+                if (from < 0 || count < 0 || from + count > previous.length) {
+                    throw new IOException("Corrupt delta in " + pack.getFileName());
+                }
+                out.addAll(Arrays.asList(previous).subList(from, from + count));
+            } else if (op == ChainedPackWriter.OP_INSERT) {
+                out.addAll(Arrays.asList(readLines(in, in.readInt())));
+            } else {
+                throw new IOException("Unknown delta op " + op + " in " + pack.getFileName());
+            }
+        }
+        return out.toArray(new String[0]);
+    }
+
+    private String[] readLines(DataInputStream in, int count) throws IOException {
+        if (count == 0) {
+            return new String[0];
+        }
+        String[] lines = readText(in).split("\n", -1);
+        if (lines.length != count) {
+            throw new IOException("Corrupt line block in " + pack.getFileName());
+        }
+        return lines;
+    }
+
+    private static String readText(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String key(String archiveFilename, String patchEntry) {
+        return archiveFilename + '\0' + patchEntry;
+    }
+}
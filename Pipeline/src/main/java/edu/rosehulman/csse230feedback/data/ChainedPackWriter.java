@@ -0,0 +1,276 @@
+package edu.rosehulman.csse230feedback.data;
+
+import com.github.difflib.DiffUtils;
+import com.github.difflib.algorithm.DiffException;
+import com.github.difflib.patch.AbstractDelta;
+import com.github.difflib.patch.PatchFailedException;
+import edu.rosehulman.csse230feedback.model.PatchPointer;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compacts a student's diff archives into one chained pack (archives/chained.dcp).
+ *
+ * The archives store every patch as baseline-to-revised, so patches grow through a rebaseline
+ * epoch and each epoch repeats the file in a new baseline. Here each file is one chain across all
+ * epochs: a version is either a keyframe (the whole file) or a delta against the file's previous
+ * version. A keyframe starts each chain, and another is written every {@code keyframeInterval}
+ * versions or whenever the delta would be no smaller, so reading any version replays at most
+ * {@code keyframeInterval - 1} deltas.
+ *
+ * Pack layout (big-endian):
+ *   header:  magic "DCP1", keyframe interval (int), preset dictionary SHA-256 (UTF, empty if none)
+ *   entries: each version's bytes on their own, back to back: stored as is, deflated, or
+ *            deflated with the preset dictionary, whichever is smallest
+ *   index:   raw length, deflated length, then deflated: file count, then per file: file key
+ *            (UTF), version count, and per version: archive filename (UTF), patch entry (UTF),
+ *            run number, flags (keyframe, stored, dictionary), offset, stored length, raw length
+ *   footer:  index offset (long), magic "DCP1"
+ *
+ * A keyframe is the line count followed by the lines; a delta is an op count followed by ops,
+ * each either KEEP (from, count) of the previous version or INSERT (line count, lines). Lines
+ * are a byte length and the UTF-8 lines joined with "\n", so they read like the source text a
+ * {@link PresetDictionary} is built from.
+ *
+ * Versions are keyed by the archive filename and patch entry of the {@link PatchPointer} they
+ * were reconstructed from, so existing pointers find them through {@link ChainedPackReader}.
+ */
+public class ChainedPackWriter {
+
+    public static final String FILENAME = "chained.dcp";
+
+    static final byte[] MAGIC = "DCP1".getBytes(StandardCharsets.US_ASCII);
+    static final int FOOTER_LENGTH = Long.BYTES + 4;
+    // Magic and keyframe interval; the dictionary SHA-256 follows
+    static final int HEADER_LENGTH = 4 + Integer.BYTES;
+
+    static final int FLAG_KEYFRAME = 1;
+    static final int FLAG_STORED = 2;
+    static final int FLAG_DICTIONARY = 4;
+
+    static final byte OP_KEEP = 0;
+    static final byte OP_INSERT = 1;
+
+    /** What was written. */
+    public record Summary(Path pack, int files, int versions, int keyframes) {}
+
+    private record IndexEntry(PatchPointer pointer, int flags, long offset, int storedLength, int rawLength) {}
+
+    private final DiffFileReconstructor reconstructor;
+    private final PresetDictionary dictionary;
+
+    public ChainedPackWriter(DiffFileReconstructor reconstructor) {
+        this(reconstructor, null);
+    }
+
+    /**
+     * @param dictionary preset dictionary for the entries, or null; it must be stored where
+     *                   readers of the pack can find it (see {@link PresetDictionary#find})
+     */
+    public ChainedPackWriter(DiffFileReconstructor reconstructor, PresetDictionary dictionary) {
+        this.reconstructor = reconstructor;
+        this.dictionary = dictionary;
+    }
+
+    /** Returns the chained pack path for an archives/ directory. */
+    public static Path pathIn(Path archivesDir) {
+        return archivesDir.resolve(FILENAME);
+    }
+
+    /**
+     * Writes the chained pack for every patch in {@code patchIndex}, replacing any existing one.
+     * Patches that cannot be reconstructed are reported in {@code warnings} and left out.
+     */
+    public Summary write(Path archivesDir, PatchIndex patchIndex, Path cacheDir, int keyframeInterval,
+                         List<String> warnings) throws IOException {
+        if (keyframeInterval < 1) {
+            throw new IllegalArgumentException("keyframeInterval must be >= 1");
+        }
+
+        Path pack = pathIn(archivesDir);
+        Path tmp = pack.resolveSibling(pack.getFileName() + ".tmp");
+
+        List<String> fileKeys = new ArrayList<>();
+        List<List<IndexEntry>> index = new ArrayList<>();
+        int versions = 0;
+        int keyframes = 0;
+
+        try (OutputStream fout = Files.newOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fout))) {
+
+            out.write(MAGIC);
+            out.writeInt(keyframeInterval);
+            out.writeUTF(dictionary != null ? dictionary.sha256() : "");
+            byte[] preset = dictionary != null ? dictionary.bytes() : null;
+
+            for (String fileKey : patchIndex.fileKeys()) {
+                List<IndexEntry> entries = new ArrayList<>();
+                List<String> previous = null;
+                int sinceKeyframe = 0;
+
+                for (PatchPointer p : patchIndex.pointersFor(fileKey)) {
+                    List<String> lines;
+                    try {
+                        lines = reconstructor.reconstruct(archivesDir, p, cacheDir, warnings);
+                    } catch (DiffException | PatchFailedException | IllegalStateException e) {
+                        warnings.add("Leaving " + fileKey + " for run " + p.runNumber()
+                                + " out of the chained pack: " + e.getMessage());
+                        continue;
+                    }
+
+                    byte[] keyframe = encodeKeyframe(lines);
+                    byte[] raw = keyframe;
+                    if (previous != null && sinceKeyframe < keyframeInterval) {
+                        byte[] delta = encodeDelta(previous, lines);
+                        if (delta != null && delta.length < keyframe.length) {
+                            raw = delta;
+                        }
+                    }
+
+                    // Most deltas are a few dozen bytes, where deflate's framing costs more than it saves.
+                    // Priming the window with the dictionary costs every read, so it is used only
+                    // where it makes the entry smaller.
+                    boolean isKeyframe = raw == keyframe;
+                    byte[] stored = DiffPackWriter.deflate(raw);
+                    int flags = isKeyframe ? FLAG_KEYFRAME : 0;
+                    if (preset != null) {
+                        byte[] primed = DiffPackWriter.deflate(raw, preset);
+                        if (primed.length < stored.length) {
+                            stored = primed;
+                            flags |= FLAG_DICTIONARY;
+                        }
+                    }
+                    if (stored.length >= raw.length) {
+                        stored = raw;
+                        flags = (flags & ~FLAG_DICTIONARY) | FLAG_STORED;
+                    }
+                    entries.add(new IndexEntry(p, flags, out.size(), stored.length, raw.length));
+                    out.write(stored);
+
+                    sinceKeyframe = isKeyframe ? 1 : sinceKeyframe + 1;
+                    keyframes += isKeyframe ? 1 : 0;
+                    previous = lines;
+                }
+
+                if (!entries.isEmpty()) {
+                    fileKeys.add(fileKey);
+                    index.add(entries);
+                    versions += entries.size();
+                }
+            }
+
+            long indexOffset = out.size();
+            byte[] rawIndex = encodeIndex(fileKeys, index);
+            byte[] compressedIndex = DiffPackWriter.deflate(rawIndex);
+            out.writeInt(rawIndex.length);
+            out.writeInt(compressedIndex.length);
+            out.write(compressedIndex);
+
+            out.writeLong(indexOffset);
+            out.write(MAGIC);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+
+        Files.move(tmp, pack, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new Summary(pack, fileKeys.size(), versions, keyframes);
+    }
+
+    // The entry names repeat across versions, so the index is deflated as a whole
+    private static byte[] encodeIndex(List<String> fileKeys, List<List<IndexEntry>> index) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bos);
+        out.writeInt(fileKeys.size());
+        for (int f = 0; f < fileKeys.size(); f++) {
+            out.writeUTF(fileKeys.get(f));
+            out.writeInt(index.get(f).size());
+            for (IndexEntry e : index.get(f)) {
+                out.writeUTF(e.pointer().archiveFilename());
+                out.writeUTF(e.pointer().patchEntry());
+                out.writeInt(e.pointer().runNumber());
+                out.writeByte(e.flags());
+                out.writeLong(e.offset());
+                out.writeInt(e.storedLength());
+                out.writeInt(e.rawLength());
+            }
+        }
+        return bos.toByteArray();
+    }
+
+    private static byte[] encodeKeyframe(List<String> lines) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bos);
+        out.writeInt(lines.size());
+        writeLines(out, lines);
+        return bos.toByteArray();
+    }
+
+    /**
+     * Encodes {@code revised} as KEEP/INSERT ops over {@code previous}, or returns null when the
+     * diff cannot be computed (the caller then writes a keyframe).
+     */
+    private static byte[] encodeDelta(List<String> previous, List<String> revised) throws IOException {
+        List<AbstractDelta<String>> deltas;
+        try {
+            deltas = DiffUtils.diff(previous, revised).getDeltas();
+        } catch (DiffException e) {
+            return null;
+        }
+
+        ByteArrayOutputStream ops = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(ops);
+        int count = 0;
+        int pos = 0;
+        for (AbstractDelta<String> delta : deltas) {
+            int from = delta.getSource().getPosition();
+            if (from > pos) {
+                writeKeep(out, pos, from - pos);
+                count++;
+            }
+            List<String> inserted = delta.getTarget().getLines();
+            if (!inserted.isEmpty()) {
+                out.writeByte(OP_INSERT);
+                out.writeInt(inserted.size());
+                writeLines(out, inserted);
+                count++;
+            }
+            pos = from + delta.getSource().size();
+        }
+        if (pos < previous.size()) {
+            writeKeep(out, pos, previous.size() - pos);
+            count++;
+        }
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(ops.size() + Integer.BYTES);
+        new DataOutputStream(bos).writeInt(count);
+        ops.writeTo(bos);
+        return bos.toByteArray();
+    }
+
+    private static void writeKeep(DataOutputStream out, int from, int count) throws IOException {
+        out.writeByte(OP_KEEP);
+        out.writeInt(from);
+        out.writeInt(count);
+    }
+
+    // Lines never contain '\n' (they were split on it), so joining is unambiguous given the count
+    private static void writeLines(DataOutputStream out, List<String> lines) throws IOException {
+        if (lines.isEmpty()) {
+            return;
+        }
+        byte[] bytes = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
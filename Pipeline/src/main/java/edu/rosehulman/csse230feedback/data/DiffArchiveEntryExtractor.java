@@ -6,68 +6,307 @@ import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.apache.commons.compress.utils.IOUtils;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
 /**
  * Extracts a specific TAR entry (within the single-entry ZIP) to a cached file.
  * This preserves the compressed diff archives on disk; entries are materialized on demand.
+ * When ingest left a diffs_*.pack beside the archive, entries are read from it directly, as long
+ * as the pack still matches the archive.
+ *
+ * Safe for concurrent use: cache files are written to a temp file and renamed into place, and
+ * threads asking for an entry that is already being extracted wait for that extraction.
  */
 public class DiffArchiveEntryExtractor {
 
+    private record OpenPack(DiffPackReader reader, FileTime lastModified, long size) {}
+
+    private record ArchiveDigest(String sha256, FileTime lastModified, long size) {}
+
+    // Open packs keyed by path; an index is read once per pack rather than once per lookup.
+    private final Map<Path, OpenPack> packs = new ConcurrentHashMap<>();
+
+    // Stale packs already warned about, so a pack is reported once rather than once per lookup.
+    private final Set<Path> staleReported = ConcurrentHashMap.newKeySet();
+
+    // Archive digests keyed by path; an archive is hashed once rather than once per entry.
+    private final Map<Path, ArchiveDigest> digests = new ConcurrentHashMap<>();
+
+    // Cache files being written right now, so concurrent requests for one entry extract it once.
+    private final ConcurrentHashMap<Path, CompletableFuture<Boolean>> inFlight = new ConcurrentHashMap<>();
+
     public Path materializeEntry(Path archiveZip, String tarEntryName, Path cacheDir, List<String> warnings) throws IOException {
+        Path cached = materializeEntries(archiveZip, List.of(tarEntryName), cacheDir, warnings).get(tarEntryName);
+        if (cached == null) {
+            throw new IOException("TAR entry not found: " + tarEntryName);
+        }
+        return cached;
+    }
+
+    /**
+     * Materializes several entries of one archive, inflating the archive at most once.
+     *
+     * Entries already in the cache are not read again. Entries missing from the archive are
+     * reported in {@code warnings} and left out of the result.
+     *
+     * @return cached file per requested entry name, in request order
+     */
+    public Map<String, Path> materializeEntries(Path archiveZip, Collection<String> tarEntryNames, Path cacheDir,
+                                                List<String> warnings) throws IOException {
         Files.createDirectories(cacheDir);
 
-        String archiveSha = Hashing.sha256(archiveZip);
-        String cacheKey = archiveSha + ":" + tarEntryName;
-        String cacheName = sha256String(cacheKey) + ".bin";
-        Path cached = cacheDir.resolve(cacheName);
-        if (Files.exists(cached)) {
-            return cached;
+        // Prefer the random-access pack written at ingest time: one seek per entry instead of a full scan.
+        DiffPackReader pack = openPack(archiveZip, warnings);
+        if (pack != null) {
+            return materializeFromPack(pack, archiveZip, tarEntryNames, cacheDir, warnings);
         }
 
-        boolean found = false;
-        try (InputStream fin = Files.newInputStream(archiveZip);
-             ZipInputStream zis = new ZipInputStream(new BufferedInputStream(fin))) {
-
-            ZipEntry ze = zis.getNextEntry();
-            if (ze == null) {
-                throw new IOException("Empty ZIP: " + archiveZip.getFileName());
+        String archiveSha = archiveSha256(archiveZip);
+        Map<String, Path> result = new LinkedHashMap<>();
+        Map<String, Path> pending = new HashMap<>();
+        Map<String, CompletableFuture<Boolean>> claimed = new HashMap<>();
+        Map<String, CompletableFuture<Boolean>> awaited = new LinkedHashMap<>();
+        for (String name : tarEntryNames) {
+            Path cached = cacheDir.resolve(cacheName(archiveSha, name));
+            result.put(name, cached);
+            if (Files.exists(cached) || claimed.containsKey(name) || awaited.containsKey(name)) {
+                continue;
+            }
+            CompletableFuture<Boolean> mine = new CompletableFuture<>();
+            CompletableFuture<Boolean> other = claim(cached, mine);
+            if (other != null) {
+                awaited.put(name, other);
+            } else if (mine.isDone()) {
+                continue;
+            } else {
+                pending.put(name, cached);
+                claimed.put(name, mine);
             }
+        }
+
+        if (!pending.isEmpty()) {
+            try (InputStream fin = Files.newInputStream(archiveZip);
+                 ZipInputStream zis = new ZipInputStream(new BufferedInputStream(fin))) {
+
+                ZipEntry ze = zis.getNextEntry();
+                if (ze == null) {
+                    throw new IOException("Empty ZIP: " + archiveZip.getFileName());
+                }
 
-            try (TarArchiveInputStream tis = new TarArchiveInputStream(new BufferedInputStream(zis))) {
-                TarArchiveEntry te;
-                while ((te = tis.getNextTarEntry()) != null) {
-                    if (te.isDirectory()) continue;
-                    if (!te.getName().equals(tarEntryName)) continue;
+                try (TarArchiveInputStream tis = new TarArchiveInputStream(new BufferedInputStream(zis))) {
+                    TarArchiveEntry te;
+                    while (!pending.isEmpty() && (te = tis.getNextTarEntry()) != null) {
+                        if (te.isDirectory()) continue;
+                        Path cached = pending.remove(te.getName());
+                        if (cached == null) continue;
 
-                    try (OutputStream out = Files.newOutputStream(cached,
-                            StandardOpenOption.CREATE,
-                            StandardOpenOption.TRUNCATE_EXISTING)) {
-                        IOUtils.copy(tis, out);
+                        writeAtomically(cached, tis);
+                        release(cached, claimed.get(te.getName()), true);
                     }
-                    found = true;
-                    break;
                 }
+            } catch (IOException | RuntimeException e) {
+                for (Map.Entry<String, CompletableFuture<Boolean>> c : claimed.entrySet()) {
+                    fail(result.get(c.getKey()), c.getValue(), e);
+                }
+                throw e;
+            }
+
+            for (String missing : pending.keySet()) {
+                release(pending.get(missing), claimed.get(missing), false);
+                warnings.add("Missing TAR entry '" + missing + "' in " + archiveZip.getFileName());
+                result.remove(missing);
             }
         }
 
-        if (!found) {
-            warnings.add("Missing TAR entry '" + tarEntryName + "' in " + archiveZip.getFileName());
-            throw new IOException("TAR entry not found: " + tarEntryName);
+        for (Map.Entry<String, CompletableFuture<Boolean>> a : awaited.entrySet()) {
+            if (!await(a.getValue(), a.getKey())) {
+                warnings.add("Missing TAR entry '" + a.getKey() + "' in " + archiveZip.getFileName());
+                result.remove(a.getKey());
+            }
         }
+        return result;
+    }
 
-        return cached;
+    private Map<String, Path> materializeFromPack(DiffPackReader pack, Path archiveZip, Collection<String> tarEntryNames,
+                                                  Path cacheDir, List<String> warnings) throws IOException {
+        Map<String, Path> result = new LinkedHashMap<>();
+        for (String name : tarEntryNames) {
+            // Same cache key as the ZIP path: the pack records the SHA-256 of the archive it came from.
+            Path cached = cacheDir.resolve(cacheName(pack.sourceSha256(), name));
+            if (!Files.exists(cached) && !materializeFromPack(pack, name, cached)) {
+                warnings.add("Missing TAR entry '" + name + "' in " + archiveZip.getFileName());
+                continue;
+            }
+            result.put(name, cached);
+        }
+        return result;
+    }
+
+    /**
+     * Writes one pack entry to the cache unless another thread is already doing so, in which
+     * case this waits for it. Returns false when the pack has no such entry.
+     */
+    private boolean materializeFromPack(DiffPackReader pack, String name, Path cached) throws IOException {
+        CompletableFuture<Boolean> mine = new CompletableFuture<>();
+        CompletableFuture<Boolean> other = claim(cached, mine);
+        if (other != null) {
+            return await(other, name);
+        }
+        if (mine.isDone()) {
+            return true;
+        }
+        try {
+            byte[] bytes = pack.readEntry(name);
+            if (bytes != null) {
+                writeAtomically(cached, new ByteArrayInputStream(bytes));
+            }
+            release(cached, mine, bytes != null);
+            return bytes != null;
+        } catch (IOException | RuntimeException e) {
+            fail(cached, mine, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Registers this thread as the writer of {@code cached}. Returns the other writer's future if
+     * one is already in flight; otherwise {@code mine} is registered, or completed right away when
+     * the entry turned up in the cache in the meantime.
+     */
+    private CompletableFuture<Boolean> claim(Path cached, CompletableFuture<Boolean> mine) {
+        CompletableFuture<Boolean> other = inFlight.putIfAbsent(cached, mine);
+        if (other == null && Files.exists(cached)) {
+            release(cached, mine, true);
+        }
+        return other;
+    }
+
+    private void release(Path cached, CompletableFuture<Boolean> mine, boolean found) {
+        inFlight.remove(cached, mine);
+        mine.complete(found);
+    }
+
+    private void fail(Path cached, CompletableFuture<Boolean> mine, Throwable cause) {
+        inFlight.remove(cached, mine);
+        mine.completeExceptionally(cause);
+    }
+
+    private static boolean await(CompletableFuture<Boolean> other, String name) throws IOException {
+        try {
+            return other.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for TAR entry " + name);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to extract TAR entry " + name + ": " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Copies {@code in} to a temp file beside {@code target} and renames it into place, so readers
+     * never see a partially written entry.
+     */
+    private static void writeAtomically(Path target, InputStream in) throws IOException {
+        Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                IOUtils.copy(in, out);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * SHA-256 of an archive, recomputed only when its size or modification time changes.
+     */
+    public String archiveSha256(Path archiveZip) throws IOException {
+        FileTime lastModified = Files.getLastModifiedTime(archiveZip);
+        long size = Files.size(archiveZip);
+        ArchiveDigest digest = digests.get(archiveZip);
+        if (digest == null || !digest.lastModified().equals(lastModified) || digest.size() != size) {
+            digest = new ArchiveDigest(Hashing.sha256(archiveZip), lastModified, size);
+            digests.put(archiveZip, digest);
+        }
+        return digest.sha256();
+    }
+
+    /**
+     * Digest identifying an archive's contents: the SHA-256 recorded in its pack when there is one,
+     * otherwise the (memoized) hash of the archive itself.
+     */
+    public String sourceSha256(Path archiveZip, List<String> warnings) throws IOException {
+        DiffPackReader pack = openPack(archiveZip, warnings);
+        return pack != null ? pack.sourceSha256() : archiveSha256(archiveZip);
+    }
+
+    private static String cacheName(String archiveSha, String tarEntryName) {
+        return sha256String(archiveSha + ":" + tarEntryName) + ".bin";
+    }
+
+    /**
+     * Returns the reader for the archive's pack, or null when there is no (readable) pack or the
+     * pack is stale.
+     *
+     * A pack is trusted when the archive still has the size and modification time the pack
+     * recorded, or failing that (an archive copied with a new time) when the
+     * archive's SHA-256 is the one the pack was written from. A pack whose archive is gone is the
+     * only copy left and is used as is.
+     */
+    private DiffPackReader openPack(Path archiveZip, List<String> warnings) {
+        Path packPath = DiffPackWriter.packPathFor(archiveZip);
+        try {
+            if (!Files.isRegularFile(packPath)) {
+                packs.remove(packPath);
+                return null;
+            }
+            FileTime lastModified = Files.getLastModifiedTime(packPath);
+            long size = Files.size(packPath);
+
+            OpenPack open = packs.get(packPath);
+            if (open == null || !open.lastModified().equals(lastModified) || open.size() != size) {
+                open = new OpenPack(DiffPackReader.open(packPath), lastModified, size);
+                packs.put(packPath, open);
+            }
+
+            DiffPackReader reader = open.reader();
+            if (Files.exists(archiveZip) && !reader.stampMatches(archiveZip)
+                    && !reader.sourceSha256().equals(archiveSha256(archiveZip))) {
+                if (staleReported.add(packPath)) {
+                    warnings.add("Ignoring stale diff pack " + packPath.getFileName() + ": "
+                            + archiveZip.getFileName() + " changed since the pack was written");
+                }
+                return null;
+            }
+            return reader;
+        } catch (IOException e) {
+            warnings.add("Ignoring unreadable diff pack " + packPath.getFileName() + ": " + e.getMessage());
+            packs.remove(packPath);
+            return null;
+        }
     }
 
     private static String sha256String(String s) {
@@ -4,16 +4,23 @@ import edu.rosehulman.csse230feedback.model.DiffArchiveInfo;
 import edu.rosehulman.csse230feedback.model.PatchPointer;
 import edu.rosehulman.csse230feedback.util.Hashing;
 import edu.rosehulman.csse230feedback.util.Json;
+import helpers.FastDiffReplayer;
 
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 
 import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
@@ -27,6 +34,10 @@ import java.util.zip.ZipInputStream;
  * The TAR contains entries under:
  *   baselines/<package.Class>
  *   patches/<package.Class>_<runNum>
+ *
+ * Patch entries are read while walking the TAR so each pointer records the patch's kind, delta
+ * count and lines added/removed. When packs are on, the same walk keeps every entry's bytes and
+ * the archive's pack ({@link DiffPackWriter}) is written from them, without reading it again.
  */
 public class DiffArchiveIndexer {
 
@@ -35,46 +46,321 @@ public class DiffArchiveIndexer {
 
     private static final Pattern BASELINE_FILENAME = Pattern.compile("^diffs_(\\d+)_\\.tar\\.zip$");
 
+    private static final Comparator<PatchPointer> POINTER_ORDER = Comparator
+            .comparing(PatchPointer::archiveFilename)
+            .thenComparing(PatchPointer::fileKey)
+            .thenComparingInt(PatchPointer::runNumber);
+
     public static boolean isDiffsTarZipFilename(String filename) {
         return filename != null && filename.startsWith(DIFFS_PREFIX) && filename.endsWith(TAR_ZIP_SUFFIX);
     }
 
+    private final int parallelism;
+    private final boolean writePacks;
+    private final DiffPackWriter packWriter = new DiffPackWriter();
+
+    public DiffArchiveIndexer() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism max number of archives hashed and indexed concurrently by {@link #indexAll}
+     *                    and {@link #indexChanged}
+     */
+    public DiffArchiveIndexer(int parallelism) {
+        this(parallelism, false);
+    }
+
+    /**
+     * @param parallelism max number of archives hashed and indexed concurrently by {@link #indexAll}
+     *                    and {@link #indexChanged}
+     * @param writePacks  whether {@link #indexAll} writes a pack beside each archive it indexes
+     */
+    public DiffArchiveIndexer(int parallelism, boolean writePacks) {
+        this.parallelism = Math.max(1, parallelism);
+        this.writePacks = writePacks;
+    }
+
+    /**
+     * Hashes and indexes every archive, concurrently when there is more than one, then writes
+     * diff_index.json and patches_index.jsonl. Results and warnings are merged in input order,
+     * so the output is identical to indexing the archives one at a time.
+     */
     public List<DiffArchiveInfo> indexAll(List<Path> archives, Path diffIndexJsonOut, List<String> warnings) throws IOException {
+        return writeIndexes(forEachArchive(archives, warnings, this::indexOne), diffIndexJsonOut);
+    }
+
+    /** Work done on one archive by {@link #forEachArchive}. */
+    private interface ArchiveTask<T> {
+        T apply(Path archive, List<String> warnings) throws IOException;
+    }
+
+    /**
+     * Applies {@code task} to every archive, concurrently when there is more than one. Results and
+     * warnings are returned in input order, as if the archives had been processed one at a time.
+     */
+    private <T> List<T> forEachArchive(List<Path> archives, List<String> warnings, ArchiveTask<T> task)
+            throws IOException {
+        int threads = Math.min(parallelism, archives.size());
+        List<T> results = new ArrayList<>();
+        if (threads <= 1) {
+            for (Path archive : archives) {
+                results.add(task.apply(archive, warnings));
+            }
+            return results;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            List<List<String>> archiveWarnings = new ArrayList<>();
+            for (Path archive : archives) {
+                List<String> w = new ArrayList<>();
+                archiveWarnings.add(w);
+                futures.add(pool.submit(() -> task.apply(archive, w)));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                results.add(await(futures.get(i)));
+                warnings.addAll(archiveWarnings.get(i));
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while indexing diff archives");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Writes diff_index.json and patches_index.jsonl for already-indexed archives.
+     */
+    List<DiffArchiveInfo> writeIndexes(List<ArchiveIndex> indexes, Path diffIndexJsonOut) throws IOException {
         List<DiffArchiveInfo> infos = new ArrayList<>();
         List<PatchPointer> allPointers = new ArrayList<>();
 
-        for (Path archive : archives) {
-            ArchiveIndex idx = indexOne(archive, warnings);
+        for (ArchiveIndex idx : indexes) {
             infos.add(idx.info);
             allPointers.addAll(idx.pointers);
         }
 
         // Deterministic ordering
         infos.sort(Comparator.comparing(DiffArchiveInfo::filename));
-        allPointers.sort(Comparator
-                .comparing(PatchPointer::archiveFilename)
-                .thenComparing(PatchPointer::fileKey)
-                .thenComparingInt(PatchPointer::runNumber));
+        allPointers.sort(POINTER_ORDER);
 
-        Json.writeJson(diffIndexJsonOut, Map.of(
-                "schemaVersion", 1,
-                "archives", infos
-        ));
+        writeDiffIndex(infos, diffIndexJsonOut);
 
-        // Also write a patches index for on-demand reconstruction.
-        Path patchesJsonl = diffIndexJsonOut.getParent().resolve("patches_index.jsonl");
-        Json.writeJsonl(patchesJsonl, allPointers);
+        // Also write a patches index for on-demand reconstruction, plus its binary form.
+        Json.writeJsonl(patchesIndexPath(diffIndexJsonOut), allPointers);
+        BinaryPatchIndex.write(binaryIndexPath(diffIndexJsonOut), allPointers);
 
         return infos;
     }
 
-    private record ArchiveIndex(DiffArchiveInfo info, List<PatchPointer> pointers) {}
+    /**
+     * Result of an incremental index: the full archive list plus only the patch pointers
+     * that were not in the previous index.
+     */
+    public record IncrementalIndex(
+            List<DiffArchiveInfo> infos,
+            List<PatchPointer> newPointers,
+            List<String> changedArchives
+    ) {}
+
+    /**
+     * Indexes only the archives whose SHA-256 differs from {@code previous}; unchanged archives
+     * keep their previous {@link DiffArchiveInfo} and are never opened.
+     *
+     * The logger only ever adds patches for later runs to an archive, so the new pointers of a
+     * changed archive are the ones past its previous maxPatchRunNumber. Returns null when the
+     * previous index cannot be extended by appending (an archive disappeared, or a changed archive
+     * lost or rewrote earlier patches); the caller should then fall back to a full index.
+     * Archives are hashed and scanned concurrently, like {@link #indexAll}.
+     * Nothing is written; see {@link #writeIncremental}.
+     */
+    public IncrementalIndex indexChanged(List<Path> archives, List<DiffArchiveInfo> previous,
+                                         List<String> warnings) throws IOException {
+        Map<String, DiffArchiveInfo> previousByName = new HashMap<>();
+        for (DiffArchiveInfo info : previous) {
+            previousByName.put(info.filename(), info);
+        }
+
+        // Null for an archive whose SHA-256 is unchanged
+        List<ArchiveIndex> scanned = forEachArchive(archives, warnings, (archive, w) -> {
+            String filename = archive.getFileName().toString();
+            String sha = Hashing.sha256(archive);
+            DiffArchiveInfo prev = previousByName.get(filename);
+            if (prev != null && sha.equals(prev.sha256())) {
+                return null;
+            }
+            try (InputStream fin = Files.newInputStream(archive)) {
+                return toIndex(filename, sha, scanEntries(filename, fin, w));
+            }
+        });
+
+        List<DiffArchiveInfo> infos = new ArrayList<>();
+        List<PatchPointer> newPointers = new ArrayList<>();
+        List<String> changed = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+
+        for (int i = 0; i < archives.size(); i++) {
+            String filename = archives.get(i).getFileName().toString();
+            seen.add(filename);
+
+            DiffArchiveInfo prev = previousByName.get(filename);
+            ArchiveIndex idx = scanned.get(i);
+            if (idx == null) {
+                infos.add(prev);
+                continue;
+            }
+
+            List<PatchPointer> added = idx.pointers();
+            if (prev != null) {
+                Integer prevMax = prev.maxPatchRunNumber();
+                added = idx.pointers().stream()
+                        .filter(p -> prevMax == null || p.runNumber() > prevMax)
+                        .toList();
+                if (idx.info().patchCount() - added.size() != prev.patchCount()) {
+                    return null;
+                }
+            }
+
+            infos.add(idx.info());
+            newPointers.addAll(added);
+            changed.add(filename);
+        }
+
+        if (!seen.containsAll(previousByName.keySet())) {
+            return null;
+        }
+
+        infos.sort(Comparator.comparing(DiffArchiveInfo::filename));
+        newPointers.sort(POINTER_ORDER);
+        return new IncrementalIndex(infos, newPointers, changed);
+    }
+
+    /**
+     * Rewrites diff_index.json, and rewrites patches_index.jsonl and patches_index.bin as the
+     * previous pointers plus the new ones. The pointers are sorted the way a full index sorts
+     * them: {@link PatchIndex} breaks ties by file order, so appending would not be equivalent.
+     */
+    public void writeIncremental(IncrementalIndex index, Path diffIndexJsonOut) throws IOException {
+        writeDiffIndex(index.infos(), diffIndexJsonOut);
+
+        Path jsonl = patchesIndexPath(diffIndexJsonOut);
+        List<PatchPointer> allPointers = new ArrayList<>(Json.readJsonl(jsonl, PatchPointer.class));
+        allPointers.addAll(index.newPointers());
+        allPointers.sort(POINTER_ORDER);
+
+        Json.writeJsonl(jsonl, allPointers);
+        BinaryPatchIndex.write(binaryIndexPath(diffIndexJsonOut), allPointers);
+    }
+
+    private static void writeDiffIndex(List<DiffArchiveInfo> infos, Path diffIndexJsonOut) throws IOException {
+        // LinkedHashMap rather than Map.of: Map.of iteration order changes between JVM runs.
+        Map<String, Object> diffIndex = new LinkedHashMap<>();
+        diffIndex.put("schemaVersion", 1);
+        diffIndex.put("archives", infos);
+        Json.writeJson(diffIndexJsonOut, diffIndex);
+    }
+
+    private static Path patchesIndexPath(Path diffIndexJsonOut) {
+        return diffIndexJsonOut.getParent().resolve("patches_index.jsonl");
+    }
+
+    private static Path binaryIndexPath(Path diffIndexJsonOut) {
+        return diffIndexJsonOut.getParent().resolve(BinaryPatchIndex.FILENAME);
+    }
+
+    record ArchiveIndex(DiffArchiveInfo info, List<PatchPointer> pointers) {}
+
+    /**
+     * Counts and patch pointers gathered from one walk over an archive's TAR entries.
+     */
+    record EntryScan(int baselineCount, int patchCount, Integer minRun, Integer maxRun,
+                     List<PatchPointer> pointers, boolean complete) {}
 
     private ArchiveIndex indexOne(Path archiveZip, List<String> warnings) throws IOException {
         String filename = archiveZip.getFileName().toString();
-        Integer baselineRunNumber = parseBaselineRunNumber(filename);
         String sha = Hashing.sha256(archiveZip);
 
+        Map<String, byte[]> entries = writePacks ? new LinkedHashMap<>() : null;
+        EntryScan scan;
+        try (InputStream fin = Files.newInputStream(archiveZip)) {
+            scan = scanEntries(filename, fin, warnings, entries);
+        }
+        if (writePacks) {
+            writePack(archiveZip, sha, scan, entries, warnings);
+        }
+        return toIndex(filename, sha, scan);
+    }
+
+    /**
+     * Writes archives/diffs_N_.pack beside {@code archiveZip} from the entries collected by
+     * {@link #scanEntries}. A failed pack, or an archive that could not be read in full, is only a
+     * warning (and any stale pack is removed); readers fall back to the archive itself.
+     */
+    void writePack(Path archiveZip, String sha, EntryScan scan, Map<String, byte[]> entries, List<String> warnings) {
+        Path pack = DiffPackWriter.packPathFor(archiveZip);
+        try {
+            if (!scan.complete()) {
+                Files.deleteIfExists(pack);
+                return;
+            }
+            packWriter.write(archiveZip, sha, entries);
+        } catch (IOException e) {
+            warnings.add("Failed to write diff pack for " + archiveZip.getFileName() + ": " + e.getMessage());
+            try {
+                Files.deleteIfExists(pack);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Builds the archive index once the archive digest is known.
+     */
+    ArchiveIndex toIndex(String filename, String sha, EntryScan scan) {
+        DiffArchiveInfo info = new DiffArchiveInfo(
+                filename,
+                parseBaselineRunNumber(filename),
+                sha,
+                scan.baselineCount(),
+                scan.patchCount(),
+                scan.minRun(),
+                scan.maxRun()
+        );
+
+        return new ArchiveIndex(info, scan.pointers());
+    }
+
+    /**
+     * Walks the TAR inside a diffs_*.tar.zip read from {@code zipIn}.
+     *
+     * The caller owns {@code zipIn}; it is left open so a streaming caller can keep
+     * consuming (and hashing) the remaining ZIP bytes after the TAR has been walked.
+     */
+    EntryScan scanEntries(String filename, InputStream zipIn, List<String> warnings) {
+        return scanEntries(filename, zipIn, warnings, null);
+    }
+
+    /**
+     * Like {@link #scanEntries(String, InputStream, List)}, also putting every file entry's bytes
+     * into {@code entriesOut} (in TAR order) when it is not null.
+     */
+    EntryScan scanEntries(String filename, InputStream zipIn, List<String> warnings, Map<String, byte[]> entriesOut) {
         int baselineCount = 0;
         int patchCount = 0;
         Integer minRun = null;
@@ -82,13 +368,12 @@ public class DiffArchiveIndexer {
 
         List<PatchPointer> pointers = new ArrayList<>();
 
-        try (InputStream fin = Files.newInputStream(archiveZip);
-             ZipInputStream zis = new ZipInputStream(new BufferedInputStream(fin))) {
+        try (ZipInputStream zis = new ZipInputStream(new BufferedInputStream(new NonClosingInputStream(zipIn)))) {
 
             ZipEntry ze = zis.getNextEntry();
             if (ze == null) {
                 warnings.add("Empty diff archive zip: " + filename);
-                return new ArchiveIndex(new DiffArchiveInfo(filename, baselineRunNumber, sha, 0, 0, null, null), List.of());
+                return new EntryScan(0, 0, null, null, List.of(), false);
             }
 
             // The zip entry contents are a TAR
@@ -97,12 +382,18 @@ public class DiffArchiveIndexer {
                 while ((te = tis.getNextTarEntry()) != null) {
                     if (te.isDirectory()) continue;
                     String name = te.getName();
+                    byte[] bytes = null;
+                    if (entriesOut != null) {
+                        bytes = tis.readAllBytes();
+                        entriesOut.put(name, bytes);
+                    }
 
                     if (name.startsWith("baselines/")) {
                         baselineCount++;
                     } else if (name.startsWith("patches/")) {
                         patchCount++;
-                        PatchPointer ptr = parsePatchPointer(filename, name, warnings);
+                        PatchPointer ptr = parsePatchPointer(filename, name,
+                                bytes != null ? bytes : tis.readAllBytes(), warnings);
                         if (ptr != null) {
                             pointers.add(ptr);
                             int r = ptr.runNumber();
@@ -114,19 +405,10 @@ public class DiffArchiveIndexer {
             }
         } catch (Exception e) {
             warnings.add("Failed to index diff archive " + filename + ": " + e.getMessage());
+            return new EntryScan(baselineCount, patchCount, minRun, maxRun, pointers, false);
         }
 
-        DiffArchiveInfo info = new DiffArchiveInfo(
-                filename,
-                baselineRunNumber,
-                sha,
-                baselineCount,
-                patchCount,
-                minRun,
-                maxRun
-        );
-
-        return new ArchiveIndex(info, pointers);
+        return new EntryScan(baselineCount, patchCount, minRun, maxRun, pointers, true);
     }
 
     private Integer parseBaselineRunNumber(String filename) {
@@ -139,7 +421,8 @@ public class DiffArchiveIndexer {
         }
     }
 
-    private PatchPointer parsePatchPointer(String archiveFilename, String tarEntryName, List<String> warnings) {
+    private PatchPointer parsePatchPointer(String archiveFilename, String tarEntryName, byte[] patch,
+                                           List<String> warnings) {
         // tarEntryName is like "patches/com.foo.Bar_42"
         String base = tarEntryName.substring("patches/".length());
 
@@ -162,7 +445,30 @@ public class DiffArchiveIndexer {
         String baselineEntry = "baselines/" + fileKey;
         String patchEntry = tarEntryName;
 
-        // patch kind will be determined when extracted (File created!/File too large!/delta)
-        return new PatchPointer(archiveFilename, fileKey, run, baselineEntry, patchEntry, null);
+        // Kind and sizes come from the bytes already in hand, so readers never need to extract the patch
+        FastDiffReplayer.PatchStats stats;
+        try {
+            stats = FastDiffReplayer.stats(patch);
+        } catch (IllegalArgumentException e) {
+            warnings.add("Could not read patch statistics for " + tarEntryName + " in " + archiveFilename +
+                    ": " + e.getMessage());
+            return new PatchPointer(archiveFilename, fileKey, run, baselineEntry, patchEntry, null);
+        }
+        return new PatchPointer(archiveFilename, fileKey, run, baselineEntry, patchEntry, stats.kind().name(),
+                stats.deltaCount(), stats.linesAdded(), stats.linesRemoved());
+    }
+
+    /**
+     * Shields a caller-owned stream from being closed by the ZIP/TAR readers layered on top of it.
+     */
+    private static final class NonClosingInputStream extends FilterInputStream {
+        private NonClosingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public void close() {
+            // Intentionally left open; the caller closes the underlying stream.
+        }
     }
 }
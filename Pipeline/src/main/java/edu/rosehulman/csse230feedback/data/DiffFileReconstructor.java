@@ -2,38 +2,212 @@ package edu.rosehulman.csse230feedback.data;
 
 import com.github.difflib.patch.PatchFailedException;
 import edu.rosehulman.csse230feedback.model.PatchPointer;
-import helpers.DiffReplayer;
+import helpers.FastDiffReplayer;
 
 import com.github.difflib.algorithm.DiffException;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
 
+/**
+ * Reconstructs file versions from the diff archives. When {@code compact} has written a chained
+ * pack and a pointer's archive has since been removed, the version is read from the chained pack
+ * instead, so pointers from the patches index keep working.
+ */
 public class DiffFileReconstructor {
 
+    private record OpenChain(ChainedPackReader reader, FileTime lastModified, long size) {}
+
     private final DiffArchiveEntryExtractor extractor = new DiffArchiveEntryExtractor();
 
+    // Open chained packs keyed by path; an index is read once per pack rather than once per lookup.
+    private final Map<Path, OpenChain> chains = new ConcurrentHashMap<>();
+    private final ReconstructedFileCache versions;
+    private final boolean strictReplay;
+
+    public DiffFileReconstructor() {
+        this(ReconstructedFileCache.shared(), false);
+    }
+
+    /**
+     * Caches reconstructed versions in {@code versions} (e.g. one with a disk tier) instead of the
+     * shared heap-only cache.
+     */
+    public DiffFileReconstructor(ReconstructedFileCache versions) {
+        this(versions, false);
+    }
+
+    /**
+     * @param strictReplay verify each delta's source lines against the baseline while replaying
+     */
+    public DiffFileReconstructor(ReconstructedFileCache versions, boolean strictReplay) {
+        this.versions = versions;
+        this.strictReplay = strictReplay;
+    }
+
     /**
      * Reconstructs file content for a given (fileKey, runNumber) patch.
      *
      * This does NOT require sequential replay: each patch is baseline->revised for that run.
+     * Results are cached; with a persistent cache, a version replayed by rerun is not replayed
+     * again by prepare.
+     * The returned list is immutable.
      */
     public List<String> reconstruct(Path archivesDir, PatchPointer ptr, Path cacheDir, List<String> warnings)
             throws IOException, DiffException, PatchFailedException {
 
         Path archiveZip = archivesDir.resolve(ptr.archiveFilename());
-        Path baselineFile = extractor.materializeEntry(archiveZip, ptr.baselineEntry(), cacheDir, warnings);
-        Path patchFile = extractor.materializeEntry(archiveZip, ptr.patchEntry(), cacheDir, warnings);
+        if (!Files.exists(archiveZip)) {
+            ChainedPackReader chain = chainedPack(archivesDir);
+            if (chain != null && chain.contains(ptr)) {
+                return List.of(chain.read(ptr));
+            }
+        }
+        String archiveSha = extractor.sourceSha256(archiveZip, warnings);
+        List<String> cached = versions.get(archiveSha, ptr.fileKey(), ptr.runNumber());
+        if (cached != null) {
+            return cached;
+        }
+
+        // Both entries in one pass over the archive
+        Map<String, Path> entries = extractor.materializeEntries(archiveZip,
+                List.of(ptr.baselineEntry(), ptr.patchEntry()), cacheDir, warnings);
+        Path baselineFile = entryOrThrow(entries, ptr.baselineEntry());
+        Path patchFile = entryOrThrow(entries, ptr.patchEntry());
+
+        // The replayer expects UTF-8 baseline and patch files. The TAR entries are written as UTF-8.
+        List<String> lines = FastDiffReplayer.replay(baselineFile, patchFile, strictReplay);
+        return versions.put(archiveSha, ptr.fileKey(), ptr.runNumber(), lines);
+    }
+
+    private static Path entryOrThrow(Map<String, Path> entries, String tarEntryName) throws IOException {
+        Path cached = entries.get(tarEntryName);
+        if (cached == null) {
+            throw new IOException("TAR entry not found: " + tarEntryName);
+        }
+        return cached;
+    }
+
+    /**
+     * Iterates {@code fileKey}'s versions for each run from {@code fromRun} to {@code toRun}
+     * (inclusive).
+     *
+     * @see #versions(Path, PatchIndex, String, int[], Path, List)
+     */
+    public FileVersionIterator versions(Path archivesDir, PatchIndex patchIndex, String fileKey,
+                                        int fromRun, int toRun, Path cacheDir, List<String> warnings)
+            throws IOException {
+        return versions(archivesDir, patchIndex, fileKey, IntStream.rangeClosed(fromRun, toRun).toArray(),
+                cacheDir, warnings);
+    }
+
+    /**
+     * Iterates {@code fileKey}'s versions at each of {@code runs} (ascending), parsing each
+     * baseline once per rebaseline epoch instead of once per run.
+     *
+     * @see FileVersionIterator
+     */
+    public FileVersionIterator versions(Path archivesDir, PatchIndex patchIndex, String fileKey,
+                                        int[] runs, Path cacheDir, List<String> warnings)
+            throws IOException {
+        return new FileVersionIterator(extractor, () -> chainedPack(archivesDir), versions, strictReplay,
+                archivesDir, cacheDir, patchIndex, fileKey, runs, warnings);
+    }
+
+    /**
+     * Line provenance and churn of every file in {@code patchIndex}: walks each file's patched
+     * versions in run order, updating the file's provenance from each replayed patch. Versions that
+     * cannot be reconstructed are skipped, so their changes go to the next version that can; each
+     * file with skipped versions gets one line in {@code warnings}.
+     */
+    public LineChurn lineChurn(Path archivesDir, PatchIndex patchIndex, Path cacheDir, List<String> warnings)
+            throws IOException {
+        Map<String, LineChurn.FileTracker> trackers = new LinkedHashMap<>();
+        for (String fileKey : patchIndex.fileKeys()) {
+            List<String> failures = new ArrayList<>();
+            LineChurn.FileTracker tracker = new LineChurn.FileTracker();
+            try {
+                versions(archivesDir, patchIndex, fileKey, patchIndex.runsFor(fileKey), cacheDir, failures)
+                        .forEachRemaining(tracker::add);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (!failures.isEmpty()) {
+                warnings.add("Line churn for " + fileKey + " skips " + failures.size()
+                        + " version(s) that could not be reconstructed");
+            }
+            trackers.put(fileKey, tracker);
+        }
+        return LineChurn.fromTrackers(trackers);
+    }
+
+    /**
+     * Returns the reader for archives/{@value ChainedPackWriter#FILENAME}, or null when there is
+     * no chained pack. Only consulted once an archive turns out to be missing, so a pack that
+     * cannot be opened is an error rather than something to fall back from.
+     */
+    ChainedPackReader chainedPack(Path archivesDir) throws IOException {
+        Path path = ChainedPackWriter.pathIn(archivesDir);
+        if (!Files.isRegularFile(path)) {
+            chains.remove(path);
+            return null;
+        }
+        FileTime lastModified = Files.getLastModifiedTime(path);
+        long size = Files.size(path);
+
+        OpenChain open = chains.get(path);
+        if (open == null || !open.lastModified().equals(lastModified) || open.size() != size) {
+            open = new OpenChain(ChainedPackReader.open(path), lastModified, size);
+            chains.put(path, open);
+        }
+        return open.reader();
+    }
+
+    /**
+     * Materializes the baseline and patch entries of every pointer whose version is not already
+     * cached, reading each archive once. Later {@link #reconstruct} calls for these pointers then only hit the cache.
+     *
+     * Problems with individual entries are not reported here; {@link #reconstruct} reports them
+     * for the pointer that needs the entry.
+     */
+    public void prefetch(Path archivesDir, Collection<PatchPointer> pointers, Path cacheDir) throws IOException {
+        List<String> ignored = new ArrayList<>();
+        Map<String, Set<String>> entriesByArchive = new LinkedHashMap<>();
+        for (PatchPointer ptr : pointers) {
+            Path archiveZip = archivesDir.resolve(ptr.archiveFilename());
+            if (!Files.exists(archiveZip)) {
+                // Compacted away, or missing; reconstruct reads the chained pack or reports it
+                continue;
+            }
+            if (versions.contains(extractor.sourceSha256(archiveZip, ignored), ptr.fileKey(), ptr.runNumber())) {
+                continue;
+            }
+            Set<String> entries = entriesByArchive.computeIfAbsent(ptr.archiveFilename(), _k -> new LinkedHashSet<>());
+            entries.add(ptr.baselineEntry());
+            entries.add(ptr.patchEntry());
+        }
 
-        // DiffReplayer expects UTF-8 baseline and patch files. The TAR entries are written as UTF-8.
-        return DiffReplayer.replay(baselineFile, patchFile);
+        for (Map.Entry<String, Set<String>> e : entriesByArchive.entrySet()) {
+            extractor.materializeEntries(archivesDir.resolve(e.getKey()), e.getValue(), cacheDir, ignored);
+        }
     }
 
     /**
      * Convenience: determine the patch kind by reading the first line.
+     * Pointers from current indexes already carry it as {@link PatchPointer#patchKind()}.
      */
     public static String detectPatchKind(Path patchFile) throws IOException {
         List<String> lines = Files.readAllLines(patchFile, StandardCharsets.UTF_8);
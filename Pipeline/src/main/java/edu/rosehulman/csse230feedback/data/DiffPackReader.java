@@ -0,0 +1,191 @@
+package edu.rosehulman.csse230feedback.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Random-access reader for packs written by {@link DiffPackWriter}.
+ *
+ * Opening a pack reads only its footer and index. Reading an entry is one positional read of
+ * that entry's compressed bytes plus an inflate of just those bytes. Instances are immutable
+ * and safe to share between threads; no file handle is held between reads.
+ */
+public final class DiffPackReader {
+
+    private record Entry(long offset, int compressedLength, int rawLength) {}
+
+    private final Path pack;
+    private final String sourceSha256;
+    private final long sourceSize;
+    private final long sourceLastModifiedMillis;
+    private final Map<String, Entry> entries;
+
+    private DiffPackReader(Path pack, String sourceSha256, long sourceSize, long sourceLastModifiedMillis,
+                           Map<String, Entry> entries) {
+        this.pack = pack;
+        this.sourceSha256 = sourceSha256;
+        this.sourceSize = sourceSize;
+        this.sourceLastModifiedMillis = sourceLastModifiedMillis;
+        this.entries = entries;
+    }
+
+    public static DiffPackReader open(Path pack) throws IOException {
+        try (FileChannel ch = FileChannel.open(pack, StandardOpenOption.READ)) {
+            long size = ch.size();
+            int headerMin = DiffPackWriter.MAGIC.length + 2;
+            if (size < headerMin + DiffPackWriter.FOOTER_LENGTH) {
+                throw new IOException("Not a diff pack (too short): " + pack.getFileName());
+            }
+
+            // Header: magic + source sha (UTF: 2-byte length prefix), then the source stamp
+            ByteBuffer headerStart = readFully(ch, 0, headerMin);
+            checkMagic(headerStart, DiffPackWriter.MAGIC, pack);
+            int shaLength = Short.toUnsignedInt(headerStart.getShort());
+            int headerLength = headerMin + shaLength + 2 * Long.BYTES;
+            if (size < headerLength + DiffPackWriter.FOOTER_LENGTH) {
+                throw new IOException("Corrupt diff pack header: " + pack.getFileName());
+            }
+            ByteBuffer header = readFully(ch, 0, headerLength);
+            DataInputStream headerIn = new DataInputStream(new ByteArrayInputStream(
+                    header.array(), DiffPackWriter.MAGIC.length, headerLength - DiffPackWriter.MAGIC.length));
+            String sourceSha = headerIn.readUTF();
+            long sourceSize = headerIn.readLong();
+            long sourceLastModified = headerIn.readLong();
+
+            ByteBuffer footer = readFully(ch, size - DiffPackWriter.FOOTER_LENGTH, DiffPackWriter.FOOTER_LENGTH);
+            long indexOffset = footer.getLong();
+            checkMagic(footer, DiffPackWriter.MAGIC, pack);
+
+            long indexLength = size - DiffPackWriter.FOOTER_LENGTH - indexOffset;
+            if (indexOffset < headerLength || indexLength < Integer.BYTES || indexLength > Integer.MAX_VALUE) {
+                throw new IOException("Corrupt diff pack index: " + pack.getFileName());
+            }
+            ByteBuffer index = readFully(ch, indexOffset, (int) indexLength);
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(index.array()));
+            int count = in.readInt();
+            Map<String, Entry> entries = new HashMap<>(Math.max(16, count * 2));
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                entries.put(name, new Entry(in.readLong(), in.readInt(), in.readInt()));
+            }
+
+            return new DiffPackReader(pack, sourceSha, sourceSize, sourceLastModified, entries);
+        }
+    }
+
+    public Path path() {
+        return pack;
+    }
+
+    /** SHA-256 of the diffs_*.tar.zip this pack was transcoded from. */
+    public String sourceSha256() {
+        return sourceSha256;
+    }
+
+    /**
+     * True if {@code archiveZip} has the size and modification time recorded when this pack was
+     * written.
+     */
+    public boolean stampMatches(Path archiveZip) throws IOException {
+        return Files.size(archiveZip) == sourceSize
+                && Files.getLastModifiedTime(archiveZip).toMillis() == sourceLastModifiedMillis;
+    }
+
+    public boolean contains(String entryName) {
+        return entries.containsKey(entryName);
+    }
+
+    public Set<String> entryNames() {
+        return entries.keySet();
+    }
+
+    /**
+     * Reads and inflates one entry, or returns null if the pack has no such entry.
+     */
+    public byte[] readEntry(String entryName) throws IOException {
+        Entry e = entries.get(entryName);
+        if (e == null) {
+            return null;
+        }
+
+        ByteBuffer compressed;
+        try (FileChannel ch = FileChannel.open(pack, StandardOpenOption.READ)) {
+            compressed = readFully(ch, e.offset(), e.compressedLength());
+        }
+
+        return inflate(compressed.array(), e.rawLength(), pack, entryName);
+    }
+
+    /** Inflates one entry deflated by {@link DiffPackWriter}, checking it has exactly {@code rawLength} bytes. */
+    static byte[] inflate(byte[] compressed, int rawLength, Path pack, String entryName) throws IOException {
+        return inflate(compressed, rawLength, null, pack, entryName);
+    }
+
+    /**
+     * Like {@link #inflate(byte[], int, Path, String)}, supplying {@code dictionary} when the
+     * entry was deflated with one.
+     */
+    static byte[] inflate(byte[] compressed, int rawLength, byte[] dictionary, Path pack, String entryName)
+            throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int n = 0;
+            while (n < raw.length) {
+                int r = inflater.inflate(raw, n, raw.length - n);
+                if (r == 0) {
+                    if (inflater.needsDictionary() && dictionary != null) {
+                        inflater.setDictionary(dictionary);
+                        continue;
+                    }
+                    break;
+                }
+                n += r;
+            }
+            if (n != raw.length) {
+                throw new IOException("Truncated entry '" + entryName + "' in " + pack.getFileName());
+            }
+            return raw;
+        } catch (DataFormatException | IllegalArgumentException ex) {
+            // IllegalArgumentException: the dictionary is not the one the entry was deflated with
+            throw new IOException("Corrupt entry '" + entryName + "' in " + pack.getFileName() + ": " + ex.getMessage(), ex);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    static ByteBuffer readFully(FileChannel ch, long position, int length) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        while (buf.hasRemaining()) {
+            int r = ch.read(buf, position + buf.position());
+            if (r < 0) {
+                throw new EOFException("Unexpected end of diff pack");
+            }
+        }
+        buf.flip();
+        return buf;
+    }
+
+    static void checkMagic(ByteBuffer buf, byte[] expected, Path pack) throws IOException {
+        byte[] magic = new byte[expected.length];
+        buf.get(magic);
+        if (!Arrays.equals(magic, expected)) {
+            throw new IOException("Not a diff pack (bad magic): " + pack.getFileName());
+        }
+    }
+}
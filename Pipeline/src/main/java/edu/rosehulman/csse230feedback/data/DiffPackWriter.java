@@ -0,0 +1,156 @@
+package edu.rosehulman.csse230feedback.data;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Transcodes a diffs_*.tar.zip into a random-access pack (diffs_*.pack) next to it.
+ *
+ * Pack layout (big-endian):
+ *   header:  magic "DPK1", source archive SHA-256 (UTF), source archive size and modification
+ *            time in epoch millis (longs)
+ *   entries: each TAR entry's bytes, deflated on their own, back to back
+ *   index:   entry count, then per entry: name (UTF), offset, compressed length, raw length
+ *   footer:  index offset (long), magic "DPK1"
+ *
+ * The size and modification time let readers notice a pack that no longer matches its archive
+ * without hashing the archive.
+ *
+ * {@link DiffPackReader} reads the footer and index once; each entry is then one positional read
+ * plus an inflate of just that entry, instead of inflating the archive from the start.
+ */
+public class DiffPackWriter {
+
+    static final byte[] MAGIC = "DPK1".getBytes(StandardCharsets.US_ASCII);
+    static final int FOOTER_LENGTH = Long.BYTES + 4;
+
+    private static final String TAR_ZIP_SUFFIX = ".tar.zip";
+    private static final String PACK_SUFFIX = ".pack";
+
+    private record IndexEntry(String name, long offset, int compressedLength, int rawLength) {}
+
+    /**
+     * Returns the pack path for an archive: archives/diffs_3_.tar.zip -> archives/diffs_3_.pack.
+     */
+    public static Path packPathFor(Path archiveZip) {
+        String name = archiveZip.getFileName().toString();
+        String base = name.endsWith(TAR_ZIP_SUFFIX)
+                ? name.substring(0, name.length() - TAR_ZIP_SUFFIX.length())
+                : name;
+        return archiveZip.resolveSibling(base + PACK_SUFFIX);
+    }
+
+    /**
+     * Writes the pack for {@code archiveZip}, replacing any existing one.
+     *
+     * @param archiveSha256 SHA-256 of the source archive, recorded so cached entries keep the same keys
+     * @return the pack path
+     */
+    public Path write(Path archiveZip, String archiveSha256) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (InputStream fin = Files.newInputStream(archiveZip);
+             ZipInputStream zis = new ZipInputStream(new BufferedInputStream(fin))) {
+
+            ZipEntry ze = zis.getNextEntry();
+            if (ze == null) {
+                throw new IOException("Empty ZIP: " + archiveZip.getFileName());
+            }
+
+            try (TarArchiveInputStream tis = new TarArchiveInputStream(new BufferedInputStream(zis))) {
+                TarArchiveEntry te;
+                while ((te = tis.getNextTarEntry()) != null) {
+                    if (te.isDirectory()) continue;
+                    entries.put(te.getName(), tis.readAllBytes());
+                }
+            }
+        }
+        return write(archiveZip, archiveSha256, entries);
+    }
+
+    /**
+     * Writes the pack for {@code archiveZip} from its TAR entries, already read by the caller, so
+     * the archive is not read again. The archive must be complete on disk: its size and
+     * modification time go into the header.
+     *
+     * @param entries file entries by TAR name, in TAR order
+     * @return the pack path
+     */
+    public Path write(Path archiveZip, String archiveSha256, Map<String, byte[]> entries) throws IOException {
+        Path pack = packPathFor(archiveZip);
+        Path tmp = pack.resolveSibling(pack.getFileName() + ".tmp");
+
+        List<IndexEntry> index = new ArrayList<>();
+
+        try (OutputStream fout = Files.newOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fout))) {
+
+            out.write(MAGIC);
+            out.writeUTF(archiveSha256);
+            out.writeLong(Files.size(archiveZip));
+            out.writeLong(Files.getLastModifiedTime(archiveZip).toMillis());
+
+            for (Map.Entry<String, byte[]> e : entries.entrySet()) {
+                byte[] compressed = deflate(e.getValue());
+                index.add(new IndexEntry(e.getKey(), out.size(), compressed.length, e.getValue().length));
+                out.write(compressed);
+            }
+
+            long indexOffset = out.size();
+            out.writeInt(index.size());
+            for (IndexEntry e : index) {
+                out.writeUTF(e.name());
+                out.writeLong(e.offset());
+                out.writeInt(e.compressedLength());
+                out.writeInt(e.rawLength());
+            }
+
+            out.writeLong(indexOffset);
+            out.write(MAGIC);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+
+        Files.move(tmp, pack, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return pack;
+    }
+
+    static byte[] deflate(byte[] raw) throws IOException {
+        return deflate(raw, null);
+    }
+
+    /** Deflates {@code raw}, priming the window with {@code dictionary} when it is not null. */
+    static byte[] deflate(byte[] raw, byte[] dictionary) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(Math.max(64, raw.length / 2));
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        if (dictionary != null) {
+            deflater.setDictionary(dictionary);
+        }
+        try (DeflaterOutputStream dos = new DeflaterOutputStream(bos, deflater)) {
+            dos.write(raw);
+        } finally {
+            deflater.end();
+        }
+        return bos.toByteArray();
+    }
+}
@@ -0,0 +1,208 @@
+package edu.rosehulman.csse230feedback.data;
+
+import com.github.difflib.patch.PatchFailedException;
+import edu.rosehulman.csse230feedback.model.PatchPointer;
+import helpers.FastDiffReplayer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Walks one file's versions over an ascending list of runs.
+ *
+ * The baseline of the current rebaseline epoch is parsed once and kept in memory; each run's
+ * patch is applied to it directly, and runs where the file did not change reuse the previous
+ * version without replaying. Versions are {@link PieceTableText}s over that baseline, so versions
+ * from one epoch share its lines and holding many of them stays cheap.
+ *
+ * Each version is first looked up in the {@link ReconstructedFileCache}, so versions that rerun
+ * already reconstructed into a persistent cache are not replayed again. A hit becomes a one-piece
+ * keyframe: it shares nothing with the epoch's baseline, but needs neither the baseline nor the
+ * patch extracted or parsed. When the cache is persistent, replayed versions are put into it too.
+ *
+ * Versions whose archive has been removed by {@code compact} are read from the chained pack
+ * instead, with one cursor per walk so consecutive versions replay one delta each.
+ *
+ * Runs before the file's first patch are skipped. A version that cannot be reconstructed is
+ * reported in the warnings (once per run it would have covered) and skipped. I/O failures are
+ * rethrown as {@link UncheckedIOException}.
+ */
+public final class FileVersionIterator implements Iterator<FileVersionIterator.FileVersion> {
+
+    /** The file's content at {@code runNumber}, reconstructed from {@code pointer}. */
+    public record FileVersion(int runNumber, PatchPointer pointer, PieceTableText text) {
+        public List<String> lines() {
+            return text.lines();
+        }
+    }
+
+    /** Opens the chained pack, or returns null when there is none. */
+    @FunctionalInterface
+    interface ChainedPackSource {
+        ChainedPackReader open() throws IOException;
+    }
+
+    private final DiffArchiveEntryExtractor extractor;
+    private final ChainedPackSource chainedPack;
+    private final ReconstructedFileCache versions;
+    private final boolean strictReplay;
+    private final Path archivesDir;
+    private final Path cacheDir;
+    private final PatchIndex patchIndex;
+    private final String fileKey;
+    private final int[] runs;
+    private final List<String> warnings;
+
+    private int nextIndex;
+    private FileVersion next;
+
+    // The last pointer seen and what it produced (null text when it failed)
+    private PatchPointer lastPointer;
+    private PieceTableText lastText;
+    private String lastFailurePrefix;
+    private String lastFailureMessage;
+
+    // Opened on the first missing archive; consecutive versions then replay one delta each
+    private ChainedPackReader.Cursor chain;
+
+    // The baseline currently held in memory
+    private String baselineArchive;
+    private String baselineEntry;
+    private String[] baseline;
+
+    FileVersionIterator(DiffArchiveEntryExtractor extractor, ChainedPackSource chainedPack,
+                        ReconstructedFileCache versions, boolean strictReplay, Path archivesDir, Path cacheDir,
+                        PatchIndex patchIndex, String fileKey, int[] runs, List<String> warnings) throws IOException {
+        this.extractor = extractor;
+        this.chainedPack = chainedPack;
+        this.versions = versions;
+        this.strictReplay = strictReplay;
+        this.archivesDir = archivesDir;
+        this.cacheDir = cacheDir;
+        this.patchIndex = patchIndex;
+        this.fileKey = fileKey;
+        this.runs = runs;
+        this.warnings = warnings;
+
+        prefetch();
+    }
+
+    /**
+     * Extracts every baseline and patch the walk will need, one pass per archive. Versions already
+     * in the cache need neither.
+     */
+    private void prefetch() throws IOException {
+        Set<PatchPointer> needed = new LinkedHashSet<>();
+        for (int run : runs) {
+            PatchPointer p = patchIndex.latestAtOrBefore(fileKey, run);
+            if (p != null) {
+                needed.add(p);
+            }
+        }
+
+        List<String> ignored = new ArrayList<>();
+        Map<String, Set<String>> byArchive = new LinkedHashMap<>();
+        for (PatchPointer p : needed) {
+            Path archiveZip = archivesDir.resolve(p.archiveFilename());
+            if (!Files.exists(archiveZip)
+                    || versions.contains(extractor.sourceSha256(archiveZip, ignored), fileKey, p.runNumber())) {
+                continue;
+            }
+            Set<String> entries = byArchive.computeIfAbsent(p.archiveFilename(), _k -> new LinkedHashSet<>());
+            entries.add(p.baselineEntry());
+            entries.add(p.patchEntry());
+        }
+        for (Map.Entry<String, Set<String>> e : byArchive.entrySet()) {
+            extractor.materializeEntries(archivesDir.resolve(e.getKey()), e.getValue(), cacheDir, ignored);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && nextIndex < runs.length) {
+            int run = runs[nextIndex++];
+            PatchPointer pointer = patchIndex.latestAtOrBefore(fileKey, run);
+            if (pointer == null) {
+                continue;
+            }
+            if (!pointer.equals(lastPointer)) {
+                lastPointer = pointer;
+                lastText = null;
+                try {
+                    lastText = load(pointer);
+                } catch (PatchFailedException e) {
+                    lastFailurePrefix = "Failed to reconstruct ";
+                    lastFailureMessage = e.getMessage();
+                } catch (IllegalStateException e) {
+                    // File too large or other reconstruction issues
+                    lastFailurePrefix = "Skipping ";
+                    lastFailureMessage = e.getMessage();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            if (lastText == null) {
+                warnings.add(lastFailurePrefix + fileKey + " for run " + run + ": " + lastFailureMessage);
+                continue;
+            }
+            next = new FileVersion(run, pointer, lastText);
+        }
+        return next != null;
+    }
+
+    @Override
+    public FileVersion next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        FileVersion v = next;
+        next = null;
+        return v;
+    }
+
+    private PieceTableText load(PatchPointer pointer) throws IOException, PatchFailedException {
+        Path archiveZip = archivesDir.resolve(pointer.archiveFilename());
+        if (!Files.exists(archiveZip)) {
+            if (chain == null) {
+                ChainedPackReader reader = chainedPack.open();
+                chain = reader != null ? reader.cursor() : null;
+            }
+            String[] lines = chain != null ? chain.read(pointer) : null;
+            if (lines != null) {
+                return PieceTableText.of(lines);
+            }
+        }
+        String archiveSha = extractor.sourceSha256(archiveZip, warnings);
+        List<String> cached = versions.get(archiveSha, fileKey, pointer.runNumber());
+        if (cached != null) {
+            return PieceTableText.of(cached.toArray(new String[0]));
+        }
+
+        if (!pointer.archiveFilename().equals(baselineArchive) || !pointer.baselineEntry().equals(baselineEntry)) {
+            Path baselineFile = extractor.materializeEntry(archiveZip, pointer.baselineEntry(), cacheDir, warnings);
+            baseline = FastDiffReplayer.decodeLines(Files.readAllBytes(baselineFile));
+            baselineArchive = pointer.archiveFilename();
+            baselineEntry = pointer.baselineEntry();
+        }
+
+        Path patchFile = extractor.materializeEntry(archiveZip, pointer.patchEntry(), cacheDir, warnings);
+        PieceTableText.Builder text = PieceTableText.builder(baseline);
+        FastDiffReplayer.replay(baseline, Files.readAllBytes(patchFile), strictReplay, text);
+        PieceTableText version = text.build();
+        if (versions.persistent()) {
+            // A heap-only cache would only hold what this walk already has
+            versions.put(archiveSha, fileKey, pointer.runNumber(), version.lines());
+        }
+        return version;
+    }
+}
@@ -0,0 +1,154 @@
+package edu.rosehulman.csse230feedback.data;
+
+import edu.rosehulman.csse230feedback.model.PatchPointer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * {@link PatchIndex} over a list of patch pointers held in memory, e.g. parsed from
+ * patches_index.jsonl.
+ *
+ * Each file key keeps its patches sorted by run in a primitive int[] alongside the pointers,
+ * so "latest patch at or before run N" is a binary search rather than a scan of every patch.
+ * When two patches for the same file share a run number, the one that came first in the input
+ * list wins, matching the previous stream-based lookups over patches_index.jsonl order.
+ */
+final class InMemoryPatchIndex implements PatchIndex {
+
+    private record FilePatches(int[] runs, PatchPointer[] pointers) {}
+
+    private final List<String> fileKeys;
+    private final Map<String, FilePatches> byFile;
+    private final int[] changedRuns;
+    private final Map<Integer, List<PatchPointer>> byRun;
+    private final int size;
+
+    private InMemoryPatchIndex(List<String> fileKeys, Map<String, FilePatches> byFile, int[] changedRuns,
+                               Map<Integer, List<PatchPointer>> byRun, int size) {
+        this.fileKeys = fileKeys;
+        this.byFile = byFile;
+        this.changedRuns = changedRuns;
+        this.byRun = byRun;
+        this.size = size;
+    }
+
+    static InMemoryPatchIndex build(List<PatchPointer> patches) {
+        Map<String, List<PatchPointer>> grouped = new TreeMap<>();
+        Map<Integer, List<PatchPointer>> byRun = new TreeMap<>();
+        for (PatchPointer p : patches) {
+            grouped.computeIfAbsent(p.fileKey(), _k -> new ArrayList<>()).add(p);
+            byRun.computeIfAbsent(p.runNumber(), _k -> new ArrayList<>()).add(p);
+        }
+
+        Map<String, FilePatches> byFile = new HashMap<>(Math.max(16, grouped.size() * 2));
+        for (Map.Entry<String, List<PatchPointer>> e : grouped.entrySet()) {
+            List<PatchPointer> list = e.getValue();
+            // Stable sort: among equal runs, input order is kept.
+            list.sort(Comparator.comparingInt(PatchPointer::runNumber));
+            int[] runs = new int[list.size()];
+            for (int i = 0; i < runs.length; i++) {
+                runs[i] = list.get(i).runNumber();
+            }
+            byFile.put(e.getKey(), new FilePatches(runs, list.toArray(new PatchPointer[0])));
+        }
+
+        int[] changedRuns = byRun.keySet().stream().mapToInt(Integer::intValue).toArray();
+        for (Map.Entry<Integer, List<PatchPointer>> e : byRun.entrySet()) {
+            e.setValue(Collections.unmodifiableList(e.getValue()));
+        }
+
+        return new InMemoryPatchIndex(List.copyOf(grouped.keySet()), byFile, changedRuns,
+                Collections.unmodifiableMap(byRun), patches.size());
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public List<String> fileKeys() {
+        return fileKeys;
+    }
+
+    @Override
+    public PatchPointer latestAtOrBefore(String fileKey, int runNumber) {
+        FilePatches fp = byFile.get(fileKey);
+        if (fp == null) {
+            return null;
+        }
+        int i = upperBound(fp.runs(), runNumber) - 1;
+        if (i < 0) {
+            return null;
+        }
+        // Step back to the first patch of that run so ties resolve to input order.
+        int run = fp.runs()[i];
+        while (i > 0 && fp.runs()[i - 1] == run) {
+            i--;
+        }
+        return fp.pointers()[i];
+    }
+
+    @Override
+    public int[] runsFor(String fileKey) {
+        FilePatches fp = byFile.get(fileKey);
+        if (fp == null) {
+            return new int[0];
+        }
+        return Arrays.stream(fp.runs()).distinct().toArray();
+    }
+
+    @Override
+    public List<PatchPointer> pointersFor(String fileKey) {
+        FilePatches fp = byFile.get(fileKey);
+        return fp == null ? List.of() : List.of(fp.pointers());
+    }
+
+    @Override
+    public List<PatchPointer> patchesAt(int runNumber) {
+        return byRun.getOrDefault(runNumber, List.of());
+    }
+
+    @Override
+    public int[] changedRuns() {
+        return changedRuns.clone();
+    }
+
+    @Override
+    public List<Integer> changedRunList() {
+        return List.copyOf(byRun.keySet());
+    }
+
+    @Override
+    public boolean hasChangesAt(int runNumber) {
+        return Arrays.binarySearch(changedRuns, runNumber) >= 0;
+    }
+
+    @Override
+    public int changedRunAtOrBefore(int runNumber) {
+        int i = upperBound(changedRuns, runNumber) - 1;
+        return i < 0 ? -1 : changedRuns[i];
+    }
+
+    /** Index of the first element greater than {@code key}. */
+    static int upperBound(int[] sorted, int key) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] <= key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
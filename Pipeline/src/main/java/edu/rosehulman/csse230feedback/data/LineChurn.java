@@ -0,0 +1,422 @@
+package edu.rosehulman.csse230feedback.data;
+
+import com.github.difflib.DiffUtils;
+import com.github.difflib.algorithm.DiffException;
+import com.github.difflib.patch.AbstractDelta;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * For every tracked file, the run that introduced each line of each version, and the line churn
+ * between consecutive versions, summed over ranges of runs.
+ *
+ * Built from each file's versions in run order, one {@link FileTracker#add} per version.
+ * Consecutive versions of one rebaseline epoch are {@link PieceTableText}s over the same baseline,
+ * as the replayer built them from each patch, so the baseline ranges both keep are matched by
+ * position alone and inherit their provenance by reference; only the lines between those ranges
+ * (what the two patches touch) are diffed. Each run therefore costs roughly the size of its
+ * patches rather than the size of the file, and a version's provenance shares the previous
+ * version's arrays for every range it kept. Only the first version of an epoch is diffed in full
+ * against the previous one.
+ *
+ * "Changed at run r" means between the file's version at its previous patch and its version at r.
+ * A line that is removed and later typed again counts as introduced again.
+ */
+public final class LineChurn {
+
+    /** Lines added and removed over a range of runs, and how many of those runs changed the file. */
+    public record Churn(int linesAdded, int linesRemoved, int editedRuns) {
+        public static final Churn NONE = new Churn(0, 0, 0);
+
+        public int linesChanged() {
+            return linesAdded + linesRemoved;
+        }
+
+        public Churn plus(Churn other) {
+            return new Churn(linesAdded + other.linesAdded, linesRemoved + other.linesRemoved,
+                    editedRuns + other.editedRuns);
+        }
+    }
+
+    /** One file's versions: provenance per version and prefix sums of its churn. */
+    private record FileHistory(int[] runs, IntPieces[] provenance, int[] addedPrefix, int[] removedPrefix,
+                               int[] editedPrefix) {
+
+        /** Index of the last version at or before {@code run}, or -1. */
+        int indexAtOrBefore(int run) {
+            int i = Arrays.binarySearch(runs, run);
+            return i >= 0 ? i : -i - 2;
+        }
+    }
+
+    private final Map<String, FileHistory> files;
+
+    private LineChurn(Map<String, FileHistory> files) {
+        this.files = files;
+    }
+
+    /**
+     * @param versionsByFile each file's versions in ascending run order; versions that could not be
+     *                       reconstructed are simply absent, so their changes are attributed to the
+     *                       next version that could
+     */
+    public static LineChurn of(Map<String, List<FileVersionIterator.FileVersion>> versionsByFile) {
+        Map<String, FileTracker> trackers = new LinkedHashMap<>();
+        versionsByFile.forEach((fileKey, versions) -> {
+            FileTracker tracker = new FileTracker();
+            versions.forEach(tracker::add);
+            trackers.put(fileKey, tracker);
+        });
+        return fromTrackers(trackers);
+    }
+
+    static LineChurn fromTrackers(Map<String, FileTracker> trackers) {
+        Map<String, FileHistory> files = new LinkedHashMap<>();
+        trackers.forEach((fileKey, tracker) -> files.put(fileKey, tracker.history()));
+        return new LineChurn(files);
+    }
+
+    /** Tracked file keys, in index order. */
+    public List<String> fileKeys() {
+        return List.copyOf(files.keySet());
+    }
+
+    /**
+     * For the file's version at {@code runNumber} (its latest at or before it), the run that
+     * introduced each line; null if the file had no version yet.
+     */
+    public int[] provenanceAt(String fileKey, int runNumber) {
+        FileHistory h = files.get(fileKey);
+        if (h == null) {
+            return null;
+        }
+        int i = h.indexAtOrBefore(runNumber);
+        return i < 0 ? null : h.provenance()[i].toArray();
+    }
+
+    /**
+     * Lines of the file's version at {@code toRun} that were introduced in runs r with
+     * fromRun &lt; r &lt;= toRun: what the changes over that range left behind.
+     */
+    public int linesIntroduced(String fileKey, int fromRun, int toRun) {
+        FileHistory h = files.get(fileKey);
+        if (h == null || toRun <= fromRun) {
+            return 0;
+        }
+        int i = h.indexAtOrBefore(toRun);
+        return i < 0 ? 0 : h.provenance()[i].countBetween(fromRun, toRun);
+    }
+
+    /**
+     * Churn of one file from its version at {@code fromRun} to its version at {@code toRun}: the
+     * changes made in runs r with fromRun &lt; r &lt;= toRun.
+     */
+    public Churn churn(String fileKey, int fromRun, int toRun) {
+        FileHistory h = files.get(fileKey);
+        if (h == null || toRun <= fromRun) {
+            return Churn.NONE;
+        }
+        int from = h.indexAtOrBefore(fromRun) + 1;
+        int to = h.indexAtOrBefore(toRun) + 1;
+        if (to <= from) {
+            return Churn.NONE;
+        }
+        return new Churn(h.addedPrefix()[to] - h.addedPrefix()[from],
+                h.removedPrefix()[to] - h.removedPrefix()[from],
+                h.editedPrefix()[to] - h.editedPrefix()[from]);
+    }
+
+    /** {@link #churn(String, int, int)} for every file that changed, in index order. */
+    public Map<String, Churn> churnByFile(int fromRun, int toRun) {
+        Map<String, Churn> result = new LinkedHashMap<>();
+        for (String fileKey : files.keySet()) {
+            Churn c = churn(fileKey, fromRun, toRun);
+            if (c.editedRuns() > 0) {
+                result.put(fileKey, c);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Builds one file's history a version at a time, in ascending run order.
+     */
+    static final class FileTracker {
+        private final List<Integer> runs = new ArrayList<>();
+        private final List<IntPieces> provenance = new ArrayList<>();
+        private final List<int[]> churn = new ArrayList<>();
+
+        private PieceTableText previous;
+        private IntPieces previousProvenance;
+
+        void add(FileVersionIterator.FileVersion version) {
+            IntPieces current;
+            if (previous == version.text()) {
+                // A run that did not patch the file reuses the previous version
+                current = previousProvenance;
+                churn.add(new int[2]);
+            } else {
+                Step step = new Step(version.runNumber(), previous, previousProvenance, version.text());
+                step.run();
+                current = step.provenance.build();
+                churn.add(new int[] {step.added, step.removed});
+            }
+            runs.add(version.runNumber());
+            provenance.add(current);
+            previous = version.text();
+            previousProvenance = current;
+        }
+
+        private FileHistory history() {
+            int n = runs.size();
+            int[] addedPrefix = new int[n + 1];
+            int[] removedPrefix = new int[n + 1];
+            int[] editedPrefix = new int[n + 1];
+            for (int i = 0; i < n; i++) {
+                int[] c = churn.get(i);
+                addedPrefix[i + 1] = addedPrefix[i] + c[0];
+                removedPrefix[i + 1] = removedPrefix[i] + c[1];
+                editedPrefix[i + 1] = editedPrefix[i] + (c[0] + c[1] > 0 ? 1 : 0);
+            }
+            return new FileHistory(runs.stream().mapToInt(Integer::intValue).toArray(),
+                    provenance.toArray(new IntPieces[0]), addedPrefix, removedPrefix, editedPrefix);
+        }
+    }
+
+    /**
+     * One version-to-version update: aligns the two versions on the baseline ranges both keep and
+     * diffs only what lies between them.
+     */
+    private static final class Step {
+        private final int run;
+        private final PieceTableText before;
+        private final IntPieces beforeProvenance;
+        private final PieceTableText after;
+
+        final IntPieces.Builder provenance = new IntPieces.Builder();
+        int added;
+        int removed;
+
+        Step(int run, PieceTableText before, IntPieces beforeProvenance, PieceTableText after) {
+            this.run = run;
+            this.before = before;
+            this.beforeProvenance = beforeProvenance;
+            this.after = after;
+        }
+
+        void run() {
+            if (before == null) {
+                provenance.fill(run, after.lineCount());
+                added = after.lineCount();
+                return;
+            }
+
+            int beforePos = 0;
+            int afterPos = 0;
+            if (before.baseline() != null && before.baseline() == after.baseline()) {
+                for (int[] common : commonBaselineRanges()) {
+                    int length = common[0];
+                    int beforeAt = common[1];
+                    int afterAt = common[2];
+                    gap(beforePos, beforeAt, afterPos, afterAt);
+                    provenance.addAll(beforeProvenance, beforeAt, length);
+                    beforePos = beforeAt + length;
+                    afterPos = afterAt + length;
+                }
+            }
+            gap(beforePos, before.lineCount(), afterPos, after.lineCount());
+        }
+
+        /**
+         * Baseline ranges kept by both versions, as {length, position in before, position in after},
+         * in order. Both versions list their baseline pieces in increasing baseline order.
+         */
+        private List<int[]> commonBaselineRanges() {
+            List<int[]> a = baselinePieces(before);
+            List<int[]> b = baselinePieces(after);
+            List<int[]> common = new ArrayList<>();
+            int i = 0;
+            int j = 0;
+            while (i < a.size() && j < b.size()) {
+                int[] x = a.get(i);
+                int[] y = b.get(j);
+                int lo = Math.max(x[0], y[0]);
+                int hi = Math.min(x[0] + x[1], y[0] + y[1]);
+                if (lo < hi) {
+                    common.add(new int[] {hi - lo, x[2] + lo - x[0], y[2] + lo - y[0]});
+                }
+                if (x[0] + x[1] <= y[0] + y[1]) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            return common;
+        }
+
+        /** {baseline start, length, position in version} for each baseline piece. */
+        private static List<int[]> baselinePieces(PieceTableText text) {
+            List<int[]> pieces = new ArrayList<>();
+            int pos = 0;
+            for (int i = 0; i < text.pieceCount(); i++) {
+                if (text.isBaselinePiece(i)) {
+                    pieces.add(new int[] {text.pieceStart(i), text.pieceLength(i), pos});
+                }
+                pos += text.pieceLength(i);
+            }
+            return pieces;
+        }
+
+        /**
+         * Diffs before[beforeFrom, beforeTo) against after[afterFrom, afterTo): matched lines keep
+         * their provenance, the rest of the after side is new at this run.
+         */
+        private void gap(int beforeFrom, int beforeTo, int afterFrom, int afterTo) {
+            int beforeLength = beforeTo - beforeFrom;
+            int afterLength = afterTo - afterFrom;
+            if (afterLength == 0) {
+                removed += beforeLength;
+                return;
+            }
+            if (beforeLength == 0) {
+                provenance.fill(run, afterLength);
+                added += afterLength;
+                return;
+            }
+
+            List<String> beforeLines = Arrays.asList(before.lineRange(beforeFrom, beforeTo));
+            List<String> afterLines = Arrays.asList(after.lineRange(afterFrom, afterTo));
+            List<AbstractDelta<String>> deltas;
+            try {
+                deltas = DiffUtils.diff(beforeLines, afterLines).getDeltas();
+            } catch (DiffException e) {
+                // Treat the whole gap as rewritten
+                provenance.fill(run, afterLength);
+                added += afterLength;
+                removed += beforeLength;
+                return;
+            }
+
+            int b = 0;
+            int a = 0;
+            for (AbstractDelta<String> delta : deltas) {
+                int unchanged = delta.getTarget().getPosition() - a;
+                provenance.addAll(beforeProvenance, beforeFrom + b, unchanged);
+                b = delta.getSource().getPosition() + delta.getSource().size();
+                a = delta.getTarget().getPosition() + delta.getTarget().size();
+                provenance.fill(run, delta.getTarget().size());
+                added += delta.getTarget().size();
+                removed += delta.getSource().size();
+            }
+            provenance.addAll(beforeProvenance, beforeFrom + b, afterLength - a);
+        }
+    }
+
+    /**
+     * An immutable int sequence stored as ranges of shared arrays, so a version's provenance can
+     * reuse the previous version's arrays for everything it kept.
+     */
+    private static final class IntPieces {
+        private final int[][] sources;
+        private final int[] starts;
+        private final int[] counts;
+        // Position at which each piece starts, plus the total length at the end
+        private final int[] offsets;
+
+        private IntPieces(int[][] sources, int[] starts, int[] counts) {
+            this.sources = sources;
+            this.starts = starts;
+            this.counts = counts;
+            this.offsets = new int[sources.length + 1];
+            for (int i = 0; i < sources.length; i++) {
+                offsets[i + 1] = offsets[i] + counts[i];
+            }
+        }
+
+        int length() {
+            return offsets[sources.length];
+        }
+
+        int[] toArray() {
+            int[] out = new int[length()];
+            for (int i = 0; i < sources.length; i++) {
+                System.arraycopy(sources[i], starts[i], out, offsets[i], counts[i]);
+            }
+            return out;
+        }
+
+        /** How many values v have from &lt; v &lt;= to. */
+        int countBetween(int from, int to) {
+            int count = 0;
+            for (int i = 0; i < sources.length; i++) {
+                for (int j = starts[i]; j < starts[i] + counts[i]; j++) {
+                    int v = sources[i][j];
+                    if (v > from && v <= to) {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+
+        static final class Builder {
+            private final List<int[]> sources = new ArrayList<>();
+            private final List<int[]> ranges = new ArrayList<>();
+
+            void fill(int value, int count) {
+                if (count > 0) {
+                    int[] values = new int[count];
+                    Arrays.fill(values, value);
+                    add(values, 0, count);
+                }
+            }
+
+            /** Appends {@code from.subList(start, start + count)}, sharing its arrays. */
+            void addAll(IntPieces from, int start, int count) {
+                if (count <= 0) {
+                    return;
+                }
+                int i = Arrays.binarySearch(from.offsets, 0, from.sources.length, start);
+                if (i < 0) {
+                    i = -i - 2;
+                }
+                int end = start + count;
+                for (; i < from.sources.length && from.offsets[i] < end; i++) {
+                    int lo = Math.max(start, from.offsets[i]);
+                    int hi = Math.min(end, from.offsets[i + 1]);
+                    if (lo < hi) {
+                        add(from.sources[i], from.starts[i] + lo - from.offsets[i], hi - lo);
+                    }
+                }
+            }
+
+            private void add(int[] source, int start, int count) {
+                int last = sources.size() - 1;
+                if (last >= 0 && sources.get(last) == source) {
+                    int[] range = ranges.get(last);
+                    if (range[0] + range[1] == start) {
+                        range[1] += count;
+                        return;
+                    }
+                }
+                sources.add(source);
+                ranges.add(new int[] {start, count});
+            }
+
+            IntPieces build() {
+                int n = sources.size();
+                int[] starts = new int[n];
+                int[] counts = new int[n];
+                for (int i = 0; i < n; i++) {
+                    starts[i] = ranges.get(i)[0];
+                    counts[i] = ranges.get(i)[1];
+                }
+                return new IntPieces(sources.toArray(new int[0][]), starts, counts);
+            }
+        }
+    }
+}
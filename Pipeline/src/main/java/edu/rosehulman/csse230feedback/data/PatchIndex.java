@@ -0,0 +1,141 @@
+package edu.rosehulman.csse230feedback.data;
+
+import edu.rosehulman.csse230feedback.model.PatchPointer;
+import edu.rosehulman.csse230feedback.util.Json;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lookup structure over a student's patch pointers, opened once and shared by the rerun and
+ * prepare paths: either {@link BinaryPatchIndex}, answering straight from the memory-mapped
+ * patches_index.bin, or an in-memory index built from patches_index.jsonl.
+ *
+ * When two patches for the same file share a run number, the one that comes first in
+ * patches_index.jsonl order (the smaller archive) wins.
+ */
+public interface PatchIndex {
+
+    /**
+     * Builds an in-memory index over {@code patches}. Among patches for the same file and run,
+     * input order decides.
+     */
+    static PatchIndex build(List<PatchPointer> patches) {
+        return InMemoryPatchIndex.build(patches);
+    }
+
+    /**
+     * Opens the index for {@code patchesIndex} (patches_index.jsonl): the patches_index.bin beside
+     * it when that is current, else an in-memory index parsed from the JSONL file.
+     */
+    static PatchIndex open(Path patchesIndex, List<String> warnings) throws IOException {
+        try {
+            BinaryPatchIndex binary = BinaryPatchIndex.openBeside(patchesIndex);
+            if (binary != null) {
+                return binary;
+            }
+        } catch (IOException e) {
+            warnings.add("Ignoring unreadable " + BinaryPatchIndex.FILENAME + ": " + e.getMessage());
+        }
+        return build(readJsonl(patchesIndex, warnings));
+    }
+
+    /**
+     * Loads patch pointers from patches_index.bin when it is current, else patches_index.jsonl.
+     */
+    static List<PatchPointer> loadPointers(Path patchesIndex, List<String> warnings) throws IOException {
+        try {
+            BinaryPatchIndex binary = BinaryPatchIndex.openBeside(patchesIndex);
+            if (binary != null) {
+                return binary.readAll();
+            }
+        } catch (IOException e) {
+            warnings.add("Ignoring unreadable " + BinaryPatchIndex.FILENAME + ": " + e.getMessage());
+        }
+        return readJsonl(patchesIndex, warnings);
+    }
+
+    private static List<PatchPointer> readJsonl(Path patchesIndex, List<String> warnings) throws IOException {
+        List<PatchPointer> patches = new ArrayList<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(patchesIndex)) {
+            String line;
+            int lineNum = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNum++;
+                if (!line.trim().isEmpty()) {
+                    try {
+                        PatchPointer patch = Json.mapper().readValue(line, PatchPointer.class);
+                        patches.add(patch);
+                    } catch (IOException e) {
+                        warnings.add("Failed to parse line " + lineNum +
+                            " in patches_index.jsonl: " + e.getMessage());
+                    }
+                }
+            }
+        }
+
+        return patches;
+    }
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    int size();
+
+    /** Tracked file keys, sorted. */
+    List<String> fileKeys();
+
+    /**
+     * The patch for {@code fileKey} with the greatest run number at or before {@code runNumber},
+     * or null when the file has no patch that early.
+     */
+    PatchPointer latestAtOrBefore(String fileKey, int runNumber);
+
+    /** Distinct runs at which {@code fileKey} has a patch, ascending. */
+    int[] runsFor(String fileKey);
+
+    /** Every patch for {@code fileKey}, by run; equal runs keep index order. */
+    List<PatchPointer> pointersFor(String fileKey);
+
+    /**
+     * The latest patch at or before {@code runNumber} for every file that has one, keyed by file key
+     * in sorted order. This is the file set that makes up the snapshot at that run.
+     */
+    default Map<String, PatchPointer> snapshotAt(int runNumber) {
+        Map<String, PatchPointer> snapshot = new LinkedHashMap<>();
+        for (String fileKey : fileKeys()) {
+            PatchPointer p = latestAtOrBefore(fileKey, runNumber);
+            if (p != null) {
+                snapshot.put(fileKey, p);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Patches recorded exactly at {@code runNumber}. A file with several keeps them in index
+     * order.
+     */
+    List<PatchPointer> patchesAt(int runNumber);
+
+    /** Run numbers at which at least one file changed, ascending. */
+    int[] changedRuns();
+
+    /** {@link #changedRuns()} as a list. */
+    List<Integer> changedRunList();
+
+    boolean hasChangesAt(int runNumber);
+
+    /**
+     * The greatest run at or before {@code runNumber} where some file changed, or -1 if none.
+     */
+    int changedRunAtOrBefore(int runNumber);
+}
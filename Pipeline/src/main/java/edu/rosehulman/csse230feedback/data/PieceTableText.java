@@ -0,0 +1,247 @@
+package edu.rosehulman.csse230feedback.data;
+
+import helpers.FastDiffReplayer;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable file version stored as a piece table over line arrays.
+ *
+ * Each piece is a range of some source array: usually the rebaseline epoch's decoded baseline,
+ * otherwise the lines a patch inserted. Versions replayed from the same baseline share its array
+ * rather than copying it, so holding one version per run costs roughly the size of each run's
+ * changes instead of the whole file.
+ *
+ * As a {@link CharSequence} the text is the lines joined with "\n" (no trailing newline), the same
+ * as {@code String.join("\n", lines())}. {@link #toString()} builds that string on every call and
+ * does not keep it.
+ */
+public final class PieceTableText implements CharSequence {
+
+    private static final PieceTableText EMPTY = new PieceTableText(null, new String[0][], new int[0], new int[0]);
+
+    // The array keep() ranges refer to; versions of one epoch share it
+    private final String[] baseline;
+    private final String[][] sources;
+    private final int[] starts;
+    private final int[] counts;
+
+    // Char offset at which each piece starts, plus the total length at the end
+    private final int[] charOffsets;
+    private final int lineCount;
+
+    private PieceTableText(String[] baseline, String[][] sources, int[] starts, int[] counts) {
+        this.baseline = baseline;
+        this.sources = sources;
+        this.starts = starts;
+        this.counts = counts;
+        this.charOffsets = new int[sources.length + 1];
+
+        int lines = 0;
+        int chars = 0;
+        for (int i = 0; i < sources.length; i++) {
+            charOffsets[i] = chars;
+            for (int j = starts[i]; j < starts[i] + counts[i]; j++) {
+                chars += sources[i][j].length() + 1;
+            }
+            lines += counts[i];
+        }
+        this.lineCount = lines;
+        charOffsets[sources.length] = Math.max(chars - 1, 0);
+    }
+
+    /**
+     * A version that is exactly {@code lines}. The array is shared, not copied, and must not be
+     * modified afterwards.
+     */
+    public static PieceTableText of(String[] lines) {
+        if (lines.length == 0) {
+            return EMPTY;
+        }
+        return new PieceTableText(lines, new String[][] {lines}, new int[] {0}, new int[] {lines.length});
+    }
+
+    /**
+     * Starts a version built from ranges of {@code baseline} and inserted lines; the builder is
+     * a {@link FastDiffReplayer.EditSink}, so it can be passed straight to the replayer.
+     */
+    public static Builder builder(String[] baseline) {
+        return new Builder(baseline);
+    }
+
+    public int lineCount() {
+        return lineCount;
+    }
+
+    /** The lines copied into a new array. */
+    public String[] toLineArray() {
+        return lineRange(0, lineCount);
+    }
+
+    /** Lines {@code from} (inclusive) to {@code to} (exclusive), copied into a new array. */
+    public String[] lineRange(int from, int to) {
+        if (from < 0 || to > lineCount || from > to) {
+            throw new IndexOutOfBoundsException("[" + from + ", " + to + ") of " + lineCount);
+        }
+        String[] out = new String[to - from];
+        int pieceStart = 0;
+        for (int i = 0; i < sources.length && pieceStart < to; i++) {
+            int lo = Math.max(from, pieceStart);
+            int hi = Math.min(to, pieceStart + counts[i]);
+            if (lo < hi) {
+                System.arraycopy(sources[i], starts[i] + lo - pieceStart, out, lo - from, hi - lo);
+            }
+            pieceStart += counts[i];
+        }
+        return out;
+    }
+
+    // Piece access for LineChurn, which aligns versions on their shared baseline ranges
+
+    String[] baseline() {
+        return baseline;
+    }
+
+    int pieceCount() {
+        return sources.length;
+    }
+
+    /** True when piece {@code i} is a range of {@link #baseline()}. */
+    boolean isBaselinePiece(int i) {
+        return sources[i] == baseline;
+    }
+
+    int pieceStart(int i) {
+        return starts[i];
+    }
+
+    int pieceLength(int i) {
+        return counts[i];
+    }
+
+    /** The lines as a read-only view; nothing is copied, but indexed access walks the pieces. */
+    public List<String> lines() {
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                if (index < 0 || index >= lineCount) {
+                    throw new IndexOutOfBoundsException(index);
+                }
+                int piece = 0;
+                while (index >= counts[piece]) {
+                    index -= counts[piece++];
+                }
+                return sources[piece][starts[piece] + index];
+            }
+
+            @Override
+            public int size() {
+                return lineCount;
+            }
+        };
+    }
+
+    @Override
+    public int length() {
+        return charOffsets[sources.length];
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length()) {
+            throw new StringIndexOutOfBoundsException(index);
+        }
+        int piece = Arrays.binarySearch(charOffsets, 0, sources.length, index);
+        if (piece < 0) {
+            piece = -piece - 2;
+        }
+        int offset = index - charOffsets[piece];
+        for (int j = starts[piece]; ; j++) {
+            String line = sources[piece][j];
+            if (offset < line.length()) {
+                return line.charAt(offset);
+            }
+            if (offset == line.length()) {
+                return '\n';
+            }
+            offset -= line.length() + 1;
+        }
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().substring(start, end);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(length());
+        boolean first = true;
+        for (int i = 0; i < sources.length; i++) {
+            for (int j = starts[i]; j < starts[i] + counts[i]; j++) {
+                if (!first) {
+                    sb.append('\n');
+                }
+                sb.append(sources[i][j]);
+                first = false;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Collects pieces in order; adjacent ranges of the same source are merged.
+     */
+    public static final class Builder implements FastDiffReplayer.EditSink {
+        private final String[] baseline;
+        private final List<String[]> sources = new ArrayList<>();
+        private final List<int[]> ranges = new ArrayList<>();
+
+        private Builder(String[] baseline) {
+            this.baseline = baseline;
+        }
+
+        @Override
+        public void keep(int from, int count) {
+            add(baseline, from, count);
+        }
+
+        @Override
+        public void insert(String[] lines) {
+            add(lines, 0, lines.length);
+        }
+
+        private void add(String[] source, int from, int count) {
+            if (count == 0) {
+                return;
+            }
+            int last = sources.size() - 1;
+            if (last >= 0 && sources.get(last) == source) {
+                int[] range = ranges.get(last);
+                if (range[0] + range[1] == from) {
+                    range[1] += count;
+                    return;
+                }
+            }
+            sources.add(source);
+            ranges.add(new int[] {from, count});
+        }
+
+        public PieceTableText build() {
+            if (sources.isEmpty()) {
+                return EMPTY;
+            }
+            int n = sources.size();
+            int[] starts = new int[n];
+            int[] counts = new int[n];
+            for (int i = 0; i < n; i++) {
+                starts[i] = ranges.get(i)[0];
+                counts[i] = ranges.get(i)[1];
+            }
+            return new PieceTableText(baseline, sources.toArray(new String[0][]), starts, counts);
+        }
+    }
+}
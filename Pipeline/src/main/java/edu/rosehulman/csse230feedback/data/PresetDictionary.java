@@ -0,0 +1,130 @@
+package edu.rosehulman.csse230feedback.data;
+
+import edu.rosehulman.csse230feedback.util.Hashing;
+import helpers.FastDiffReplayer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * A deflate preset dictionary built from an assignment's starter files.
+ *
+ * Every student's files start as the same starter code, so priming deflate's window with it lets
+ * even a small entry refer back to whole starter lines instead of spelling them out. Dictionaries
+ * are content-addressed: one is stored once per assignment as dictionaries/&lt;sha256&gt;.dict,
+ * usually in the directory holding every student's ingest output, and packs record only its
+ * SHA-256. Readers find it by looking in each ancestor of the pack's directory.
+ */
+public final class PresetDictionary {
+
+    /** Deflate only looks back 32 KiB, so a longer dictionary would never be referenced. */
+    public static final int MAX_LENGTH = 32 * 1024;
+
+    static final String DIRECTORY = "dictionaries";
+    private static final String SUFFIX = ".dict";
+
+    private final String sha256;
+    private final byte[] bytes;
+
+    private PresetDictionary(byte[] bytes) {
+        this.bytes = bytes;
+        this.sha256 = Hashing.toHex(Hashing.newSha256().digest(bytes));
+    }
+
+    /**
+     * Builds a dictionary from starter files, or from every .java file under a starter directory.
+     *
+     * Files are decoded and re-joined with "\n" the way pack entries hold their lines, in path
+     * order. Deflate finds the closest matches most cheaply, so when the starter code is longer
+     * than {@link #MAX_LENGTH} the end of it is kept.
+     */
+    public static PresetDictionary fromStarterFiles(List<Path> starters) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path starter : starters) {
+            if (Files.isDirectory(starter)) {
+                try (Stream<Path> walk = Files.walk(starter)) {
+                    walk.filter(p -> Files.isRegularFile(p) && p.getFileName().toString().endsWith(".java"))
+                            .forEach(files::add);
+                }
+            } else {
+                files.add(starter);
+            }
+        }
+        files.sort(null);
+        if (files.isEmpty()) {
+            throw new IOException("No starter files found in " + starters);
+        }
+
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        for (Path file : files) {
+            String[] lines = FastDiffReplayer.decodeLines(Files.readAllBytes(file));
+            text.write(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+            text.write('\n');
+        }
+
+        byte[] all = text.toByteArray();
+        return new PresetDictionary(all.length <= MAX_LENGTH
+                ? all
+                : Arrays.copyOfRange(all, all.length - MAX_LENGTH, all.length));
+    }
+
+    public String sha256() {
+        return sha256;
+    }
+
+    byte[] bytes() {
+        return bytes;
+    }
+
+    /**
+     * Writes this dictionary under {@code root}/dictionaries/ unless it is already there.
+     *
+     * @return the dictionary file
+     */
+    public Path store(Path root) throws IOException {
+        Path file = root.resolve(DIRECTORY).resolve(sha256 + SUFFIX);
+        if (Files.isRegularFile(file)) {
+            return file;
+        }
+        Files.createDirectories(file.getParent());
+        // Not createTempFile: that is owner-only, and the dictionary is read by every student's pack
+        Path tmp = file.resolveSibling(sha256 + "." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.write(tmp, bytes);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return file;
+    }
+
+    /**
+     * Finds dictionary {@code sha256} in dictionaries/ of {@code dir} or its nearest ancestor that
+     * has it.
+     *
+     * @throws IOException if no ancestor has it, or the file found does not match its name
+     */
+    public static PresetDictionary find(Path dir, String sha256) throws IOException {
+        for (Path d = dir.toAbsolutePath(); d != null; d = d.getParent()) {
+            Path file = d.resolve(DIRECTORY).resolve(sha256 + SUFFIX);
+            if (Files.isRegularFile(file)) {
+                PresetDictionary dictionary = new PresetDictionary(Files.readAllBytes(file));
+                if (!dictionary.sha256().equals(sha256)) {
+                    throw new IOException("Dictionary " + file + " does not match its SHA-256");
+                }
+                return dictionary;
+            }
+        }
+        throw new IOException("Dictionary " + sha256 + SUFFIX + " not found in " + DIRECTORY
+                + "/ of " + dir + " or any parent");
+    }
+}
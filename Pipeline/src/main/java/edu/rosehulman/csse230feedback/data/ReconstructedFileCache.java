@@ -0,0 +1,232 @@
+package edu.rosehulman.csse230feedback.data;
+
+import edu.rosehulman.csse230feedback.util.Hashing;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Cache of reconstructed file versions keyed by (archive digest, fileKey, run).
+ *
+ * Two tiers: an in-heap LRU bounded by an approximate byte budget, and an optional on-disk tier
+ * in a directory the caller chooses (rerun and prepare take it as {@code --version-cache}). Only
+ * the disk tier outlives the process, so it is what lets prepare reuse the versions a rerun over
+ * the same ingest output reconstructed. It is bounded too: once it outgrows its budget, the least
+ * recently used files are deleted. Keys include the archive digest, so a re-ingested archive never
+ * serves stale versions, and one directory can be shared by several ingest outputs.
+ *
+ * Disk problems are never fatal: an unreadable or unwritable entry is treated as a miss.
+ */
+public final class ReconstructedFileCache {
+
+    public static final long DEFAULT_MAX_HEAP_BYTES = 64L * 1024 * 1024;
+    public static final long DEFAULT_MAX_DISK_BYTES = 256L * 1024 * 1024;
+
+    // Rough per-line overhead of a String in a List (object header, array header, reference).
+    private static final int LINE_OVERHEAD_BYTES = 48;
+
+    private static final ReconstructedFileCache SHARED = new ReconstructedFileCache(DEFAULT_MAX_HEAP_BYTES);
+
+    private final long maxHeapBytes;
+    private final Path diskDir;
+    private final long maxDiskBytes;
+    private final LinkedHashMap<String, List<String>> heap = new LinkedHashMap<>(64, 0.75f, true);
+    private long heapBytes;
+
+    // Bytes held by the disk tier; -1 until the directory has been measured
+    private long diskBytes = -1;
+
+    /**
+     * A heap-only cache.
+     */
+    public ReconstructedFileCache(long maxHeapBytes) {
+        this(maxHeapBytes, null, 0L);
+    }
+
+    /**
+     * @param diskDir directory of the disk tier, or null for none
+     * @param maxDiskBytes size the disk tier is trimmed back to when it grows past it
+     */
+    public ReconstructedFileCache(long maxHeapBytes, Path diskDir, long maxDiskBytes) {
+        this.maxHeapBytes = maxHeapBytes;
+        this.diskDir = diskDir != null ? diskDir.toAbsolutePath() : null;
+        this.maxDiskBytes = maxDiskBytes;
+    }
+
+    /**
+     * The process-wide heap-only cache used by default.
+     */
+    public static ReconstructedFileCache shared() {
+        return SHARED;
+    }
+
+    /** True when versions are also kept on disk, beyond this process. */
+    public boolean persistent() {
+        return diskDir != null;
+    }
+
+    /**
+     * Returns the cached lines, or null on a miss. Disk hits are promoted to the heap tier.
+     */
+    public List<String> get(String archiveSha, String fileKey, int runNumber) {
+        String key = key(archiveSha, fileKey, runNumber);
+        synchronized (this) {
+            List<String> lines = heap.get(key);
+            if (lines != null) {
+                return lines;
+            }
+        }
+        if (diskDir == null) {
+            return null;
+        }
+
+        Path file = diskPath(key);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            List<String> lines = List.copyOf(Files.readAllLines(file, StandardCharsets.UTF_8));
+            // Eviction goes by modification time, so a hit marks the file as recently used
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            putInHeap(key, lines);
+            return lines;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * True when a version is cached in either tier, without reading it.
+     */
+    public boolean contains(String archiveSha, String fileKey, int runNumber) {
+        String key = key(archiveSha, fileKey, runNumber);
+        synchronized (this) {
+            if (heap.containsKey(key)) {
+                return true;
+            }
+        }
+        return diskDir != null && Files.isRegularFile(diskPath(key));
+    }
+
+    /**
+     * Caches a reconstructed version and returns the (immutable) cached copy.
+     */
+    public List<String> put(String archiveSha, String fileKey, int runNumber, List<String> lines) {
+        String key = key(archiveSha, fileKey, runNumber);
+        List<String> copy = List.copyOf(lines);
+        putInHeap(key, copy);
+
+        if (diskDir != null) {
+            Path file = diskPath(key);
+            if (!Files.exists(file)) {
+                try {
+                    Files.createDirectories(diskDir);
+                    Path tmp = Files.createTempFile(diskDir, file.getFileName().toString(), ".tmp");
+                    Files.write(tmp, copy, StandardCharsets.UTF_8);
+                    long size = Files.size(tmp);
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    addDiskBytes(size);
+                } catch (IOException e) {
+                    // Best effort: the heap tier still holds the version.
+                }
+            }
+        }
+        return copy;
+    }
+
+    private synchronized void putInHeap(String key, List<String> lines) {
+        long size = estimateBytes(lines);
+        if (size > maxHeapBytes) {
+            return;
+        }
+        List<String> previous = heap.put(key, lines);
+        if (previous != null) {
+            heapBytes -= estimateBytes(previous);
+        }
+        heapBytes += size;
+
+        var it = heap.entrySet().iterator();
+        while (heapBytes > maxHeapBytes && it.hasNext()) {
+            Map.Entry<String, List<String>> eldest = it.next();
+            heapBytes -= estimateBytes(eldest.getValue());
+            it.remove();
+        }
+    }
+
+    /**
+     * Accounts for a file written to the disk tier and, once the tier is over budget, deletes the
+     * least recently used files until it is back under it.
+     */
+    private synchronized void addDiskBytes(long size) throws IOException {
+        if (diskBytes < 0) {
+            // Measured once, after the write, so the new file is already included
+            diskBytes = 0;
+            for (Path file : cachedFiles()) {
+                diskBytes += Files.size(file);
+            }
+        } else {
+            diskBytes += size;
+        }
+        if (diskBytes <= maxDiskBytes) {
+            return;
+        }
+
+        List<Path> files = cachedFiles();
+        List<FileTime> times = new ArrayList<>();
+        for (Path file : files) {
+            times.add(Files.getLastModifiedTime(file));
+        }
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparing(times::get));
+        for (int i : order) {
+            if (diskBytes <= maxDiskBytes) {
+                break;
+            }
+            long fileSize = Files.size(files.get(i));
+            if (Files.deleteIfExists(files.get(i))) {
+                diskBytes -= fileSize;
+            }
+        }
+    }
+
+    private List<Path> cachedFiles() throws IOException {
+        try (Stream<Path> files = Files.list(diskDir)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".txt")).toList();
+        }
+    }
+
+    /** Approximate heap bytes held by the cached lines. */
+    public synchronized long heapBytes() {
+        return heapBytes;
+    }
+
+    private static long estimateBytes(List<String> lines) {
+        long bytes = 0L;
+        for (String line : lines) {
+            bytes += LINE_OVERHEAD_BYTES + line.length();
+        }
+        return bytes;
+    }
+
+    private static String key(String archiveSha, String fileKey, int runNumber) {
+        return archiveSha + ":" + fileKey + ":" + runNumber;
+    }
+
+    private Path diskPath(String key) {
+        String name = Hashing.toHex(Hashing.newSha256().digest(key.getBytes(StandardCharsets.UTF_8)));
+        return diskDir.resolve(name + ".txt");
+    }
+}
@@ -0,0 +1,216 @@
+package edu.rosehulman.csse230feedback.data;
+
+import edu.rosehulman.csse230feedback.model.DiffArchiveInfo;
+import edu.rosehulman.csse230feedback.model.ExtractedFile;
+import edu.rosehulman.csse230feedback.util.Hashing;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.utils.IOUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ingests run.tar in a single sequential read.
+ *
+ * While the TAR is streamed, the whole-file SHA-256 is computed, diff archives are copied
+ * straight to the output archives/ directory, and each archive is hashed and indexed from
+ * the same bytes that are being copied. With packs on, each archive's pack is written from
+ * that same walk too. Only the small non-archive entries (testRunInfo.json, error-logs.txt) are
+ * written to the working directory.
+ */
+public class StreamingRunTarIngestor {
+
+    public record StreamResult(
+            String runTarSha256,
+            List<ExtractedFile> extractedFiles,
+            List<DiffArchiveInfo> diffInfos
+    ) {}
+
+    private final int maxFiles;
+    private final long maxBytes;
+    private final boolean writePacks;
+    private final DiffArchiveIndexer indexer = new DiffArchiveIndexer(1);
+
+    public StreamingRunTarIngestor(int maxFiles, long maxBytes) {
+        this(maxFiles, maxBytes, false);
+    }
+
+    public StreamingRunTarIngestor(int maxFiles, long maxBytes, boolean writePacks) {
+        this.maxFiles = maxFiles;
+        this.maxBytes = maxBytes;
+        this.writePacks = writePacks;
+    }
+
+    public StreamResult ingest(Path tarPath, Path extractedDir, Path archivesOut, Path diffIndexJsonOut,
+                               List<String> warnings) throws IOException {
+        Files.createDirectories(archivesOut);
+
+        List<ExtractedFile> extracted = new ArrayList<>();
+        List<DiffArchiveIndexer.ArchiveIndex> indexes = new ArrayList<>();
+
+        long totalBytes = 0L;
+        int fileCount = 0;
+
+        MessageDigest runTarDigest = Hashing.newSha256();
+
+        try (InputStream fin = Files.newInputStream(tarPath);
+             DigestInputStream din = new DigestInputStream(fin, runTarDigest);
+             BufferedInputStream bin = new BufferedInputStream(din);
+             TarArchiveInputStream tin = new TarArchiveInputStream(bin)) {
+
+            TarArchiveEntry entry;
+            while ((entry = tin.getNextTarEntry()) != null) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+
+                fileCount++;
+                if (fileCount > maxFiles) {
+                    warnings.add("run.tar extraction halted: exceeded max files (" + maxFiles + ")");
+                    break;
+                }
+
+                long entrySize = entry.getSize();
+                if (entrySize > 0) {
+                    totalBytes += entrySize;
+                    if (totalBytes > maxBytes) {
+                        warnings.add("run.tar extraction halted: exceeded max bytes (" + maxBytes + ")");
+                        break;
+                    }
+                }
+
+                String fileName = Path.of(entry.getName()).getFileName().toString();
+                if (DiffArchiveIndexer.isDiffsTarZipFilename(fileName)) {
+                    Path dest = archivesOut.resolve(fileName);
+                    indexes.add(copyAndIndexArchive(tin, fileName, dest, warnings));
+                    extracted.add(ExtractedFile.fromFile(dest));
+                    continue;
+                }
+
+                Path outPath = extractedDir.resolve(entry.getName()).normalize();
+                if (!outPath.startsWith(extractedDir)) {
+                    throw new IOException("Illegal TAR entry (path traversal): " + entry.getName());
+                }
+
+                Files.createDirectories(outPath.getParent());
+                try (OutputStream out = Files.newOutputStream(outPath,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+                    IOUtils.copy(tin, out);
+                }
+
+                // preserve mod time when available
+                if (entry.getModTime() != null) {
+                    Files.setLastModifiedTime(outPath, FileTime.fromMillis(entry.getModTime().getTime()));
+                }
+
+                extracted.add(ExtractedFile.fromFile(outPath));
+            }
+
+            // Drain the TAR trailer (or anything left after a halted extraction) so the digest covers the file.
+            bin.transferTo(OutputStream.nullOutputStream());
+        }
+
+        List<DiffArchiveInfo> diffInfos = indexer.writeIndexes(indexes, diffIndexJsonOut);
+        return new StreamResult(Hashing.toHex(runTarDigest.digest()), extracted, diffInfos);
+    }
+
+    /**
+     * Copies one diffs_*.tar.zip entry to {@code dest} while hashing and indexing the same bytes.
+     */
+    private DiffArchiveIndexer.ArchiveIndex copyAndIndexArchive(InputStream entryIn, String fileName, Path dest,
+                                                                List<String> warnings) throws IOException {
+        MessageDigest archiveDigest = Hashing.newSha256();
+        Map<String, byte[]> entries = writePacks ? new LinkedHashMap<>() : null;
+        DiffArchiveIndexer.EntryScan scan;
+
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(dest,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING))) {
+            TeeInputStream tee = new TeeInputStream(entryIn, out, archiveDigest);
+            scan = indexer.scanEntries(fileName, tee, warnings, entries);
+            // The TAR walk stops at the end of the inner TAR; copy and hash the rest of the ZIP.
+            tee.transferTo(OutputStream.nullOutputStream());
+        }
+
+        String sha = Hashing.toHex(archiveDigest.digest());
+        if (writePacks) {
+            // After the archive is closed, so the pack records its final size and time
+            indexer.writePack(dest, sha, scan, entries, warnings);
+        }
+        return indexer.toIndex(fileName, sha, scan);
+    }
+
+    /**
+     * Forwards every byte read to an output stream and a digest. Closing it leaves the source open.
+     */
+    private static final class TeeInputStream extends FilterInputStream {
+        private final OutputStream copy;
+        private final MessageDigest digest;
+
+        private TeeInputStream(InputStream in, OutputStream copy, MessageDigest digest) {
+            super(in);
+            this.copy = copy;
+            this.digest = digest;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b != -1) {
+                copy.write(b);
+                digest.update((byte) b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException {
+            int n = in.read(buf, off, len);
+            if (n > 0) {
+                copy.write(buf, off, n);
+                digest.update(buf, off, n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Route skips through read() so skipped bytes are still copied and hashed.
+            byte[] buf = new byte[(int) Math.min(n, 8192)];
+            long skipped = 0;
+            while (skipped < n) {
+                int r = read(buf, 0, (int) Math.min(buf.length, n - skipped));
+                if (r < 0) break;
+                skipped += r;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+            // The outer TAR stream owns the source.
+        }
+    }
+}
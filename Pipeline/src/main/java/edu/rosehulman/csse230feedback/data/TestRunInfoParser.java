@@ -1,14 +1,15 @@
 package edu.rosehulman.csse230feedback.data;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import edu.rosehulman.csse230feedback.model.RunRecord;
 import edu.rosehulman.csse230feedback.model.TestResultRecord;
 import edu.rosehulman.csse230feedback.model.TestStatus;
+import edu.rosehulman.csse230feedback.util.Json;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.sql.Timestamp;
@@ -28,88 +29,97 @@ public class TestRunInfoParser {
             "runTimes"
     );
 
-    private final ObjectMapper mapper;
+    private final JsonFactory factory;
 
     public TestRunInfoParser() {
-        this.mapper = new ObjectMapper();
+        this.factory = new ObjectMapper().getFactory();
     }
 
+    /**
+     * Parses testRunInfo.json token by token. Test results go straight into per-run buckets, so
+     * no JSON tree (or String copy of the file) is held alongside the RunRecords being built.
+     */
     public List<RunRecord> parse(Path testRunInfoJson, List<String> warnings) throws IOException {
-        byte[] raw = Files.readAllBytes(testRunInfoJson);
-        JsonNode rootNode = mapper.readTree(new String(raw, StandardCharsets.UTF_8));
-        if (!(rootNode instanceof ObjectNode root)) {
-            throw new IOException("testRunInfo.json root is not an object");
-        }
-
         // Run times provide the canonical set of run numbers.
         Map<Integer, String> runTimes = new TreeMap<>();
-        JsonNode runTimesNode = root.get("runTimes");
-        if (runTimesNode != null && runTimesNode.isObject()) {
-            Iterator<String> it = runTimesNode.fieldNames();
-            while (it.hasNext()) {
-                String k = it.next();
-                try {
-                    int runNum = Integer.parseInt(k);
-                    runTimes.put(runNum, runTimesNode.get(k).asText());
-                } catch (NumberFormatException e) {
-                    warnings.add("Non-integer runTimes key: " + k);
-                }
-            }
-        } else {
-            warnings.add("Missing or invalid runTimes node in testRunInfo.json; will infer run numbers from test results.");
-        }
-
         // Collect test results by run number
         Map<Integer, List<TestResultRecord>> testsByRun = new TreeMap<>();
 
-        Iterator<String> topFields = root.fieldNames();
-        while (topFields.hasNext()) {
-            String testFileName = topFields.next();
-            if (RESERVED_TOP_LEVEL_KEYS.contains(testFileName)) {
-                continue;
-            }
-            JsonNode testFileNode = root.get(testFileName);
-            if (testFileNode == null || !testFileNode.isObject()) {
-                continue;
+        // runTimes may appear anywhere in the file; keep its warnings ahead of the per-test ones.
+        List<String> runTimesWarnings = new ArrayList<>();
+        List<String> testWarnings = new ArrayList<>();
+        boolean sawRunTimes = false;
+
+        try (JsonParser p = factory.createParser(testRunInfoJson.toFile())) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("testRunInfo.json root is not an object");
             }
 
-            Iterator<String> testNames = testFileNode.fieldNames();
-            while (testNames.hasNext()) {
-                String testDisplayName = testNames.next();
-                JsonNode testNameNode = testFileNode.get(testDisplayName);
-                if (testNameNode == null || !testNameNode.isObject()) {
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String testFileName = p.currentName();
+                JsonToken valueToken = p.nextToken();
+
+                if (testFileName.equals("runTimes")) {
+                    if (valueToken == JsonToken.START_OBJECT) {
+                        sawRunTimes = true;
+                        readRunTimes(p, runTimes, runTimesWarnings);
+                    } else {
+                        p.skipChildren();
+                    }
+                    continue;
+                }
+                if (RESERVED_TOP_LEVEL_KEYS.contains(testFileName) || valueToken != JsonToken.START_OBJECT) {
+                    p.skipChildren();
                     continue;
                 }
 
-                Iterator<String> runNums = testNameNode.fieldNames();
-                while (runNums.hasNext()) {
-                    String runNumStr = runNums.next();
-                    int runNum;
-                    try {
-                        runNum = Integer.parseInt(runNumStr);
-                    } catch (NumberFormatException e) {
-                        warnings.add("Non-integer run number under " + testFileName + "." + testDisplayName + ": " + runNumStr);
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String testDisplayName = p.currentName();
+                    if (p.nextToken() != JsonToken.START_OBJECT) {
+                        p.skipChildren();
                         continue;
                     }
 
-                    String statusAndMaybeCause = testNameNode.get(runNumStr).asText();
-                    ParsedStatus parsed = parseStatus(statusAndMaybeCause, warnings);
-
-                    String testId = testFileName + "#" + testDisplayName;
-                    TestResultRecord tr = new TestResultRecord(
-                            testFileName,
-                            testDisplayName,
-                            testId,
-                            parsed.status,
-                            parsed.cause
-                    );
-
-                    testsByRun.computeIfAbsent(runNum, _k -> new ArrayList<>()).add(tr);
-                    runTimes.putIfAbsent(runNum, null);
+                    while (p.nextToken() == JsonToken.FIELD_NAME) {
+                        String runNumStr = p.currentName();
+                        p.nextToken();
+                        int runNum;
+                        try {
+                            runNum = Integer.parseInt(runNumStr);
+                        } catch (NumberFormatException e) {
+                            testWarnings.add("Non-integer run number under " + testFileName + "." + testDisplayName + ": " + runNumStr);
+                            p.skipChildren();
+                            continue;
+                        }
+
+                        String statusAndMaybeCause = Json.valueAsText(p);
+                        ParsedStatus parsed = parseStatus(statusAndMaybeCause, testWarnings);
+
+                        String testId = testFileName + "#" + testDisplayName;
+                        TestResultRecord tr = new TestResultRecord(
+                                testFileName,
+                                testDisplayName,
+                                testId,
+                                parsed.status,
+                                parsed.cause
+                        );
+
+                        testsByRun.computeIfAbsent(runNum, _k -> new ArrayList<>()).add(tr);
+                    }
                 }
             }
         }
 
+        if (!sawRunTimes) {
+            warnings.add("Missing or invalid runTimes node in testRunInfo.json; will infer run numbers from test results.");
+        }
+        warnings.addAll(runTimesWarnings);
+        warnings.addAll(testWarnings);
+
+        for (Integer runNum : testsByRun.keySet()) {
+            runTimes.putIfAbsent(runNum, null);
+        }
+
         // Build RunRecord list
         List<RunRecord> runs = new ArrayList<>();
         for (Map.Entry<Integer, String> e : runTimes.entrySet()) {
@@ -137,6 +147,20 @@ public class TestRunInfoParser {
         return runs;
     }
 
+    private void readRunTimes(JsonParser p, Map<Integer, String> runTimes, List<String> warnings) throws IOException {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String k = p.currentName();
+            p.nextToken();
+            String value = Json.valueAsText(p);
+            try {
+                int runNum = Integer.parseInt(k);
+                runTimes.put(runNum, value);
+            } catch (NumberFormatException e) {
+                warnings.add("Non-integer runTimes key: " + k);
+            }
+        }
+    }
+
     private record ParsedStatus(TestStatus status, String cause) {}
 
     private ParsedStatus parseStatus(String statusAndMaybeCause, List<String> warnings) {
@@ -0,0 +1,26 @@
+package edu.rosehulman.csse230feedback.domain;
+
+import java.nio.file.Path;
+
+public record BatchIngestOptions(
+        Path inputDir,
+        Path outDir,
+        Path workRoot,
+        int workers,
+        boolean keepWorkDir,
+        int maxExtractedFiles,
+        long maxExtractedBytes,
+        boolean streaming,
+        boolean incremental,
+        boolean writePacks
+) {
+    /**
+     * Per-student ingest options; each student gets its own output and work directory.
+     */
+    public IngestOptions forStudent(String studentId, Path repoRoot) {
+        Path studentOut = outDir.resolve(studentId);
+        Path studentWork = workRoot != null ? workRoot.resolve(studentId) : studentOut.resolve("work");
+        return new IngestOptions(repoRoot, studentOut, studentWork, keepWorkDir,
+                maxExtractedFiles, maxExtractedBytes, streaming, incremental, writePacks);
+    }
+}
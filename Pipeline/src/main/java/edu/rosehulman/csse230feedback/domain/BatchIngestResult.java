@@ -0,0 +1,11 @@
+package edu.rosehulman.csse230feedback.domain;
+
+import edu.rosehulman.csse230feedback.model.BatchManifest;
+
+public record BatchIngestResult(
+        int studentsFound,
+        int studentsSucceeded,
+        int studentsFailed,
+        long totalDurationMs,
+        BatchManifest manifest
+) {}
@@ -0,0 +1,149 @@
+package edu.rosehulman.csse230feedback.domain;
+
+import edu.rosehulman.csse230feedback.model.BatchManifest;
+import edu.rosehulman.csse230feedback.util.Json;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Ingests a whole section at once: every student repo (or bare run.tar) under an input
+ * directory is ingested into its own output directory on a bounded worker pool, inside a
+ * single JVM. A batch_manifest.json summarizes per-student status and timing.
+ */
+public class BatchIngestService {
+
+    public static final String BATCH_MANIFEST_FILENAME = "batch_manifest.json";
+
+    private static final String RUN_TAR_FILENAME = "run.tar";
+    private static final String TAR_SUFFIX = ".tar";
+
+    /**
+     * One discovered student input: a repo directory containing run.tar, or a &lt;student&gt;.tar file.
+     */
+    public record StudentInput(String studentId, Path repoRoot) {}
+
+    public BatchIngestResult ingestAll(BatchIngestOptions opts) throws IOException {
+        long batchStart = System.nanoTime();
+
+        List<StudentInput> inputs = discoverInputs(opts.inputDir());
+        Files.createDirectories(opts.outDir());
+
+        int workers = Math.max(1, Math.min(opts.workers(), Math.max(1, inputs.size())));
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        // Workers split the processors, so indexing inside each ingest does not multiply threads
+        int indexerParallelism = Math.max(1, Runtime.getRuntime().availableProcessors() / workers);
+
+        List<BatchManifest.StudentEntry> entries = new ArrayList<>();
+        try {
+            List<Future<BatchManifest.StudentEntry>> futures = new ArrayList<>();
+            for (StudentInput input : inputs) {
+                futures.add(pool.submit(() -> ingestOne(opts, input, indexerParallelism)));
+            }
+
+            // Collect in discovery order so the manifest is stable regardless of completion order.
+            for (int i = 0; i < futures.size(); i++) {
+                entries.add(await(futures.get(i), inputs.get(i), opts));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long totalMs = (System.nanoTime() - batchStart) / 1_000_000L;
+        BatchManifest manifest = BatchManifest.build(
+                opts.inputDir().toAbsolutePath().toString(),
+                opts.outDir().toAbsolutePath().toString(),
+                workers,
+                totalMs,
+                entries
+        );
+        Json.writeJson(opts.outDir().resolve(BATCH_MANIFEST_FILENAME), manifest);
+
+        int succeeded = (int) entries.stream().filter(BatchManifest.StudentEntry::succeeded).count();
+        return new BatchIngestResult(entries.size(), succeeded, entries.size() - succeeded, totalMs, manifest);
+    }
+
+    /**
+     * Finds student inputs directly under {@code inputDir}, sorted by student id.
+     */
+    public List<StudentInput> discoverInputs(Path inputDir) throws IOException {
+        List<StudentInput> inputs = new ArrayList<>();
+        try (Stream<Path> children = Files.list(inputDir)) {
+            for (Path child : children.toList()) {
+                String name = child.getFileName().toString();
+                if (Files.isDirectory(child) && Files.isRegularFile(child.resolve(RUN_TAR_FILENAME))) {
+                    inputs.add(new StudentInput(name, child));
+                } else if (Files.isRegularFile(child) && name.endsWith(TAR_SUFFIX)) {
+                    inputs.add(new StudentInput(name.substring(0, name.length() - TAR_SUFFIX.length()), child));
+                }
+            }
+        }
+        inputs.sort(Comparator.comparing(StudentInput::studentId));
+        return inputs;
+    }
+
+    private BatchManifest.StudentEntry ingestOne(BatchIngestOptions opts, StudentInput input,
+                                                 int indexerParallelism) {
+        IngestOptions studentOpts = opts.forStudent(input.studentId(), input.repoRoot());
+        long start = System.nanoTime();
+        try {
+            Files.createDirectories(studentOpts.outDir());
+            Files.createDirectories(studentOpts.workDir());
+
+            IngestResult result = new IngestService(indexerParallelism).ingest(studentOpts);
+            return new BatchManifest.StudentEntry(
+                    input.studentId(),
+                    input.repoRoot().toAbsolutePath().toString(),
+                    studentOpts.outDir().toAbsolutePath().toString(),
+                    "ok",
+                    elapsedMs(start),
+                    result.runsParsed(),
+                    result.diffArchivesFound(),
+                    result.warnings().isEmpty() ? null : result.warnings(),
+                    null
+            );
+        } catch (Exception e) {
+            return failed(input, studentOpts, elapsedMs(start), e);
+        }
+    }
+
+    private BatchManifest.StudentEntry await(Future<BatchManifest.StudentEntry> future, StudentInput input,
+                                             BatchIngestOptions opts) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return failed(input, opts.forStudent(input.studentId(), input.repoRoot()), 0, e);
+        } catch (ExecutionException e) {
+            return failed(input, opts.forStudent(input.studentId(), input.repoRoot()), 0, e.getCause());
+        }
+    }
+
+    private static BatchManifest.StudentEntry failed(StudentInput input, IngestOptions studentOpts,
+                                                     long durationMs, Throwable e) {
+        return new BatchManifest.StudentEntry(
+                input.studentId(),
+                input.repoRoot().toAbsolutePath().toString(),
+                studentOpts.outDir().toAbsolutePath().toString(),
+                "failed",
+                durationMs,
+                null,
+                null,
+                null,
+                e.getClass().getSimpleName() + ": " + e.getMessage()
+        );
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000L;
+    }
+}
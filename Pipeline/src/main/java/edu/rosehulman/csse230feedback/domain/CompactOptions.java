@@ -0,0 +1,23 @@
+package edu.rosehulman.csse230feedback.domain;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * @param starterFiles   starter files (or directories of them) to build a preset dictionary from;
+ *                       empty for none
+ * @param dictionaryRoot directory whose dictionaries/ holds the assignment's dictionary (default:
+ *                       the parent of {@code inputDir}, where ingest-batch puts every student).
+ *                       With {@code removeArchives}, a copy also goes under the student's archives/.
+ */
+public record CompactOptions(
+        Path inputDir,
+        int keyframeInterval,
+        boolean removeArchives,
+        List<Path> starterFiles,
+        Path dictionaryRoot
+) {
+    public CompactOptions(Path inputDir, int keyframeInterval, boolean removeArchives) {
+        this(inputDir, keyframeInterval, removeArchives, List.of(), null);
+    }
+}
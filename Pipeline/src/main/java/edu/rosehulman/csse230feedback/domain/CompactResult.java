@@ -0,0 +1,19 @@
+package edu.rosehulman.csse230feedback.domain;
+
+import java.util.List;
+
+public record CompactResult(
+        int files,
+        int versions,
+        int keyframes,
+        long archiveBytes,
+        long packBytes,
+        String worstCaseFileKey,
+        int worstCaseRun,
+        int worstCaseDeltas,
+        long worstCaseRawBytes,
+        long worstCaseReadMicros,
+        int archivesRemoved,
+        String dictionarySha256,
+        List<String> warnings
+) {}
@@ -0,0 +1,184 @@
+package edu.rosehulman.csse230feedback.domain;
+
+import com.github.difflib.algorithm.DiffException;
+import com.github.difflib.patch.PatchFailedException;
+import edu.rosehulman.csse230feedback.data.ChainedPackReader;
+import edu.rosehulman.csse230feedback.data.ChainedPackWriter;
+import edu.rosehulman.csse230feedback.data.DiffFileReconstructor;
+import edu.rosehulman.csse230feedback.data.DiffPackWriter;
+import edu.rosehulman.csse230feedback.data.PatchIndex;
+import edu.rosehulman.csse230feedback.data.PresetDictionary;
+import edu.rosehulman.csse230feedback.model.PatchPointer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Compacts an ingest output's diff archives into a chained pack (see {@link ChainedPackWriter}).
+ *
+ * With {@code removeArchives}, every version in the pack is first checked against the archives;
+ * then each archive whose patches all made it into the pack is deleted along with its diffs_*.pack.
+ * Reconstruction reads those versions from the chained pack from then on.
+ *
+ * With starter files, entries are deflated with a {@link PresetDictionary} built from them. It is
+ * stored once in the dictionary root shared by the assignment's students, so each student's pack
+ * records only its hash. Removing the archives makes the pack the only copy of the history, so a
+ * copy of the dictionary is then also stored under the student's own archives/, where readers
+ * look first; the student directory stays readable wherever it is moved.
+ */
+public class CompactService {
+
+    private static final String TAR_ZIP_SUFFIX = ".tar.zip";
+
+    public CompactResult compact(CompactOptions opts) throws IOException {
+        List<String> warnings = new ArrayList<>();
+
+        Path archivesDir = opts.inputDir().resolve("archives");
+        Path patchesIndex = opts.inputDir().resolve("patches_index.jsonl");
+        Path cacheDir = opts.inputDir().resolve(".cache");
+        if (!Files.isDirectory(archivesDir)) {
+            throw new IOException("archives/ directory not found at: " + archivesDir);
+        }
+        if (!Files.exists(patchesIndex)) {
+            throw new IOException("patches_index.jsonl not found at: " + patchesIndex);
+        }
+        Files.createDirectories(cacheDir);
+
+        List<PatchPointer> pointers = PatchIndex.loadPointers(patchesIndex, warnings);
+        if (pointers.isEmpty()) {
+            throw new IOException("patches_index.jsonl contains no patches");
+        }
+        PatchIndex patchIndex = PatchIndex.build(pointers);
+
+        long archiveBytes = archiveBytes(archivesDir);
+
+        PresetDictionary dictionary = null;
+        if (!opts.starterFiles().isEmpty()) {
+            dictionary = PresetDictionary.fromStarterFiles(opts.starterFiles());
+            Path root = opts.dictionaryRoot() != null
+                    ? opts.dictionaryRoot()
+                    : opts.inputDir().toAbsolutePath().getParent();
+            dictionary.store(root);
+        }
+
+        DiffFileReconstructor reconstructor = new DiffFileReconstructor();
+        ChainedPackWriter.Summary summary = new ChainedPackWriter(reconstructor, dictionary)
+                .write(archivesDir, patchIndex, cacheDir, opts.keyframeInterval(), warnings);
+        ChainedPackReader pack = ChainedPackReader.open(summary.pack());
+
+        // Time the read a cold lookup would pay for the worst-placed version
+        ChainedPackReader.ChainCost worst = pack.worstCase();
+        long worstMicros = 0;
+        if (worst != null) {
+            PatchPointer p = patchIndex.latestAtOrBefore(worst.fileKey(), worst.runNumber());
+            long start = System.nanoTime();
+            pack.read(p);
+            worstMicros = (System.nanoTime() - start) / 1000;
+        }
+
+        int removed = 0;
+        if (opts.removeArchives()) {
+            verify(pack, patchIndex, reconstructor, archivesDir, cacheDir);
+            if (dictionary != null) {
+                dictionary.store(archivesDir);
+            }
+            removed = removeArchives(archivesDir, pack, pointers);
+        }
+
+        return new CompactResult(
+                summary.files(),
+                summary.versions(),
+                summary.keyframes(),
+                archiveBytes,
+                Files.size(summary.pack()),
+                worst != null ? worst.fileKey() : null,
+                worst != null ? worst.runNumber() : -1,
+                worst != null ? worst.deltas() : 0,
+                worst != null ? worst.rawBytes() : 0,
+                worstMicros,
+                removed,
+                dictionary != null ? dictionary.sha256() : null,
+                warnings
+        );
+    }
+
+    /**
+     * Reads every version back through one cursor per file and compares it with the archives.
+     */
+    private static void verify(ChainedPackReader pack, PatchIndex patchIndex, DiffFileReconstructor reconstructor,
+                               Path archivesDir, Path cacheDir) throws IOException {
+        List<String> ignored = new ArrayList<>();
+        for (String fileKey : patchIndex.fileKeys()) {
+            ChainedPackReader.Cursor cursor = pack.cursor();
+            for (PatchPointer p : patchIndex.pointersFor(fileKey)) {
+                if (!pack.contains(p)) {
+                    continue;
+                }
+                try {
+                    List<String> expected = reconstructor.reconstruct(archivesDir, p, cacheDir, ignored);
+                    if (!Arrays.asList(cursor.read(p)).equals(expected)) {
+                        throw new IOException("Chained pack does not match the archives for " + fileKey
+                                + " at run " + p.runNumber() + "; archives kept");
+                    }
+                } catch (DiffException | PatchFailedException e) {
+                    throw new IOException("Could not verify " + fileKey + " at run " + p.runNumber()
+                            + ": " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes each archive (and its diffs_*.pack) whose patches are all in the chained pack;
+     * archives holding a patch that could not be reconstructed are kept.
+     */
+    private static int removeArchives(Path archivesDir, ChainedPackReader pack, List<PatchPointer> pointers)
+            throws IOException {
+        Set<String> archives = new LinkedHashSet<>();
+        Set<String> incomplete = new HashSet<>();
+        for (PatchPointer p : pointers) {
+            archives.add(p.archiveFilename());
+            if (!pack.contains(p)) {
+                incomplete.add(p.archiveFilename());
+            }
+        }
+
+        int removed = 0;
+        for (String archive : archives) {
+            Path archiveZip = archivesDir.resolve(archive);
+            if (incomplete.contains(archive) || !Files.exists(archiveZip)) {
+                continue;
+            }
+            Files.deleteIfExists(DiffPackWriter.packPathFor(archiveZip));
+            Files.delete(archiveZip);
+            removed++;
+        }
+        return removed;
+    }
+
+    /** Bytes taken by the diffs_*.tar.zip archives and their diffs_*.pack sidecars. */
+    private static long archiveBytes(Path archivesDir) throws IOException {
+        long total = 0;
+        try (Stream<Path> files = Files.list(archivesDir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                String name = p.getFileName().toString();
+                if (name.endsWith(TAR_ZIP_SUFFIX)) {
+                    total += Files.size(p);
+                    Path sidecar = DiffPackWriter.packPathFor(p);
+                    if (Files.exists(sidecar)) {
+                        total += Files.size(sidecar);
+                    }
+                }
+            }
+        }
+        return total;
+    }
+}
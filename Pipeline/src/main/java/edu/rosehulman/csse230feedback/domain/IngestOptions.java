@@ -8,5 +8,13 @@ public record IngestOptions(
         Path workDir,
         boolean keepWorkDir,
         int maxExtractedFiles,
-        long maxExtractedBytes
-) {}
+        long maxExtractedBytes,
+        boolean streaming,
+        boolean incremental,
+        boolean writePacks
+) {
+    public IngestOptions(Path repoRoot, Path outDir, Path workDir, boolean keepWorkDir, int maxExtractedFiles,
+                         long maxExtractedBytes, boolean streaming, boolean incremental) {
+        this(repoRoot, outDir, workDir, keepWorkDir, maxExtractedFiles, maxExtractedBytes, streaming, incremental, true);
+    }
+}
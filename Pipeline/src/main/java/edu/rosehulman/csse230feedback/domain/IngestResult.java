@@ -5,5 +5,13 @@ import java.util.List;
 public record IngestResult(
         int runsParsed,
         int diffArchivesFound,
+        int runsAdded,
+        int diffArchivesIndexed,
+        long packBytes,
         List<String> warnings
-) {}
+) {
+    public IngestResult(int runsParsed, int diffArchivesFound, int runsAdded, int diffArchivesIndexed,
+                        List<String> warnings) {
+        this(runsParsed, diffArchivesFound, runsAdded, diffArchivesIndexed, 0L, warnings);
+    }
+}
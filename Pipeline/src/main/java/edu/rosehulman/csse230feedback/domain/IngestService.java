@@ -1,9 +1,12 @@
 package edu.rosehulman.csse230feedback.domain;
 
 import edu.rosehulman.csse230feedback.data.DiffArchiveIndexer;
+import edu.rosehulman.csse230feedback.data.DiffPackWriter;
 import edu.rosehulman.csse230feedback.data.RunTarExtractor;
+import edu.rosehulman.csse230feedback.data.StreamingRunTarIngestor;
 import edu.rosehulman.csse230feedback.data.TestRunInfoParser;
 import edu.rosehulman.csse230feedback.model.DiffArchiveInfo;
+import edu.rosehulman.csse230feedback.model.ExtractedFile;
 import edu.rosehulman.csse230feedback.model.IngestionManifest;
 import edu.rosehulman.csse230feedback.model.RunRecord;
 import edu.rosehulman.csse230feedback.util.Hashing;
@@ -12,14 +15,33 @@ import edu.rosehulman.csse230feedback.util.Json;
 import java.io.IOException;
 import java.nio.file.*;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class IngestService {
 
+    private static final String MANIFEST_FILENAME = "manifest.json";
+
+    private final int indexerParallelism;
+
+    public IngestService() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param indexerParallelism max number of diff archives indexed concurrently; batch ingest
+     *                           divides the processors between its workers with this
+     */
+    public IngestService(int indexerParallelism) {
+        this.indexerParallelism = Math.max(1, indexerParallelism);
+    }
+
     public IngestResult ingest(IngestOptions opts) throws IOException {
         List<String> warnings = new ArrayList<>();
 
-        Path runTar = opts.repoRoot().resolve("run.tar");
+        // repoRoot is normally a repo directory containing run.tar, but a bare run.tar file is accepted too.
+        Path runTar = Files.isRegularFile(opts.repoRoot()) ? opts.repoRoot() : opts.repoRoot().resolve("run.tar");
         if (!Files.exists(runTar)) {
             throw new IOException("Could not find run.tar at: " + runTar);
         }
@@ -28,9 +50,56 @@ public class IngestService {
         Path extractedDir = opts.workDir().resolve("run_tar_extracted");
         Files.createDirectories(extractedDir);
 
-        // 1) Extract run.tar (but keep diff archives compressed: we only copy them out)
-        RunTarExtractor extractor = new RunTarExtractor(opts.maxExtractedFiles(), opts.maxExtractedBytes());
-        RunTarExtractor.ExtractResult extractResult = extractor.extract(runTar, extractedDir, warnings);
+        Path archivesOut = opts.outDir().resolve("archives");
+        Path diffIndexJson = opts.outDir().resolve("diff_index.json");
+
+        // 0) Incremental: extend the previous ingest in place when it can be extended by appending
+        if (opts.incremental()) {
+            IngestResult incremental = ingestIncremental(opts, runTar, extractedDir, archivesOut, diffIndexJson, warnings);
+            if (incremental != null) {
+                cleanUpWorkDir(opts);
+                return incremental;
+            }
+        }
+
+        List<ExtractedFile> extractedFiles;
+        List<DiffArchiveInfo> diffInfos;
+        String runTarSha;
+
+        if (opts.streaming()) {
+            // 1) One pass over run.tar: hash it, copy + hash + index diff archives, extract the rest
+            StreamingRunTarIngestor ingestor = new StreamingRunTarIngestor(
+                    opts.maxExtractedFiles(), opts.maxExtractedBytes(), opts.writePacks());
+            StreamingRunTarIngestor.StreamResult streamResult =
+                    ingestor.ingest(runTar, extractedDir, archivesOut, diffIndexJson, warnings);
+            extractedFiles = streamResult.extractedFiles();
+            diffInfos = streamResult.diffInfos();
+            runTarSha = streamResult.runTarSha256();
+        } else {
+            // 1) Extract run.tar (but keep diff archives compressed: we only copy them out)
+            RunTarExtractor extractor = new RunTarExtractor(opts.maxExtractedFiles(), opts.maxExtractedBytes());
+            RunTarExtractor.ExtractResult extractResult = extractor.extract(runTar, extractedDir, warnings);
+
+            // Copy diff archives out (still compressed) + index them
+            Files.createDirectories(archivesOut);
+
+            List<Path> diffArchives = new ArrayList<>();
+            for (Path p : extractResult.diffArchivePaths()) {
+                Path dest = archivesOut.resolve(p.getFileName().toString());
+                Files.copy(p, dest, StandardCopyOption.REPLACE_EXISTING);
+                diffArchives.add(dest);
+            }
+
+            DiffArchiveIndexer indexer = new DiffArchiveIndexer(indexerParallelism, opts.writePacks());
+            extractedFiles = extractResult.extractedFiles();
+            diffInfos = indexer.indexAll(diffArchives, diffIndexJson, warnings);
+            runTarSha = Hashing.sha256(runTar);
+        }
+
+        // Packs were written by the indexing pass; without packs, drop any left by an earlier ingest
+        if (!opts.writePacks()) {
+            deletePacks(archivesOut, diffInfos);
+        }
 
         // 2) Parse testRunInfo.json into runs.jsonl
         Path testRunInfo = extractedDir.resolve("testRunInfo.json");
@@ -41,40 +110,180 @@ public class IngestService {
         TestRunInfoParser parser = new TestRunInfoParser();
         List<RunRecord> runs = parser.parse(testRunInfo, warnings);
 
-        // 3) Copy diff archives out (still compressed) + index them
-        Path archivesOut = opts.outDir().resolve("archives");
-        Files.createDirectories(archivesOut);
+        // 3) Write artifacts
+        Path runsJsonl = opts.outDir().resolve("runs.jsonl");
+        Json.writeJsonl(runsJsonl, runs);
 
-        List<Path> diffArchives = new ArrayList<>();
-        for (Path p : extractResult.diffArchivePaths()) {
-            Path dest = archivesOut.resolve(p.getFileName().toString());
-            Files.copy(p, dest, StandardCopyOption.REPLACE_EXISTING);
-            diffArchives.add(dest);
-        }
+        IngestionManifest manifest = IngestionManifest.build(
+                opts.repoRoot().toAbsolutePath().toString(),
+                runTar.toAbsolutePath().toString(),
+                runTarSha,
+                extractedFiles,
+                diffInfos,
+                runs,
+                warnings
+        );
+        Json.writeJson(opts.outDir().resolve(MANIFEST_FILENAME), manifest);
 
-        DiffArchiveIndexer indexer = new DiffArchiveIndexer();
-        List<DiffArchiveInfo> diffInfos = indexer.indexAll(diffArchives, opts.outDir().resolve("diff_index.json"), warnings);
+        // 4) Cleanup
+        cleanUpWorkDir(opts);
 
-        // 4) Write artifacts
+        return new IngestResult(runs.size(), diffInfos.size(), runs.size(), diffInfos.size(),
+                packBytes(archivesOut, diffInfos), warnings);
+    }
+
+    /**
+     * Re-ingests on top of a previous ingest in {@code outDir}: archives whose SHA-256 is unchanged
+     * are neither copied nor re-indexed, and only runs and patch pointers newer than the previous
+     * ingest are appended to runs.jsonl and patches_index.jsonl.
+     *
+     * Returns null (after adding a warning) when there is no usable previous ingest or the new
+     * run.tar does not extend it, in which case the caller runs a full ingest. The caller cleans
+     * up the work directory either way.
+     */
+    private IngestResult ingestIncremental(IngestOptions opts, Path runTar, Path extractedDir, Path archivesOut,
+                                           Path diffIndexJson, List<String> warnings) throws IOException {
+        Path manifestPath = opts.outDir().resolve(MANIFEST_FILENAME);
         Path runsJsonl = opts.outDir().resolve("runs.jsonl");
-        Json.writeJsonl(runsJsonl, runs);
+        if (!Files.exists(manifestPath) || !Files.exists(diffIndexJson) || !Files.exists(runsJsonl)) {
+            warnings.add("Incremental ingest: no previous ingest in " + opts.outDir() + "; running full ingest");
+            return null;
+        }
+
+        IngestionManifest previous;
+        try {
+            previous = Json.mapper().readValue(manifestPath.toFile(), IngestionManifest.class);
+        } catch (IOException e) {
+            warnings.add("Incremental ingest: could not read previous manifest.json (" + e.getMessage() + "); running full ingest");
+            return null;
+        }
+        if (previous.schemaVersion() < IngestionManifest.SCHEMA_VERSION
+                || previous.runCount() == null || previous.diffArchives() == null) {
+            warnings.add("Incremental ingest: previous manifest.json predates incremental ingest; running full ingest");
+            return null;
+        }
+
+        String runTarSha = Hashing.sha256(runTar);
+        if (runTarSha.equals(previous.runTarSha256())) {
+            warnings.add("Incremental ingest: run.tar unchanged since previous ingest; nothing to do");
+            return new IngestResult(previous.runCount(), previous.diffArchives().size(), 0, 0, warnings);
+        }
+
+        // Work on a scratch warning list so an abandoned attempt does not leak into the full ingest.
+        List<String> attemptWarnings = new ArrayList<>();
+        if (opts.streaming()) {
+            // Archives are hashed before deciding which to copy, so they are extracted first
+            attemptWarnings.add("Incremental ingest does not stream run.tar; --streaming applies to full ingests only");
+        }
+
+        RunTarExtractor extractor = new RunTarExtractor(opts.maxExtractedFiles(), opts.maxExtractedBytes());
+        RunTarExtractor.ExtractResult extractResult = extractor.extract(runTar, extractedDir, attemptWarnings);
+
+        DiffArchiveIndexer indexer = new DiffArchiveIndexer(indexerParallelism);
+        DiffArchiveIndexer.IncrementalIndex index =
+                indexer.indexChanged(extractResult.diffArchivePaths(), previous.diffArchives(), attemptWarnings);
+        if (index == null) {
+            warnings.add("Incremental ingest: diff archives were rewritten since previous ingest; running full ingest");
+            return null;
+        }
+
+        Path testRunInfo = extractedDir.resolve("testRunInfo.json");
+        if (!Files.exists(testRunInfo)) {
+            throw new IOException("run.tar did not contain testRunInfo.json (expected at " + testRunInfo + ")");
+        }
+        List<RunRecord> runs = new TestRunInfoParser().parse(testRunInfo, attemptWarnings);
+
+        // Runs are sorted by run number; everything past the previous last run is new.
+        Integer lastRun = previous.lastRunNumber();
+        List<RunRecord> newRuns = runs.stream()
+                .filter(r -> lastRun == null || r.runNumber() > lastRun)
+                .toList();
+        List<RunRecord> earlierRuns = runs.subList(0, runs.size() - newRuns.size());
+        if (earlierRuns.size() != previous.runCount()
+                || !earlierRuns.equals(Json.readJsonl(runsJsonl, RunRecord.class))) {
+            warnings.add("Incremental ingest: earlier runs changed since previous ingest; running full ingest");
+            return null;
+        }
+
+        warnings.addAll(attemptWarnings);
+
+        // Only changed or new archives are copied out.
+        Files.createDirectories(archivesOut);
+        Set<String> changed = new HashSet<>(index.changedArchives());
+        for (Path p : extractResult.diffArchivePaths()) {
+            String name = p.getFileName().toString();
+            if (changed.contains(name)) {
+                Files.copy(p, archivesOut.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        indexer.writeIncremental(index, diffIndexJson);
+        List<DiffArchiveInfo> changedInfos = index.infos().stream().filter(i -> changed.contains(i.filename())).toList();
+        if (opts.writePacks()) {
+            // Changed archives were scanned before they were copied here, so their packs read the copy
+            writePacks(archivesOut, changedInfos, warnings);
+        } else {
+            deletePacks(archivesOut, changedInfos);
+        }
+        Json.appendJsonl(runsJsonl, newRuns);
 
         IngestionManifest manifest = IngestionManifest.build(
                 opts.repoRoot().toAbsolutePath().toString(),
                 runTar.toAbsolutePath().toString(),
-                Hashing.sha256(runTar),
+                runTarSha,
                 extractResult.extractedFiles(),
-                diffInfos,
+                index.infos(),
+                runs,
                 warnings
         );
-        Json.writeJson(opts.outDir().resolve("manifest.json"), manifest);
+        Json.writeJson(manifestPath, manifest);
+
+        return new IngestResult(runs.size(), index.infos().size(), newRuns.size(), changed.size(),
+                packBytes(archivesOut, index.infos()), warnings);
+    }
+
+    /**
+     * Writes archives/diffs_N_.pack beside each archive. A failed pack is only a warning (and any
+     * stale pack is removed); readers fall back to the archive itself.
+     */
+    private static void writePacks(Path archivesOut, List<DiffArchiveInfo> infos, List<String> warnings) {
+        DiffPackWriter writer = new DiffPackWriter();
+        for (DiffArchiveInfo info : infos) {
+            Path archive = archivesOut.resolve(info.filename());
+            try {
+                writer.write(archive, info.sha256());
+            } catch (IOException e) {
+                warnings.add("Failed to write diff pack for " + info.filename() + ": " + e.getMessage());
+                try {
+                    Files.deleteIfExists(DiffPackWriter.packPathFor(archive));
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private static void deletePacks(Path archivesOut, List<DiffArchiveInfo> infos) throws IOException {
+        for (DiffArchiveInfo info : infos) {
+            Files.deleteIfExists(DiffPackWriter.packPathFor(archivesOut.resolve(info.filename())));
+        }
+    }
 
-        // 5) Cleanup
+    /** Disk used by the packs beside the archives, on top of the archives themselves. */
+    private static long packBytes(Path archivesOut, List<DiffArchiveInfo> infos) throws IOException {
+        long total = 0;
+        for (DiffArchiveInfo info : infos) {
+            Path pack = DiffPackWriter.packPathFor(archivesOut.resolve(info.filename()));
+            if (Files.isRegularFile(pack)) {
+                total += Files.size(pack);
+            }
+        }
+        return total;
+    }
+
+    private static void cleanUpWorkDir(IngestOptions opts) {
         if (!opts.keepWorkDir()) {
             deleteRecursively(opts.workDir());
         }
-
-        return new IngestResult(runs.size(), diffInfos.size(), warnings);
     }
 
     private static void deleteRecursively(Path dir) {
@@ -9,12 +9,36 @@ public record PrepareOptions(
     int categoryShiftWindow,
     String studentIdOverride,
     String assignmentNameOverride,
-    boolean includeCodeSnapshots
+    boolean includeCodeSnapshots,
+    int snapshotKeyframeInterval,  // 0 = every snapshot carries full file contents
+    Path versionCacheDir,          // null = reconstructed versions are only cached in memory
+    long versionCacheMaxBytes
 ) {
     public long idleThresholdMs() {
         return idleThresholdMinutes * 60 * 1000;
     }
 
+    /**
+     * Constructor without an on-disk version cache.
+     */
+    public PrepareOptions(Path inputDir, Path outputFile, long idleThresholdMinutes,
+                          int categoryShiftWindow, String studentIdOverride,
+                          String assignmentNameOverride, boolean includeCodeSnapshots,
+                          int snapshotKeyframeInterval) {
+        this(inputDir, outputFile, idleThresholdMinutes, categoryShiftWindow, studentIdOverride,
+             assignmentNameOverride, includeCodeSnapshots, snapshotKeyframeInterval, null, 0L);
+    }
+
+    /**
+     * Constructor with full (non-delta) code snapshots.
+     */
+    public PrepareOptions(Path inputDir, Path outputFile, long idleThresholdMinutes,
+                          int categoryShiftWindow, String studentIdOverride,
+                          String assignmentNameOverride, boolean includeCodeSnapshots) {
+        this(inputDir, outputFile, idleThresholdMinutes, categoryShiftWindow,
+             studentIdOverride, assignmentNameOverride, includeCodeSnapshots, 0);
+    }
+
     /**
      * Builder-style constructor with default for includeCodeSnapshots.
      */
@@ -1,5 +1,8 @@
 package edu.rosehulman.csse230feedback.domain;
 
+import edu.rosehulman.csse230feedback.data.DiffFileReconstructor;
+import edu.rosehulman.csse230feedback.data.LineChurn;
+import edu.rosehulman.csse230feedback.data.ReconstructedFileCache;
 import edu.rosehulman.csse230feedback.model.DiffCategoryMapping;
 import edu.rosehulman.csse230feedback.model.EnrichedTestResult;
 import edu.rosehulman.csse230feedback.model.IngestionManifest;
@@ -154,22 +157,18 @@ public class PrepareService {
         List<TestHistory> testHistories = tracker.buildTestHistories(testCategories);
         FailureHighlights failureHighlights = tracker.buildFailureHighlights(testHistories);
 
-        // 8a. Enhance test histories with error evolution and struggle profiles
+        // 8a. Walk the code history once: for code snapshots (if enabled), and for the code churn
+        // of struggle profiles when some test has a failure interval
+        boolean needChurn = testHistories.stream()
+            .anyMatch(h -> h.failureIntervals() != null && !h.failureIntervals().isEmpty());
+        CodeSnapshotGenerator.Result code = walkCode(opts, runsWithTests, needChurn, warnings);
+        List<CodeSnapshot> codeSnapshots = code.snapshots();
+
+        // 8b. Enhance test histories with error evolution and struggle profiles
         testHistories = enhanceTestHistories(
-            testHistories, tracker, testCategories, diffCategories
+            testHistories, tracker, testCategories, diffCategories, code.churn()
         );
 
-        // 8b. Generate code snapshots (if enabled)
-        List<CodeSnapshot> codeSnapshots = Collections.emptyList();
-        if (opts.includeCodeSnapshots()) {
-            Set<Integer> runNumbers = runsWithTests.stream()
-                .map(EpisodeSplitter.RunWithTests::runNumber)
-                .collect(Collectors.toSet());
-
-            CodeSnapshotGenerator snapshotGen = new CodeSnapshotGenerator();
-            codeSnapshots = snapshotGen.generateSnapshots(opts.inputDir(), runNumbers, warnings);
-        }
-
         // 9. Build submission context
         String studentId = opts.studentIdOverride();
         String assignmentName = opts.assignmentNameOverride();
@@ -267,6 +266,39 @@ public class PrepareService {
             .orElse("Unknown");
     }
 
+    /**
+     * Generates the code snapshots (if enabled) and, when {@code churn} is set, the line churn of
+     * the tracked files, in one walk. A failure that only costs the churn is reported as a warning
+     * and leaves it out of the struggle profiles.
+     */
+    private CodeSnapshotGenerator.Result walkCode(PrepareOptions opts, List<EpisodeSplitter.RunWithTests> runsWithTests,
+                                                  boolean churn, List<String> warnings) throws IOException {
+        if (!opts.includeCodeSnapshots() && !churn) {
+            return new CodeSnapshotGenerator.Result(Collections.emptyList(), null);
+        }
+        Set<Integer> runNumbers = runsWithTests.stream()
+            .map(EpisodeSplitter.RunWithTests::runNumber)
+            .collect(Collectors.toSet());
+
+        // Versions are kept on disk only when a --version-cache directory was given
+        DiffFileReconstructor reconstructor = opts.versionCacheDir() != null
+            ? new DiffFileReconstructor(new ReconstructedFileCache(ReconstructedFileCache.DEFAULT_MAX_HEAP_BYTES,
+                opts.versionCacheDir(), opts.versionCacheMaxBytes()))
+            : new DiffFileReconstructor();
+        CodeSnapshotGenerator generator = new CodeSnapshotGenerator(opts.snapshotKeyframeInterval(),
+            Runtime.getRuntime().availableProcessors(), reconstructor);
+
+        if (opts.includeCodeSnapshots()) {
+            return generator.generate(opts.inputDir(), runNumbers, true, churn, warnings);
+        }
+        try {
+            return generator.generate(opts.inputDir(), runNumbers, false, true, warnings);
+        } catch (IOException e) {
+            warnings.add("Failed to measure code churn, struggle profiles will omit it: " + e.getMessage());
+            return new CodeSnapshotGenerator.Result(Collections.emptyList(), null);
+        }
+    }
+
     /**
      * Enhances test histories with error evolution and struggle profiles.
      */
@@ -274,7 +306,8 @@ public class PrepareService {
             List<TestHistory> histories,
             StatusChangeTracker tracker,
             TestCategoryMapping testCategories,
-            DiffCategoryMapping diffCategories) {
+            DiffCategoryMapping diffCategories,
+            LineChurn churn) {
 
         // Build error evolutions from tracker data
         ErrorEvolutionTracker errorTracker = new ErrorEvolutionTracker();
@@ -308,7 +341,7 @@ public class PrepareService {
             correlator.computeCorrelations(statusHistory, tracker.getTestNames(), testCategories);
 
         // Generate struggle profiles
-        StruggleProfileGenerator profileGen = new StruggleProfileGenerator();
+        StruggleProfileGenerator profileGen = new StruggleProfileGenerator(churn);
 
         List<TestHistory> enhanced = new ArrayList<>();
         for (TestHistory history : histories) {
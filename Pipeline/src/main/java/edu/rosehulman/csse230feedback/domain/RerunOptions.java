@@ -1,5 +1,7 @@
 package edu.rosehulman.csse230feedback.domain;
 
+import edu.rosehulman.csse230feedback.data.ReconstructedFileCache;
+
 import java.nio.file.Path;
 
 /**
@@ -40,7 +42,34 @@ public record RerunOptions(
     int compileTimeout,
 
     /** Timeout in seconds for test execution */
-    int testTimeout
+    int testTimeout,
+
+    /** Number of worker workspaces processing runs in parallel (1 = one shared workspace) */
+    int workers,
+
+    /** Whether to run tests on forked worker JVMs instead of in-process */
+    boolean forkTests,
+
+    /** Maximum heap per forked worker JVM, in MB */
+    int workerHeapMb,
+
+    /** Live threads a forked worker may have during or after a run before it is replaced */
+    int workerMaxThreads,
+
+    /** Whether to compile with a forked javac instead of the in-process compiler */
+    boolean forkCompiler,
+
+    /** Whether to recompile only changed sources and their dependents, keeping bin/ between runs */
+    boolean incrementalCompile,
+
+    /** Whether a run whose snapshot matches an earlier run's reuses that run's results */
+    boolean dedupeSnapshots,
+
+    /** Directory keeping reconstructed file versions for prepare to reuse, or null for memory only */
+    Path versionCacheDir,
+
+    /** Size the version cache directory is trimmed back to, in bytes */
+    long versionCacheMaxBytes
 ) {
     /** Default Java version */
     public static final int DEFAULT_JAVA_VERSION = 17;
@@ -51,6 +80,15 @@ public record RerunOptions(
     /** Default test timeout in seconds */
     public static final int DEFAULT_TEST_TIMEOUT = 300;
 
+    /** Default number of workers */
+    public static final int DEFAULT_WORKERS = 1;
+
+    /** Default forked worker heap in MB */
+    public static final int DEFAULT_WORKER_HEAP_MB = 512;
+
+    /** Default forked worker thread limit */
+    public static final int DEFAULT_WORKER_MAX_THREADS = 64;
+
     /**
      * Builder for RerunOptions.
      */
@@ -67,6 +105,15 @@ public record RerunOptions(
         private boolean keepWorkDir = false;
         private int compileTimeout = DEFAULT_COMPILE_TIMEOUT;
         private int testTimeout = DEFAULT_TEST_TIMEOUT;
+        private int workers = DEFAULT_WORKERS;
+        private boolean forkTests = false;
+        private int workerHeapMb = DEFAULT_WORKER_HEAP_MB;
+        private int workerMaxThreads = DEFAULT_WORKER_MAX_THREADS;
+        private boolean forkCompiler = false;
+        private boolean incrementalCompile = false;
+        private boolean dedupeSnapshots = false;
+        private Path versionCacheDir;
+        private long versionCacheMaxBytes = ReconstructedFileCache.DEFAULT_MAX_DISK_BYTES;
 
         public Builder inputDir(Path inputDir) {
             this.inputDir = inputDir;
@@ -128,6 +175,51 @@ public record RerunOptions(
             return this;
         }
 
+        public Builder workers(int workers) {
+            this.workers = workers;
+            return this;
+        }
+
+        public Builder forkTests(boolean forkTests) {
+            this.forkTests = forkTests;
+            return this;
+        }
+
+        public Builder workerHeapMb(int workerHeapMb) {
+            this.workerHeapMb = workerHeapMb;
+            return this;
+        }
+
+        public Builder workerMaxThreads(int workerMaxThreads) {
+            this.workerMaxThreads = workerMaxThreads;
+            return this;
+        }
+
+        public Builder forkCompiler(boolean forkCompiler) {
+            this.forkCompiler = forkCompiler;
+            return this;
+        }
+
+        public Builder incrementalCompile(boolean incrementalCompile) {
+            this.incrementalCompile = incrementalCompile;
+            return this;
+        }
+
+        public Builder dedupeSnapshots(boolean dedupeSnapshots) {
+            this.dedupeSnapshots = dedupeSnapshots;
+            return this;
+        }
+
+        public Builder versionCacheDir(Path versionCacheDir) {
+            this.versionCacheDir = versionCacheDir;
+            return this;
+        }
+
+        public Builder versionCacheMaxBytes(long versionCacheMaxBytes) {
+            this.versionCacheMaxBytes = versionCacheMaxBytes;
+            return this;
+        }
+
         public RerunOptions build() {
             // Default workDir to outDir/work if not specified
             Path actualWorkDir = workDir != null ? workDir : outDir.resolve("work");
@@ -135,7 +227,9 @@ public record RerunOptions(
             return new RerunOptions(
                 inputDir, outDir, actualWorkDir, depsDir, testSupportDir,
                 javaHome, javaVersion, runNumber, testSelector, keepWorkDir,
-                compileTimeout, testTimeout
+                compileTimeout, testTimeout, workers,
+                forkTests, workerHeapMb, workerMaxThreads, forkCompiler,
+                incrementalCompile, dedupeSnapshots, versionCacheDir, versionCacheMaxBytes
             );
         }
     }
@@ -29,6 +29,12 @@ public record RerunResult(
     /** Total tests failed across all runs */
     int totalTestsFailed,
 
+    /** Sources the incremental compiler compiled, counting a full compile as all of its sources (0 without it) */
+    int sourcesCompiled,
+
+    /** Sources whose class files the incremental compiler reused instead of recompiling them */
+    int sourcesReused,
+
     /** Enriched results per run number */
     Map<Integer, List<EnrichedTestResult>> resultsByRun,
 
@@ -48,6 +54,8 @@ public record RerunResult(
         private int totalTestsFound = 0;
         private int totalTestsPassed = 0;
         private int totalTestsFailed = 0;
+        private int sourcesCompiled = 0;
+        private int sourcesReused = 0;
         private Map<Integer, List<EnrichedTestResult>> resultsByRun = new java.util.HashMap<>();
         private List<String> warnings = new java.util.ArrayList<>();
         private List<String> errors = new java.util.ArrayList<>();
@@ -87,6 +95,16 @@ public record RerunResult(
             return this;
         }
 
+        public Builder addSourcesCompiled(int count) {
+            this.sourcesCompiled += count;
+            return this;
+        }
+
+        public Builder addSourcesReused(int count) {
+            this.sourcesReused += count;
+            return this;
+        }
+
         public Builder addRunResult(int runNumber, List<EnrichedTestResult> results) {
             this.resultsByRun.put(runNumber, results);
             return this;
@@ -107,11 +125,29 @@ public record RerunResult(
             return this;
         }
 
+        /**
+         * Adds the counts, results, warnings and errors of another result (e.g. a single run's).
+         */
+        public Builder merge(RerunResult other) {
+            this.runsProcessed += other.runsProcessed();
+            this.runsCompiled += other.runsCompiled();
+            this.runsExecuted += other.runsExecuted();
+            this.totalTestsFound += other.totalTestsFound();
+            this.totalTestsPassed += other.totalTestsPassed();
+            this.totalTestsFailed += other.totalTestsFailed();
+            this.sourcesCompiled += other.sourcesCompiled();
+            this.sourcesReused += other.sourcesReused();
+            this.resultsByRun.putAll(other.resultsByRun());
+            this.warnings.addAll(other.warnings());
+            this.errors.addAll(other.errors());
+            return this;
+        }
+
         public RerunResult build() {
             return new RerunResult(
                 runsProcessed, runsCompiled, runsExecuted,
                 totalTestsFound, totalTestsPassed, totalTestsFailed,
-                resultsByRun, warnings, errors
+                sourcesCompiled, sourcesReused, resultsByRun, warnings, errors
             );
         }
     }
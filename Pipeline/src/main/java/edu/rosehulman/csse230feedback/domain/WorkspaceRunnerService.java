@@ -1,9 +1,11 @@
 package edu.rosehulman.csse230feedback.domain;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import edu.rosehulman.csse230feedback.data.DiffFileReconstructor;
+import edu.rosehulman.csse230feedback.data.PatchIndex;
+import edu.rosehulman.csse230feedback.data.ReconstructedFileCache;
 import edu.rosehulman.csse230feedback.model.CompileResult;
 import edu.rosehulman.csse230feedback.model.EnrichedTestResult;
-import edu.rosehulman.csse230feedback.model.PatchPointer;
 import edu.rosehulman.csse230feedback.model.RunStatus;
 import edu.rosehulman.csse230feedback.model.TestRunResult;
 import edu.rosehulman.csse230feedback.runner.*;
@@ -12,17 +14,27 @@ import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 
 import java.io.BufferedInputStream;
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -38,7 +50,6 @@ public class WorkspaceRunnerService {
     private static final String ENRICHED_DIRNAME = "enriched_runs";
 
     private final WorkspaceManager workspaceManager = new WorkspaceManager();
-    private final SnapshotMaterializer snapshotMaterializer = new SnapshotMaterializer();
     private final TestSupportOverlay testSupportOverlay = new TestSupportOverlay();
     private final EvidenceHarvester evidenceHarvester = new EvidenceHarvester();
 
@@ -58,15 +69,21 @@ public class WorkspaceRunnerService {
             return resultBuilder.build();
         }
 
-        // Load patches index
-        List<PatchPointer> allPatches = loadPatchesIndex(options.inputDir(), resultBuilder);
-        if (allPatches.isEmpty()) {
+        // Open the patches index once; every run resolves its snapshot against it
+        PatchIndex patchIndex = loadPatchesIndex(options.inputDir(), resultBuilder);
+        if (patchIndex.isEmpty()) {
             resultBuilder.addError("No patches found in " + options.inputDir());
             return resultBuilder.build();
         }
 
+        // Versions are kept on disk only when a --version-cache directory was given
+        SnapshotMaterializer materializer = options.versionCacheDir() == null
+            ? new SnapshotMaterializer()
+            : new SnapshotMaterializer(new DiffFileReconstructor(new ReconstructedFileCache(
+                ReconstructedFileCache.DEFAULT_MAX_HEAP_BYTES, options.versionCacheDir(), options.versionCacheMaxBytes())));
+
         // Determine which runs to process
-        List<Integer> runNumbers = determineRunNumbers(options, allPatches, resultBuilder);
+        List<Integer> runNumbers = determineRunNumbers(options, materializer, patchIndex, resultBuilder);
 
         // Create output directories
         Path enrichedDir = options.outDir().resolve(ENRICHED_DIRNAME);
@@ -77,34 +94,96 @@ public class WorkspaceRunnerService {
         Path cacheDir = options.workDir().resolve("diff_cache");
         Files.createDirectories(cacheDir);
 
+        // Overlapping runs are slowed by each other, so only they skip the logger's timing checks
+        boolean parallel = options.workers() > 1 && runNumbers.size() > 1;
+
         // Create runners with appropriate timeouts
-        JavaCompilerRunner compiler = new JavaCompilerRunner(
+        SourceCompiler compiler = createCompiler(options, resultBuilder);
+        TestRunner testRunner = options.forkTests()
+            ? new TestWorkerPool(
+                Math.max(1, Math.min(options.workers(), runNumbers.size())),
+                options.javaHome(),
+                options.workerHeapMb(),
+                options.workerMaxThreads(),
+                options.testTimeout(),
+                options.workDir(),
+                parallel)
+            : new JUnitPlatformRunner(options.testTimeout(), options.javaHome(), parallel);
+
+        // Outcomes of executed runs by snapshot hash, when duplicate snapshots are reused
+        SnapshotOutcomes outcomesBySnapshot =
+            options.dedupeSnapshots() ? new SnapshotOutcomes(runNumbers) : null;
+
+        try {
+            if (parallel) {
+                runInParallel(options, runNumbers, materializer, patchIndex, cacheDir, enrichedDir,
+                    compiler, testRunner, outcomesBySnapshot, resultBuilder);
+            } else {
+                runSequentially(options, runNumbers, materializer, patchIndex, cacheDir, enrichedDir,
+                    compiler, testRunner, outcomesBySnapshot, resultBuilder);
+            }
+        } finally {
+            if (testRunner instanceof TestWorkerPool pool) {
+                pool.close();
+            }
+            if (compiler instanceof InMemoryJavaCompiler inMemory) {
+                inMemory.close();
+            }
+            if (compiler instanceof IncrementalJavaCompiler incremental) {
+                resultBuilder.addSourcesCompiled(incremental.sourcesCompiled())
+                    .addSourcesReused(incremental.sourcesReused());
+                incremental.close();
+            }
+        }
+
+        return resultBuilder.build();
+    }
+
+    /**
+     * Chooses the compiler. The in-process compilers use the pipeline's own JDK, so a separate
+     * --java-home still gets a forked javac.
+     */
+    private SourceCompiler createCompiler(RerunOptions options, RerunResult.Builder resultBuilder) {
+        boolean inProcess = !options.forkCompiler() && options.javaHome() == null
+            && InMemoryJavaCompiler.isAvailable();
+        if (inProcess && options.incrementalCompile()) {
+            return new IncrementalJavaCompiler(options.javaVersion());
+        }
+        if (inProcess) {
+            return new InMemoryJavaCompiler(options.javaVersion());
+        }
+        if (options.incrementalCompile()) {
+            resultBuilder.addWarning("Incremental compile needs the in-process compiler; compiling every run in full");
+        }
+        return new JavaCompilerRunner(
             options.javaVersion(),
             options.compileTimeout(),
             options.javaHome()
         );
-        JUnitPlatformRunner junitRunner = new JUnitPlatformRunner(
-            options.testTimeout(),
-            options.javaHome()
-        );
+    }
+
+    /**
+     * Processes every run in one shared workspace, so run.tar accumulates across runs.
+     */
+    private void runSequentially(RerunOptions options, List<Integer> runNumbers,
+            SnapshotMaterializer materializer, PatchIndex patchIndex, Path cacheDir, Path enrichedDir,
+            SourceCompiler compiler, TestRunner testRunner, SnapshotOutcomes outcomesBySnapshot,
+            RerunResult.Builder resultBuilder) throws IOException {
 
         Path sharedWorkspace = workspaceManager.createWorkspace(options.workDir(), "shared");
 
         try {
             // Overlay testSupport once so run.tar can accumulate across runs.
-            if (options.testSupportDir() != null && Files.exists(options.testSupportDir())) {
-                testSupportOverlay.overlayTestSupport(sharedWorkspace, options.testSupportDir());
-            } else {
-                testSupportOverlay.createMinimalTestSupport(sharedWorkspace);
+            if (!overlayTestSupport(options, sharedWorkspace)) {
                 resultBuilder.addWarning("Using minimal testSupport (source not provided)");
             }
 
             // Process each run in the same workspace
             for (int runNumber : runNumbers) {
                 workspaceManager.clearSrcDirPreserveTestSupport(sharedWorkspace);
-                workspaceManager.clearBinDir(sharedWorkspace);
-                processRun(options, runNumber, allPatches, cacheDir, enrichedDir,
-                    compiler, junitRunner, resultBuilder, sharedWorkspace);
+                clearBinUnlessIncremental(compiler, sharedWorkspace);
+                processRun(options, runNumber, materializer, patchIndex, cacheDir, enrichedDir,
+                    compiler, testRunner, outcomesBySnapshot, resultBuilder, sharedWorkspace);
             }
 
             summarizeRunCoverage(sharedWorkspace, runNumbers, enrichedDir, resultBuilder);
@@ -113,30 +192,226 @@ public class WorkspaceRunnerService {
                 workspaceManager.deleteWorkspace(sharedWorkspace);
             }
         }
+    }
 
-        return resultBuilder.build();
+    /**
+     * Processes runs on {@code options.workers()} workspaces at once, each worker taking the next
+     * run number from a shared queue. Every run starts from a fresh testSupport overlay, so its
+     * run.tar holds that run alone and no testSupport state is shared between workers. Each run
+     * collects into its own result, and those are merged in run order once all runs are done.
+     *
+     * Compilation and harvesting overlap across workers. Test launches overlap too with forked
+     * test workers; the in-process runner sets JVM-wide system properties, so its launches take
+     * turns.
+     */
+    private void runInParallel(RerunOptions options, List<Integer> runNumbers,
+            SnapshotMaterializer materializer, PatchIndex patchIndex, Path cacheDir, Path enrichedDir,
+            SourceCompiler compiler, TestRunner testRunner, SnapshotOutcomes outcomesBySnapshot,
+            RerunResult.Builder resultBuilder) throws IOException {
+
+        int workerCount = Math.min(options.workers(), runNumbers.size());
+        Queue<Integer> pending = new ConcurrentLinkedQueue<>(runNumbers);
+        Map<Integer, RerunResult> resultsByRun = new ConcurrentHashMap<>();
+        List<Path> workspaces = new ArrayList<>();
+
+        ExecutorService pool = Executors.newFixedThreadPool(workerCount);
+        try {
+            for (int w = 0; w < workerCount; w++) {
+                workspaces.add(workspaceManager.createWorkspace(options.workDir(), "worker_" + w));
+            }
+
+            List<Future<Void>> futures = new ArrayList<>();
+            for (Path workspace : workspaces) {
+                futures.add(pool.submit(() -> {
+                    Integer runNumber;
+                    while ((runNumber = pending.poll()) != null) {
+                        try {
+                            resultsByRun.put(runNumber, processRunInFreshWorkspace(options, runNumber,
+                                materializer, patchIndex, cacheDir, enrichedDir, compiler, testRunner,
+                                outcomesBySnapshot, workspace));
+                        } finally {
+                            // Later runs wait for this one to claim its snapshot, however it ended
+                            if (outcomesBySnapshot != null) {
+                                outcomesBySnapshot.release(runNumber);
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                await(future);
+            }
+        } finally {
+            pool.shutdownNow();
+            if (!options.keepWorkDir()) {
+                workspaces.forEach(workspaceManager::deleteWorkspace);
+            }
+        }
+
+        if (options.testSupportDir() == null || !Files.exists(options.testSupportDir())) {
+            resultBuilder.addWarning("Using minimal testSupport (source not provided)");
+        }
+        for (int runNumber : runNumbers) {
+            RerunResult runResult = resultsByRun.get(runNumber);
+            if (runResult != null) {
+                resultBuilder.merge(runResult);
+            }
+        }
+
+        summarizeRunCoverage(null, runNumbers, enrichedDir, resultBuilder);
+    }
+
+    /**
+     * Resets a worker's workspace, overlays a fresh testSupport, and processes one run into a
+     * result of its own.
+     */
+    private RerunResult processRunInFreshWorkspace(RerunOptions options, int runNumber,
+            SnapshotMaterializer materializer, PatchIndex patchIndex, Path cacheDir, Path enrichedDir,
+            SourceCompiler compiler, TestRunner testRunner, SnapshotOutcomes outcomesBySnapshot,
+            Path workspace) {
+
+        RerunResult.Builder runBuilder = RerunResult.builder();
+        try {
+            workspaceManager.clearSrcDir(workspace);
+            clearBinUnlessIncremental(compiler, workspace);
+            overlayTestSupport(options, workspace);
+        } catch (IOException e) {
+            runBuilder.incrementRunsProcessed();
+            runBuilder.addError("Run " + runNumber + ": Failed to prepare workspace - " + e.getMessage());
+            writeRunStatus(enrichedDir, new RunStatus(
+                runNumber,
+                "exception",
+                List.of(String.valueOf(e.getMessage())),
+                List.of()
+            ));
+            return runBuilder.build();
+        }
+
+        processRun(options, runNumber, materializer, patchIndex, cacheDir, enrichedDir,
+            compiler, testRunner, outcomesBySnapshot, runBuilder, workspace);
+        return runBuilder.build();
+    }
+
+    /**
+     * Clears bin/ before a run, except for the incremental compiler, which reuses the class files
+     * there and removes stale ones itself.
+     */
+    private void clearBinUnlessIncremental(SourceCompiler compiler, Path workspace) throws IOException {
+        if (!(compiler instanceof IncrementalJavaCompiler)) {
+            workspaceManager.clearBinDir(workspace);
+        }
+    }
+
+    /**
+     * Overlays the configured testSupport onto a workspace, or a minimal one when none is given.
+     *
+     * @return false if the minimal testSupport was used
+     */
+    private boolean overlayTestSupport(RerunOptions options, Path workspace) throws IOException {
+        if (options.testSupportDir() != null && Files.exists(options.testSupportDir())) {
+            testSupportOverlay.overlayTestSupport(workspace, options.testSupportDir());
+            return true;
+        }
+        testSupportOverlay.createMinimalTestSupport(workspace);
+        return false;
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while rerunning");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * What a compiled-or-failed run produced, kept by snapshot hash so a later run with the same
+     * snapshot can reuse it. compileErrors is non-null for a run that failed to compile.
+     */
+    private record RunOutcome(
+        int runNumber,
+        List<String> compileErrors,
+        TestRunResult testResult,
+        List<EnrichedTestResult> results
+    ) {}
+
+    /**
+     * Outcomes of executed runs by snapshot hash, for --dedupe-snapshots.
+     *
+     * Runs claim their snapshot hash in run order: each waits until the run before it has claimed
+     * its own (or ended without one), so a hash always belongs to the earliest run that has it,
+     * whichever parallel worker materializes first. Waiting costs at most the earlier runs'
+     * materialization, since workers take runs in the same order.
+     */
+    private static final class SnapshotOutcomes {
+        private final Map<String, CompletableFuture<RunOutcome>> byHash = new ConcurrentHashMap<>();
+        private final Map<Integer, CompletableFuture<Void>> claimed = new HashMap<>();
+        private final Map<Integer, Integer> previousRun = new HashMap<>();
+
+        SnapshotOutcomes(List<Integer> runNumbers) {
+            Integer previous = null;
+            for (int runNumber : runNumbers) {
+                claimed.put(runNumber, new CompletableFuture<>());
+                previousRun.put(runNumber, previous);
+                previous = runNumber;
+            }
+        }
+
+        /**
+         * Registers {@code mine} as the outcome for {@code hash} once every earlier run has claimed
+         * its hash, and returns null; or returns the earlier run's outcome if it has the same hash.
+         */
+        CompletableFuture<RunOutcome> claim(int runNumber, String hash, CompletableFuture<RunOutcome> mine) {
+            Integer previous = previousRun.get(runNumber);
+            if (previous != null) {
+                claimed.get(previous).join();
+            }
+            CompletableFuture<RunOutcome> earlier = byHash.putIfAbsent(hash, mine);
+            release(runNumber);
+            return earlier;
+        }
+
+        /** Lets later runs claim; for a run with no hash to claim, or one that ended early. */
+        void release(int runNumber) {
+            claimed.get(runNumber).complete(null);
+        }
     }
 
     /**
      * Processes a single run number.
+     *
+     * With {@code outcomesBySnapshot} (--dedupe-snapshots), a run whose snapshot hash an earlier
+     * run already has reuses that run's outcome instead of compiling and testing, waiting for it
+     * if it is still in progress on another worker. Runs that end in an exception record no
+     * outcome, so their duplicates are processed in full.
      */
-    private void processRun(RerunOptions options, int runNumber, List<PatchPointer> allPatches,
-            Path cacheDir, Path enrichedDir, JavaCompilerRunner compiler,
-            JUnitPlatformRunner junitRunner, RerunResult.Builder resultBuilder, Path workspace) {
+    private void processRun(RerunOptions options, int runNumber,
+            SnapshotMaterializer materializer, PatchIndex patchIndex, Path cacheDir, Path enrichedDir,
+            SourceCompiler compiler, TestRunner testRunner, SnapshotOutcomes outcomesBySnapshot,
+            RerunResult.Builder resultBuilder, Path workspace) {
 
         resultBuilder.incrementRunsProcessed();
         List<String> warnings = new ArrayList<>();
+        CompletableFuture<RunOutcome> outcome = null;
 
         try {
             // Materialize snapshot
-            int filesWritten = snapshotMaterializer.materializeLatestSnapshot(
+            SnapshotMaterializer.MaterializedSnapshot snapshot = materializer.materializeHashedSnapshot(
                 workspace,
                 options.inputDir().resolve(ARCHIVES_DIRNAME),
                 cacheDir,
                 runNumber,
-                allPatches,
+                patchIndex,
                 warnings
             );
+            int filesWritten = snapshot.filesWritten();
 
             if (filesWritten == 0) {
                 resultBuilder.addError("Run " + runNumber + ": No files materialized");
@@ -150,6 +425,20 @@ public class WorkspaceRunnerService {
                 return;
             }
 
+            if (outcomesBySnapshot != null && snapshot.contentHash() != null) {
+                CompletableFuture<RunOutcome> mine = new CompletableFuture<>();
+                CompletableFuture<RunOutcome> earlier = outcomesBySnapshot.claim(runNumber, snapshot.contentHash(), mine);
+                if (earlier == null) {
+                    outcome = mine;
+                } else {
+                    RunOutcome reused = earlier.join();
+                    if (reused != null) {
+                        reuseOutcome(reused, runNumber, enrichedDir, warnings, resultBuilder);
+                        return;
+                    }
+                }
+            }
+
             updateStartTestRunInfo(workspace, runNumber, warnings);
 
             // Compile
@@ -164,6 +453,9 @@ public class WorkspaceRunnerService {
                     List.copyOf(compileResult.errors()),
                     List.copyOf(warnings)
                 ));
+                if (outcome != null) {
+                    outcome.complete(new RunOutcome(runNumber, List.copyOf(compileResult.errors()), null, null));
+                }
                 return;
             }
             resultBuilder.incrementRunsCompiled();
@@ -172,7 +464,7 @@ public class WorkspaceRunnerService {
 
             // Run tests
             String[] testSelector = options.parseTestSelector();
-            TestRunResult testResult = junitRunner.runTests(
+            TestRunResult testResult = testRunner.runTests(
                 workspace, options.depsDir(),
                 testSelector[0], testSelector[1]
             );
@@ -192,6 +484,9 @@ public class WorkspaceRunnerService {
             warnings.addAll(harvestResult.warnings());
             resultBuilder.addRunResult(runNumber, harvestResult.results());
             resultBuilder.addWarnings(warnings);
+            if (outcome != null) {
+                outcome.complete(new RunOutcome(runNumber, null, testResult, harvestResult.results()));
+            }
 
         } catch (Exception e) {
             resultBuilder.addError("Run " + runNumber + ": " + e.getMessage());
@@ -202,9 +497,54 @@ public class WorkspaceRunnerService {
                 List.of(e.getMessage()),
                 List.copyOf(warnings)
             ));
+        } finally {
+            // Releases waiting duplicates to run in full if this run recorded no outcome
+            if (outcome != null) {
+                outcome.complete(null);
+            }
+            if (outcomesBySnapshot != null) {
+                outcomesBySnapshot.release(runNumber);
+            }
         }
     }
 
+    /**
+     * Records an earlier run's outcome as this run's: the same compile errors, or the same test
+     * counts and enriched results under this run's number. The earlier run's run.tar is not
+     * copied, since its testRunInfo and diffs describe that run, not this one.
+     */
+    private void reuseOutcome(RunOutcome earlier, int runNumber, Path enrichedDir, List<String> warnings,
+            RerunResult.Builder resultBuilder) throws IOException {
+        warnings.add("Run " + runNumber + ": snapshot identical to run " + earlier.runNumber() + "; reused its results");
+
+        if (earlier.compileErrors() != null) {
+            resultBuilder.addError("Run " + runNumber + ": Compilation failed - " +
+                String.join("; ", earlier.compileErrors()));
+            resultBuilder.addWarnings(warnings);
+            writeRunStatus(enrichedDir, new RunStatus(
+                runNumber,
+                "compile_failed",
+                earlier.compileErrors(),
+                List.copyOf(warnings)
+            ));
+            return;
+        }
+
+        resultBuilder.incrementRunsCompiled();
+        resultBuilder.incrementRunsExecuted();
+        resultBuilder.addTestsFound(earlier.testResult().testsFound());
+        resultBuilder.addTestsPassed(earlier.testResult().testsSucceeded());
+        resultBuilder.addTestsFailed(earlier.testResult().testsFailed());
+
+        if (!earlier.results().isEmpty()) {
+            Json.mapper().writerWithDefaultPrettyPrinter()
+                .writeValue(enrichedDir.resolve("enriched_" + runNumber + ".json").toFile(), earlier.results());
+        }
+
+        resultBuilder.addRunResult(runNumber, earlier.results());
+        resultBuilder.addWarnings(warnings);
+    }
+
     private void writeRunStatus(Path enrichedDir, RunStatus status) {
         try {
             Path out = enrichedDir.resolve("run_" + status.runNumber() + "_status.json");
@@ -263,8 +603,10 @@ public class WorkspaceRunnerService {
         Set<Integer> executedRuns = new TreeSet<>(runNumbers);
         executedRuns.removeAll(failedRuns);
 
-        Set<Integer> loggedRuns = readLoggedRuns(workspace.resolve("src")
-            .resolve("testSupport").resolve("run.tar"), resultBuilder);
+        // Parallel workers reset run.tar before every run, so there is no cumulative log to read
+        if (workspace != null) {
+            readLoggedRuns(workspace.resolve("src").resolve("testSupport").resolve("run.tar"), resultBuilder);
+        }
 
         if (!failedRuns.isEmpty()) {
             resultBuilder.addWarning("Runs with status files (failed to complete): " + new TreeSet<>(failedRuns));
@@ -360,46 +702,37 @@ public class WorkspaceRunnerService {
     }
 
     /**
-     * Loads patch pointers from patches_index.jsonl.
+     * Opens the patches index through {@link PatchIndex#open}, reporting a missing or unreadable
+     * index as an error and returning an empty one.
      */
-    private List<PatchPointer> loadPatchesIndex(Path inputDir, RerunResult.Builder resultBuilder) {
+    private PatchIndex loadPatchesIndex(Path inputDir, RerunResult.Builder resultBuilder) {
         Path indexPath = inputDir.resolve(PATCHES_INDEX_FILENAME);
         if (!Files.exists(indexPath)) {
             resultBuilder.addError("Patches index not found: " + indexPath);
-            return List.of();
+            return PatchIndex.build(List.of());
         }
 
-        List<PatchPointer> patches = new ArrayList<>();
-        try (BufferedReader reader = Files.newBufferedReader(indexPath)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (!line.trim().isEmpty()) {
-                    PatchPointer patch = Json.mapper().readValue(line, PatchPointer.class);
-                    patches.add(patch);
-                }
-            }
+        List<String> warnings = new ArrayList<>();
+        try {
+            return PatchIndex.open(indexPath, warnings);
         } catch (IOException e) {
             resultBuilder.addError("Failed to read patches index: " + e.getMessage());
+            return PatchIndex.build(List.of());
+        } finally {
+            resultBuilder.addWarnings(warnings);
         }
-
-        return patches;
     }
 
     /**
      * Determines which run numbers to process based on options.
      */
-    private List<Integer> determineRunNumbers(RerunOptions options, List<PatchPointer> patches,
-            RerunResult.Builder resultBuilder) {
-        List<Integer> availableRuns = snapshotMaterializer.getAvailableRunNumbers(patches);
-
+    private List<Integer> determineRunNumbers(RerunOptions options, SnapshotMaterializer materializer,
+            PatchIndex patchIndex, RerunResult.Builder resultBuilder) {
         if (options.hasSpecificRun()) {
             int targetRun = options.runNumber();
-            if (!availableRuns.contains(targetRun)) {
+            if (!patchIndex.hasChangesAt(targetRun)) {
                 // Find nearest available run at or before target
-                int nearest = availableRuns.stream()
-                    .filter(r -> r <= targetRun)
-                    .max(Integer::compareTo)
-                    .orElse(-1);
+                int nearest = patchIndex.changedRunAtOrBefore(targetRun);
 
                 if (nearest < 0) {
                     resultBuilder.addWarning("Run " + targetRun + " not found, no earlier runs available");
@@ -413,6 +746,6 @@ public class WorkspaceRunnerService {
         }
 
         // Return all available runs
-        return availableRuns;
+        return materializer.getAvailableRunNumbers(patchIndex);
     }
 }
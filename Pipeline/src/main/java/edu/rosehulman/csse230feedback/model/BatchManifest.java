@@ -0,0 +1,55 @@
+package edu.rosehulman.csse230feedback.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Aggregated result of a class-wide ingest-batch run, one entry per student input.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchManifest(
+        int schemaVersion,
+        String createdAtUtc,
+        String inputDir,
+        String outDir,
+        int workers,
+        long totalDurationMs,
+        List<StudentEntry> students
+) {
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record StudentEntry(
+            String studentId,
+            String input,
+            String outDir,
+            String status,
+            long durationMs,
+            Integer runsParsed,
+            Integer diffArchivesFound,
+            List<String> warnings,
+            String error
+    ) {
+        public boolean succeeded() {
+            return "ok".equals(status);
+        }
+    }
+
+    public static BatchManifest build(
+            String inputDir,
+            String outDir,
+            int workers,
+            long totalDurationMs,
+            List<StudentEntry> students
+    ) {
+        return new BatchManifest(
+                1,
+                Instant.now().toString(),
+                inputDir,
+                outDir,
+                workers,
+                totalDurationMs,
+                students
+        );
+    }
+}
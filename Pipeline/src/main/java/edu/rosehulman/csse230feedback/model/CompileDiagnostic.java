@@ -0,0 +1,31 @@
+package edu.rosehulman.csse230feedback.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One compiler diagnostic (error, warning or note) with its source position.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CompileDiagnostic(
+    /** ERROR, WARNING, MANDATORY_WARNING, NOTE or OTHER */
+    String kind,
+
+    /** Source file the diagnostic points at, or null for e.g. option warnings */
+    String file,
+
+    /** 1-based line, or -1 if none */
+    long line,
+
+    /** 1-based column, or -1 if none */
+    long column,
+
+    /** javac message key (e.g. "compiler.err.cant.resolve.location") */
+    String code,
+
+    /** Message text without the source excerpt */
+    String message
+) {
+    public boolean isError() {
+        return "ERROR".equals(kind);
+    }
+}
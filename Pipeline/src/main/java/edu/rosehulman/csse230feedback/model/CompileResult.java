@@ -13,8 +13,14 @@ public record CompileResult(
     String stdout,
     String stderr,
     int exitCode,
-    List<String> errors
+    List<String> errors,
+    /** Structured diagnostics; empty when compiled by a forked javac, whose output is only text */
+    List<CompileDiagnostic> diagnostics
 ) {
+    public CompileResult(boolean success, String stdout, String stderr, int exitCode, List<String> errors) {
+        this(success, stdout, stderr, exitCode, errors, List.of());
+    }
+
     /**
      * Creates a successful compilation result.
      */
@@ -22,10 +28,25 @@ public record CompileResult(
         return new CompileResult(true, stdout, stderr, 0, List.of());
     }
 
+    /**
+     * Creates a successful compilation result with its (warning) diagnostics.
+     */
+    public static CompileResult success(String stdout, String stderr, List<CompileDiagnostic> diagnostics) {
+        return new CompileResult(true, stdout, stderr, 0, List.of(), diagnostics);
+    }
+
     /**
      * Creates a failed compilation result.
      */
     public static CompileResult failure(String stdout, String stderr, int exitCode, List<String> errors) {
         return new CompileResult(false, stdout, stderr, exitCode, errors);
     }
+
+    /**
+     * Creates a failed compilation result with structured diagnostics.
+     */
+    public static CompileResult failure(String stdout, String stderr, int exitCode, List<String> errors,
+            List<CompileDiagnostic> diagnostics) {
+        return new CompileResult(false, stdout, stderr, exitCode, errors, diagnostics);
+    }
 }
@@ -1,11 +1,16 @@
 package edu.rosehulman.csse230feedback.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 
 import java.time.Instant;
 import java.util.List;
 
+/**
+ * Schema version 2 added runCount and lastRunNumber, which incremental ingest extends from.
+ */
 @JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
 public record IngestionManifest(
         int schemaVersion,
         String createdAtUtc,
@@ -14,24 +19,31 @@ public record IngestionManifest(
         String runTarSha256,
         List<ExtractedFile> extractedFiles,
         List<DiffArchiveInfo> diffArchives,
+        Integer runCount,
+        Integer lastRunNumber,
         List<String> warnings
 ) {
+    public static final int SCHEMA_VERSION = 2;
+
     public static IngestionManifest build(
             String repoRoot,
             String runTarPath,
             String runTarSha256,
             List<ExtractedFile> extractedFiles,
             List<DiffArchiveInfo> diffArchives,
+            List<RunRecord> runs,
             List<String> warnings
     ) {
         return new IngestionManifest(
-                1,
+                SCHEMA_VERSION,
                 Instant.now().toString(),
                 repoRoot,
                 runTarPath,
                 runTarSha256,
                 extractedFiles,
                 diffArchives,
+                runs.size(),
+                runs.isEmpty() ? null : runs.get(runs.size() - 1).runNumber(),
                 warnings
         );
     }
@@ -2,6 +2,14 @@ package edu.rosehulman.csse230feedback.model;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 
+/**
+ * Locates one patch inside a diff archive.
+ *
+ * patchKind (EMPTY, FILE_CREATED, FILE_TOO_LARGE or DELTA_PATCH) and the delta/line counts are
+ * recorded at ingest; they are null in indexes written before that, or when the patch could not
+ * be parsed. Like the patch itself, the counts are relative to the archive's baseline, not to
+ * the file's previous run.
+ */
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public record PatchPointer(
         String archiveFilename,
@@ -9,5 +17,13 @@ public record PatchPointer(
         int runNumber,
         String baselineEntry,
         String patchEntry,
-        String patchKind
-) {}
+        String patchKind,
+        Integer deltaCount,
+        Integer linesAdded,
+        Integer linesRemoved
+) {
+    public PatchPointer(String archiveFilename, String fileKey, int runNumber,
+                        String baselineEntry, String patchEntry, String patchKind) {
+        this(archiveFilename, fileKey, runNumber, baselineEntry, patchEntry, patchKind, null, null, null);
+    }
+}
@@ -6,9 +6,20 @@ import java.util.List;
 /**
  * Represents a code snapshot at a specific run number.
  * Contains all tracked files' content at that point in time.
+ *
+ * When snapshots are written as keyframes plus deltas, {@code keyframe} is set:
+ * a keyframe lists every file in full, while a delta lists only the files that
+ * changed since the previous snapshot (as edits, or in full if new) and names
+ * the files that disappeared in {@code removedFiles}.
  */
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public record CodeSnapshot(
     int runNumber,
-    List<FileContent> files
-) {}
+    List<FileContent> files,
+    Boolean keyframe,
+    List<String> removedFiles
+) {
+    public CodeSnapshot(int runNumber, List<FileContent> files) {
+        this(runNumber, files, null, null);
+    }
+}
@@ -1,13 +1,28 @@
 package edu.rosehulman.csse230feedback.model.frontend;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+import java.util.List;
 
 /**
  * Represents a single file's content for display in the frontend.
+ * The content may be any CharSequence (e.g. a shared piece table); it is
+ * only turned into a String when written out.
+ *
+ * In a delta snapshot, a file that existed in the previous snapshot has no
+ * content and carries the edits from its previous version instead.
  */
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public record FileContent(
     String name,      // e.g., "BinarySearchTree.java"
     String language,  // e.g., "java"
-    String content    // The full file content
-) {}
+    @JsonSerialize(using = ToStringSerializer.class)
+    CharSequence content,    // The full file content
+    List<LineEdit> edits     // Delta snapshots only: changes since the previous snapshot
+) {
+    public FileContent(String name, String language, CharSequence content) {
+        this(name, language, content, null);
+    }
+}
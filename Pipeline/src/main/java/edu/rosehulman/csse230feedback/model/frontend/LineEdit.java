@@ -0,0 +1,14 @@
+package edu.rosehulman.csse230feedback.model.frontend;
+
+import java.util.List;
+
+/**
+ * One line-level change from a file's previous snapshot to its current one.
+ * Edits are applied in order; each replaces {@code deleteCount} lines at
+ * {@code start} (a 0-based index into the partially edited file) with {@code lines}.
+ */
+public record LineEdit(
+    int start,
+    int deleteCount,
+    List<String> lines
+) {}
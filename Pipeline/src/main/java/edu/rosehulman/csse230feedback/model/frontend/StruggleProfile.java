@@ -15,8 +15,16 @@ public record StruggleProfile(
     DiffCategoryCount winningFix,              // What finally worked (null if still failing)
     List<TestCorrelation> relatedTests,        // Tests that fail together
     double struggleScore,                      // Enhanced score combining all signals
-    ErrorEvolution errorEvolution              // How errors evolved during struggle
+    ErrorEvolution errorEvolution,             // How errors evolved during struggle
+    List<FileChurn> codeChurn                  // Lines changed per file while failing (null without archives)
 ) {
+    public StruggleProfile(int attemptsToFix, int distinctStrategies, List<DiffCategoryCount> strategiesTried,
+                           DiffCategoryCount winningFix, List<TestCorrelation> relatedTests,
+                           double struggleScore, ErrorEvolution errorEvolution) {
+        this(attemptsToFix, distinctStrategies, strategiesTried, winningFix, relatedTests, struggleScore,
+            errorEvolution, null);
+    }
+
     /**
      * Count of how many times a diff category was used while fixing this test.
      */
@@ -34,6 +42,18 @@ public record StruggleProfile(
         double correlation   // Pearson correlation coefficient (-1 to 1)
     ) {}
 
+    /**
+     * Code churn in one file across this test's failure intervals, up to and including the run
+     * that fixed it.
+     */
+    public record FileChurn(
+        String file,
+        int linesAdded,
+        int linesRemoved,
+        int linesKept,       // Lines added while failing that are still there at the interval's end
+        int editedRuns       // Runs in which the file changed
+    ) {}
+
     /**
      * Returns true if this test has significant struggle indicators.
      */
@@ -1,26 +1,96 @@
 package edu.rosehulman.csse230feedback.prepare;
 
+import com.github.difflib.DiffUtils;
 import com.github.difflib.algorithm.DiffException;
-import com.github.difflib.patch.PatchFailedException;
+import com.github.difflib.patch.AbstractDelta;
+import com.github.difflib.patch.Patch;
 import edu.rosehulman.csse230feedback.data.DiffFileReconstructor;
+import edu.rosehulman.csse230feedback.data.FileVersionIterator;
+import edu.rosehulman.csse230feedback.data.LineChurn;
+import edu.rosehulman.csse230feedback.data.PatchIndex;
+import edu.rosehulman.csse230feedback.data.PieceTableText;
 import edu.rosehulman.csse230feedback.model.PatchPointer;
 import edu.rosehulman.csse230feedback.model.frontend.CodeSnapshot;
 import edu.rosehulman.csse230feedback.model.frontend.FileContent;
-import edu.rosehulman.csse230feedback.util.Json;
+import edu.rosehulman.csse230feedback.model.frontend.LineEdit;
 
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Generates code snapshots for each run by reconstructing files from diff archives.
+ *
+ * With a keyframe interval K > 0, every K-th snapshot is a keyframe with full file contents and
+ * the snapshots in between carry only line edits against the previous snapshot, so a reader can
+ * rebuild any run with at most K - 1 delta applications.
+ *
+ * Files are reconstructed concurrently, one task per file and rebaseline epoch: each task parses
+ * its epoch's baseline once and walks that epoch's runs in order.
+ *
+ * The same walk can also measure line churn for struggle profiles. It then visits every run that
+ * patched a file as well, so churn is counted per patch even between runs that have test data.
+ * Churn alone comes straight from {@link DiffFileReconstructor#lineChurn}, which walks only the
+ * patched runs.
  */
 public class CodeSnapshotGenerator {
 
-    private final DiffFileReconstructor reconstructor = new DiffFileReconstructor();
+    private final DiffFileReconstructor reconstructor;
+    private final int keyframeInterval;
+    private final int parallelism;
+
+    public CodeSnapshotGenerator() {
+        this(0);
+    }
+
+    /**
+     * @param keyframeInterval snapshots per keyframe; 0 writes every snapshot in full
+     */
+    public CodeSnapshotGenerator(int keyframeInterval) {
+        this(keyframeInterval, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param keyframeInterval snapshots per keyframe; 0 writes every snapshot in full
+     * @param parallelism max number of reconstruction tasks run concurrently
+     */
+    public CodeSnapshotGenerator(int keyframeInterval, int parallelism) {
+        this(keyframeInterval, parallelism, new DiffFileReconstructor());
+    }
+
+    /**
+     * @param keyframeInterval snapshots per keyframe; 0 writes every snapshot in full
+     * @param parallelism max number of reconstruction tasks run concurrently
+     * @param reconstructor reconstructs the versions, through its version cache
+     */
+    public CodeSnapshotGenerator(int keyframeInterval, int parallelism, DiffFileReconstructor reconstructor) {
+        if (keyframeInterval < 0) {
+            throw new IllegalArgumentException("keyframeInterval must be >= 0");
+        }
+        this.keyframeInterval = keyframeInterval;
+        this.parallelism = Math.max(1, parallelism);
+        this.reconstructor = reconstructor;
+    }
+
+    /**
+     * One file's runs within one rebaseline epoch, in ascending order.
+     */
+    private record Walk(String fileKey, int[] runs) {}
+
+    /**
+     * What one walk over the code history produced: the snapshots (empty unless asked for) and the
+     * line churn (null unless asked for, or when there is no code history).
+     */
+    public record Result(List<CodeSnapshot> snapshots, LineChurn churn) {
+        static final Result EMPTY = new Result(Collections.emptyList(), null);
+    }
 
     /**
      * Generates code snapshots for all runs that have test data.
@@ -32,87 +102,288 @@ public class CodeSnapshotGenerator {
      */
     public List<CodeSnapshot> generateSnapshots(Path inputDir, Set<Integer> runNumbers,
                                                  List<String> warnings) throws IOException {
+        return generate(inputDir, runNumbers, true, false, warnings).snapshots();
+    }
+
+    /**
+     * Walks the code history once for code snapshots, line churn, or both.
+     *
+     * @param inputDir The ingestion output directory (contains archives/, patches_index.jsonl)
+     * @param runNumbers The run numbers to generate snapshots for
+     * @param snapshots Whether to generate code snapshots
+     * @param churn Whether to measure line churn
+     * @param warnings List to accumulate warnings
+     */
+    public Result generate(Path inputDir, Set<Integer> runNumbers, boolean snapshots, boolean churn,
+                           List<String> warnings) throws IOException {
+        if (!snapshots && !churn) {
+            return Result.EMPTY;
+        }
+        // Without snapshots, missing code history only means struggle profiles leave out churn
+        List<String> setupWarnings = snapshots ? warnings : new ArrayList<>();
         Path archivesDir = inputDir.resolve("archives");
         Path patchesIndex = inputDir.resolve("patches_index.jsonl");
         Path cacheDir = inputDir.resolve(".cache");
 
         // Check if we have the required files
         if (!Files.exists(archivesDir)) {
-            warnings.add("No archives/ directory found - code snapshots will be empty");
-            return Collections.emptyList();
+            setupWarnings.add("No archives/ directory found - code snapshots will be empty");
+            return Result.EMPTY;
         }
         if (!Files.exists(patchesIndex)) {
-            warnings.add("No patches_index.jsonl found - code snapshots will be empty");
-            return Collections.emptyList();
+            setupWarnings.add("No patches_index.jsonl found - code snapshots will be empty");
+            return Result.EMPTY;
         }
 
         // Create cache directory
         Files.createDirectories(cacheDir);
 
-        // Load all patch pointers
-        List<PatchPointer> allPatches = loadPatchesIndex(patchesIndex, warnings);
-        if (allPatches.isEmpty()) {
-            warnings.add("patches_index.jsonl is empty - code snapshots will be empty");
-            return Collections.emptyList();
+        // Open the index once: each (run, file) lookup is a binary search, straight over
+        // patches_index.bin when it is current
+        PatchIndex patchIndex = PatchIndex.open(patchesIndex, setupWarnings);
+        if (patchIndex.isEmpty()) {
+            setupWarnings.add("patches_index.jsonl is empty - code snapshots will be empty");
+            return Result.EMPTY;
         }
 
-        // Get unique file keys (these are the tracked files)
-        Set<String> fileKeys = allPatches.stream()
-            .map(PatchPointer::fileKey)
-            .collect(Collectors.toSet());
+        if (!snapshots) {
+            return new Result(Collections.emptyList(),
+                reconstructor.lineChurn(archivesDir, patchIndex, cacheDir, warnings));
+        }
 
-        // For each run number, find the latest patch for each file at or before that run
-        List<CodeSnapshot> snapshots = new ArrayList<>();
+        // Unique file keys (these are the tracked files)
+        List<String> fileKeys = patchIndex.fileKeys();
+
+        List<Integer> sortedRuns = runNumbers.stream().sorted().toList();
+
+        // Reconstruct every (file, epoch) walk
+        List<Walk> walks = planWalks(patchIndex, fileKeys, sortedRuns, churn);
+        List<List<FileVersionIterator.FileVersion>> walked =
+            runWalks(walks, archivesDir, patchIndex, cacheDir, warnings);
 
-        for (int runNumber : runNumbers.stream().sorted().toList()) {
-            List<FileContent> files = new ArrayList<>();
-
-            for (String fileKey : fileKeys) {
-                // Find the latest patch for this file at or before this run
-                Optional<PatchPointer> latestPatch = allPatches.stream()
-                    .filter(p -> p.fileKey().equals(fileKey) && p.runNumber() <= runNumber)
-                    .max(Comparator.comparingInt(PatchPointer::runNumber));
-
-                if (latestPatch.isPresent()) {
-                    try {
-                        List<String> content = reconstructor.reconstruct(
-                            archivesDir, latestPatch.get(), cacheDir, warnings);
-
-                        String fileName = fileKeyToFileName(fileKey);
-                        String language = detectLanguage(fileName);
-
-                        files.add(new FileContent(
-                            fileName,
-                            language,
-                            String.join("\n", content)
-                        ));
-                    } catch (DiffException | PatchFailedException e) {
-                        warnings.add("Failed to reconstruct " + fileKey + " for run " + runNumber +
-                            ": " + e.getMessage());
-                    } catch (IllegalStateException e) {
-                        // File too large or other issues
-                        warnings.add("Skipping " + fileKey + " for run " + runNumber +
-                            ": " + e.getMessage());
-                    }
+        LineChurn lineChurn = null;
+        if (churn) {
+            // Walks come in file order, and a file's epochs in run order
+            Map<String, List<FileVersionIterator.FileVersion>> versionsByFile = new LinkedHashMap<>();
+            for (int i = 0; i < walks.size(); i++) {
+                versionsByFile.computeIfAbsent(walks.get(i).fileKey(), _k -> new ArrayList<>()).addAll(walked.get(i));
+            }
+            lineChurn = LineChurn.of(versionsByFile);
+        }
+        return new Result(snapshots(walks, walked, sortedRuns, runNumbers), lineChurn);
+    }
+
+    /**
+     * Regroups the walked versions by run and builds one snapshot per run that has files.
+     */
+    private List<CodeSnapshot> snapshots(List<Walk> walks, List<List<FileVersionIterator.FileVersion>> walked,
+                                         List<Integer> sortedRuns, Set<Integer> runNumbers) {
+        Map<Integer, List<FileContent>> filesByRun = new HashMap<>();
+        for (int i = 0; i < walks.size(); i++) {
+            String fileName = fileKeyToFileName(walks.get(i).fileKey());
+            String language = detectLanguage(fileName);
+            for (FileVersionIterator.FileVersion version : walked.get(i)) {
+                if (!runNumbers.contains(version.runNumber())) {
+                    // Visited for churn only
+                    continue;
                 }
+                // Content stays a piece table over the shared baseline until the output is written
+                filesByRun.computeIfAbsent(version.runNumber(), _k -> new ArrayList<>())
+                    .add(new FileContent(fileName, language, version.text()));
+            }
+        }
+
+        List<CodeSnapshot> snapshots = new ArrayList<>();
+        Map<String, PieceTableText> previous = new HashMap<>();
+
+        for (int runNumber : sortedRuns) {
+            List<FileContent> files = filesByRun.getOrDefault(runNumber, new ArrayList<>());
+            Map<String, PieceTableText> current = new HashMap<>();
+            for (FileContent file : files) {
+                current.put(file.name(), (PieceTableText) file.content());
             }
 
             // Sort files by name for consistent ordering
             files.sort(Comparator.comparing(FileContent::name));
 
-            if (!files.isEmpty()) {
+            if (files.isEmpty()) {
+                continue;
+            }
+            if (keyframeInterval == 0) {
                 snapshots.add(new CodeSnapshot(runNumber, files));
+            } else if (snapshots.size() % keyframeInterval == 0 || current.size() != files.size()) {
+                // Keyframe on schedule, or when two files share a display name and can't be told apart
+                snapshots.add(new CodeSnapshot(runNumber, files, true, null));
+            } else {
+                snapshots.add(deltaSnapshot(runNumber, files, current, previous));
             }
+            previous = current;
         }
 
         return snapshots;
     }
 
+    /**
+     * Splits each file's runs at rebaseline boundaries (a change of archive), skipping runs
+     * before the file's first patch. With {@code patchRuns}, the runs that patched the file are
+     * walked too.
+     */
+    private List<Walk> planWalks(PatchIndex patchIndex, List<String> fileKeys, List<Integer> sortedRuns,
+                                 boolean patchRuns) {
+        List<Walk> walks = new ArrayList<>();
+        for (String fileKey : fileKeys) {
+            Collection<Integer> fileRuns = sortedRuns;
+            if (patchRuns) {
+                TreeSet<Integer> union = new TreeSet<>(sortedRuns);
+                for (int run : patchIndex.runsFor(fileKey)) {
+                    union.add(run);
+                }
+                fileRuns = union;
+            }
+
+            List<Integer> epochRuns = new ArrayList<>();
+            String epochArchive = null;
+            for (int run : fileRuns) {
+                PatchPointer pointer = patchIndex.latestAtOrBefore(fileKey, run);
+                if (pointer == null) {
+                    continue;
+                }
+                if (!pointer.archiveFilename().equals(epochArchive) && !epochRuns.isEmpty()) {
+                    walks.add(new Walk(fileKey, epochRuns.stream().mapToInt(Integer::intValue).toArray()));
+                    epochRuns.clear();
+                }
+                epochArchive = pointer.archiveFilename();
+                epochRuns.add(run);
+            }
+            if (!epochRuns.isEmpty()) {
+                walks.add(new Walk(fileKey, epochRuns.stream().mapToInt(Integer::intValue).toArray()));
+            }
+        }
+        return walks;
+    }
+
+    /**
+     * Runs the walks, concurrently when there is more than one. Results and warnings come back
+     * in walk order, so the output does not depend on scheduling.
+     */
+    private List<List<FileVersionIterator.FileVersion>> runWalks(List<Walk> walks, Path archivesDir,
+                                                                 PatchIndex patchIndex, Path cacheDir,
+                                                                 List<String> warnings) throws IOException {
+        int threads = Math.min(parallelism, walks.size());
+        if (threads <= 1) {
+            List<List<FileVersionIterator.FileVersion>> results = new ArrayList<>();
+            for (Walk walk : walks) {
+                results.add(walk(walk, archivesDir, patchIndex, cacheDir, warnings));
+            }
+            return results;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<FileVersionIterator.FileVersion>>> futures = new ArrayList<>();
+            List<List<String>> walkWarnings = new ArrayList<>();
+            for (Walk walk : walks) {
+                List<String> w = new ArrayList<>();
+                walkWarnings.add(w);
+                futures.add(pool.submit(() -> walk(walk, archivesDir, patchIndex, cacheDir, w)));
+            }
+
+            List<List<FileVersionIterator.FileVersion>> results = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                results.add(await(futures.get(i)));
+                warnings.addAll(walkWarnings.get(i));
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private List<FileVersionIterator.FileVersion> walk(Walk walk, Path archivesDir, PatchIndex patchIndex,
+                                                       Path cacheDir, List<String> warnings) throws IOException {
+        List<FileVersionIterator.FileVersion> versions = new ArrayList<>();
+        try {
+            reconstructor.versions(archivesDir, patchIndex, walk.fileKey(), walk.runs(), cacheDir, warnings)
+                .forEachRemaining(versions::add);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return versions;
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while generating code snapshots");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * A snapshot holding only what changed since {@code previous}: edits for changed files, full
+     * content for new ones, and the names of files that are gone.
+     */
+    private CodeSnapshot deltaSnapshot(int runNumber, List<FileContent> files,
+                                       Map<String, PieceTableText> current,
+                                       Map<String, PieceTableText> previous) {
+        List<FileContent> changed = new ArrayList<>();
+        for (FileContent file : files) {
+            PieceTableText before = previous.get(file.name());
+            PieceTableText after = current.get(file.name());
+            if (before == null || before.length() == 0) {
+                // New, or empty before: "" can't say whether it held zero lines or one blank line
+                changed.add(file);
+            } else if (before != after) {
+                List<LineEdit> edits = lineEdits(Arrays.asList(before.toLineArray()), Arrays.asList(after.toLineArray()));
+                if (edits == null) {
+                    changed.add(file);
+                } else if (!edits.isEmpty()) {
+                    changed.add(new FileContent(file.name(), file.language(), null, edits));
+                }
+            }
+        }
+
+        List<String> removed = previous.keySet().stream()
+            .filter(name -> !current.containsKey(name))
+            .sorted()
+            .toList();
+
+        return new CodeSnapshot(runNumber, changed, false, removed.isEmpty() ? null : removed);
+    }
+
+    /**
+     * Line edits turning {@code before} into {@code after}, positioned for in-order application;
+     * null if the diff could not be computed.
+     */
+    private List<LineEdit> lineEdits(List<String> before, List<String> after) {
+        Patch<String> patch;
+        try {
+            patch = DiffUtils.diff(before, after);
+        } catch (DiffException e) {
+            return null;
+        }
+        List<LineEdit> edits = new ArrayList<>();
+        for (AbstractDelta<String> delta : patch.getDeltas()) {
+            edits.add(new LineEdit(
+                delta.getTarget().getPosition(),
+                delta.getSource().size(),
+                List.copyOf(delta.getTarget().getLines())
+            ));
+        }
+        return edits;
+    }
+
     /**
      * Converts a file key to a display file name.
      * e.g., "BinarySearchTree.java.BinarySearchTree" -> "BinarySearchTree.java"
      */
-    private String fileKeyToFileName(String fileKey) {
+    static String fileKeyToFileName(String fileKey) {
         int javaIndex = fileKey.indexOf(".java.");
         if (javaIndex >= 0) {
             return fileKey.substring(0, javaIndex + 5); // +5 for ".java"
@@ -134,31 +405,4 @@ public class CodeSnapshotGenerator {
         if (fileName.endsWith(".c")) return "c";
         return "text";
     }
-
-    /**
-     * Loads patch pointers from patches_index.jsonl.
-     */
-    private List<PatchPointer> loadPatchesIndex(Path patchesIndex, List<String> warnings)
-            throws IOException {
-        List<PatchPointer> patches = new ArrayList<>();
-
-        try (BufferedReader reader = Files.newBufferedReader(patchesIndex)) {
-            String line;
-            int lineNum = 0;
-            while ((line = reader.readLine()) != null) {
-                lineNum++;
-                if (!line.trim().isEmpty()) {
-                    try {
-                        PatchPointer patch = Json.mapper().readValue(line, PatchPointer.class);
-                        patches.add(patch);
-                    } catch (IOException e) {
-                        warnings.add("Failed to parse line " + lineNum +
-                            " in patches_index.jsonl: " + e.getMessage());
-                    }
-                }
-            }
-        }
-
-        return patches;
-    }
 }
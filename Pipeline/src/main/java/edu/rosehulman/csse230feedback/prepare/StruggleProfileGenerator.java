@@ -1,11 +1,13 @@
 package edu.rosehulman.csse230feedback.prepare;
 
+import edu.rosehulman.csse230feedback.data.LineChurn;
 import edu.rosehulman.csse230feedback.model.DiffCategoryMapping;
 import edu.rosehulman.csse230feedback.model.DiffCategoryMapping.DiffLabel;
 import edu.rosehulman.csse230feedback.model.frontend.ErrorEvolution;
 import edu.rosehulman.csse230feedback.model.frontend.FailureInterval;
 import edu.rosehulman.csse230feedback.model.frontend.StruggleProfile;
 import edu.rosehulman.csse230feedback.model.frontend.StruggleProfile.DiffCategoryCount;
+import edu.rosehulman.csse230feedback.model.frontend.StruggleProfile.FileChurn;
 import edu.rosehulman.csse230feedback.model.frontend.StruggleProfile.TestCorrelation;
 
 import java.util.*;
@@ -16,9 +18,24 @@ import java.util.*;
  * - Diff categories (what code change strategies were tried)
  * - Test correlations (which tests fail together)
  * - Existing failure interval data
+ * - Code churn (how many lines of which files changed while failing, and how many of them were
+ *   kept), when it was measured
  */
 public class StruggleProfileGenerator {
 
+    private final LineChurn churn;
+
+    public StruggleProfileGenerator() {
+        this(null);
+    }
+
+    /**
+     * @param churn Line churn of the tracked files, or null to leave code churn out
+     */
+    public StruggleProfileGenerator(LineChurn churn) {
+        this.churn = churn;
+    }
+
     /**
      * Generates a StruggleProfile for a single test.
      *
@@ -68,7 +85,8 @@ public class StruggleProfileGenerator {
             diffAnalysis.winningFix,
             relatedTests == null || relatedTests.isEmpty() ? null : relatedTests,
             round(struggleScore, 2),
-            errorEvolution
+            errorEvolution,
+            analyzeCodeChurn(statusByRun, failureIntervals)
         );
     }
 
@@ -140,6 +158,48 @@ public class StruggleProfileGenerator {
         );
     }
 
+    /**
+     * Sums, per file, the lines changed during each failure interval: the runs after the interval
+     * started, up to the run that fixed it (or the last run when it lingers). The line provenance
+     * tells how many of the lines written in the interval are still in the file at its end. Files
+     * are ordered by how many runs touched them.
+     */
+    private List<FileChurn> analyzeCodeChurn(
+            Map<Integer, String> statusByRun,
+            List<FailureInterval> failureIntervals) {
+
+        if (churn == null || statusByRun == null || statusByRun.isEmpty()) {
+            return null;
+        }
+
+        TreeSet<Integer> runs = new TreeSet<>(statusByRun.keySet());
+        Map<String, LineChurn.Churn> byFile = new TreeMap<>();
+        Map<String, Integer> kept = new HashMap<>();
+        for (FailureInterval interval : failureIntervals) {
+            Integer end = interval.endRun();
+            Integer fixRun = end != null ? runs.higher(end) : null;
+            int lastRun = fixRun != null ? fixRun : runs.last();
+
+            churn.churnByFile(interval.startRun(), lastRun).forEach((fileKey, c) -> {
+                byFile.merge(fileKey, c, LineChurn.Churn::plus);
+                kept.merge(fileKey, churn.linesIntroduced(fileKey, interval.startRun(), lastRun), Integer::sum);
+            });
+        }
+
+        if (byFile.isEmpty()) {
+            return null;
+        }
+        return byFile.entrySet().stream()
+            .sorted((a, b) -> Integer.compare(b.getValue().editedRuns(), a.getValue().editedRuns()))
+            .map(e -> new FileChurn(
+                CodeSnapshotGenerator.fileKeyToFileName(e.getKey()),
+                e.getValue().linesAdded(),
+                e.getValue().linesRemoved(),
+                kept.get(e.getKey()),
+                e.getValue().editedRuns()))
+            .toList();
+    }
+
     /**
      * Calculates an enhanced struggle score combining multiple signals.
      */
@@ -0,0 +1,74 @@
+package edu.rosehulman.csse230feedback.runner;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads which classes a class file refers to from its constant pool: every class constant, plus
+ * every class named in a field or method descriptor or generic signature.
+ */
+final class ClassFileReferences {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    // An object type inside a descriptor or signature: Ljava/util/List; or Ljava/util/List<...
+    private static final Pattern OBJECT_TYPE = Pattern.compile("L([\\w/$]+)[;<]");
+
+    private ClassFileReferences() {}
+
+    /**
+     * Returns the binary names (e.g. "Outer$Inner", "java.util.List") {@code classFile} refers to.
+     *
+     * @throws IOException if the bytes are not a class file
+     */
+    static Set<String> of(byte[] classFile) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(classFile));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a class file");
+        }
+        in.readUnsignedShort(); // minor
+        in.readUnsignedShort(); // major
+
+        int count = in.readUnsignedShort();
+        String[] utf8 = new String[count];
+        int[] classNameIndex = new int[count];
+        int classes = 0;
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1 -> utf8[i] = in.readUTF();                       // Utf8
+                case 7 -> classNameIndex[classes++] = in.readUnsignedShort(); // Class
+                case 8, 16, 19, 20 -> in.skipBytes(2);                  // String, MethodType, Module, Package
+                case 15 -> in.skipBytes(3);                             // MethodHandle
+                case 3, 4, 9, 10, 11, 12, 17, 18 -> in.skipBytes(4);    // Integer, Float, refs, NameAndType, Dynamic
+                case 5, 6 -> {                                          // Long, Double take two slots
+                    in.skipBytes(8);
+                    i++;
+                }
+                default -> throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+
+        Set<String> names = new TreeSet<>();
+        for (int c = 0; c < classes; c++) {
+            String name = utf8[classNameIndex[c]];
+            if (name != null && !name.startsWith("[")) {
+                names.add(name.replace('/', '.'));
+            }
+        }
+        for (String s : utf8) {
+            if (s != null && s.indexOf('L') >= 0 && s.indexOf(';') >= 0) {
+                Matcher m = OBJECT_TYPE.matcher(s);
+                while (m.find()) {
+                    names.add(m.group(1).replace('/', '.'));
+                }
+            }
+        }
+        return names;
+    }
+}
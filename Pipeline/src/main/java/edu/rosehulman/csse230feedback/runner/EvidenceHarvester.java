@@ -1,7 +1,10 @@
 package edu.rosehulman.csse230feedback.runner;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import edu.rosehulman.csse230feedback.model.EnrichedTestResult;
 import edu.rosehulman.csse230feedback.model.TestStatus;
 import edu.rosehulman.csse230feedback.util.Json;
@@ -56,16 +59,13 @@ public class EvidenceHarvester {
             return new HarvestResult(-1, List.of(), warnings);
         }
 
-        // Extract and parse testRunInfo.json from tar
-        JsonNode testRunInfo = extractTestRunInfo(runTarPath, warnings);
-        if (testRunInfo == null) {
+        // Stream testRunInfo.json from the tar once, picking out prevRunNumber's entry under every test
+        HarvestResult result = readTestRunInfo(runTarPath, p -> parseEnrichedResults(p, warnings));
+        if (result == null) {
+            warnings.add("testRunInfo.json not found in run.tar");
             return new HarvestResult(-1, List.of(), warnings);
         }
-
-        int runNumber = testRunInfo.path("prevRunNumber").asInt(-1);
-        List<EnrichedTestResult> results = parseEnrichedResults(testRunInfo, runNumber, warnings);
-
-        return new HarvestResult(runNumber, results, warnings);
+        return result;
     }
 
     /**
@@ -98,9 +98,18 @@ public class EvidenceHarvester {
     }
 
     /**
-     * Extracts testRunInfo.json from run.tar.
+     * Reads testRunInfo.json from the tar through a streaming parser.
+     */
+    @FunctionalInterface
+    private interface TestRunInfoReader<T> {
+        T read(JsonParser parser) throws IOException;
+    }
+
+    /**
+     * Opens testRunInfo.json inside run.tar and hands a parser positioned before its first token
+     * to {@code reader}. Returns null if the entry is missing.
      */
-    private JsonNode extractTestRunInfo(Path runTarPath, List<String> warnings) throws IOException {
+    private <T> T readTestRunInfo(Path runTarPath, TestRunInfoReader<T> reader) throws IOException {
         try (InputStream fis = Files.newInputStream(runTarPath);
              BufferedInputStream bis = new BufferedInputStream(fis);
              TarArchiveInputStream tis = new TarArchiveInputStream(bis)) {
@@ -109,99 +118,155 @@ public class EvidenceHarvester {
             while ((entry = tis.getNextTarEntry()) != null) {
                 if (entry.getName().equals(TEST_RUN_INFO_FILENAME) ||
                     entry.getName().endsWith("/" + TEST_RUN_INFO_FILENAME)) {
-                    return MAPPER.readTree(tis);
+                    try (JsonParser parser = MAPPER.getFactory().createParser(tis)) {
+                        return reader.read(parser);
+                    }
                 }
             }
         }
 
-        warnings.add("testRunInfo.json not found in run.tar");
         return null;
     }
 
     /**
-     * Parses enriched test results from testRunInfo.json.
+     * Parses enriched test results for the run named by the top-level prevRunNumber (-1 if
+     * absent), keeping only that run's entry under each test and skipping every other run without
+     * building a tree.
+     *
+     * The logger writes prevRunNumber before the test classes, so they are normally filtered as
+     * they stream past. Any test class that comes before it is buffered as tokens and filtered
+     * once the run number is known.
      */
-    private List<EnrichedTestResult> parseEnrichedResults(JsonNode testRunInfo, int runNumber,
-            List<String> warnings) {
+    private HarvestResult parseEnrichedResults(JsonParser p, List<String> warnings) throws IOException {
         List<EnrichedTestResult> results = new ArrayList<>();
+        if (p.nextToken() != JsonToken.START_OBJECT) {
+            return new HarvestResult(-1, results, warnings);
+        }
+
+        Integer runNumber = null;
+        Map<String, TokenBuffer> beforeRunNumber = new LinkedHashMap<>();
 
-        Iterator<String> fieldNames = testRunInfo.fieldNames();
-        while (fieldNames.hasNext()) {
-            String fieldName = fieldNames.next();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = p.currentName();
+            JsonToken classToken = p.nextToken();
+
+            if (fieldName.equals("prevRunNumber") && runNumber == null) {
+                runNumber = p.getValueAsInt(-1);
+                parseBuffered(beforeRunNumber, runNumber, results, warnings);
+                continue;
+            }
 
             // Skip reserved fields
-            if (RESERVED_FIELDS.contains(fieldName)) {
+            if (RESERVED_FIELDS.contains(fieldName) || classToken != JsonToken.START_OBJECT) {
+                p.skipChildren();
                 continue;
             }
 
             // This is a test class
-            String testClassName = fieldName;
-            JsonNode testClassNode = testRunInfo.get(testClassName);
-
-            if (!testClassNode.isObject()) {
-                continue;
+            if (runNumber != null) {
+                parseTestClass(p, fieldName, String.valueOf(runNumber), results, warnings);
+            } else {
+                TokenBuffer buffer = new TokenBuffer(p);
+                buffer.copyCurrentStructure(p);
+                beforeRunNumber.put(fieldName, buffer);
             }
+        }
 
-            // Iterate through test methods
-            Iterator<String> testNames = testClassNode.fieldNames();
-            while (testNames.hasNext()) {
-                String testName = testNames.next();
-                JsonNode testNode = testClassNode.get(testName);
+        if (runNumber == null) {
+            runNumber = -1;
+            parseBuffered(beforeRunNumber, runNumber, results, warnings);
+        }
 
-                if (!testNode.isObject()) {
-                    continue;
-                }
+        // Sort by test ID
+        results.sort(Comparator.comparing(EnrichedTestResult::testId));
+        return new HarvestResult(runNumber, results, warnings);
+    }
 
-                // Get status for this run
-                String runKey = String.valueOf(runNumber);
-                JsonNode runNode = testNode.get(runKey);
-                if (runNode == null || !runNode.isObject()) {
-                    continue;
-                }
+    private void parseBuffered(Map<String, TokenBuffer> testClasses, int runNumber,
+            List<EnrichedTestResult> results, List<String> warnings) throws IOException {
+        for (Map.Entry<String, TokenBuffer> e : testClasses.entrySet()) {
+            try (JsonParser buffered = e.getValue().asParser()) {
+                buffered.nextToken();
+                parseTestClass(buffered, e.getKey(), String.valueOf(runNumber), results, warnings);
+            }
+        }
+        testClasses.clear();
+    }
 
-                String statusStr = runNode.path("status").asText();
-                TestStatus status = parseStatus(statusStr, warnings);
-                String cause = extractCause(statusStr);
-
-                // Get evidence for this run (nested inside the run node)
-                JsonNode evidenceNode = runNode.path("evidence");
-
-                Long durationMs = null;
-                String stackTrace = null;
-                String exceptionType = null;
-                String message = null;
-                String expected = null;
-                String actual = null;
-                String uniqueId = null;
-
-                if (!evidenceNode.isMissingNode() && evidenceNode.isObject()) {
-                    durationMs = evidenceNode.has("durationMs") ?
-                        evidenceNode.get("durationMs").asLong() : null;
-                    stackTrace = evidenceNode.has("stackTrace") ?
-                        evidenceNode.get("stackTrace").asText() : null;
-                    exceptionType = evidenceNode.has("exceptionType") ?
-                        evidenceNode.get("exceptionType").asText() : null;
-                    message = evidenceNode.has("message") ?
-                        evidenceNode.get("message").asText() : null;
-                    expected = evidenceNode.has("expected") ?
-                        evidenceNode.get("expected").asText() : null;
-                    actual = evidenceNode.has("actual") ?
-                        evidenceNode.get("actual").asText() : null;
-                    uniqueId = evidenceNode.has("uniqueId") ?
-                        evidenceNode.get("uniqueId").asText() : null;
-                }
+    /**
+     * Reads one test class object, the parser positioned at its START_OBJECT, adding a result for
+     * every test method that has an entry for {@code runKey}.
+     */
+    private void parseTestClass(JsonParser p, String testClassName, String runKey,
+            List<EnrichedTestResult> results, List<String> warnings) throws IOException {
+        // Iterate through test methods
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String testName = p.currentName();
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                p.skipChildren();
+                continue;
+            }
 
-                EnrichedTestResult result = EnrichedTestResult.create(
-                    testClassName, testName, status, cause,
-                    durationMs, stackTrace, exceptionType, message, expected, actual, uniqueId
-                );
-                results.add(result);
+            // Get the node for this run; skip all other runs
+            JsonNode runNode = null;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String key = p.currentName();
+                p.nextToken();
+                if (key.equals(runKey) && p.currentToken() == JsonToken.START_OBJECT) {
+                    runNode = MAPPER.readTree(p);
+                } else {
+                    p.skipChildren();
+                }
             }
+            if (runNode == null) {
+                continue;
+            }
+
+            results.add(toEnrichedResult(testClassName, testName, runNode, warnings));
         }
+    }
 
-        // Sort by test ID
-        results.sort(Comparator.comparing(EnrichedTestResult::testId));
-        return results;
+    /**
+     * Builds one result from a single run's {status, evidence} node.
+     */
+    private EnrichedTestResult toEnrichedResult(String testClassName, String testName, JsonNode runNode,
+            List<String> warnings) {
+        String statusStr = runNode.path("status").asText();
+        TestStatus status = parseStatus(statusStr, warnings);
+        String cause = extractCause(statusStr);
+
+        // Get evidence for this run (nested inside the run node)
+        JsonNode evidenceNode = runNode.path("evidence");
+
+        Long durationMs = null;
+        String stackTrace = null;
+        String exceptionType = null;
+        String message = null;
+        String expected = null;
+        String actual = null;
+        String uniqueId = null;
+
+        if (!evidenceNode.isMissingNode() && evidenceNode.isObject()) {
+            durationMs = evidenceNode.has("durationMs") ?
+                evidenceNode.get("durationMs").asLong() : null;
+            stackTrace = evidenceNode.has("stackTrace") ?
+                evidenceNode.get("stackTrace").asText() : null;
+            exceptionType = evidenceNode.has("exceptionType") ?
+                evidenceNode.get("exceptionType").asText() : null;
+            message = evidenceNode.has("message") ?
+                evidenceNode.get("message").asText() : null;
+            expected = evidenceNode.has("expected") ?
+                evidenceNode.get("expected").asText() : null;
+            actual = evidenceNode.has("actual") ?
+                evidenceNode.get("actual").asText() : null;
+            uniqueId = evidenceNode.has("uniqueId") ?
+                evidenceNode.get("uniqueId").asText() : null;
+        }
+
+        return EnrichedTestResult.create(
+            testClassName, testName, status, cause,
+            durationMs, stackTrace, exceptionType, message, expected, actual, uniqueId
+        );
     }
 
     /**
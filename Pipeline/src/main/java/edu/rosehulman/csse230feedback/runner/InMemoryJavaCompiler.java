@@ -0,0 +1,264 @@
+package edu.rosehulman.csse230feedback.runner;
+
+import edu.rosehulman.csse230feedback.model.CompileDiagnostic;
+import edu.rosehulman.csse230feedback.model.CompileResult;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compiles workspaces with the JDK's own compiler ({@link ToolProvider#getSystemJavaCompiler()})
+ * inside the pipeline JVM, so a run does not pay for starting and warming up a javac process.
+ *
+ * The dependency JARs are opened once per {@link StandardJavaFileManager} and the managers are
+ * reused across runs (one per concurrent compile). Class files are collected in memory and only
+ * written to bin/ when the compile succeeds. Diagnostics come back structured in
+ * {@link CompileResult#diagnostics()}, with the usual javac text in stderr and in
+ * {@link CompileResult#errors()}.
+ *
+ * Compiles with the pipeline's JDK, so it cannot honour a separate --java-home, and it cannot be
+ * timed out; {@link JavaCompilerRunner} covers both.
+ */
+public class InMemoryJavaCompiler implements SourceCompiler, AutoCloseable {
+
+    private final JavaCompiler compiler;
+    private final int javaVersion;
+
+    // Managers not in use by a compile right now, and every manager for close()
+    private final Queue<DepsFileManager> idle = new ConcurrentLinkedQueue<>();
+    private final Queue<DepsFileManager> all = new ConcurrentLinkedQueue<>();
+
+    private record DepsFileManager(StandardJavaFileManager files, Path depsDir) {}
+
+    /**
+     * @throws IllegalStateException if this JVM has no system compiler (a JRE rather than a JDK)
+     */
+    public InMemoryJavaCompiler(int javaVersion) {
+        this.compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("No system Java compiler; the pipeline is running on a JRE");
+        }
+        this.javaVersion = javaVersion;
+    }
+
+    /** Returns true if this JVM can compile in-process. */
+    public static boolean isAvailable() {
+        return ToolProvider.getSystemJavaCompiler() != null;
+    }
+
+    @Override
+    public CompileResult compile(Path workspace, Path depsDir) throws IOException {
+        workspace = workspace.toAbsolutePath();
+        Path srcDir = workspace.resolve("src");
+        Path binDir = workspace.resolve("bin");
+
+        List<Path> javaFiles;
+        try (Stream<Path> walk = Files.walk(srcDir)) {
+            javaFiles = walk
+                .filter(Files::isRegularFile)
+                .filter(p -> p.toString().endsWith(".java"))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+
+        if (javaFiles.isEmpty()) {
+            return CompileResult.failure("", "No Java files found in src/", 1, List.of("No Java files found"));
+        }
+
+        Compilation compilation = compile(javaFiles, depsDir, List.of());
+        if (!compilation.result().success()) {
+            return compilation.result();
+        }
+        writeClasses(binDir, compilation.classes());
+        return compilation.result();
+    }
+
+    /**
+     * The outcome of compiling some sources: the result and, when it succeeded, each generated
+     * class file and the source it came from, by binary name.
+     */
+    record Compilation(CompileResult result, Map<String, byte[]> classes, Map<String, Path> sources) {}
+
+    /**
+     * Compiles {@code sources} against {@code extraClassPath} (e.g. a bin/ of earlier output)
+     * and the dependency JARs, keeping the class files in memory.
+     */
+    Compilation compile(List<Path> sources, Path depsDir, List<Path> extraClassPath) throws IOException {
+        DepsFileManager manager = borrow(depsDir);
+        try {
+            MemoryOutput output = new MemoryOutput(manager.files());
+            if (!extraClassPath.isEmpty()) {
+                List<Path> classPath = new ArrayList<>(extraClassPath);
+                classPath.addAll(jars(depsDir));
+                manager.files().setLocationFromPaths(StandardLocation.CLASS_PATH, classPath);
+            }
+
+            DiagnosticCollector<JavaFileObject> collector = new DiagnosticCollector<>();
+            StringWriter out = new StringWriter();
+            List<String> options = List.of(
+                "-source", String.valueOf(javaVersion),
+                "-target", String.valueOf(javaVersion),
+                "-encoding", StandardCharsets.UTF_8.name()
+            );
+
+            boolean success;
+            try {
+                success = compiler.getTask(out, output, collector, options, null,
+                    manager.files().getJavaFileObjectsFromPaths(sources)).call();
+            } catch (RuntimeException e) {
+                // javac wraps crashes (e.g. in an annotation processor) in RuntimeException
+                return new Compilation(CompileResult.failure(out.toString(), e.toString(), -1,
+                    List.of("Compiler crashed: " + e)), Map.of(), Map.of());
+            } finally {
+                if (!extraClassPath.isEmpty()) {
+                    manager.files().setLocationFromPaths(StandardLocation.CLASS_PATH, jars(depsDir));
+                }
+            }
+
+            List<CompileDiagnostic> diagnostics = new ArrayList<>();
+            List<String> errors = new ArrayList<>();
+            StringBuilder stderr = new StringBuilder();
+            for (Diagnostic<? extends JavaFileObject> d : collector.getDiagnostics()) {
+                diagnostics.add(toDiagnostic(d));
+                stderr.append(d).append('\n');
+                if (d.getKind() == Diagnostic.Kind.ERROR) {
+                    errors.add(d.toString());
+                }
+            }
+
+            if (!success) {
+                return new Compilation(CompileResult.failure(out.toString(), stderr.toString(), 1,
+                    errors, diagnostics), Map.of(), Map.of());
+            }
+            return new Compilation(CompileResult.success(out.toString(), stderr.toString(), diagnostics),
+                output.classes(), output.sources);
+        } finally {
+            idle.add(manager);
+        }
+    }
+
+    /** Writes class files (keyed by binary name) under {@code binDir}. */
+    static void writeClasses(Path binDir, Map<String, byte[]> classes) throws IOException {
+        for (Map.Entry<String, byte[]> e : classes.entrySet()) {
+            Path classFile = binDir.resolve(e.getKey().replace('.', '/') + ".class");
+            Files.createDirectories(classFile.getParent());
+            Files.write(classFile, e.getValue());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (DepsFileManager manager : all) {
+            manager.files().close();
+        }
+        all.clear();
+        idle.clear();
+    }
+
+    private DepsFileManager borrow(Path depsDir) throws IOException {
+        DepsFileManager manager = idle.poll();
+        if (manager != null && Objects.equals(manager.depsDir(), depsDir)) {
+            return manager;
+        }
+        if (manager != null) {
+            all.remove(manager);
+            manager.files().close();
+        }
+
+        StandardJavaFileManager files = compiler.getStandardFileManager(null, Locale.ROOT, StandardCharsets.UTF_8);
+        files.setLocationFromPaths(StandardLocation.CLASS_PATH, jars(depsDir));
+        manager = new DepsFileManager(files, depsDir);
+        all.add(manager);
+        return manager;
+    }
+
+    private static List<Path> jars(Path depsDir) throws IOException {
+        if (depsDir == null || !Files.exists(depsDir)) {
+            return List.of();
+        }
+        try (Stream<Path> list = Files.list(depsDir.toAbsolutePath())) {
+            return list
+                .filter(Files::isRegularFile)
+                .filter(p -> p.toString().endsWith(".jar"))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+
+    private static CompileDiagnostic toDiagnostic(Diagnostic<? extends JavaFileObject> d) {
+        JavaFileObject source = d.getSource();
+        return new CompileDiagnostic(
+            d.getKind().name(),
+            source != null ? Path.of(source.toUri()).toString() : null,
+            d.getLineNumber() == Diagnostic.NOPOS ? -1 : d.getLineNumber(),
+            d.getColumnNumber() == Diagnostic.NOPOS ? -1 : d.getColumnNumber(),
+            d.getCode(),
+            d.getMessage(Locale.ROOT)
+        );
+    }
+
+    /**
+     * Sends class output to memory; everything else (reading sources and JARs) goes to the
+     * shared file manager.
+     */
+    private static final class MemoryOutput extends ForwardingJavaFileManager<StandardJavaFileManager> {
+        private final Map<String, ByteArrayOutputStream> classes = new TreeMap<>();
+        private final Map<String, Path> sources = new TreeMap<>();
+
+        private MemoryOutput(StandardJavaFileManager files) {
+            super(files);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                FileObject sibling) throws IOException {
+            if (location != StandardLocation.CLASS_OUTPUT || kind != JavaFileObject.Kind.CLASS) {
+                return super.getJavaFileForOutput(location, className, kind, sibling);
+            }
+            if (sibling != null && "file".equals(sibling.toUri().getScheme())) {
+                sources.put(className, Path.of(sibling.toUri()));
+            }
+            URI uri = URI.create("mem:///" + className.replace('.', '/') + kind.extension);
+            return new SimpleJavaFileObject(uri, kind) {
+                @Override
+                public OutputStream openOutputStream() {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    classes.put(className, bytes);
+                    return bytes;
+                }
+            };
+        }
+
+        Map<String, byte[]> classes() {
+            Map<String, byte[]> out = new TreeMap<>();
+            classes.forEach((name, bytes) -> out.put(name, bytes.toByteArray()));
+            return out;
+        }
+    }
+}
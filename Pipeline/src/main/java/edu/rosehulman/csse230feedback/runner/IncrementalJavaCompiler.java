@@ -0,0 +1,307 @@
+package edu.rosehulman.csse230feedback.runner;
+
+import edu.rosehulman.csse230feedback.model.CompileResult;
+import edu.rosehulman.csse230feedback.util.Hashing;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compiles a workspace incrementally: only sources that changed since its last compile, and the
+ * sources that depend on them, are recompiled; class files of every other source stay in bin/.
+ *
+ * For each workspace it remembers every source's SHA-256, the classes each source produced, and
+ * the classes each class file refers to (see {@link ClassFileReferences}). A compile then
+ * recompiles the changed sources plus, transitively, every source with a class referring to a
+ * class being recompiled or removed, against the reused class files in bin/. Compile-time
+ * constants are inlined without a reference, so a source that mentions the name of a class
+ * from a changed source is recompiled too.
+ *
+ * The first compile of a workspace, one whose dependencies or bin/ changed behind its back, and
+ * one whose incremental compile fails all recompile everything, so errors are reported exactly
+ * as a full compile reports them. Each workspace must be compiled by one thread at a time.
+ */
+public class IncrementalJavaCompiler implements SourceCompiler, AutoCloseable {
+
+    /** What a workspace's bin/ holds, by source path. */
+    private record WorkspaceState(Path depsDir, Map<Path, String> hashes, Map<Path, Set<String>> classesBySource,
+                                  Map<String, Set<String>> references) {}
+
+    private final InMemoryJavaCompiler compiler;
+    private final Map<Path, WorkspaceState> states = new ConcurrentHashMap<>();
+
+    private int sourcesCompiled;
+    private int sourcesReused;
+
+    public IncrementalJavaCompiler(int javaVersion) {
+        this.compiler = new InMemoryJavaCompiler(javaVersion);
+    }
+
+    @Override
+    public CompileResult compile(Path workspace, Path depsDir) throws IOException {
+        workspace = workspace.toAbsolutePath();
+        Path srcDir = workspace.resolve("src");
+        Path binDir = workspace.resolve("bin");
+
+        Map<Path, String> hashes = hashSources(srcDir);
+        if (hashes.isEmpty()) {
+            return CompileResult.failure("", "No Java files found in src/", 1, List.of("No Java files found"));
+        }
+
+        // Dropped until this compile succeeds, so a failure leaves no state behind
+        WorkspaceState previous = states.remove(workspace);
+        if (previous == null || !Objects.equals(previous.depsDir(), depsDir) || !classesPresent(binDir, previous)) {
+            return fullCompile(workspace, binDir, depsDir, hashes);
+        }
+
+        Set<Path> changed = new TreeSet<>();
+        for (Map.Entry<Path, String> e : hashes.entrySet()) {
+            if (!e.getValue().equals(previous.hashes().get(e.getKey()))) {
+                changed.add(e.getKey());
+            }
+        }
+        Set<Path> removed = new TreeSet<>(previous.hashes().keySet());
+        removed.removeAll(hashes.keySet());
+
+        Set<Path> recompile = affectedSources(previous, hashes, changed, removed);
+
+        for (Path source : union(recompile, removed)) {
+            deleteClasses(binDir, previous.classesBySource().getOrDefault(source, Set.of()));
+        }
+
+        CompileResult result = CompileResult.success("", "");
+        Map<String, byte[]> classes = Map.of();
+        Map<String, Path> sources = Map.of();
+        if (!recompile.isEmpty()) {
+            InMemoryJavaCompiler.Compilation compilation =
+                compiler.compile(new ArrayList<>(recompile), depsDir, List.of(binDir));
+            if (!compilation.result().success()) {
+                return fullCompile(workspace, binDir, depsDir, hashes);
+            }
+            InMemoryJavaCompiler.writeClasses(binDir, compilation.classes());
+            result = compilation.result();
+            classes = compilation.classes();
+            sources = compilation.sources();
+        }
+
+        Map<Path, Set<String>> classesBySource = new HashMap<>(previous.classesBySource());
+        Map<String, Set<String>> references = new HashMap<>(previous.references());
+        for (Path source : union(recompile, removed)) {
+            Set<String> old = classesBySource.remove(source);
+            if (old != null) {
+                old.forEach(references::remove);
+            }
+        }
+        record(classes, sources, classesBySource, references);
+        states.put(workspace, new WorkspaceState(depsDir, hashes, classesBySource, references));
+
+        synchronized (this) {
+            sourcesCompiled += recompile.size();
+            sourcesReused += hashes.size() - recompile.size();
+        }
+        return result;
+    }
+
+    /** Sources compiled so far, counting a full compile as all of its sources. */
+    public synchronized int sourcesCompiled() {
+        return sourcesCompiled;
+    }
+
+    /** Sources whose class files were reused instead of being recompiled. */
+    public synchronized int sourcesReused() {
+        return sourcesReused;
+    }
+
+    @Override
+    public void close() throws IOException {
+        states.clear();
+        compiler.close();
+    }
+
+    private CompileResult fullCompile(Path workspace, Path binDir, Path depsDir, Map<Path, String> hashes)
+            throws IOException {
+        deleteAllClasses(binDir);
+        InMemoryJavaCompiler.Compilation compilation =
+            compiler.compile(new ArrayList<>(hashes.keySet()), depsDir, List.of());
+        synchronized (this) {
+            sourcesCompiled += hashes.size();
+        }
+        if (!compilation.result().success()) {
+            return compilation.result();
+        }
+
+        InMemoryJavaCompiler.writeClasses(binDir, compilation.classes());
+        Map<Path, Set<String>> classesBySource = new HashMap<>();
+        Map<String, Set<String>> references = new HashMap<>();
+        record(compilation.classes(), compilation.sources(), classesBySource, references);
+        states.put(workspace, new WorkspaceState(depsDir, hashes, classesBySource, references));
+        return compilation.result();
+    }
+
+    /**
+     * The changed sources plus every current source that depends on a class they (or removed
+     * sources) defined, transitively.
+     */
+    private static Set<Path> affectedSources(WorkspaceState previous, Map<Path, String> hashes,
+                                             Set<Path> changed, Set<Path> removed) throws IOException {
+        Map<String, Path> sourceOfClass = new HashMap<>();
+        previous.classesBySource().forEach((source, classes) -> classes.forEach(c -> sourceOfClass.put(c, source)));
+
+        Map<String, Set<String>> dependents = new HashMap<>();
+        previous.references().forEach((cls, refs) -> {
+            for (String ref : refs) {
+                if (!ref.equals(cls)) {
+                    dependents.computeIfAbsent(ref, k -> new HashSet<>()).add(cls);
+                }
+            }
+        });
+
+        Set<Path> recompile = new TreeSet<>(changed);
+        Deque<String> pending = new ArrayDeque<>();
+        Set<String> seen = new HashSet<>();
+        for (Path source : union(changed, removed)) {
+            for (String cls : previous.classesBySource().getOrDefault(source, Set.of())) {
+                if (seen.add(cls)) {
+                    pending.add(cls);
+                }
+            }
+        }
+
+        Set<String> changedNames = new TreeSet<>();
+        for (String cls : seen) {
+            changedNames.add(simpleName(cls));
+        }
+        for (Path source : changed) {
+            if (!previous.hashes().containsKey(source)) {
+                // A new source may define a class other sources used to get from elsewhere
+                changedNames.add(source.getFileName().toString().replaceFirst("\\.java$", ""));
+            }
+        }
+        Pattern mentionsChanged = changedNames.isEmpty() ? null : Pattern.compile(
+            "\\b(" + changedNames.stream().map(Pattern::quote).collect(Collectors.joining("|")) + ")\\b");
+
+        while (true) {
+            while (!pending.isEmpty()) {
+                for (String dependent : dependents.getOrDefault(pending.poll(), Set.of())) {
+                    Path source = sourceOfClass.get(dependent);
+                    if (source != null && hashes.containsKey(source) && recompile.add(source)) {
+                        for (String cls : previous.classesBySource().get(source)) {
+                            if (seen.add(cls)) {
+                                pending.add(cls);
+                            }
+                        }
+                    }
+                }
+            }
+
+            // Names alone, for inlined constants
+            boolean added = false;
+            if (mentionsChanged != null) {
+                for (Path source : hashes.keySet()) {
+                    if (!recompile.contains(source)
+                            && mentionsChanged.matcher(Files.readString(source, StandardCharsets.UTF_8)).find()) {
+                        recompile.add(source);
+                        added = true;
+                        for (String cls : previous.classesBySource().getOrDefault(source, Set.of())) {
+                            if (seen.add(cls)) {
+                                pending.add(cls);
+                            }
+                        }
+                    }
+                }
+                mentionsChanged = null;
+            }
+            if (!added) {
+                return recompile;
+            }
+        }
+    }
+
+    private static void record(Map<String, byte[]> classes, Map<String, Path> sources,
+                               Map<Path, Set<String>> classesBySource, Map<String, Set<String>> references)
+            throws IOException {
+        for (Map.Entry<String, byte[]> e : classes.entrySet()) {
+            Path source = sources.get(e.getKey());
+            if (source != null) {
+                classesBySource.computeIfAbsent(source, k -> new TreeSet<>()).add(e.getKey());
+            }
+            references.put(e.getKey(), ClassFileReferences.of(e.getValue()));
+        }
+    }
+
+    private static Map<Path, String> hashSources(Path srcDir) throws IOException {
+        Map<Path, String> hashes = new TreeMap<>();
+        try (Stream<Path> walk = Files.walk(srcDir)) {
+            for (Path p : (Iterable<Path>) walk::iterator) {
+                if (Files.isRegularFile(p) && p.toString().endsWith(".java")) {
+                    hashes.put(p, Hashing.toHex(Hashing.newSha256().digest(Files.readAllBytes(p))));
+                }
+            }
+        }
+        return hashes;
+    }
+
+    private static boolean classesPresent(Path binDir, WorkspaceState state) {
+        for (Set<String> classes : state.classesBySource().values()) {
+            for (String cls : classes) {
+                if (!Files.isRegularFile(classFile(binDir, cls))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void deleteClasses(Path binDir, Set<String> classes) throws IOException {
+        for (String cls : classes) {
+            Files.deleteIfExists(classFile(binDir, cls));
+        }
+    }
+
+    private static void deleteAllClasses(Path binDir) throws IOException {
+        if (!Files.exists(binDir)) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(binDir)) {
+            for (Path p : (Iterable<Path>) walk::iterator) {
+                if (p.toString().endsWith(".class")) {
+                    Files.delete(p);
+                }
+            }
+        }
+    }
+
+    private static Path classFile(Path binDir, String binaryName) {
+        return binDir.resolve(binaryName.replace('.', '/') + ".class");
+    }
+
+    // "pkg.Outer$Inner" -> "Outer"
+    private static String simpleName(String binaryName) {
+        String name = binaryName.substring(binaryName.lastIndexOf('.') + 1);
+        int dollar = name.indexOf('$');
+        return dollar > 0 ? name.substring(0, dollar) : name;
+    }
+
+    private static <T> Set<T> union(Set<T> a, Set<T> b) {
+        Set<T> all = new TreeSet<>(a);
+        all.addAll(b);
+        return all;
+    }
+}
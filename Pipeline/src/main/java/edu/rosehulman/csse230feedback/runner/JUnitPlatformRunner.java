@@ -25,22 +25,38 @@ import java.util.stream.Stream;
 /**
  * Runs JUnit 5 tests in-process using the JUnit Platform Launcher API.
  */
-public class JUnitPlatformRunner {
+public class JUnitPlatformRunner implements TestRunner {
 
     private static final int DEFAULT_TIMEOUT_SECONDS = 300;
     private static final String DISABLE_SIZE_CHECKS_PROP = "csse230.logger.disableSizeChecks";
+    private static final String DISABLE_TIMING_CHECKS_PROP = "csse230.logger.disableTimingChecks";
     private static final String BASE_DIR_PROP = "csse230.logger.baseDir";
 
+    // The logger finds its workspace through JVM-wide system properties, so only one launch at a time
+    private static final Object LAUNCH_LOCK = new Object();
+
     private final int timeoutSeconds;
     private final Path javaHome;
+    private final boolean disableTimingChecks;
 
     public JUnitPlatformRunner() {
-        this(DEFAULT_TIMEOUT_SECONDS, null);
+        this(DEFAULT_TIMEOUT_SECONDS, null, false);
     }
 
     public JUnitPlatformRunner(int timeoutSeconds, Path javaHome) {
+        this(timeoutSeconds, javaHome, false);
+    }
+
+    /**
+     * @param disableTimingChecks turn off the logger's student-facing time budget during each
+     *                            launch. Only for runs that share the machine with other
+     *                            workers, where overlapping runs would otherwise earn timing
+     *                            strikes and the logger would stop recording evidence.
+     */
+    public JUnitPlatformRunner(int timeoutSeconds, Path javaHome, boolean disableTimingChecks) {
         this.timeoutSeconds = timeoutSeconds;
         this.javaHome = javaHome;
+        this.disableTimingChecks = disableTimingChecks;
     }
 
     /**
@@ -65,6 +81,7 @@ public class JUnitPlatformRunner {
      * @return TestRunResult with execution details
      * @throws IOException if test discovery or execution fails to start
      */
+    @Override
     public TestRunResult runTests(Path workspace, Path depsDir, String testClass, String testMethod)
             throws IOException {
 
@@ -97,27 +114,40 @@ public class JUnitPlatformRunner {
         Launcher launcher = LauncherFactory.create();
         SummaryGeneratingListener listener = new SummaryGeneratingListener();
 
-        String prevDisable = System.getProperty(DISABLE_SIZE_CHECKS_PROP);
-        System.setProperty(DISABLE_SIZE_CHECKS_PROP, "true");
-        String prevBaseDir = System.getProperty(BASE_DIR_PROP);
-        System.setProperty(BASE_DIR_PROP, workspace.toAbsolutePath().toString());
-
-        ClassLoader original = Thread.currentThread().getContextClassLoader();
-        try (URLClassLoader testLoader = buildClassLoader(binDir, depsDir, original)) {
-            Thread.currentThread().setContextClassLoader(testLoader);
-            launcher.execute(request, listener);
-            invokeForceClose(testLoader);
-        } finally {
-            Thread.currentThread().setContextClassLoader(original);
-            if (prevDisable == null) {
-                System.clearProperty(DISABLE_SIZE_CHECKS_PROP);
-            } else {
-                System.setProperty(DISABLE_SIZE_CHECKS_PROP, prevDisable);
+        synchronized (LAUNCH_LOCK) {
+            String prevDisable = System.getProperty(DISABLE_SIZE_CHECKS_PROP);
+            System.setProperty(DISABLE_SIZE_CHECKS_PROP, "true");
+            String prevDisableTiming = System.getProperty(DISABLE_TIMING_CHECKS_PROP);
+            if (disableTimingChecks) {
+                System.setProperty(DISABLE_TIMING_CHECKS_PROP, "true");
             }
-            if (prevBaseDir == null) {
-                System.clearProperty(BASE_DIR_PROP);
-            } else {
-                System.setProperty(BASE_DIR_PROP, prevBaseDir);
+            String prevBaseDir = System.getProperty(BASE_DIR_PROP);
+            System.setProperty(BASE_DIR_PROP, workspace.toAbsolutePath().toString());
+
+            ClassLoader original = Thread.currentThread().getContextClassLoader();
+            try (URLClassLoader testLoader = buildClassLoader(binDir, depsDir, original)) {
+                Thread.currentThread().setContextClassLoader(testLoader);
+                launcher.execute(request, listener);
+                invokeForceClose(testLoader);
+            } finally {
+                Thread.currentThread().setContextClassLoader(original);
+                if (prevDisable == null) {
+                    System.clearProperty(DISABLE_SIZE_CHECKS_PROP);
+                } else {
+                    System.setProperty(DISABLE_SIZE_CHECKS_PROP, prevDisable);
+                }
+                if (disableTimingChecks) {
+                    if (prevDisableTiming == null) {
+                        System.clearProperty(DISABLE_TIMING_CHECKS_PROP);
+                    } else {
+                        System.setProperty(DISABLE_TIMING_CHECKS_PROP, prevDisableTiming);
+                    }
+                }
+                if (prevBaseDir == null) {
+                    System.clearProperty(BASE_DIR_PROP);
+                } else {
+                    System.setProperty(BASE_DIR_PROP, prevBaseDir);
+                }
             }
         }
 
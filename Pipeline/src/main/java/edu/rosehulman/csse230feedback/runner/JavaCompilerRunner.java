@@ -16,7 +16,7 @@ import java.util.stream.Stream;
 /**
  * Runs the Java compiler (javac) on workspace source files.
  */
-public class JavaCompilerRunner {
+public class JavaCompilerRunner implements SourceCompiler {
 
     private static final int DEFAULT_TIMEOUT_SECONDS = 120;
     private static final int DEFAULT_JAVA_VERSION = 17;
@@ -47,6 +47,7 @@ public class JavaCompilerRunner {
      * @return CompileResult with success/failure and output
      * @throws IOException if compilation process fails to start
      */
+    @Override
     public CompileResult compile(Path workspace, Path depsDir) throws IOException {
         // Convert to absolute paths to avoid issues when javac runs from workspace directory
         workspace = workspace.toAbsolutePath();
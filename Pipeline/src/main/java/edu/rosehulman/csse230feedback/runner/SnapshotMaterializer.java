@@ -3,13 +3,15 @@ package edu.rosehulman.csse230feedback.runner;
 import com.github.difflib.algorithm.DiffException;
 import com.github.difflib.patch.PatchFailedException;
 import edu.rosehulman.csse230feedback.data.DiffFileReconstructor;
+import edu.rosehulman.csse230feedback.data.PatchIndex;
 import edu.rosehulman.csse230feedback.model.PatchPointer;
+import edu.rosehulman.csse230feedback.util.Hashing;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
+import java.security.MessageDigest;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -21,7 +23,27 @@ import java.util.stream.Collectors;
  */
 public class SnapshotMaterializer {
 
-    private final DiffFileReconstructor reconstructor = new DiffFileReconstructor();
+    private final DiffFileReconstructor reconstructor;
+
+    public SnapshotMaterializer() {
+        this(new DiffFileReconstructor());
+    }
+
+    public SnapshotMaterializer(DiffFileReconstructor reconstructor) {
+        this.reconstructor = reconstructor;
+    }
+
+    /**
+     * Result of materializing a snapshot.
+     *
+     * contentHash is a SHA-256 over every file's key and reconstructed content, so two runs
+     * with the same source tree share it even when their patches differ. It is null when no
+     * file was written or some file failed to reconstruct.
+     */
+    public record MaterializedSnapshot(
+        int filesWritten,
+        String contentHash
+    ) {}
 
     /**
      * Materializes all files for a specific run into the workspace src/ directory.
@@ -38,19 +60,32 @@ public class SnapshotMaterializer {
     public int materializeSnapshot(Path workspace, Path archivesDir, Path cacheDir,
             int runNumber, List<PatchPointer> patches, List<String> warnings)
             throws IOException {
+        return materializeSnapshot(workspace, archivesDir, cacheDir, runNumber,
+            PatchIndex.build(patches), warnings);
+    }
+
+    /**
+     * Materializes all files patched at exactly {@code runNumber}, looked up in a prebuilt index.
+     *
+     * @see #materializeSnapshot(Path, Path, Path, int, List, List)
+     */
+    public int materializeSnapshot(Path workspace, Path archivesDir, Path cacheDir,
+            int runNumber, PatchIndex patchIndex, List<String> warnings)
+            throws IOException {
 
         Path srcDir = workspace.resolve("src");
 
-        // Filter patches for this run number
-        List<PatchPointer> runPatches = patches.stream()
-            .filter(p -> p.runNumber() == runNumber)
-            .collect(Collectors.toList());
+        // Patches for this run number
+        List<PatchPointer> runPatches = patchIndex.patchesAt(runNumber);
 
         if (runPatches.isEmpty()) {
             warnings.add("No patches found for run " + runNumber);
             return 0;
         }
 
+        // One pass per archive for all of this run's baselines and patches
+        reconstructor.prefetch(archivesDir, runPatches, cacheDir);
+
         int filesWritten = 0;
 
         for (PatchPointer patch : runPatches) {
@@ -95,25 +130,48 @@ public class SnapshotMaterializer {
     public int materializeLatestSnapshot(Path workspace, Path archivesDir, Path cacheDir,
             int runNumber, List<PatchPointer> allPatches, List<String> warnings)
             throws IOException {
+        return materializeLatestSnapshot(workspace, archivesDir, cacheDir, runNumber,
+            PatchIndex.build(allPatches), warnings);
+    }
+
+    /**
+     * Materializes the latest version of every file at or before {@code runNumber}, using a
+     * prebuilt index so callers processing many runs build it only once.
+     *
+     * @see #materializeLatestSnapshot(Path, Path, Path, int, List, List)
+     */
+    public int materializeLatestSnapshot(Path workspace, Path archivesDir, Path cacheDir,
+            int runNumber, PatchIndex patchIndex, List<String> warnings)
+            throws IOException {
+        return materializeHashedSnapshot(workspace, archivesDir, cacheDir, runNumber, patchIndex, warnings)
+            .filesWritten();
+    }
+
+    /**
+     * Materializes the latest version of every file at or before {@code runNumber}, like
+     * {@link #materializeLatestSnapshot(Path, Path, Path, int, PatchIndex, List)}, and hashes
+     * the snapshot as it is written.
+     */
+    public MaterializedSnapshot materializeHashedSnapshot(Path workspace, Path archivesDir, Path cacheDir,
+            int runNumber, PatchIndex patchIndex, List<String> warnings)
+            throws IOException {
 
         Path srcDir = workspace.resolve("src");
 
-        // Group patches by fileKey and find the latest one <= runNumber
-        Map<String, PatchPointer> latestPatches = allPatches.stream()
-            .filter(p -> p.runNumber() <= runNumber)
-            .collect(Collectors.toMap(
-                PatchPointer::fileKey,
-                p -> p,
-                (existing, replacement) ->
-                    existing.runNumber() >= replacement.runNumber() ? existing : replacement
-            ));
+        // Latest patch <= runNumber for each fileKey
+        Map<String, PatchPointer> latestPatches = patchIndex.snapshotAt(runNumber);
 
         if (latestPatches.isEmpty()) {
             warnings.add("No patches found at or before run " + runNumber);
-            return 0;
+            return new MaterializedSnapshot(0, null);
         }
 
+        reconstructor.prefetch(archivesDir, latestPatches.values(), cacheDir);
+
         int filesWritten = 0;
+        boolean complete = true;
+        // File keys come in sorted order, so the hash does not depend on patch order
+        MessageDigest digest = Hashing.newSha256();
 
         for (PatchPointer patch : latestPatches.values()) {
             try {
@@ -124,14 +182,25 @@ public class SnapshotMaterializer {
                 Files.write(targetPath, content, StandardCharsets.UTF_8);
                 filesWritten++;
 
+                digest.update(patch.fileKey().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                for (String line : content) {
+                    digest.update(line.getBytes(StandardCharsets.UTF_8));
+                    digest.update((byte) '\n');
+                }
+                digest.update((byte) 0);
+
             } catch (DiffException | PatchFailedException e) {
                 warnings.add("Failed to reconstruct " + patch.fileKey() + ": " + e.getMessage());
+                complete = false;
             } catch (IllegalStateException e) {
                 warnings.add("Skipping " + patch.fileKey() + ": " + e.getMessage());
+                complete = false;
             }
         }
 
-        return filesWritten;
+        String contentHash = complete && filesWritten > 0 ? Hashing.toHex(digest.digest()) : null;
+        return new MaterializedSnapshot(filesWritten, contentHash);
     }
 
     /**
@@ -199,4 +268,14 @@ public class SnapshotMaterializer {
             .sorted()
             .collect(Collectors.toList());
     }
+
+    /**
+     * Gets all run numbers that have patches.
+     *
+     * @param patchIndex Index over all patches
+     * @return Sorted list of run numbers
+     */
+    public List<Integer> getAvailableRunNumbers(PatchIndex patchIndex) {
+        return patchIndex.changedRunList();
+    }
 }
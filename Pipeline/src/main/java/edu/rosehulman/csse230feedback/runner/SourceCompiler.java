@@ -0,0 +1,23 @@
+package edu.rosehulman.csse230feedback.runner;
+
+import edu.rosehulman.csse230feedback.model.CompileResult;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Compiles a workspace's src/ into its bin/, either with a forked javac
+ * ({@link JavaCompilerRunner}) or in-process ({@link InMemoryJavaCompiler}).
+ */
+public interface SourceCompiler {
+
+    /**
+     * Compiles all Java files in the workspace src/ directory.
+     *
+     * @param workspace Path to workspace root (contains src/ and bin/)
+     * @param depsDir Path to dependencies directory (JARs)
+     * @return CompileResult with success/failure and output
+     * @throws IOException if the compiler cannot be run
+     */
+    CompileResult compile(Path workspace, Path depsDir) throws IOException;
+}
@@ -0,0 +1,25 @@
+package edu.rosehulman.csse230feedback.runner;
+
+import edu.rosehulman.csse230feedback.model.TestRunResult;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Runs the compiled tests of a workspace, either in-process ({@link JUnitPlatformRunner}) or on
+ * a forked worker JVM ({@link TestWorkerPool}).
+ */
+public interface TestRunner {
+
+    /**
+     * Runs tests in the workspace.
+     *
+     * @param workspace Path to workspace root (contains src/ and bin/)
+     * @param depsDir Path to dependencies directory (JARs)
+     * @param testClass Optional specific test class to run (e.g., "TestFoo")
+     * @param testMethod Optional specific test method (requires testClass)
+     * @return TestRunResult with execution details
+     * @throws IOException if test discovery or execution fails to start
+     */
+    TestRunResult runTests(Path workspace, Path depsDir, String testClass, String testMethod) throws IOException;
+}
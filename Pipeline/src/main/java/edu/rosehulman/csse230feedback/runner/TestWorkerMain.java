@@ -0,0 +1,126 @@
+package edu.rosehulman.csse230feedback.runner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.rosehulman.csse230feedback.model.TestRunResult;
+
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Entry point of a forked test worker (see {@link TestWorkerPool}).
+ *
+ * Reads one request per line from stdin, runs it with {@link JUnitPlatformRunner}, and writes one
+ * response per line to stdout until stdin closes. Anything the tests print goes to stderr, so it
+ * cannot corrupt the responses.
+ *
+ * {@code maxThreads} (argument 0) caps the live threads of the worker's thread group. A watchdog
+ * checks the count every {@value #WATCHDOG_INTERVAL_MS} ms while a run is in progress; once the
+ * tests exceed it, the watchdog answers with an error and halts the JVM mid-run, so a test that
+ * keeps spawning threads cannot exhaust the machine before the pool's timeout. A run that ends
+ * over the limit (threads leaked past the run), or in an Error, is answered normally and the
+ * worker then exits. Either way the pool replaces it. Argument 1, when {@code true}, turns off the
+ * logger's timing checks for every run.
+ */
+public final class TestWorkerMain {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    // The pool enforces the real timeout; this only matches JUnitPlatformRunner's default
+    private static final int DEFAULT_TIMEOUT_SECONDS = 300;
+    static final long WATCHDOG_INTERVAL_MS = 50;
+
+    private TestWorkerMain() {}
+
+    public static void main(String[] args) throws IOException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Integer.MAX_VALUE;
+        boolean disableTimingChecks = args.length > 1 && Boolean.parseBoolean(args[1]);
+
+        PrintStream responses = new PrintStream(new FileOutputStream(FileDescriptor.out), true,
+            StandardCharsets.UTF_8);
+        System.setOut(System.err);
+
+        BufferedReader requests = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        JUnitPlatformRunner runner = new JUnitPlatformRunner(DEFAULT_TIMEOUT_SECONDS, null, disableTimingChecks);
+        ThreadGroup group = Thread.currentThread().getThreadGroup();
+        Object answerLock = new Object();
+        AtomicBoolean inRun = new AtomicBoolean();
+
+        Thread watchdog = new Thread(() -> {
+            while (true) {
+                try {
+                    Thread.sleep(WATCHDOG_INTERVAL_MS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                int live = group.activeCount();
+                if (live <= maxThreads) {
+                    continue;
+                }
+                synchronized (answerLock) {
+                    // A run that just finished answers for itself
+                    if (!inRun.get()) {
+                        continue;
+                    }
+                    System.err.println("Thread limit exceeded: " + live + " live threads during the run");
+                    try {
+                        responses.println(MAPPER.writeValueAsString(new TestWorkerPool.Response(null,
+                            "Thread limit exceeded: " + live + " live threads (limit " + maxThreads + ")", true)));
+                    } catch (IOException e) {
+                        // Nothing to answer with; the pool sees the worker exit instead
+                    }
+                    // Not exit: shutdown hooks could wait on the very threads being stopped
+                    Runtime.getRuntime().halt(1);
+                }
+            }
+        }, "test-worker-watchdog");
+        watchdog.setDaemon(true);
+        watchdog.start();
+
+        String line;
+        while ((line = requests.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+
+            TestRunResult result = null;
+            String error = null;
+            boolean retiring = false;
+            inRun.set(true);
+            try {
+                TestWorkerPool.Request request = MAPPER.readValue(line, TestWorkerPool.Request.class);
+                result = runner.runTests(
+                    Path.of(request.workspace()),
+                    request.depsDir() != null ? Path.of(request.depsDir()) : null,
+                    request.testClass(),
+                    request.testMethod()
+                );
+            } catch (Exception e) {
+                error = e.toString();
+            } catch (Error e) {
+                error = e.toString();
+                retiring = true;
+            }
+
+            synchronized (answerLock) {
+                inRun.set(false);
+            }
+            if (group.activeCount() > maxThreads) {
+                System.err.println("Retiring: " + group.activeCount() + " live threads after the run");
+                retiring = true;
+            }
+
+            responses.println(MAPPER.writeValueAsString(new TestWorkerPool.Response(result, error, retiring)));
+            if (retiring) {
+                // Leaked non-daemon threads would otherwise keep the JVM alive
+                System.exit(0);
+            }
+        }
+        System.exit(0);
+    }
+}
@@ -0,0 +1,273 @@
+package edu.rosehulman.csse230feedback.runner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.rosehulman.csse230feedback.model.TestRunResult;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs tests on a pool of long-lived forked JVMs (see {@link TestWorkerMain}) instead of in the
+ * pipeline JVM.
+ *
+ * Each worker runs one request at a time, so the logger's system properties and the context
+ * class loader are never shared between workspaces, and the pool runs as many workspaces at once
+ * as it has workers. Workers are started when the pool is created and reused across runs, so a
+ * run pays for JVM startup only after its worker had to be replaced.
+ *
+ * Protocol: one JSON {@link Request} per line on the worker's stdin, answered by one JSON
+ * {@link Response} per line on its stdout. A worker is replaced when it exits, when a run
+ * exceeds the test timeout, or when it retires itself because the tests went over its thread
+ * limit, during the run or by leaking threads past it.
+ * Worker stderr (including anything the tests print) goes to test_worker_&lt;n&gt;.log in the
+ * log directory.
+ */
+public class TestWorkerPool implements TestRunner, AutoCloseable {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int CLOSE_GRACE_SECONDS = 5;
+
+    /** One test run for a worker; null selectors run every test class. */
+    record Request(String workspace, String depsDir, String testClass, String testMethod) {}
+
+    /**
+     * A worker's answer: the result, or the error that kept the tests from running. A retiring
+     * worker exits after answering.
+     */
+    record Response(TestRunResult result, String error, boolean retiring) {}
+
+    private final List<String> command;
+    private final Path logDir;
+    private final int timeoutSeconds;
+    private final List<Worker> workers = new ArrayList<>();
+    private final BlockingQueue<Worker> idle = new LinkedBlockingQueue<>();
+    private final ExecutorService readers = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "test-worker-reader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Starts {@code size} workers.
+     *
+     * @param size Number of worker JVMs
+     * @param javaHome Java home for the workers (null to use the pipeline's own)
+     * @param heapMb Maximum heap per worker, in MB
+     * @param maxThreads Live threads a worker may have during or after a run before it is replaced
+     * @param timeoutSeconds Time a single run may take before its worker is killed
+     * @param logDir Directory for the workers' stderr logs
+     * @param disableTimingChecks Turn off the logger's timing checks, for pools whose runs overlap
+     * @throws IOException if a worker cannot be started
+     */
+    public TestWorkerPool(int size, Path javaHome, int heapMb, int maxThreads, int timeoutSeconds, Path logDir,
+                          boolean disableTimingChecks)
+            throws IOException {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be >= 1");
+        }
+        this.logDir = logDir;
+        this.timeoutSeconds = timeoutSeconds;
+
+        Path java = (javaHome != null ? javaHome : Path.of(System.getProperty("java.home")))
+            .resolve("bin").resolve("java");
+        this.command = List.of(
+            java.toString(),
+            "-Xmx" + heapMb + "m",
+            // One GC thread instead of one per core; the heaps are small
+            "-XX:+UseSerialGC",
+            "-Dfile.encoding=UTF-8",
+            "-cp", System.getProperty("java.class.path"),
+            TestWorkerMain.class.getName(),
+            String.valueOf(maxThreads),
+            String.valueOf(disableTimingChecks)
+        );
+
+        Files.createDirectories(logDir);
+        try {
+            for (int i = 0; i < size; i++) {
+                Worker worker = new Worker(i);
+                workers.add(worker);
+                worker.start();
+                idle.add(worker);
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    public int size() {
+        return workers.size();
+    }
+
+    /**
+     * Runs the tests on the next idle worker, waiting for one if all are busy.
+     *
+     * @throws IOException if the worker fails, exits or times out before answering
+     */
+    @Override
+    public TestRunResult runTests(Path workspace, Path depsDir, String testClass, String testMethod)
+            throws IOException {
+        Worker worker;
+        try {
+            worker = idle.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a test worker");
+        }
+
+        try {
+            worker.ensureStarted();
+            Response response = worker.call(new Request(
+                workspace.toAbsolutePath().toString(),
+                depsDir != null ? depsDir.toAbsolutePath().toString() : null,
+                testClass,
+                testMethod
+            ));
+            if (response.retiring()) {
+                worker.stop();
+            }
+            if (response.error() != null) {
+                throw new IOException("Test worker " + worker.id + ": " + response.error());
+            }
+            return response.result();
+        } finally {
+            idle.add(worker);
+        }
+    }
+
+    /**
+     * Asks every worker to exit by closing its stdin, then kills any that have not within a
+     * few seconds.
+     */
+    @Override
+    public void close() {
+        for (Worker worker : workers) {
+            worker.closeInput();
+        }
+        for (Worker worker : workers) {
+            worker.awaitExit();
+        }
+        readers.shutdownNow();
+    }
+
+    private final class Worker {
+        private final int id;
+        private Process process;
+        private BufferedWriter stdin;
+        private BufferedReader stdout;
+
+        private Worker(int id) {
+            this.id = id;
+        }
+
+        private void start() throws IOException {
+            ProcessBuilder pb = new ProcessBuilder(command);
+            pb.redirectError(ProcessBuilder.Redirect.appendTo(
+                logDir.resolve("test_worker_" + id + ".log").toFile()));
+            process = pb.start();
+            stdin = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+            stdout = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        /** Replaces the JVM if the last one exited or was stopped. */
+        private void ensureStarted() throws IOException {
+            if (process == null || !process.isAlive()) {
+                stop();
+                start();
+            }
+        }
+
+        private Response call(Request request) throws IOException {
+            stdin.write(MAPPER.writeValueAsString(request));
+            stdin.newLine();
+            stdin.flush();
+
+            BufferedReader reader = stdout;
+            Future<String> line = readers.submit(reader::readLine);
+            String json;
+            try {
+                json = line.get(timeoutSeconds, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                stop();
+                throw new IOException("Test worker " + id + " timed out after " + timeoutSeconds
+                    + " seconds and was replaced");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stop();
+                throw new InterruptedIOException("Interrupted while waiting for test worker " + id);
+            } catch (ExecutionException e) {
+                stop();
+                throw new IOException("Lost test worker " + id + ": " + e.getCause().getMessage(), e.getCause());
+            }
+
+            if (json == null) {
+                String exit = exitDescription();
+                stop();
+                throw new IOException("Test worker " + id + " exited during the run (" + exit
+                    + "); see test_worker_" + id + ".log");
+            }
+            return MAPPER.readValue(json, Response.class);
+        }
+
+        private String exitDescription() {
+            try {
+                return process.waitFor(CLOSE_GRACE_SECONDS, TimeUnit.SECONDS)
+                    ? "exit code " + process.exitValue()
+                    : "still running";
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return "interrupted";
+            }
+        }
+
+        private void stop() {
+            if (process != null) {
+                process.destroyForcibly();
+                process = null;
+            }
+        }
+
+        private void closeInput() {
+            if (process != null) {
+                try {
+                    stdin.close();
+                } catch (IOException e) {
+                    // The worker is gone already; awaitExit cleans up
+                }
+            }
+        }
+
+        private void awaitExit() {
+            if (process == null) {
+                return;
+            }
+            try {
+                if (!process.waitFor(CLOSE_GRACE_SECONDS, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                process.destroyForcibly();
+            }
+            process = null;
+        }
+    }
+}
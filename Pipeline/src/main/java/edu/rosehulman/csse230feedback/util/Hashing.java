@@ -11,12 +11,7 @@ public final class Hashing {
     private Hashing() {}
 
     public static String sha256(Path path) throws IOException {
-        MessageDigest md;
-        try {
-            md = MessageDigest.getInstance("SHA-256");
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
-        }
+        MessageDigest md = newSha256();
 
         try (InputStream in = Files.newInputStream(path)) {
             byte[] buf = new byte[8192];
@@ -28,7 +23,18 @@ public final class Hashing {
         return toHex(md.digest());
     }
 
-    private static String toHex(byte[] bytes) {
+    /**
+     * Creates a fresh SHA-256 digest for callers that hash while streaming.
+     */
+    public static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static String toHex(byte[] bytes) {
         StringBuilder sb = new StringBuilder(bytes.length * 2);
         for (byte b : bytes) {
             sb.append(Character.forDigit((b >> 4) & 0xF, 16));
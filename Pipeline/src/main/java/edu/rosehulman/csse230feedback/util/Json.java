@@ -1,14 +1,19 @@
 package edu.rosehulman.csse230feedback.util;
 
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.List;
 
 public final class Json {
@@ -44,4 +49,54 @@ public final class Json {
             }
         }
     }
+
+    /**
+     * Reads every non-blank line of a JSONL file as a {@code type}.
+     */
+    public static <T> List<T> readJsonl(Path in, Class<T> type) throws IOException {
+        List<T> records = new ArrayList<>();
+        try (BufferedReader r = Files.newBufferedReader(in, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                if (!line.isBlank()) {
+                    records.add(MAPPER.readValue(line, type));
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Appends records to an existing JSONL file (creating it if needed).
+     */
+    public static <T> void appendJsonl(Path out, List<T> records) throws IOException {
+        Files.createDirectories(out.getParent());
+        try (BufferedWriter w = Files.newBufferedWriter(out, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (T r : records) {
+                w.write(COMPACT_MAPPER.writeValueAsString(r));
+                w.newLine();
+            }
+        }
+    }
+
+    /**
+     * Reads the value at the parser's current token the way {@code JsonNode.asText()} would
+     * render it (containers become "" and are skipped, null becomes "null"), leaving the parser
+     * on the value's last token.
+     */
+    public static String valueAsText(JsonParser p) throws IOException {
+        JsonToken t = p.currentToken();
+        if (t == null) {
+            return "";
+        }
+        if (t.isStructStart()) {
+            p.skipChildren();
+            return "";
+        }
+        if (t == JsonToken.VALUE_NULL) {
+            return "null";
+        }
+        return p.getText();
+    }
 }
@@ -0,0 +1,594 @@
+package helpers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.github.difflib.patch.PatchFailedException;
+
+/**
+ * Allocation-light replacement for {@link DiffReplayer#replay(Path, Path)}.
+ *
+ * Both files are scanned as bytes: header lines ("N;", "TYPE", "srcPos,tgtPos", "count,") are
+ * parsed in place without trim/split, source lines are skipped unless verifying, and the deltas
+ * are merged into a preallocated line array in one forward pass instead of being applied through
+ * DiffUtils.patch. Lines are split exactly as Files.readAllLines splits them (\n, \r or \r\n) and
+ * decoded as strict UTF-8, so results are identical to DiffReplayer for every patch it accepts.
+ *
+ * Without strict mode, source lines are not compared against the baseline; positions are still
+ * bounds-checked. Strict mode adds the same content check DiffUtils performs.
+ */
+public final class FastDiffReplayer {
+
+    private static final byte[] FILE_CREATED = "File created!".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FILE_TOO_LARGE = "File too large!".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Receives a reconstructed version as a sequence of baseline ranges and new lines, in order.
+     */
+    public interface EditSink {
+        /** The next {@code count} lines are the baseline's lines starting at {@code from}. */
+        void keep(int from, int count);
+
+        /** The next lines are {@code lines}, which are not in the baseline. */
+        void insert(String[] lines);
+    }
+
+    /** What a patch file holds; the names match DiffFileReconstructor.detectPatchKind. */
+    public enum PatchKind { EMPTY, FILE_CREATED, FILE_TOO_LARGE, DELTA_PATCH }
+
+    /**
+     * Summary of one patch file. Lines added and removed count what a replay would insert and
+     * remove (an INSERT removes nothing, a DELETE adds nothing); they are 0 for every kind but
+     * DELTA_PATCH.
+     */
+    public record PatchStats(PatchKind kind, int deltaCount, int linesAdded, int linesRemoved) {}
+
+    private FastDiffReplayer() {}
+
+    public static List<String> replay(Path baselinePath, Path patchPath) throws IOException, PatchFailedException {
+        return replay(baselinePath, patchPath, false);
+    }
+
+    public static List<String> replay(Path baselinePath, Path patchPath, boolean strict)
+            throws IOException, PatchFailedException {
+        return replay(Files.readAllBytes(baselinePath), Files.readAllBytes(patchPath), strict);
+    }
+
+    /**
+     * Reconstructs a file version from UTF-8 baseline and patch bytes.
+     *
+     * @return the reconstructed lines; the list is fixed-size
+     */
+    public static List<String> replay(byte[] baseline, byte[] patch, boolean strict)
+            throws IOException, PatchFailedException {
+
+        Lines patchLines = Lines.split(patch);
+        if (patchLines.count == 0) {
+            return decodeAll(baseline);
+        }
+
+        // Sentinels written by the logger instead of a delta list
+        if (patchLines.trimmedEquals(0, FILE_CREATED)) {
+            return decodeAll(baseline);
+        }
+        if (patchLines.trimmedEquals(0, FILE_TOO_LARGE)) {
+            throw new IllegalStateException("Cannot replay patch: file was logged as too large.");
+        }
+
+        return apply(decodeLines(baseline), patchLines, strict);
+    }
+
+    /**
+     * Replays a patch against a baseline that was already split and decoded with
+     * {@link #decodeLines(byte[])}, so callers applying many patches to one baseline parse it once.
+     * The baseline array is not modified.
+     *
+     * @return the reconstructed lines; the list is fixed-size
+     */
+    public static List<String> replay(String[] baseline, byte[] patch, boolean strict)
+            throws IOException, PatchFailedException {
+
+        Lines patchLines = Lines.split(patch);
+        if (patchLines.count == 0 || patchLines.trimmedEquals(0, FILE_CREATED)) {
+            return Arrays.asList(baseline.clone());
+        }
+        if (patchLines.trimmedEquals(0, FILE_TOO_LARGE)) {
+            throw new IllegalStateException("Cannot replay patch: file was logged as too large.");
+        }
+        return apply(baseline, patchLines, strict);
+    }
+
+    /**
+     * Like {@link #replay(String[], byte[], boolean)}, but describes the result to {@code sink}
+     * instead of copying it, so versions of one baseline can share its lines. The rare patch whose
+     * deltas overlap is reported as a single insert of the whole result.
+     */
+    public static void replay(String[] baseline, byte[] patch, boolean strict, EditSink sink)
+            throws IOException, PatchFailedException {
+
+        Lines patchLines = Lines.split(patch);
+        if (patchLines.count == 0 || patchLines.trimmedEquals(0, FILE_CREATED)) {
+            sink.keep(0, baseline.length);
+            return;
+        }
+        if (patchLines.trimmedEquals(0, FILE_TOO_LARGE)) {
+            throw new IllegalStateException("Cannot replay patch: file was logged as too large.");
+        }
+
+        Decoder decoder = new Decoder();
+        ParsedPatch parsed = ParsedPatch.parse(patchLines);
+        if (parsed.isDisjoint()) {
+            for (int d = 0; d < parsed.count; d++) {
+                checkBounds(parsed.srcPos[d], parsed.srcCount[d], baseline.length);
+            }
+            mergeForward(baseline, parsed, patchLines, decoder, strict, sink);
+        } else {
+            sink.insert(applyReversed(baseline, parsed, patchLines, decoder, strict).toArray(new String[0]));
+        }
+    }
+
+    /**
+     * Classifies a patch and counts its deltas and changed lines without decoding any text.
+     *
+     * @throws IllegalArgumentException if a delta patch is malformed
+     */
+    public static PatchStats stats(byte[] patch) {
+        Lines patchLines = Lines.split(patch);
+        if (patchLines.count == 0) {
+            return new PatchStats(PatchKind.EMPTY, 0, 0, 0);
+        }
+        if (patchLines.trimmedEquals(0, FILE_CREATED)) {
+            return new PatchStats(PatchKind.FILE_CREATED, 0, 0, 0);
+        }
+        if (patchLines.trimmedEquals(0, FILE_TOO_LARGE)) {
+            return new PatchStats(PatchKind.FILE_TOO_LARGE, 0, 0, 0);
+        }
+
+        ParsedPatch parsed = ParsedPatch.parse(patchLines);
+        int added = 0;
+        int removed = 0;
+        for (int d = 0; d < parsed.count; d++) {
+            added += parsed.insertCount[d];
+            removed += parsed.removeCount[d];
+        }
+        return new PatchStats(PatchKind.DELTA_PATCH, parsed.count, added, removed);
+    }
+
+    /**
+     * Splits and decodes UTF-8 bytes into lines exactly as Files.readAllLines does.
+     */
+    public static String[] decodeLines(byte[] bytes) throws CharacterCodingException {
+        Lines lines = Lines.split(bytes);
+        Decoder decoder = new Decoder();
+        String[] out = new String[lines.count];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = lines.decode(i, decoder);
+        }
+        return out;
+    }
+
+    private static List<String> apply(String[] base, Lines patchLines, boolean strict)
+            throws IOException, PatchFailedException {
+        Decoder decoder = new Decoder();
+        ParsedPatch parsed = ParsedPatch.parse(patchLines);
+
+        if (parsed.isDisjoint()) {
+            return Arrays.asList(mergeForward(base, parsed, patchLines, decoder, strict));
+        }
+        return applyReversed(base, parsed, patchLines, decoder, strict);
+    }
+
+    /**
+     * One pass over baseline and deltas. Valid only when the deltas' source ranges do not overlap,
+     * which holds for everything DiffUtils produces; equivalent to applying them last to first.
+     */
+    private static String[] mergeForward(String[] base, ParsedPatch p, Lines patchLines, Decoder decoder,
+                                         boolean strict) throws IOException, PatchFailedException {
+        int size = base.length;
+        for (int d = 0; d < p.count; d++) {
+            checkBounds(p.srcPos[d], p.srcCount[d], base.length);
+            size += p.insertCount[d] - p.removeCount[d];
+        }
+
+        String[] out = new String[size];
+        mergeForward(base, p, patchLines, decoder, strict, new EditSink() {
+            private int o;
+
+            @Override
+            public void keep(int from, int count) {
+                System.arraycopy(base, from, out, o, count);
+                o += count;
+            }
+
+            @Override
+            public void insert(String[] lines) {
+                System.arraycopy(lines, 0, out, o, lines.length);
+                o += lines.length;
+            }
+        });
+        return out;
+    }
+
+    /**
+     * The forward merge itself; positions must already be bounds-checked.
+     */
+    private static void mergeForward(String[] base, ParsedPatch p, Lines patchLines, Decoder decoder,
+                                     boolean strict, EditSink sink) throws IOException, PatchFailedException {
+        int in = 0;
+        for (int d : p.order) {
+            int pos = p.srcPos[d];
+            if (strict) {
+                verify(base, pos, p.srcCount[d], p.srcLine[d], patchLines, decoder);
+            }
+            if (pos > in) {
+                sink.keep(in, pos - in);
+            }
+            if (p.insertCount[d] > 0) {
+                String[] inserted = new String[p.insertCount[d]];
+                for (int t = 0; t < inserted.length; t++) {
+                    inserted[t] = patchLines.decode(p.tgtLine[d] + t, decoder);
+                }
+                sink.insert(inserted);
+            }
+            in = pos + p.removeCount[d];
+        }
+        if (base.length > in) {
+            sink.keep(in, base.length - in);
+        }
+    }
+
+    /**
+     * General path for overlapping deltas: applies them last to first in source order, as
+     * DiffUtils' Patch.applyTo does.
+     */
+    private static List<String> applyReversed(String[] base, ParsedPatch p, Lines patchLines, Decoder decoder,
+                                              boolean strict) throws IOException, PatchFailedException {
+        List<String> result = new ArrayList<>(Arrays.asList(base));
+        for (int k = p.count - 1; k >= 0; k--) {
+            int d = p.order[k];
+            int pos = p.srcPos[d];
+            checkBounds(pos, p.srcCount[d], result.size());
+            if (strict) {
+                verify(result.toArray(new String[0]), pos, p.srcCount[d], p.srcLine[d], patchLines, decoder);
+            }
+            result.subList(pos, pos + p.removeCount[d]).clear();
+            List<String> target = new ArrayList<>(p.insertCount[d]);
+            for (int t = 0; t < p.insertCount[d]; t++) {
+                target.add(patchLines.decode(p.tgtLine[d] + t, decoder));
+            }
+            result.addAll(pos, target);
+        }
+        return result;
+    }
+
+    private static void checkBounds(int pos, int count, int size) throws PatchFailedException {
+        if (pos < 0 || pos > size || pos + count > size) {
+            throw new PatchFailedException("Incorrect Chunk: the position of chunk > target size");
+        }
+    }
+
+    private static void verify(String[] target, int pos, int count, int firstPatchLine, Lines patchLines,
+                               Decoder decoder) throws IOException, PatchFailedException {
+        for (int i = 0; i < count; i++) {
+            if (!target[pos + i].equals(patchLines.decode(firstPatchLine + i, decoder))) {
+                throw new PatchFailedException("Incorrect Chunk: the chunk content doesn't match the target");
+            }
+        }
+    }
+
+    private static List<String> decodeAll(byte[] bytes) throws IOException {
+        return Arrays.asList(decodeLines(bytes));
+    }
+
+    /**
+     * Deltas as parallel int arrays; line fields are indexes into the patch's {@link Lines}.
+     * Like DiffUtils' delta classes, an INSERT removes nothing and a DELETE adds nothing whatever
+     * its recorded counts, and deltas apply in (stable) source position order, not file order.
+     */
+    private static final class ParsedPatch {
+        final int count;
+        final int[] srcPos;
+        final int[] srcCount;
+        final int[] srcLine;
+        final int[] tgtCount;
+        final int[] tgtLine;
+        final int[] removeCount;
+        final int[] insertCount;
+        final int[] order;
+
+        private ParsedPatch(int count) {
+            this.count = count;
+            this.srcPos = new int[count];
+            this.srcCount = new int[count];
+            this.srcLine = new int[count];
+            this.tgtCount = new int[count];
+            this.tgtLine = new int[count];
+            this.removeCount = new int[count];
+            this.insertCount = new int[count];
+            this.order = new int[count];
+        }
+
+        static ParsedPatch parse(Lines lines) {
+            int index = 0;
+
+            // Header: "N;"
+            int numDeltas = lines.parseHeader(index++);
+            if (numDeltas < 0) {
+                throw new NumberFormatException("Negative delta count: " + numDeltas);
+            }
+            ParsedPatch p = new ParsedPatch(numDeltas);
+
+            for (int d = 0; d < numDeltas; d++) {
+                if (index >= lines.count) {
+                    throw new IllegalArgumentException("Malformed patch file: not enough lines for all deltas");
+                }
+                String type = lines.deltaType(index++);
+
+                if (index >= lines.count) {
+                    throw new IllegalArgumentException("Malformed patch file: missing positions line");
+                }
+                int[] positions = lines.parsePositions(index++);
+                p.srcPos[d] = positions[0];
+
+                if (index >= lines.count) {
+                    throw new IllegalArgumentException("Malformed patch file: missing source count");
+                }
+                int srcCount = lines.parseInt(index++, (byte) ',');
+                p.srcCount[d] = srcCount;
+                p.srcLine[d] = index;
+                if (srcCount < 0 || index + srcCount > lines.count) {
+                    throw new IllegalArgumentException("Malformed patch file: not enough source lines");
+                }
+                index += srcCount;
+
+                if (index >= lines.count) {
+                    throw new IllegalArgumentException("Malformed patch file: missing target count");
+                }
+                int tgtCount = lines.parseInt(index++, (byte) ',');
+                p.tgtCount[d] = tgtCount;
+                p.tgtLine[d] = index;
+                if (tgtCount < 0 || index + tgtCount > lines.count) {
+                    throw new IllegalArgumentException("Malformed patch file: not enough target lines");
+                }
+                index += tgtCount;
+
+                p.removeCount[d] = type.equals("INSERT") ? 0 : srcCount;
+                p.insertCount[d] = type.equals("DELETE") ? 0 : tgtCount;
+            }
+
+            // Stable insertion sort by source position; deltas almost always arrive sorted.
+            for (int d = 0; d < numDeltas; d++) {
+                int k = d;
+                while (k > 0 && p.srcPos[p.order[k - 1]] > p.srcPos[d]) {
+                    p.order[k] = p.order[k - 1];
+                    k--;
+                }
+                p.order[k] = d;
+            }
+            return p;
+        }
+
+        boolean isDisjoint() {
+            for (int k = 1; k < count; k++) {
+                int prev = order[k - 1];
+                if (srcPos[order[k]] < srcPos[prev] + removeCount[prev]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Line boundaries of a byte buffer, split like Files.readAllLines.
+     */
+    private static final class Lines {
+        final byte[] bytes;
+        final int count;
+        final int[] start;
+        final int[] end;
+        // Whether each line is pure ASCII and can skip the UTF-8 decoder.
+        final boolean[] ascii;
+
+        private Lines(byte[] bytes, int count, int[] start, int[] end, boolean[] ascii) {
+            this.bytes = bytes;
+            this.count = count;
+            this.start = start;
+            this.end = end;
+            this.ascii = ascii;
+        }
+
+        static Lines split(byte[] bytes) {
+            int capacity = 16;
+            int[] start = new int[capacity];
+            int[] end = new int[capacity];
+            boolean[] ascii = new boolean[capacity];
+            int count = 0;
+
+            int lineStart = 0;
+            boolean lineAscii = true;
+            int i = 0;
+            int n = bytes.length;
+            while (i < n) {
+                byte b = bytes[i];
+                if (b == '\n' || b == '\r') {
+                    if (count == capacity) {
+                        capacity *= 2;
+                        start = Arrays.copyOf(start, capacity);
+                        end = Arrays.copyOf(end, capacity);
+                        ascii = Arrays.copyOf(ascii, capacity);
+                    }
+                    start[count] = lineStart;
+                    end[count] = i;
+                    ascii[count] = lineAscii;
+                    count++;
+                    i += (b == '\r' && i + 1 < n && bytes[i + 1] == '\n') ? 2 : 1;
+                    lineStart = i;
+                    lineAscii = true;
+                } else {
+                    if (b < 0) {
+                        lineAscii = false;
+                    }
+                    i++;
+                }
+            }
+            if (lineStart < n) {
+                if (count == capacity) {
+                    capacity++;
+                    start = Arrays.copyOf(start, capacity);
+                    end = Arrays.copyOf(end, capacity);
+                    ascii = Arrays.copyOf(ascii, capacity);
+                }
+                start[count] = lineStart;
+                end[count] = n;
+                ascii[count] = lineAscii;
+                count++;
+            }
+            return new Lines(bytes, count, start, end, ascii);
+        }
+
+        String decode(int line, Decoder decoder) throws CharacterCodingException {
+            int s = start[line];
+            int len = end[line] - s;
+            if (ascii[line]) {
+                return new String(bytes, s, len, StandardCharsets.ISO_8859_1);
+            }
+            return decoder.decode(bytes, s, len);
+        }
+
+        /** String.trim() bounds: drops bytes <= ' ' at both ends. */
+        private int trimStart(int line) {
+            int s = start[line];
+            int e = end[line];
+            while (s < e && (bytes[s] & 0xFF) <= ' ') s++;
+            return s;
+        }
+
+        private int trimEnd(int line, int from) {
+            int e = end[line];
+            while (e > from && (bytes[e - 1] & 0xFF) <= ' ') e--;
+            return e;
+        }
+
+        boolean trimmedEquals(int line, byte[] expected) {
+            int s = trimStart(line);
+            int e = trimEnd(line, s);
+            return Arrays.equals(bytes, s, e, expected, 0, expected.length);
+        }
+
+        /** Parses "N;": the whole trimmed line, less one trailing ';'. */
+        int parseHeader(int line) {
+            int s = trimStart(line);
+            int e = trimEnd(line, s);
+            if (e > s && bytes[e - 1] == ';') {
+                e--;
+            }
+            return parseDecimal(s, e, line);
+        }
+
+        /**
+         * Parses the integer before the first {@code stop} byte, e.g. "5,".
+         */
+        int parseInt(int line, byte stop) {
+            int s = trimStart(line);
+            int e = trimEnd(line, s);
+            int cut = s;
+            while (cut < e && bytes[cut] != stop) cut++;
+            return parseDecimal(s, cut, line);
+        }
+
+        /** Parses "srcPos,tgtPos". */
+        int[] parsePositions(int line) {
+            int s = trimStart(line);
+            int e = trimEnd(line, s);
+            int comma = s;
+            while (comma < e && bytes[comma] != ',') comma++;
+            if (comma == e) {
+                throw new IllegalArgumentException("Malformed positions line: " + text(line));
+            }
+            int second = comma + 1;
+            int secondEnd = second;
+            while (secondEnd < e && bytes[secondEnd] != ',') secondEnd++;
+            for (int k = secondEnd; k < e; k++) {
+                if (bytes[k] != ',') {
+                    throw new IllegalArgumentException("Malformed positions line: " + text(line));
+                }
+            }
+            return new int[] {parseDecimal(s, comma, line), parseDecimal(second, secondEnd, line)};
+        }
+
+        /** Returns INSERT, DELETE or CHANGE; anything else is rejected as DiffReplayer rejects it. */
+        String deltaType(int line) {
+            int s = trimStart(line);
+            int e = trimEnd(line, s);
+            String type = new String(bytes, s, e - s, StandardCharsets.ISO_8859_1);
+            return switch (type) {
+                case "INSERT", "DELETE", "CHANGE" -> type;
+                case "EQUAL" -> throw new IllegalArgumentException("Unsupported delta type: " + type);
+                default -> throw new IllegalArgumentException(
+                        "No enum constant com.github.difflib.patch.DeltaType." + type);
+            };
+        }
+
+        private int parseDecimal(int s, int e, int line) {
+            // Same leniency as Integer.parseInt(x.trim())
+            while (s < e && (bytes[s] & 0xFF) <= ' ') s++;
+            while (e > s && (bytes[e - 1] & 0xFF) <= ' ') e--;
+            if (s == e) {
+                throw new NumberFormatException("For input string: \"\" in line: " + text(line));
+            }
+            boolean negative = false;
+            if (bytes[s] == '-' || bytes[s] == '+') {
+                negative = bytes[s] == '-';
+                s++;
+                if (s == e) {
+                    throw new NumberFormatException("For input string: \"" + text(line) + "\"");
+                }
+            }
+            long value = 0;
+            for (int k = s; k < e; k++) {
+                int digit = bytes[k] - '0';
+                if (digit < 0 || digit > 9) {
+                    throw new NumberFormatException("For input string: \"" + text(line) + "\"");
+                }
+                value = value * 10 + digit;
+                if (value > (long) Integer.MAX_VALUE + 1) {
+                    throw new NumberFormatException("For input string: \"" + text(line) + "\"");
+                }
+            }
+            value = negative ? -value : value;
+            if (value > Integer.MAX_VALUE) {
+                throw new NumberFormatException("For input string: \"" + text(line) + "\"");
+            }
+            return (int) value;
+        }
+
+        private String text(int line) {
+            return new String(bytes, start[line], end[line] - start[line], StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Strict UTF-8 decoding for non-ASCII lines, failing on malformed input like Files.readAllLines.
+     */
+    private static final class Decoder {
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+
+        String decode(byte[] bytes, int offset, int length) throws CharacterCodingException {
+            CharBuffer chars = decoder.reset().decode(ByteBuffer.wrap(bytes, offset, length));
+            return chars.toString();
+        }
+    }
+}
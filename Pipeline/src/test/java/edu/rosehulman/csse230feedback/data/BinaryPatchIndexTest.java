@@ -0,0 +1,136 @@
+package edu.rosehulman.csse230feedback.data;
+
+import edu.rosehulman.csse230feedback.model.PatchPointer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryPatchIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void write_shouldRoundTripPointersInIndexOrder() throws IOException {
+        PatchPointer b2 = new PatchPointer("diffs_2_.tar.zip", "src/B.java", 2, "baselines/B", "patches/B_2",
+                "DELTA_PATCH", 1, 3, 0);
+        PatchPointer a5 = new PatchPointer("diffs_2_.tar.zip", "src/A.java", 5, "baselines/A", "patches/A_5",
+                "EMPTY", 0, 0, 0);
+        PatchPointer a1Later = new PatchPointer("diffs_2_.tar.zip", "src/A.java", 1, "baselines/A", "patches/A_1",
+                null);
+        PatchPointer a1 = new PatchPointer("diffs_1_.tar.zip", "src/A.java", 1, "baselines/A", "patches/A_1",
+                "FILE_CREATED", 0, 0, 0);
+        PatchPointer unicode = new PatchPointer("diffs_1_.tar.zip", "src/Ünïcode.java", 1, null, "patches/Ü_1",
+                "DELTA_PATCH", 2, 0, 7);
+
+        Path file = tempDir.resolve(BinaryPatchIndex.FILENAME);
+        BinaryPatchIndex.write(file, List.of(b2, unicode, a5, a1Later, a1));
+
+        BinaryPatchIndex index = BinaryPatchIndex.open(file);
+        assertEquals(5, index.size());
+        assertEquals(List.of(a1, a1Later, a5, b2, unicode), index.readAll());
+    }
+
+    @Test
+    void write_shouldHandleAnEmptyIndex() throws IOException {
+        Path file = tempDir.resolve(BinaryPatchIndex.FILENAME);
+        BinaryPatchIndex.write(file, List.of());
+        assertEquals(List.of(), BinaryPatchIndex.open(file).readAll());
+    }
+
+    @Test
+    void lookups_shouldMatchTheInMemoryIndex() throws IOException {
+        // Several files, gaps between runs, and two archives patching the same file at run 4
+        List<PatchPointer> pointers = new ArrayList<>();
+        Random random = new Random(230);
+        for (String fileKey : List.of("src/B.java", "src/A.java", "src/sub/C.java", "src/Ünïcode.java")) {
+            for (int run = 1; run <= 40; run++) {
+                if (random.nextInt(3) == 0) {
+                    String archive = "diffs_" + (run / 10 + 1) + "_.tar.zip";
+                    pointers.add(new PatchPointer(archive, fileKey, run, "baselines/" + fileKey,
+                            "patches/" + fileKey + "_" + run, "DELTA_PATCH", 1, run, 0));
+                }
+            }
+        }
+        pointers.add(new PatchPointer("diffs_9_.tar.zip", "src/A.java", 4, "baselines/A2", "patches/A2_4",
+                "DELTA_PATCH", 1, 1, 1));
+        pointers.add(new PatchPointer("diffs_0_.tar.zip", "src/A.java", 4, "baselines/A0", "patches/A0_4",
+                "FILE_CREATED", 0, 0, 0));
+        pointers.sort(Comparator.comparing(PatchPointer::archiveFilename).thenComparing(PatchPointer::fileKey)
+                .thenComparingInt(PatchPointer::runNumber));
+
+        Path file = tempDir.resolve(BinaryPatchIndex.FILENAME);
+        BinaryPatchIndex.write(file, pointers);
+        PatchIndex binary = BinaryPatchIndex.open(file);
+        PatchIndex expected = PatchIndex.build(pointers);
+
+        assertEquals(expected.size(), binary.size());
+        assertEquals(expected.fileKeys(), binary.fileKeys());
+        assertArrayEquals(expected.changedRuns(), binary.changedRuns());
+        assertEquals(expected.changedRunList(), binary.changedRunList());
+        for (String fileKey : List.of("src/A.java", "src/B.java", "src/sub/C.java", "src/Ünïcode.java",
+                "src/Missing.java", "")) {
+            assertArrayEquals(expected.runsFor(fileKey), binary.runsFor(fileKey), fileKey);
+            assertEquals(expected.pointersFor(fileKey), binary.pointersFor(fileKey), fileKey);
+            for (int run = -1; run <= 42; run++) {
+                assertEquals(expected.latestAtOrBefore(fileKey, run), binary.latestAtOrBefore(fileKey, run),
+                        fileKey + " @ " + run);
+            }
+        }
+        for (int run = -1; run <= 42; run++) {
+            assertEquals(expected.snapshotAt(run), binary.snapshotAt(run), "snapshot @ " + run);
+            assertEquals(new HashSet<>(expected.patchesAt(run)), new HashSet<>(binary.patchesAt(run)), "run " + run);
+            assertEquals(expected.hasChangesAt(run), binary.hasChangesAt(run), "run " + run);
+            assertEquals(expected.changedRunAtOrBefore(run), binary.changedRunAtOrBefore(run), "run " + run);
+        }
+        // Of the two patches at run 4, the one from the smaller archive wins
+        assertEquals("patches/A0_4", binary.latestAtOrBefore("src/A.java", 4).patchEntry());
+    }
+
+    @Test
+    void open_shouldRejectTruncatedAndUnknownFiles() throws IOException {
+        Path file = tempDir.resolve(BinaryPatchIndex.FILENAME);
+        BinaryPatchIndex.write(file, List.of(new PatchPointer("diffs_1_.tar.zip", "src/A.java", 1,
+                "baselines/A", "patches/A_1", "EMPTY", 0, 0, 0)));
+        byte[] bytes = Files.readAllBytes(file);
+
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 4));
+        assertThrows(IOException.class, () -> BinaryPatchIndex.open(file));
+
+        byte[] future = bytes.clone();
+        future[7] = 3;
+        Files.write(file, future);
+        assertThrows(IOException.class, () -> BinaryPatchIndex.open(file));
+
+        Files.write(file, "PIX1".getBytes(StandardCharsets.US_ASCII));
+        assertThrows(IOException.class, () -> BinaryPatchIndex.open(file));
+    }
+
+    @Test
+    void openBeside_shouldIgnoreAnIndexOlderThanTheJsonl() throws IOException {
+        Path jsonl = tempDir.resolve("patches_index.jsonl");
+        Files.writeString(jsonl, "");
+        assertNull(BinaryPatchIndex.openBeside(jsonl));
+
+        Path bin = tempDir.resolve(BinaryPatchIndex.FILENAME);
+        BinaryPatchIndex.write(bin, List.of());
+        Files.setLastModifiedTime(jsonl, FileTime.fromMillis(0));
+        assertNotNull(BinaryPatchIndex.openBeside(jsonl));
+
+        Files.setLastModifiedTime(jsonl, FileTime.fromMillis(Files.getLastModifiedTime(bin).toMillis() + 2000));
+        assertNull(BinaryPatchIndex.openBeside(jsonl));
+    }
+}
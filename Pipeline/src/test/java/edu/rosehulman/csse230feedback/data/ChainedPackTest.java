@@ -0,0 +1,188 @@
+package edu.rosehulman.csse230feedback.data;
+
+import edu.rosehulman.csse230feedback.model.PatchPointer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChainedPackTest {
+
+    private static final String ARCHIVE_1 = "diffs_1_.tar.zip";
+    private static final String ARCHIVE_2 = "diffs_2_.tar.zip";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void write_shouldRoundTripEveryVersionAcrossRebaselines() throws Exception {
+        Path archivesDir = tempDir.resolve("archives");
+        Path cacheDir = tempDir.resolve(".cache");
+        List<PatchPointer> pointers = writeArchives(archivesDir);
+        PatchIndex patchIndex = PatchIndex.build(pointers);
+
+        DiffFileReconstructor reconstructor = new DiffFileReconstructor();
+        Map<PatchPointer, List<String>> expected = new LinkedHashMap<>();
+        List<String> warnings = new ArrayList<>();
+        for (PatchPointer p : pointers) {
+            expected.put(p, reconstructor.reconstruct(archivesDir, p, cacheDir, warnings));
+        }
+
+        ChainedPackWriter.Summary summary = new ChainedPackWriter(reconstructor)
+                .write(archivesDir, patchIndex, cacheDir, 2, warnings);
+        assertEquals(List.of(), warnings);
+        assertEquals(ChainedPackWriter.pathIn(archivesDir), summary.pack());
+        assertEquals(2, summary.files());
+        assertEquals(pointers.size(), summary.versions());
+        // A's five versions at interval 2 need keyframes at 1, 3 and 5; B has one
+        assertEquals(4, summary.keyframes());
+
+        ChainedPackReader pack = ChainedPackReader.open(summary.pack());
+        assertEquals(2, pack.keyframeInterval());
+        assertEquals(pointers.size(), pack.versionCount());
+        assertNull(pack.dictionarySha256());
+
+        // Random access, then a cursor in chain order, then a cursor going backwards
+        for (PatchPointer p : pointers) {
+            assertEquals(expected.get(p), List.of(pack.read(p)), p.patchEntry());
+        }
+        ChainedPackReader.Cursor cursor = pack.cursor();
+        for (PatchPointer p : patchIndex.pointersFor("src/A.java")) {
+            assertEquals(expected.get(p), List.of(cursor.read(p)), p.patchEntry());
+        }
+        List<PatchPointer> reversed = new ArrayList<>(patchIndex.pointersFor("src/A.java"));
+        Collections.reverse(reversed);
+        for (PatchPointer p : reversed) {
+            assertEquals(expected.get(p), List.of(cursor.read(p)), p.patchEntry());
+        }
+
+        PatchPointer unknown = new PatchPointer(ARCHIVE_1, "src/A.java", 9, "baselines/A", "patches/A_9", null);
+        assertFalse(pack.contains(unknown));
+        assertNull(pack.read(unknown));
+
+        // Once the archives are gone, reconstruction reads the chained pack
+        for (String archive : List.of(ARCHIVE_1, ARCHIVE_2)) {
+            Files.delete(archivesDir.resolve(archive));
+        }
+        DiffFileReconstructor fromPack = new DiffFileReconstructor();
+        for (PatchPointer p : pointers) {
+            assertEquals(expected.get(p), fromPack.reconstruct(archivesDir, p, cacheDir, warnings), p.patchEntry());
+        }
+    }
+
+    @Test
+    void write_shouldLeaveOutVersionsThatCannotBeReconstructed() throws Exception {
+        Path archivesDir = tempDir.resolve("archives");
+        List<PatchPointer> pointers = new ArrayList<>(writeArchives(archivesDir));
+        pointers.add(new PatchPointer(ARCHIVE_1, "src/A.java", 6, "baselines/A", "patches/A_6",
+                "FILE_TOO_LARGE"));
+
+        List<String> warnings = new ArrayList<>();
+        ChainedPackWriter.Summary summary = new ChainedPackWriter(new DiffFileReconstructor())
+                .write(archivesDir, PatchIndex.build(pointers), tempDir.resolve(".cache"), 16, warnings);
+
+        assertEquals(pointers.size() - 1, summary.versions());
+        assertFalse(warnings.isEmpty());
+        assertFalse(ChainedPackReader.open(summary.pack()).contains(pointers.get(pointers.size() - 1)));
+    }
+
+    @Test
+    void write_shouldPrimeEntriesWithTheStoredPresetDictionary() throws Exception {
+        Path archivesDir = tempDir.resolve("student").resolve("archives");
+        Path cacheDir = tempDir.resolve(".cache");
+        List<PatchPointer> pointers = writeArchives(archivesDir);
+        PatchIndex patchIndex = PatchIndex.build(pointers);
+
+        Path starter = Files.writeString(tempDir.resolve("A.java"), String.join("\n", withTail("a", "b", "c")));
+        PresetDictionary dictionary = PresetDictionary.fromStarterFiles(List.of(starter));
+        Path shared = dictionary.store(tempDir);
+
+        DiffFileReconstructor reconstructor = new DiffFileReconstructor();
+        Map<PatchPointer, List<String>> expected = new LinkedHashMap<>();
+        List<String> warnings = new ArrayList<>();
+        for (PatchPointer p : pointers) {
+            expected.put(p, reconstructor.reconstruct(archivesDir, p, cacheDir, warnings));
+        }
+        ChainedPackWriter.Summary summary = new ChainedPackWriter(reconstructor, dictionary)
+                .write(archivesDir, patchIndex, cacheDir, 2, warnings);
+        assertEquals(List.of(), warnings);
+
+        ChainedPackReader pack = ChainedPackReader.open(summary.pack());
+        assertEquals(dictionary.sha256(), pack.dictionarySha256());
+        for (PatchPointer p : pointers) {
+            assertEquals(expected.get(p), List.of(pack.read(p)), p.patchEntry());
+        }
+
+        // A copy beside the pack keeps it readable once the shared one is gone
+        dictionary.store(archivesDir);
+        Files.delete(shared);
+        pack = ChainedPackReader.open(summary.pack());
+        for (PatchPointer p : pointers) {
+            assertEquals(expected.get(p), List.of(pack.read(p)), p.patchEntry());
+        }
+
+        Files.delete(archivesDir.resolve(PresetDictionary.DIRECTORY).resolve(dictionary.sha256() + ".dict"));
+        assertThrows(IOException.class, () -> ChainedPackReader.open(summary.pack()));
+    }
+
+    @Test
+    void open_shouldRejectOtherFiles() throws IOException {
+        Path file = tempDir.resolve(ChainedPackWriter.FILENAME);
+        Files.write(file, new byte[64]);
+        assertThrows(IOException.class, () -> ChainedPackReader.open(file));
+
+        Files.write(file, ChainedPackWriter.MAGIC);
+        assertThrows(IOException.class, () -> ChainedPackReader.open(file));
+    }
+
+    /**
+     * Two rebaseline epochs of src/A.java and one version of src/B.java: A 1-3 against the first
+     * baseline, A 4-5 against A 3 as the second, and B 1 created. A is long enough that a small
+     * edit is cheaper as a delta than as a keyframe.
+     */
+    private static List<PatchPointer> writeArchives(Path archivesDir) throws IOException {
+        Map<String, byte[]> first = new LinkedHashMap<>();
+        first.put("baselines/A", DiffArchives.lines(withTail("a", "b", "c")));
+        first.put("patches/A_1", new byte[0]);
+        first.put("patches/A_2", DiffArchives.lines("1;", "CHANGE", "1,1", "1,", "b", "1,", "B"));
+        first.put("patches/A_3", DiffArchives.lines("2;",
+                "CHANGE", "1,1", "1,", "b", "1,", "B",
+                "INSERT", "3,3", "0,", "2,", "d", "é"));
+        // Logged without a delta list, so never reconstructible; only the second test points at it
+        first.put("patches/A_6", DiffArchives.lines("File too large!"));
+        first.put("baselines/B", DiffArchives.lines("class B {}"));
+        first.put("patches/B_1", DiffArchives.lines("File created!"));
+        DiffArchives.write(archivesDir, ARCHIVE_1, first);
+
+        Map<String, byte[]> second = new LinkedHashMap<>();
+        second.put("baselines/A", DiffArchives.lines(withTail("a", "B", "c", "d", "é")));
+        second.put("patches/A_4", DiffArchives.lines("1;", "DELETE", "0,0", "1,", "a", "0,"));
+        second.put("patches/A_5", DiffArchives.lines("1;", "CHANGE", "3,3", "1,", "d", "2,", "", "}"));
+        DiffArchives.write(archivesDir, ARCHIVE_2, second);
+
+        return List.of(
+                new PatchPointer(ARCHIVE_1, "src/A.java", 1, "baselines/A", "patches/A_1", "EMPTY"),
+                new PatchPointer(ARCHIVE_1, "src/A.java", 2, "baselines/A", "patches/A_2", "DELTA_PATCH"),
+                new PatchPointer(ARCHIVE_1, "src/A.java", 3, "baselines/A", "patches/A_3", "DELTA_PATCH"),
+                new PatchPointer(ARCHIVE_2, "src/A.java", 4, "baselines/A", "patches/A_4", "DELTA_PATCH"),
+                new PatchPointer(ARCHIVE_2, "src/A.java", 5, "baselines/A", "patches/A_5", "DELTA_PATCH"),
+                new PatchPointer(ARCHIVE_1, "src/B.java", 1, "baselines/B", "patches/B_1", "FILE_CREATED"));
+    }
+
+    private static String[] withTail(String... head) {
+        List<String> lines = new ArrayList<>(List.of(head));
+        for (int i = 0; i < 30; i++) {
+            lines.add("    int field" + i + " = " + i + ";");
+        }
+        return lines.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,57 @@
+package edu.rosehulman.csse230feedback.data;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Builds diffs_*.tar.zip archives the way the logger writes them: one ZIP entry holding a TAR.
+ */
+final class DiffArchives {
+
+    private DiffArchives() {}
+
+    /**
+     * Writes {@code entries} (TAR name to content, in order) as {@code dir}/{@code name}.
+     */
+    static Path write(Path dir, String name, Map<String, byte[]> entries) throws IOException {
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tos = new TarArchiveOutputStream(tar)) {
+            for (Map.Entry<String, byte[]> e : entries.entrySet()) {
+                TarArchiveEntry te = new TarArchiveEntry(e.getKey());
+                te.setSize(e.getValue().length);
+                tos.putArchiveEntry(te);
+                tos.write(e.getValue());
+                tos.closeArchiveEntry();
+            }
+        }
+
+        Files.createDirectories(dir);
+        Path archive = dir.resolve(name);
+        try (OutputStream out = Files.newOutputStream(archive);
+             ZipOutputStream zos = new ZipOutputStream(out)) {
+            zos.putNextEntry(new ZipEntry(name.replace(".zip", "")));
+            tar.writeTo(zos);
+            zos.closeEntry();
+        }
+        return archive;
+    }
+
+    /** UTF-8 lines, each ending in "\n". */
+    static byte[] lines(String... lines) {
+        StringBuilder sb = new StringBuilder();
+        for (String line : lines) {
+            sb.append(line).append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
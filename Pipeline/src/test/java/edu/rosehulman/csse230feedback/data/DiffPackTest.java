@@ -0,0 +1,79 @@
+package edu.rosehulman.csse230feedback.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiffPackTest {
+
+    private static final String SHA = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void write_shouldRoundTripEveryTarEntry() throws IOException {
+        Map<String, byte[]> entries = entries();
+        Path archive = DiffArchives.write(tempDir, "diffs_3_.tar.zip", entries);
+
+        Path pack = new DiffPackWriter().write(archive, SHA);
+        assertEquals(tempDir.resolve("diffs_3_.pack"), pack);
+
+        DiffPackReader reader = DiffPackReader.open(pack);
+        assertEquals(SHA, reader.sourceSha256());
+        assertEquals(entries.keySet(), reader.entryNames());
+        for (Map.Entry<String, byte[]> e : entries.entrySet()) {
+            assertTrue(reader.contains(e.getKey()));
+            assertArrayEquals(e.getValue(), reader.readEntry(e.getKey()), e.getKey());
+        }
+        assertFalse(reader.contains("missing"));
+        assertNull(reader.readEntry("missing"));
+    }
+
+    @Test
+    void write_shouldGiveTheSamePackFromEntriesAlreadyRead() throws IOException {
+        Map<String, byte[]> entries = entries();
+        Path archive = DiffArchives.write(tempDir, "diffs_1_.tar.zip", entries);
+
+        byte[] fromArchive = Files.readAllBytes(new DiffPackWriter().write(archive, SHA));
+        byte[] fromEntries = Files.readAllBytes(new DiffPackWriter().write(archive, SHA, entries));
+        assertArrayEquals(fromArchive, fromEntries);
+    }
+
+    @Test
+    void stampMatches_shouldNoticeAChangedArchive() throws IOException {
+        Path archive = DiffArchives.write(tempDir, "diffs_1_.tar.zip", entries());
+        DiffPackReader reader = DiffPackReader.open(new DiffPackWriter().write(archive, SHA));
+        assertTrue(reader.stampMatches(archive));
+
+        Files.setLastModifiedTime(archive, FileTime.fromMillis(Files.getLastModifiedTime(archive).toMillis() + 2000));
+        assertFalse(reader.stampMatches(archive));
+    }
+
+    @Test
+    void open_shouldRejectOtherFiles() throws IOException {
+        Path notAPack = tempDir.resolve("diffs_1_.pack");
+        Files.write(notAPack, new byte[64]);
+        assertThrows(IOException.class, () -> DiffPackReader.open(notAPack));
+
+        Files.write(notAPack, DiffPackWriter.MAGIC);
+        assertThrows(IOException.class, () -> DiffPackReader.open(notAPack));
+    }
+
+    private static Map<String, byte[]> entries() {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("baselines/A.java", DiffArchives.lines("class A {", "    int x;", "}"));
+        entries.put("patches/A_1", new byte[0]);
+        entries.put("patches/A_2", DiffArchives.lines("1;", "CHANGE", "1,1", "1,", "    int x;", "1,", "    int y;"));
+        entries.put("patches/B_3", DiffArchives.lines("File created!"));
+        return entries;
+    }
+}
@@ -0,0 +1,73 @@
+package edu.rosehulman.csse230feedback.data;
+
+import edu.rosehulman.csse230feedback.model.PatchPointer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineChurnTest {
+
+    private static final String ARCHIVE_1 = "diffs_1_.tar.zip";
+    private static final String ARCHIVE_2 = "diffs_2_.tar.zip";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void lineChurn_shouldTrackTheRunThatIntroducedEachLine() throws Exception {
+        Path archivesDir = tempDir.resolve("archives");
+
+        // A 1-3 against the first baseline, A 4-5 against A 3 as the second
+        Map<String, byte[]> first = new LinkedHashMap<>();
+        first.put("baselines/A", DiffArchives.lines("a", "b", "c"));
+        first.put("patches/A_1", new byte[0]);
+        first.put("patches/A_2", DiffArchives.lines("1;", "CHANGE", "1,1", "1,", "b", "1,", "B"));
+        first.put("patches/A_3", DiffArchives.lines("2;",
+                "CHANGE", "1,1", "1,", "b", "1,", "B",
+                "INSERT", "3,3", "0,", "2,", "d", "é"));
+        DiffArchives.write(archivesDir, ARCHIVE_1, first);
+
+        Map<String, byte[]> second = new LinkedHashMap<>();
+        second.put("baselines/A", DiffArchives.lines("a", "B", "c", "d", "é"));
+        second.put("patches/A_4", DiffArchives.lines("1;", "DELETE", "0,0", "1,", "a", "0,"));
+        second.put("patches/A_5", DiffArchives.lines("1;", "CHANGE", "3,3", "1,", "d", "2,", "", "}"));
+        DiffArchives.write(archivesDir, ARCHIVE_2, second);
+
+        PatchIndex patchIndex = PatchIndex.build(List.of(
+                new PatchPointer(ARCHIVE_1, "src/A.java", 1, "baselines/A", "patches/A_1", "EMPTY"),
+                new PatchPointer(ARCHIVE_1, "src/A.java", 2, "baselines/A", "patches/A_2", "DELTA_PATCH"),
+                new PatchPointer(ARCHIVE_1, "src/A.java", 3, "baselines/A", "patches/A_3", "DELTA_PATCH"),
+                new PatchPointer(ARCHIVE_2, "src/A.java", 4, "baselines/A", "patches/A_4", "DELTA_PATCH"),
+                new PatchPointer(ARCHIVE_2, "src/A.java", 5, "baselines/A", "patches/A_5", "DELTA_PATCH")));
+
+        List<String> warnings = new ArrayList<>();
+        LineChurn churn = new DiffFileReconstructor()
+                .lineChurn(archivesDir, patchIndex, tempDir.resolve(".cache"), warnings);
+        assertEquals(List.of(), warnings);
+        assertEquals(List.of("src/A.java"), churn.fileKeys());
+
+        assertNull(churn.provenanceAt("src/A.java", 0));
+        assertArrayEquals(new int[] {1, 1, 1}, churn.provenanceAt("src/A.java", 1));
+        assertArrayEquals(new int[] {1, 2, 1}, churn.provenanceAt("src/A.java", 2));
+        assertArrayEquals(new int[] {1, 2, 1, 3, 3}, churn.provenanceAt("src/A.java", 3));
+        // Across the rebaseline: B c d é carry over from the first epoch
+        assertArrayEquals(new int[] {2, 1, 3, 3}, churn.provenanceAt("src/A.java", 4));
+        // a was removed at 4, so restoring it at 5 introduces it again
+        assertArrayEquals(new int[] {5, 2, 1, 5, 5, 3}, churn.provenanceAt("src/A.java", 5));
+        assertArrayEquals(new int[] {5, 2, 1, 5, 5, 3}, churn.provenanceAt("src/A.java", 9));
+
+        assertEquals(new LineChurn.Churn(3, 2, 2), churn.churn("src/A.java", 3, 5));
+        assertEquals(3, churn.linesIntroduced("src/A.java", 3, 5));
+        assertEquals(2, churn.linesIntroduced("src/A.java", 2, 3));
+        // Of d and é, added at 3, only é is left at 5
+        assertEquals(4, churn.linesIntroduced("src/A.java", 2, 5));
+        assertEquals(Map.of(), churn.churnByFile(5, 9));
+    }
+}
@@ -0,0 +1,100 @@
+package edu.rosehulman.csse230feedback.data;
+
+import edu.rosehulman.csse230feedback.model.PatchPointer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PatchIndexTest {
+
+    private static final List<String> FILE_KEYS = List.of("src/B.java", "src/A.java", "src/sub/C.java");
+
+    @Test
+    void latestAtOrBefore_shouldMatchALinearScan() {
+        // Random gaps between runs, and patches that share a run with another archive
+        Random random = new Random(230);
+        List<PatchPointer> pointers = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            String fileKey = FILE_KEYS.get(random.nextInt(FILE_KEYS.size()));
+            int run = random.nextInt(50);
+            pointers.add(new PatchPointer("diffs_" + random.nextInt(4) + "_.tar.zip", fileKey, run,
+                    "baselines/" + fileKey, "patches/" + fileKey + "_" + i, "DELTA_PATCH"));
+        }
+        PatchIndex index = PatchIndex.build(pointers);
+
+        assertEquals(pointers.size(), index.size());
+        assertEquals(FILE_KEYS.stream().sorted().toList(), index.fileKeys());
+        for (String fileKey : List.of("src/A.java", "src/B.java", "src/sub/C.java", "src/Missing.java")) {
+            assertArrayEquals(scanRunsFor(pointers, fileKey), index.runsFor(fileKey), fileKey);
+            for (int run = -2; run <= 52; run++) {
+                assertSame(scanLatest(pointers, fileKey, run), index.latestAtOrBefore(fileKey, run),
+                        fileKey + " @ " + run);
+            }
+        }
+
+        TreeSet<Integer> changed = new TreeSet<>();
+        pointers.forEach(p -> changed.add(p.runNumber()));
+        assertEquals(List.copyOf(changed), index.changedRunList());
+        for (int run = -2; run <= 52; run++) {
+            Integer floor = changed.floor(run);
+            assertEquals(floor != null ? floor : -1, index.changedRunAtOrBefore(run), "run " + run);
+            assertEquals(changed.contains(run), index.hasChangesAt(run), "run " + run);
+
+            List<PatchPointer> at = new ArrayList<>();
+            for (PatchPointer p : pointers) {
+                if (p.runNumber() == run) {
+                    at.add(p);
+                }
+            }
+            assertEquals(new TreeSet<>(at.stream().map(PatchPointer::patchEntry).toList()),
+                    new TreeSet<>(index.patchesAt(run).stream().map(PatchPointer::patchEntry).toList()),
+                    "run " + run);
+        }
+    }
+
+    @Test
+    void latestAtOrBefore_shouldPreferTheEarlierPointerOnATie() {
+        PatchPointer first = new PatchPointer("diffs_1_.tar.zip", "src/A.java", 5, "baselines/A", "patches/A_5", "DELTA_PATCH");
+        PatchPointer second = new PatchPointer("diffs_2_.tar.zip", "src/A.java", 5, "baselines/A", "patches/A_5", "DELTA_PATCH");
+        PatchPointer later = new PatchPointer("diffs_2_.tar.zip", "src/A.java", 8, "baselines/A", "patches/A_8", "DELTA_PATCH");
+
+        PatchIndex index = PatchIndex.build(List.of(first, later, second));
+        assertNull(index.latestAtOrBefore("src/A.java", 4));
+        assertSame(first, index.latestAtOrBefore("src/A.java", 5));
+        assertSame(first, index.latestAtOrBefore("src/A.java", 7));
+        assertSame(later, index.latestAtOrBefore("src/A.java", 8));
+        assertSame(later, index.latestAtOrBefore("src/A.java", Integer.MAX_VALUE));
+        assertEquals(List.of(first, second, later), index.pointersFor("src/A.java"));
+        assertArrayEquals(new int[] {5, 8}, index.runsFor("src/A.java"));
+
+        assertTrue(PatchIndex.build(List.of()).isEmpty());
+        assertNull(PatchIndex.build(List.of()).latestAtOrBefore("src/A.java", 5));
+    }
+
+    /** The pointer with the greatest run at or before {@code run}; among equals, the first. */
+    private static PatchPointer scanLatest(List<PatchPointer> pointers, String fileKey, int run) {
+        PatchPointer best = null;
+        for (PatchPointer p : pointers) {
+            if (p.fileKey().equals(fileKey) && p.runNumber() <= run
+                    && (best == null || p.runNumber() > best.runNumber())) {
+                best = p;
+            }
+        }
+        return best;
+    }
+
+    private static int[] scanRunsFor(List<PatchPointer> pointers, String fileKey) {
+        TreeSet<Integer> runs = new TreeSet<>();
+        for (PatchPointer p : pointers) {
+            if (p.fileKey().equals(fileKey)) {
+                runs.add(p.runNumber());
+            }
+        }
+        return runs.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
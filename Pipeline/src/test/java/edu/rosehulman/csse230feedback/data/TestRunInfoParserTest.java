@@ -0,0 +1,120 @@
+package edu.rosehulman.csse230feedback.data;
+
+import edu.rosehulman.csse230feedback.model.RunRecord;
+import edu.rosehulman.csse230feedback.model.TestResultRecord;
+import edu.rosehulman.csse230feedback.model.TestStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestRunInfoParserTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void parse_shouldBucketResultsByRunWhereverRunTimesSits() throws IOException {
+        // runTimes after the tests, reserved keys between them, and a run only the tests mention
+        Path file = write("""
+                {
+                  "prevRunNumber": 3,
+                  "BSTTesting": {
+                    "testInsert()": {"1": "FAILED: expected <1>", "2": "SUCCESSFUL", "3": "SUCCESSFUL"},
+                    "testRemove()": {"2": "FAILED", "4": "ABORTED"}
+                  },
+                  "toIgnore": {"BSTTesting": ["testHeight()"]},
+                  "AVLTesting": {
+                    "testRotate()": {"3": "DISABLED"}
+                  },
+                  "runTimes": {"1": "2026-01-19 05:11:53.896", "2": "2026-01-19 05:14:59.214", "3": "2026-01-19 05:16:16.741"}
+                }
+                """);
+
+        List<String> warnings = new ArrayList<>();
+        List<RunRecord> runs = new TestRunInfoParser().parse(file, warnings);
+
+        assertEquals(List.of(), warnings);
+        assertEquals(List.of(1, 2, 3, 4), runs.stream().map(RunRecord::runNumber).toList());
+        assertEquals("2026-01-19 05:11:53.896", runs.get(0).timestamp());
+        assertNotNull(runs.get(0).timestampMs());
+        assertNull(runs.get(3).timestamp());
+
+        assertEquals(List.of(result("BSTTesting", "testInsert()", TestStatus.FAILED, "expected <1>")),
+                runs.get(0).tests());
+        assertEquals(List.of(
+                result("BSTTesting", "testInsert()", TestStatus.SUCCESSFUL, null),
+                result("BSTTesting", "testRemove()", TestStatus.FAILED, null)), runs.get(1).tests());
+        // Sorted by test ID, not file order
+        assertEquals(List.of(
+                result("AVLTesting", "testRotate()", TestStatus.DISABLED, null),
+                result("BSTTesting", "testInsert()", TestStatus.SUCCESSFUL, null)), runs.get(2).tests());
+        assertEquals(List.of(result("BSTTesting", "testRemove()", TestStatus.ABORTED, null)), runs.get(3).tests());
+    }
+
+    @Test
+    void parse_shouldWarnAboutOddValuesWithRunTimesWarningsFirst() throws IOException {
+        Path file = write("""
+                {
+                  "BSTTesting": {
+                    "testInsert()": {"x": "SUCCESSFUL", "1": "EXPLODED", "2": null, "3": {"status": "SUCCESSFUL"}},
+                    "notATest": 5
+                  },
+                  "strikes": 2,
+                  "runTimes": {"one": "2026-01-19 05:11:53.896", "1": "yesterday"}
+                }
+                """);
+
+        List<String> warnings = new ArrayList<>();
+        List<RunRecord> runs = new TestRunInfoParser().parse(file, warnings);
+
+        assertEquals(List.of(
+                "Non-integer runTimes key: one",
+                "Non-integer run number under BSTTesting.testInsert(): x",
+                "Unknown test status token: 'EXPLODED' in string: 'EXPLODED'",
+                "Unknown test status token: 'null' in string: 'null'",
+                "Unknown test status token: '' in string: ''",
+                "Could not parse run time timestamp for run 1: 'yesterday'"), warnings);
+        assertEquals(List.of(1, 2, 3), runs.stream().map(RunRecord::runNumber).toList());
+        assertEquals(List.of(result("BSTTesting", "testInsert()", TestStatus.ABORTED, "EXPLODED")),
+                runs.get(0).tests());
+        assertNull(runs.get(0).timestampMs());
+    }
+
+    @Test
+    void parse_shouldInferRunsWithoutRunTimes() throws IOException {
+        Path file = write("""
+                {"BSTTesting": {"testInsert()": {"7": "SUCCESSFUL", "5": "FAILED: boom"}}}
+                """);
+
+        List<String> warnings = new ArrayList<>();
+        List<RunRecord> runs = new TestRunInfoParser().parse(file, warnings);
+
+        assertEquals(List.of("Missing or invalid runTimes node in testRunInfo.json; will infer run numbers from test results."),
+                warnings);
+        assertEquals(List.of(5, 7), runs.stream().map(RunRecord::runNumber).toList());
+        assertEquals("boom", runs.get(0).tests().get(0).cause());
+    }
+
+    @Test
+    void parse_shouldRejectANonObjectRoot() throws IOException {
+        Path file = write("[1, 2]");
+        assertThrows(IOException.class, () -> new TestRunInfoParser().parse(file, new ArrayList<>()));
+    }
+
+    private Path write(String json) throws IOException {
+        Path file = tempDir.resolve("testRunInfo.json");
+        Files.writeString(file, json);
+        return file;
+    }
+
+    private static TestResultRecord result(String testClass, String test, TestStatus status, String cause) {
+        return new TestResultRecord(testClass, test, testClass + "#" + test, status, cause);
+    }
+}
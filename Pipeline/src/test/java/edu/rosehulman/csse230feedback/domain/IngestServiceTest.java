@@ -0,0 +1,125 @@
+package edu.rosehulman.csse230feedback.domain;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import edu.rosehulman.csse230feedback.util.Json;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestServiceTest {
+
+    private static final Path RUN_TAR = Path.of("testInputs/run.tar");
+    private static final Pattern DIFF_ARCHIVE = Pattern.compile("diffs_(\\d+)_\\.tar\\.zip");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void ingest_shouldMatchAFullIngestWhenIncremental() throws IOException {
+        Path prefix = prefixOf(RUN_TAR, 10, tempDir.resolve("prefix.tar"));
+
+        Path full = tempDir.resolve("full");
+        new IngestService().ingest(options(RUN_TAR, full, false));
+
+        Path incremental = tempDir.resolve("incremental");
+        new IngestService().ingest(options(prefix, incremental, false));
+        IngestResult result = new IngestService().ingest(options(RUN_TAR, incremental, true));
+        assertEquals(3, result.runsAdded());
+        assertEquals(1, result.diffArchivesIndexed());
+
+        for (String file : List.of("runs.jsonl", "diff_index.json", "patches_index.jsonl", "patches_index.bin")) {
+            assertArrayEquals(Files.readAllBytes(full.resolve(file)), Files.readAllBytes(incremental.resolve(file)),
+                    file);
+        }
+        assertEquals(listing(full.resolve("archives")), listing(incremental.resolve("archives")));
+
+        // Nothing new: the previous output is kept as it is
+        result = new IngestService().ingest(options(RUN_TAR, incremental, true));
+        assertEquals(0, result.runsAdded());
+        assertEquals(0, result.diffArchivesIndexed());
+        assertArrayEquals(Files.readAllBytes(full.resolve("patches_index.jsonl")),
+                Files.readAllBytes(incremental.resolve("patches_index.jsonl")));
+    }
+
+    private IngestOptions options(Path runTar, Path out, boolean incremental) {
+        return new IngestOptions(runTar, out, tempDir.resolve("work"), false, 5000, 50L * 1024 * 1024,
+                false, incremental);
+    }
+
+    /**
+     * Writes {@code runTar} as it was after {@code lastRun}: later diff archives are left out, and
+     * testRunInfo.json loses the run times and test results of later runs.
+     */
+    private static Path prefixOf(Path runTar, int lastRun, Path out) throws IOException {
+        try (InputStream in = Files.newInputStream(runTar);
+             TarArchiveInputStream tis = new TarArchiveInputStream(in);
+             OutputStream os = Files.newOutputStream(out);
+             TarArchiveOutputStream tos = new TarArchiveOutputStream(os)) {
+            TarArchiveEntry entry;
+            while ((entry = tis.getNextTarEntry()) != null) {
+                byte[] content = tis.readAllBytes();
+                Matcher m = DIFF_ARCHIVE.matcher(entry.getName());
+                if (m.matches() && Integer.parseInt(m.group(1)) > lastRun) {
+                    continue;
+                }
+                if (entry.getName().equals("testRunInfo.json")) {
+                    JsonNode info = Json.mapper().readTree(content);
+                    for (Iterator<Map.Entry<String, JsonNode>> it = info.fields(); it.hasNext(); ) {
+                        Map.Entry<String, JsonNode> field = it.next();
+                        if (field.getKey().equals("runTimes")) {
+                            dropRunsAfter((ObjectNode) field.getValue(), lastRun);
+                        } else if (field.getValue().isObject() && !field.getKey().equals("strikes")) {
+                            // A test class: test name to results by run
+                            field.getValue().forEach(test -> {
+                                if (test.isObject()) {
+                                    dropRunsAfter((ObjectNode) test, lastRun);
+                                }
+                            });
+                        }
+                    }
+                    content = Json.mapper().writeValueAsBytes(info);
+                }
+                TarArchiveEntry copy = new TarArchiveEntry(entry.getName());
+                copy.setSize(content.length);
+                tos.putArchiveEntry(copy);
+                tos.write(content);
+                tos.closeArchiveEntry();
+            }
+        }
+        return out;
+    }
+
+    private static void dropRunsAfter(ObjectNode byRun, int lastRun) {
+        List<String> later = new ArrayList<>();
+        byRun.fieldNames().forEachRemaining(run -> {
+            if (run.matches("\\d+") && Integer.parseInt(run) > lastRun) {
+                later.add(run);
+            }
+        });
+        byRun.remove(later);
+    }
+
+    private static List<String> listing(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(p -> p.getFileName().toString()).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package edu.rosehulman.csse230feedback.domain;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import edu.rosehulman.csse230feedback.util.Json;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkspaceRunnerServiceTest {
+
+    private static final Path RUN_TAR = Path.of("testInputs/run.tar");
+    private static final Path DEPS = Path.of("src/main/java/testDependencies");
+    private static final Path TEST_SUPPORT = Path.of("src/main/java/testSupport");
+    private static final String ENRICHED_DIRNAME = "enriched_runs";
+    private static final String DISABLE_TIMING_CHECKS_PROP = "csse230.logger.disableTimingChecks";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void run_shouldWriteTheSameResultsInParallelAsSequentially() throws IOException {
+        Path input = ingest();
+
+        // Parallel runs skip the logger's timing checks; the sequential run must too, or a slow
+        // machine turns its timing strikes into differences
+        String previous = System.setProperty(DISABLE_TIMING_CHECKS_PROP, "true");
+        try {
+            Path sequential = tempDir.resolve("sequential");
+            RerunResult sequentialResult = new WorkspaceRunnerService().run(options(input, sequential, 1).build());
+            Path parallel = tempDir.resolve("parallel");
+            RerunResult parallelResult = new WorkspaceRunnerService().run(options(input, parallel, 3).build());
+
+            assertEquals(sequentialResult.runsProcessed(), parallelResult.runsProcessed());
+            assertEquals(sequentialResult.runsCompiled(), parallelResult.runsCompiled());
+            assertEquals(sequentialResult.totalTestsPassed(), parallelResult.totalTestsPassed());
+            assertEquals(sequentialResult.totalTestsFailed(), parallelResult.totalTestsFailed());
+            assertEnrichedEquals(sequential, parallel);
+        } finally {
+            if (previous == null) {
+                System.clearProperty(DISABLE_TIMING_CHECKS_PROP);
+            } else {
+                System.setProperty(DISABLE_TIMING_CHECKS_PROP, previous);
+            }
+        }
+    }
+
+    @Test
+    void run_shouldReuseTheEarliestDuplicateSnapshotInParallel() throws IOException {
+        Path input = ingest();
+
+        // Run 5's snapshot is run 4's, and runs 12 and 13 both have run 11's; with four workers a later
+        // duplicate may materialize first, but the snapshot still belongs to the earliest run
+        Path out = tempDir.resolve("deduped");
+        RerunResult result = new WorkspaceRunnerService().run(options(input, out, 4).dedupeSnapshots(true).build());
+
+        assertEquals(Set.of(
+                        "Run 5: snapshot identical to run 4; reused its results",
+                        "Run 12: snapshot identical to run 11; reused its results",
+                        "Run 13: snapshot identical to run 11; reused its results"),
+                result.warnings().stream().filter(w -> w.contains("snapshot identical")).collect(Collectors.toSet()));
+
+        Path enrichedDir = out.resolve(ENRICHED_DIRNAME);
+        JsonNode compileFailed = Json.mapper().readTree(enrichedDir.resolve("run_4_status.json").toFile());
+        JsonNode reused = Json.mapper().readTree(enrichedDir.resolve("run_5_status.json").toFile());
+        assertEquals("compile_failed", reused.get("status").asText());
+        assertEquals(compileFailed.get("errors"), reused.get("errors"));
+        byte[] tested = Files.readAllBytes(enrichedDir.resolve("enriched_11.json"));
+        assertArrayEquals(tested, Files.readAllBytes(enrichedDir.resolve("enriched_12.json")));
+        assertArrayEquals(tested, Files.readAllBytes(enrichedDir.resolve("enriched_13.json")));
+        assertEquals(result.resultsByRun().get(11), result.resultsByRun().get(13));
+    }
+
+    private Path ingest() throws IOException {
+        Path input = tempDir.resolve("input");
+        new IngestService().ingest(new IngestOptions(RUN_TAR, input, tempDir.resolve("ingest_work"), false, 5000,
+                50L * 1024 * 1024, false, false));
+        return input;
+    }
+
+    private RerunOptions.Builder options(Path input, Path out, int workers) {
+        return RerunOptions.builder()
+                .inputDir(input)
+                .outDir(out)
+                .workDir(out.resolve("work"))
+                .depsDir(DEPS)
+                .testSupportDir(TEST_SUPPORT)
+                .workers(workers);
+    }
+
+    /**
+     * Compares the enriched_runs JSON of the two outputs, leaving out what differs between any two
+     * runs of the same code: durations, identity hash codes, the workspace a run compiled in, and
+     * stack traces, whose outer frames are the rerun's own thread. The logger's run_N.tar files carry
+     * wall-clock times, so only their presence is compared.
+     */
+    private static void assertEnrichedEquals(Path expectedOut, Path actualOut) throws IOException {
+        Path expectedDir = expectedOut.resolve(ENRICHED_DIRNAME);
+        Path actualDir = actualOut.resolve(ENRICHED_DIRNAME);
+        List<String> files = listing(expectedDir);
+        assertFalse(files.isEmpty());
+        assertEquals(files, listing(actualDir));
+        for (String file : files) {
+            if (!file.endsWith(".json")) {
+                continue;
+            }
+            assertEquals(normalized(expectedDir.resolve(file)), normalized(actualDir.resolve(file)), file);
+        }
+    }
+
+    private static String normalized(Path file) throws IOException {
+        JsonNode json = Json.mapper().readTree(file.toFile());
+        json.forEach(node -> {
+            if (node instanceof ObjectNode test) {
+                test.remove(List.of("durationMs", "stackTrace"));
+            }
+        });
+        return Json.mapper().writerWithDefaultPrettyPrinter().writeValueAsString(json)
+                .replaceAll("@[0-9a-f]+", "@")
+                .replaceAll("\"[^\"]*/src/", "\"src/");
+    }
+
+    private static List<String> listing(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(p -> p.getFileName().toString()).sorted().toList();
+        }
+    }
+}
@@ -2,12 +2,17 @@ package edu.rosehulman.csse230feedback.runner;
 
 import edu.rosehulman.csse230feedback.model.EnrichedTestResult;
 import edu.rosehulman.csse230feedback.model.TestStatus;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -53,4 +58,100 @@ class EvidenceHarvesterTest {
             System.out.println("  " + r.testId() + ": " + r.status());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void harvest_shouldKeepOnlyThePreviousRunsEntries() throws IOException {
+        Path workspace = workspaceWith("testRunInfo.json", """
+                {
+                  "prevRunNumber": 2,
+                  "runTimes": {"1": "2026-01-19 05:11:53.896", "2": "2026-01-19 05:14:59.214"},
+                  "BSTTesting": {
+                    "testInsert()": {
+                      "1": {"status": "SUCCESSFUL"},
+                      "2": {"status": "FAILED: expected <1> but was <2>",
+                            "evidence": {"durationMs": 12, "exceptionType": "AssertionFailedError",
+                                         "expected": "1", "actual": "2"}}
+                    },
+                    "testRemove()": {"1": {"status": "FAILED"}}
+                  }
+                }
+                """);
+
+        EvidenceHarvester.HarvestResult result = new EvidenceHarvester().harvest(workspace);
+
+        assertEquals(2, result.runNumber());
+        assertEquals(List.of(), result.warnings());
+        assertEquals(List.of(EnrichedTestResult.create("BSTTesting", "testInsert()", TestStatus.FAILED,
+                "expected <1> but was <2>", 12L, null, "AssertionFailedError", null, "1", "2", null)),
+                result.results());
+    }
+
+    @Test
+    void harvest_shouldFilterTestClassesThatComeBeforePrevRunNumber() throws IOException {
+        Path workspace = workspaceWith("src/testSupport/testRunInfo.json", """
+                {
+                  "BSTTesting": {
+                    "testInsert()": {"1": {"status": "FAILED"}, "2": {"status": "SUCCESSFUL"}},
+                    "testRemove()": {"1": {"status": "SUCCESSFUL"}}
+                  },
+                  "AVLTesting": {"testRotate()": {"2": {"status": "DISABLED"}}},
+                  "prevRunNumber": 2,
+                  "HeapTesting": {"testAdd()": {"2": {"status": "ABORTED: timed out"}}}
+                }
+                """);
+
+        EvidenceHarvester.HarvestResult result = new EvidenceHarvester().harvest(workspace);
+
+        assertEquals(2, result.runNumber());
+        assertEquals(List.of(), result.warnings());
+        assertEquals(List.of("AVLTesting#testRotate()", "BSTTesting#testInsert()", "HeapTesting#testAdd()"),
+                result.results().stream().map(EnrichedTestResult::testId).toList());
+        assertEquals(List.of(TestStatus.DISABLED, TestStatus.SUCCESSFUL, TestStatus.ABORTED),
+                result.results().stream().map(EnrichedTestResult::status).toList());
+        assertEquals("timed out", result.results().get(2).cause());
+    }
+
+    @Test
+    void harvest_shouldFallBackToRunMinusOneWithoutPrevRunNumber() throws IOException {
+        Path workspace = workspaceWith("testRunInfo.json", """
+                {"BSTTesting": {"testInsert()": {"1": {"status": "SUCCESSFUL"}, "-1": {"status": "FAILED"}}}}
+                """);
+
+        EvidenceHarvester.HarvestResult result = new EvidenceHarvester().harvest(workspace);
+
+        assertEquals(-1, result.runNumber());
+        assertEquals(List.of(TestStatus.FAILED),
+                result.results().stream().map(EnrichedTestResult::status).toList());
+    }
+
+    @Test
+    void harvest_shouldWarnWhenRunTarHasNoTestRunInfo() throws IOException {
+        Path workspace = workspaceWith("other.json", "{}");
+
+        EvidenceHarvester.HarvestResult result = new EvidenceHarvester().harvest(workspace);
+
+        assertEquals(-1, result.runNumber());
+        assertTrue(result.results().isEmpty());
+        assertEquals(List.of("testRunInfo.json not found in run.tar"), result.warnings());
+    }
+
+    /**
+     * Creates workspace/src/testSupport/run.tar holding one entry.
+     */
+    private Path workspaceWith(String entryName, String content) throws IOException {
+        Path workspace = tempDir.resolve("workspace");
+        Path testSupportDir = workspace.resolve("src").resolve("testSupport");
+        Files.createDirectories(testSupportDir);
+
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        try (OutputStream out = Files.newOutputStream(testSupportDir.resolve("run.tar"));
+             TarArchiveOutputStream tar = new TarArchiveOutputStream(out)) {
+            TarArchiveEntry entry = new TarArchiveEntry(entryName);
+            entry.setSize(bytes.length);
+            tar.putArchiveEntry(entry);
+            tar.write(bytes);
+            tar.closeArchiveEntry();
+        }
+        return workspace;
+    }
+}
@@ -0,0 +1,99 @@
+package edu.rosehulman.csse230feedback.runner;
+
+import edu.rosehulman.csse230feedback.model.CompileResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalJavaCompilerTest {
+
+    private static final Path DEPS = Path.of("src/main/java/testDependencies");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void compile_shouldRecompileDependentsOfAChangedSource() throws Exception {
+        // C uses B, which uses A; D only inlines A's constant; E stands alone
+        source("A", "public class A { public static final int K = 1; public static int f() { return 1; } }");
+        source("B", "public class B { public static int f() { return A.f() * 10; } }");
+        source("C", "public class C { public static int f() { return B.f() + 5; } }");
+        source("D", "public class D { public static int f() { return A.K; } }");
+        source("E", "public class E { public static int f() { return 7; } }");
+
+        try (IncrementalJavaCompiler compiler = new IncrementalJavaCompiler(17)) {
+            assertSuccess(compiler.compile(tempDir, DEPS));
+            assertEquals(5, compiler.sourcesCompiled());
+            assertEquals(0, compiler.sourcesReused());
+            assertEquals(15, call("C"));
+
+            source("A", "public class A { public static final int K = 2; public static int f() { return 2; } }");
+            assertSuccess(compiler.compile(tempDir, DEPS));
+            // A, B and C through references, D through the inlined constant; E is reused
+            assertEquals(9, compiler.sourcesCompiled());
+            assertEquals(1, compiler.sourcesReused());
+            assertEquals(25, call("C"));
+            assertEquals(2, call("D"));
+            assertEquals(7, call("E"));
+
+            // Nothing changed: every class file is reused
+            assertSuccess(compiler.compile(tempDir, DEPS));
+            assertEquals(9, compiler.sourcesCompiled());
+            assertEquals(6, compiler.sourcesReused());
+
+            // Only the leaf changed: its dependencies are not recompiled
+            source("C", "public class C { public static int f() { return B.f() + 6; } }");
+            assertSuccess(compiler.compile(tempDir, DEPS));
+            assertEquals(10, compiler.sourcesCompiled());
+            assertEquals(26, call("C"));
+        }
+    }
+
+    @Test
+    void compile_shouldReportABrokenDependentLikeAFullCompile() throws Exception {
+        source("A", "public class A { public static int f() { return 1; } }");
+        source("B", "public class B { public static int f() { return A.f(); } }");
+        source("E", "public class E { }");
+
+        try (IncrementalJavaCompiler compiler = new IncrementalJavaCompiler(17)) {
+            assertSuccess(compiler.compile(tempDir, DEPS));
+
+            // B still calls the removed method, so it must not keep its stale class file
+            source("A", "public class A { public static int g() { return 1; } }");
+            CompileResult broken = compiler.compile(tempDir, DEPS);
+            assertFalse(broken.success());
+            assertTrue(broken.stderr().contains("B.java"), broken.stderr());
+
+            source("B", "public class B { public static int f() { return A.g() + 1; } }");
+            assertSuccess(compiler.compile(tempDir, DEPS));
+            assertEquals(2, call("B"));
+
+            // A removed source takes its class files with it
+            Files.delete(tempDir.resolve("src/E.java"));
+            assertSuccess(compiler.compile(tempDir, DEPS));
+            assertFalse(Files.exists(tempDir.resolve("bin/E.class")));
+        }
+    }
+
+    private void source(String className, String code) throws IOException {
+        Path srcDir = Files.createDirectories(tempDir.resolve("src"));
+        Files.writeString(srcDir.resolve(className + ".java"), code);
+    }
+
+    private int call(String className) throws Exception {
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {tempDir.resolve("bin").toUri().toURL()}, null)) {
+            return (int) loader.loadClass(className).getMethod("f").invoke(null);
+        }
+    }
+
+    private static void assertSuccess(CompileResult result) {
+        assertTrue(result.success(), result.stderr());
+    }
+}
@@ -0,0 +1,127 @@
+package edu.rosehulman.csse230feedback.runner;
+
+import edu.rosehulman.csse230feedback.model.CompileResult;
+import edu.rosehulman.csse230feedback.model.TestRunResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestWorkerPoolTest {
+
+    private static final Path DEPS = Path.of("src/main/java/testDependencies");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void runTests_shouldReplaceAWorkerThatTimesOut() throws IOException {
+        Path slow = workspace("slow", "SlowTest", """
+                import org.junit.jupiter.api.Test;
+                public class SlowTest {
+                    @Test
+                    void sleeps() throws Exception {
+                        Thread.sleep(60_000);
+                    }
+                }
+                """);
+        Path quick = workspace("quick", "QuickTest", passingTest("QuickTest"));
+
+        try (TestWorkerPool pool = new TestWorkerPool(1, null, 64, 64, 3, tempDir.resolve("logs"), false)) {
+            long start = System.nanoTime();
+            IOException e = assertThrows(IOException.class, () -> pool.runTests(slow, DEPS, null, null));
+            assertTrue(e.getMessage().contains("timed out after 3 seconds"), e.getMessage());
+            assertTrue(System.nanoTime() - start < 30_000_000_000L, "should not wait for the test");
+
+            // The only worker was killed, so this run needs its replacement
+            TestRunResult result = pool.runTests(quick, DEPS, null, null);
+            assertEquals(1, result.testsSucceeded());
+            assertEquals(0, result.testsFailed());
+        }
+    }
+
+    @Test
+    void runTests_shouldStopARunThatExceedsTheThreadLimit() throws IOException {
+        Path spawner = workspace("spawner", "SpawnerTest", """
+                import org.junit.jupiter.api.Test;
+                public class SpawnerTest {
+                    @Test
+                    void spawns() throws Exception {
+                        for (int i = 0; i < 40; i++) {
+                            Thread t = new Thread(() -> {
+                                try {
+                                    Thread.sleep(60_000);
+                                } catch (InterruptedException e) {
+                                    // exit
+                                }
+                            });
+                            t.start();
+                        }
+                        Thread.sleep(60_000);
+                    }
+                }
+                """);
+        Path quick = workspace("quick", "QuickTest", passingTest("QuickTest"));
+
+        try (TestWorkerPool pool = new TestWorkerPool(1, null, 64, 16, 60, tempDir.resolve("logs"), false)) {
+            long start = System.nanoTime();
+            IOException e = assertThrows(IOException.class, () -> pool.runTests(spawner, DEPS, null, null));
+            assertTrue(e.getMessage().contains("Thread limit exceeded"), e.getMessage());
+            assertTrue(System.nanoTime() - start < 30_000_000_000L, "should stop before the timeout");
+
+            TestRunResult result = pool.runTests(quick, DEPS, null, null);
+            assertEquals(1, result.testsSucceeded());
+        }
+    }
+
+    @Test
+    void runTests_shouldReuseAWorkerAcrossRuns() throws IOException {
+        Path first = workspace("first", "FirstTest", passingTest("FirstTest"));
+        Path second = workspace("second", "SecondTest", """
+                import org.junit.jupiter.api.Test;
+                import static org.junit.jupiter.api.Assertions.fail;
+                public class SecondTest {
+                    @Test
+                    void fails() {
+                        fail("expected");
+                    }
+                }
+                """);
+
+        try (TestWorkerPool pool = new TestWorkerPool(1, null, 64, 64, 60, tempDir.resolve("logs"), false)) {
+            assertEquals(1, pool.runTests(first, DEPS, null, null).testsSucceeded());
+            TestRunResult failed = pool.runTests(second, DEPS, null, null);
+            assertEquals(1, failed.testsFailed());
+            assertTrue(failed.stderr().contains("expected"), failed.stderr());
+        }
+    }
+
+    private static String passingTest(String className) {
+        return """
+                import org.junit.jupiter.api.Test;
+                public class %s {
+                    @Test
+                    void passes() {
+                    }
+                }
+                """.formatted(className);
+    }
+
+    /** Writes one test class to name/src and compiles it to name/bin. */
+    private Path workspace(String name, String className, String source) throws IOException {
+        Path workspace = tempDir.resolve(name);
+        Path srcDir = workspace.resolve("src");
+        Files.createDirectories(srcDir);
+        Files.writeString(srcDir.resolve(className + ".java"), source);
+
+        try (InMemoryJavaCompiler compiler = new InMemoryJavaCompiler(17)) {
+            CompileResult compiled = compiler.compile(workspace, DEPS);
+            assertTrue(compiled.success(), compiled.stderr());
+        }
+        return workspace;
+    }
+}
@@ -0,0 +1,302 @@
+package helpers;
+
+import com.github.difflib.DiffUtils;
+import com.github.difflib.patch.AbstractDelta;
+import com.github.difflib.patch.PatchFailedException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks FastDiffReplayer against DiffReplayer, which replays through DiffUtils.patch and is the
+ * reference for every patch it accepts.
+ */
+class FastDiffReplayerTest {
+
+    private static final String[] LINE_ENDINGS = {"\n", "\r\n", "\r"};
+    private static final String[] WORDS = {
+            "int x = 0;", "return x;", "}", "", "    // é", "naïve()", "日本語", "\t\tif (a) {", "😀", "x++;"
+    };
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void replay_shouldMatchDiffReplayerOnRandomEdits() throws Exception {
+        Random random = new Random(230);
+        for (int i = 0; i < 300; i++) {
+            List<String> original = randomLines(random, random.nextInt(40));
+            byte[] baseline = join(original, random, random.nextBoolean()).getBytes(StandardCharsets.UTF_8);
+            Path baselineFile = write("baseline", baseline);
+            // The reference split, so the diff is over the lines both replayers will see
+            List<String> baselineLines = Files.readAllLines(baselineFile, StandardCharsets.UTF_8);
+
+            List<String> revised = edit(random, baselineLines);
+            byte[] patch = serialize(DiffUtils.diff(baselineLines, revised).getDeltas(), random)
+                    .getBytes(StandardCharsets.UTF_8);
+
+            assertEquals(revised, replayAll(baseline, patch), "case " + i);
+        }
+    }
+
+    @Test
+    void replay_shouldSplitOnCrLfAndLoneCr() throws Exception {
+        byte[] baseline = "a\r\nb\rc\n\r\nd\r".getBytes(StandardCharsets.UTF_8);
+        byte[] patch = "1;\r\nCHANGE\r1,1\n2,\rb\r\nc\n1,\nB\r".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(List.of("a", "B", "", "d"), replayAll(baseline, patch));
+        assertArrayEquals(new String[] {"a", "b", "c", "", "d"}, FastDiffReplayer.decodeLines(baseline));
+    }
+
+    @Test
+    void replay_shouldKeepLastLineWithoutTerminator() throws Exception {
+        byte[] baseline = "a\nb".getBytes(StandardCharsets.UTF_8);
+        byte[] patch = "1;\nINSERT\n2,2\n0,\n1,\nc".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(List.of("a", "b", "c"), replayAll(baseline, patch));
+    }
+
+    @Test
+    void replay_shouldApplyOutOfOrderDeltasBySourcePosition() throws Exception {
+        byte[] baseline = lines("a", "b", "c", "d");
+        byte[] patch = lines("2;",
+                "CHANGE", "3,3", "1,", "d", "1,", "D",
+                "CHANGE", "0,0", "1,", "a", "1,", "A");
+
+        assertEquals(List.of("A", "b", "c", "D"), replayAll(baseline, patch));
+    }
+
+    @Test
+    void replay_shouldApplyOverlappingDeltasLastToFirst() throws Exception {
+        byte[] baseline = lines("a", "b", "c", "d", "e");
+        // Source ranges [1,3) and [2,3) overlap, so the forward merge does not apply: the second
+        // delta goes first and the first then replaces "b" and the first "c" only
+        byte[] patch = lines("2;",
+                "CHANGE", "1,1", "2,", "b", "c", "1,", "X",
+                "CHANGE", "2,2", "1,", "c", "2,", "c", "c");
+
+        assertEquals(List.of("a", "X", "c", "d", "e"), replayAll(baseline, patch));
+    }
+
+    @Test
+    void replay_shouldIgnoreSourceLinesOfInsertAndTargetLinesOfDelete() throws Exception {
+        byte[] baseline = lines("a", "b", "c");
+        byte[] patch = lines("2;",
+                "INSERT", "1,1", "1,", "b", "1,", "new",
+                "DELETE", "2,3", "1,", "c", "1,", "ignored");
+
+        assertEquals(List.of("a", "new", "b"), replayAll(baseline, patch));
+        assertEquals(new FastDiffReplayer.PatchStats(FastDiffReplayer.PatchKind.DELTA_PATCH, 2, 1, 1),
+                FastDiffReplayer.stats(patch));
+    }
+
+    @Test
+    void replay_shouldRejectMalformedPatchesLikeDiffReplayer() throws Exception {
+        byte[] baseline = lines("a", "b");
+        String[][] malformed = {
+                {"x;"},
+                {"1;", "MOVE", "0,0", "0,", "0,"},
+                {"1;", "EQUAL", "0,0", "0,", "0,"},
+                {"1;", "CHANGE"},
+                {"1;", "CHANGE", "0"},
+                {"1;", "CHANGE", "0,x", "0,", "0,"},
+                {"1;", "CHANGE", "0,0", "2,", "a"},
+                {"1;", "CHANGE", "0,0", "1,", "a"},
+                {"1;", "CHANGE", "0,0", "1,", "a", "2,", "A"},
+                {"2;", "CHANGE", "0,0", "1,", "a", "1,", "A"},
+        };
+        for (String[] patchLines : malformed) {
+            byte[] patch = lines(patchLines);
+            String name = String.join("|", patchLines);
+            Path baselineFile = write("baseline", baseline);
+            Path patchFile = write("patch", patch);
+
+            assertThrows(IllegalArgumentException.class, () -> DiffReplayer.replay(baselineFile, patchFile), name);
+            assertThrows(IllegalArgumentException.class, () -> FastDiffReplayer.replay(baseline, patch, false), name);
+            assertThrows(IllegalArgumentException.class, () -> FastDiffReplayer.replay(baseline, patch, true), name);
+            assertThrows(IllegalArgumentException.class, () -> FastDiffReplayer.stats(patch), name);
+        }
+    }
+
+    @Test
+    void replay_shouldFailOnlyInStrictModeWhenSourceLinesDiffer() throws Exception {
+        byte[] baseline = lines("a", "b", "c");
+        byte[] patch = lines("1;", "CHANGE", "1,1", "1,", "not b", "1,", "B");
+        Path baselineFile = write("baseline", baseline);
+        Path patchFile = write("patch", patch);
+
+        assertThrows(PatchFailedException.class, () -> DiffReplayer.replay(baselineFile, patchFile));
+        assertThrows(PatchFailedException.class, () -> FastDiffReplayer.replay(baseline, patch, true));
+        assertThrows(PatchFailedException.class, () -> FastDiffReplayer.replay(
+                FastDiffReplayer.decodeLines(baseline), patch, true, new Collector(new String[0])));
+        assertEquals(List.of("a", "B", "c"), FastDiffReplayer.replay(baseline, patch, false));
+    }
+
+    @Test
+    void replay_shouldRejectPositionsOutsideTheBaseline() throws Exception {
+        byte[] baseline = lines("a", "b");
+        for (byte[] patch : new byte[][] {
+                lines("1;", "CHANGE", "2,2", "1,", "c", "1,", "C"),
+                lines("1;", "DELETE", "1,1", "2,", "b", "c", "0,"),
+                lines("1;", "INSERT", "3,3", "0,", "1,", "x"),
+        }) {
+            Path baselineFile = write("baseline", baseline);
+            Path patchFile = write("patch", patch);
+
+            // DiffUtils compares content before checking the chunk's end, so it may fail with
+            // IndexOutOfBoundsException instead; callers only expect PatchFailedException
+            assertThrows(Exception.class, () -> DiffReplayer.replay(baselineFile, patchFile));
+            assertThrows(PatchFailedException.class, () -> FastDiffReplayer.replay(baseline, patch, false));
+            assertThrows(PatchFailedException.class, () -> FastDiffReplayer.replay(baseline, patch, true));
+        }
+    }
+
+    @Test
+    void replay_shouldHandleLoggerSentinels() throws Exception {
+        byte[] baseline = lines("a", "b");
+
+        assertEquals(List.of("a", "b"), replayAll(baseline, new byte[0]));
+        assertEquals(List.of("a", "b"), replayAll(baseline, lines("  File created!  ")));
+        assertEquals(FastDiffReplayer.PatchKind.EMPTY, FastDiffReplayer.stats(new byte[0]).kind());
+        assertEquals(FastDiffReplayer.PatchKind.FILE_CREATED, FastDiffReplayer.stats(lines("File created!")).kind());
+
+        byte[] tooLarge = lines("File too large!");
+        Path baselineFile = write("baseline", baseline);
+        Path patchFile = write("patch", tooLarge);
+        assertThrows(IllegalStateException.class, () -> DiffReplayer.replay(baselineFile, patchFile));
+        assertThrows(IllegalStateException.class, () -> FastDiffReplayer.replay(baseline, tooLarge, false));
+        assertEquals(FastDiffReplayer.PatchKind.FILE_TOO_LARGE, FastDiffReplayer.stats(tooLarge).kind());
+    }
+
+    @Test
+    void replay_shouldRejectMalformedUtf8() throws Exception {
+        byte[] baseline = {'a', '\n', (byte) 0xC3, '\n'};
+        byte[] patch = lines("0;");
+        Path baselineFile = write("baseline", baseline);
+        Path patchFile = write("patch", patch);
+
+        assertThrows(IOException.class, () -> DiffReplayer.replay(baselineFile, patchFile));
+        assertThrows(IOException.class, () -> FastDiffReplayer.replay(baseline, patch, false));
+        assertThrows(IOException.class, () -> FastDiffReplayer.decodeLines(baseline));
+    }
+
+    /**
+     * Replays with DiffReplayer, then checks that FastDiffReplayer agrees in both modes and through
+     * an {@link FastDiffReplayer.EditSink}.
+     */
+    private List<String> replayAll(byte[] baseline, byte[] patch) throws Exception {
+        List<String> expected = DiffReplayer.replay(write("baseline", baseline), write("patch", patch));
+
+        assertEquals(expected, FastDiffReplayer.replay(baseline, patch, false));
+        assertEquals(expected, FastDiffReplayer.replay(baseline, patch, true));
+
+        String[] baselineLines = FastDiffReplayer.decodeLines(baseline);
+        assertEquals(expected, FastDiffReplayer.replay(baselineLines, patch, true));
+        Collector sink = new Collector(baselineLines);
+        FastDiffReplayer.replay(baselineLines, patch, true, sink);
+        assertEquals(expected, sink.lines);
+        return expected;
+    }
+
+    private static final class Collector implements FastDiffReplayer.EditSink {
+        private final String[] baseline;
+        private final List<String> lines = new ArrayList<>();
+
+        Collector(String[] baseline) {
+            this.baseline = baseline;
+        }
+
+        @Override
+        public void keep(int from, int count) {
+            lines.addAll(Arrays.asList(baseline).subList(from, from + count));
+        }
+
+        @Override
+        public void insert(String[] inserted) {
+            lines.addAll(Arrays.asList(inserted));
+        }
+    }
+
+    private Path write(String name, byte[] bytes) throws IOException {
+        Path file = tempDir.resolve(name);
+        Files.write(file, bytes);
+        return file;
+    }
+
+    private static byte[] lines(String... lines) {
+        return (String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> randomLines(Random random, int count) {
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            lines.add(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return lines;
+    }
+
+    /** Joins with a random ending per line; the last line's ending is dropped when asked and possible. */
+    private static String join(List<String> lines, Random random, boolean dropLast) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines.size(); i++) {
+            sb.append(lines.get(i));
+            boolean last = i == lines.size() - 1;
+            // An unterminated empty last line would not be a line at all
+            if (!last || !dropLast || lines.get(i).isEmpty()) {
+                sb.append(LINE_ENDINGS[random.nextInt(LINE_ENDINGS.length)]);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static List<String> edit(Random random, List<String> lines) {
+        List<String> revised = new ArrayList<>(lines);
+        int edits = random.nextInt(5);
+        for (int e = 0; e < edits; e++) {
+            int pos = random.nextInt(revised.size() + 1);
+            switch (random.nextInt(3)) {
+                case 0 -> revised.addAll(pos, randomLines(random, 1 + random.nextInt(3)));
+                case 1 -> {
+                    if (pos < revised.size()) {
+                        revised.subList(pos, Math.min(revised.size(), pos + 1 + random.nextInt(3))).clear();
+                    }
+                }
+                default -> {
+                    if (pos < revised.size()) {
+                        revised.set(pos, WORDS[random.nextInt(WORDS.length)] + " // edited");
+                    }
+                }
+            }
+        }
+        return revised;
+    }
+
+    /** Writes deltas in the logger's format, with a random line ending on each patch line. */
+    private static String serialize(List<AbstractDelta<String>> deltas, Random random) {
+        List<String> out = new ArrayList<>();
+        out.add(deltas.size() + ";");
+        for (AbstractDelta<String> delta : deltas) {
+            out.add(delta.getType().name());
+            out.add(delta.getSource().getPosition() + "," + delta.getTarget().getPosition());
+            out.add(delta.getSource().size() + ",");
+            out.addAll(delta.getSource().getLines());
+            out.add(delta.getTarget().size() + ",");
+            out.addAll(delta.getTarget().getLines());
+        }
+        StringBuilder sb = new StringBuilder();
+        for (String line : out) {
+            sb.append(line).append(LINE_ENDINGS[random.nextInt(2)]);
+        }
+        return sb.toString();
+    }
+}